@@ -0,0 +1,104 @@
+package com.ornek.ecomstocksync.benchmark;
+
+import com.ornek.ecomstocksync.entity.BillOfMaterial;
+import com.ornek.ecomstocksync.entity.MaterialCard;
+import com.ornek.ecomstocksync.metrics.IntegrationMetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Benchmarklar için bellek içi veri ve repository yerine geçen proxy'ler. Spring context ve veritabanı
+ * açılmaz; ölçülen süre servis kodu ile bir HashMap okumasıdır.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static IntegrationMetricsService metrics() {
+        return new IntegrationMetricsService(new SimpleMeterRegistry());
+    }
+
+    /**
+     * Yalnızca verilen metodu yanıtlayan repository; diğer çağrılar benchmarkın yanlış yolu ölçtüğünü gösterir
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, String method, Function<Object[], Object> answer) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, m, args) -> {
+            if (m.getName().equals(method)) {
+                return answer.apply(args);
+            }
+            switch (m.getName()) {
+                case "hashCode": return System.identityHashCode(proxy);
+                case "equals": return proxy == args[0];
+                case "toString": return type.getSimpleName() + "(benchmark)";
+                default: throw new UnsupportedOperationException(type.getSimpleName() + "." + m.getName());
+            }
+        });
+    }
+
+    static MaterialCard material(String code, long stock) {
+        MaterialCard material = new MaterialCard(code, "Material " + code, "AD");
+        material.setCurrentStock(BigDecimal.valueOf(stock));
+        material.setAverageCost(BigDecimal.valueOf(2.5));
+        return material;
+    }
+
+    /**
+     * Sentetik çok seviyeli ürün ağacı. shared=false ise her düğümün kendi alt ağacı vardır (fanOut^depth yaprak);
+     * shared=true ise her seviyede fanOut*2 malzemelik bir havuzdan seçilir ve alt montajlar tekrar kullanılır.
+     */
+    static final class BomGraph {
+        final MaterialCard root;
+        final Map<MaterialCard, List<BillOfMaterial>> children = new HashMap<>();
+        int materialCount = 1;
+
+        BomGraph(int depth, int fanOut, boolean shared) {
+            root = material("ROOT", 1_000);
+            List<MaterialCard> level = List.of(root);
+            for (int d = 1; d <= depth; d++) {
+                List<MaterialCard> pool = new ArrayList<>();
+                if (shared) {
+                    for (int i = 0; i < fanOut * 2; i++) {
+                        pool.add(material("L" + d + "-" + i, 50L + i));
+                    }
+                    materialCount += pool.size();
+                }
+                List<MaterialCard> next = new ArrayList<>();
+                int seq = 0;
+                for (MaterialCard parent : level) {
+                    List<BillOfMaterial> boms = new ArrayList<>(fanOut);
+                    for (int c = 0; c < fanOut; c++) {
+                        MaterialCard child;
+                        if (shared) {
+                            child = pool.get((seq + c * 3) % pool.size());
+                        } else {
+                            child = material("L" + d + "-" + seq + "-" + c, 50L + c);
+                            materialCount++;
+                            next.add(child);
+                        }
+                        BillOfMaterial bom = new BillOfMaterial(parent, child, BigDecimal.valueOf(1 + c % 3));
+                        if (c % 2 == 1) {
+                            bom.setScrapPercentage(BigDecimal.valueOf(5));
+                        }
+                        boms.add(bom);
+                    }
+                    children.put(parent, boms);
+                    seq++;
+                }
+                level = shared ? pool : next;
+            }
+        }
+
+        List<BillOfMaterial> activeBomsByParent(MaterialCard parent) {
+            return children.getOrDefault(parent, List.of());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.ornek.ecomstocksync.benchmark;
+
+import com.ornek.ecomstocksync.entity.MaterialCard;
+import com.ornek.ecomstocksync.repository.BillOfMaterialRepository;
+import com.ornek.ecomstocksync.service.impl.ATPServiceImpl;
+import com.ornek.ecomstocksync.service.impl.BillOfMaterialServiceImpl;
+import com.ornek.ecomstocksync.service.ATPService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * explodeBom ve calculateATPWithBOM sentetik ağaçlar üzerinde. Repository bellek içi bir Map'tir;
+ * gerçek ortamda her düğüm bir sorgu olduğundan buradaki süre alt sınırdır, sorgu sayısı ise düğüm sayısı kadardır.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BomExplosionBenchmark {
+
+    @Param({"3", "5"})
+    public int depth;
+
+    @Param({"3", "6"})
+    public int fanOut;
+
+    @Param({"false", "true"})
+    public boolean shared;
+
+    private BillOfMaterialServiceImpl bomService;
+    private ATPService atpService;
+    private MaterialCard root;
+    private final BigDecimal quantity = BigDecimal.valueOf(12);
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.BomGraph graph = new BenchmarkFixtures.BomGraph(depth, fanOut, shared);
+        root = graph.root;
+        bomService = new BillOfMaterialServiceImpl();
+        ReflectionTestUtils.setField(bomService, "bomRepository", BenchmarkFixtures.repository(
+            BillOfMaterialRepository.class, "findActiveBomsByParent", args -> graph.activeBomsByParent((MaterialCard) args[0])));
+        ATPServiceImpl atp = new ATPServiceImpl();
+        ReflectionTestUtils.setField(atp, "bomService", bomService);
+        atpService = atp;
+    }
+
+    @Benchmark
+    public Map<MaterialCard, BigDecimal> explodeBom() {
+        return bomService.explodeBom(root, quantity);
+    }
+
+    @Benchmark
+    public ATPService.ATPResult calculateATPWithBOM() {
+        return atpService.calculateATPWithBOM(root, quantity);
+    }
+}
@@ -0,0 +1,66 @@
+package com.ornek.ecomstocksync.benchmark;
+
+import com.ornek.ecomstocksync.util.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket'ın CAS yolu: tek thread ve aynı anahtar üzerinde 8 thread. Kova hiç boşalmayacak kadar
+ * büyüktür; reddetme (ve log) yolu ölçülmez.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final String KEY = "shopify:1";
+    private static final int CAPACITY = 1_000_000_000;
+    private static final double REFILL_PER_SECOND = 1e12;
+
+    private RateLimiter rateLimiter;
+
+    @Setup
+    public void setUp() {
+        rateLimiter = new RateLimiter(BenchmarkFixtures.metrics());
+    }
+
+    @TearDown
+    public void tearDown() {
+        rateLimiter.shutdown();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean tryAcquireUncontended() {
+        return rateLimiter.tryAcquire(KEY, CAPACITY, REFILL_PER_SECOND);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean tryAcquireContended() {
+        return rateLimiter.tryAcquire(KEY, CAPACITY, REFILL_PER_SECOND);
+    }
+
+    // Bekleme süresinin metriğe yazılması dahil
+    @Benchmark
+    @Threads(8)
+    public boolean acquireContended() {
+        return rateLimiter.acquire(KEY, CAPACITY, REFILL_PER_SECOND, Duration.ZERO);
+    }
+}
@@ -0,0 +1,66 @@
+package com.ornek.ecomstocksync.benchmark;
+
+import com.ornek.ecomstocksync.util.RetryExecutor;
+import com.ornek.ecomstocksync.util.RetryPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RetryExecutor'ın kendi maliyeti: ilk denemede başarı (future zinciri) ve sıfır beklemeli tek tekrar
+ * (zamanlayıcı havuzuna geçiş dahil).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RetryExecutorBenchmark {
+
+    private RetryExecutor retryExecutor;
+    private RetryPolicy policy;
+
+    @Setup
+    public void setUp() {
+        retryExecutor = new RetryExecutor(BenchmarkFixtures.metrics(), 2);
+        policy = RetryPolicy.of(3, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        retryExecutor.shutdown();
+    }
+
+    @Benchmark
+    public Integer firstAttemptSucceeds() {
+        return retryExecutor.executeAsync(() -> 42, policy).join();
+    }
+
+    @Benchmark
+    public Integer succeedsOnSecondAttempt() {
+        AtomicInteger attempts = new AtomicInteger();
+        return retryExecutor.executeAsync(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("transient");
+            }
+            return 42;
+        }, policy).join();
+    }
+
+    @Benchmark
+    public void executeWithRetrySync() {
+        retryExecutor.executeWithRetry(() -> { }, 3, 0);
+    }
+}
@@ -0,0 +1,57 @@
+package com.ornek.ecomstocksync.benchmark;
+
+import com.ornek.ecomstocksync.entity.Platform;
+import com.ornek.ecomstocksync.entity.PlatformProduct;
+import com.ornek.ecomstocksync.util.StockDistribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * propagateStockChange'in paylaştırma hesabı (StockDistribution): eşit ve oranlı dağıtım, her dördüncü ürün pasif.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StockDistributionBenchmark {
+
+    @Param({"2", "8", "64"})
+    public int platformCount;
+
+    @Param({"false", "true"})
+    public boolean weighted;
+
+    private List<PlatformProduct> platformProducts;
+
+    @Setup
+    public void setUp() {
+        platformProducts = new ArrayList<>(platformCount);
+        for (int i = 0; i < platformCount; i++) {
+            Platform platform = new Platform();
+            platform.setDistributionRatio(weighted ? 100 / platformCount + (i % 3) : null);
+            PlatformProduct pp = new PlatformProduct(platform, null, "P" + i);
+            pp.setActive(i % 4 != 3);
+            platformProducts.add(pp);
+        }
+    }
+
+    @Benchmark
+    public int[] portions() {
+        return StockDistribution.portions(platformProducts, 997);
+    }
+}
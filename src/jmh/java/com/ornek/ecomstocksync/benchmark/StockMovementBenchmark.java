@@ -0,0 +1,59 @@
+package com.ornek.ecomstocksync.benchmark;
+
+import com.ornek.ecomstocksync.entity.MaterialCard;
+import com.ornek.ecomstocksync.entity.StockMovement;
+import com.ornek.ecomstocksync.repository.StockMovementRepository;
+import com.ornek.ecomstocksync.service.impl.StockMovementServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * calculateCurrentStock uzun hareket geçmişinde; repository hazır listeyi döner, yalnızca toplama ölçülür.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StockMovementBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int historySize;
+
+    private StockMovementServiceImpl stockMovementService;
+    private MaterialCard material;
+
+    @Setup
+    public void setUp() {
+        material = BenchmarkFixtures.material("M1", 0);
+        StockMovement.MovementType[] types = StockMovement.MovementType.values();
+        List<StockMovement> history = new ArrayList<>(historySize);
+        for (int i = 0; i < historySize; i++) {
+            history.add(new StockMovement(material, types[i % types.length], BigDecimal.valueOf(1 + i % 17, i % 3)));
+        }
+        stockMovementService = new StockMovementServiceImpl();
+        ReflectionTestUtils.setField(stockMovementService, "stockMovementRepository", BenchmarkFixtures.repository(
+            StockMovementRepository.class, "findByMaterialOrderByMovementDateDesc", args -> history));
+    }
+
+    @Benchmark
+    public BigDecimal calculateCurrentStock() {
+        return stockMovementService.calculateCurrentStock(material);
+    }
+}
@@ -0,0 +1,47 @@
+package com.ornek.ecomstocksync.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ölçüm penceresindeki tüm gecikmeleri tutar; yüzdelikler sıralanmış örneklerden kesin olarak hesaplanır.
+ * Bir senaryo en fazla birkaç yüz bin istek ürettiği için örnekleri saklamak histograma göre daha basittir.
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[16_384];
+    private int count;
+
+    synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    synchronized Map<String, Object> summary() {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("count", count);
+        data.put("mean", count == 0 ? 0.0 : millis((long) Arrays.stream(sorted).average().orElse(0)));
+        data.put("p50", millis(percentile(sorted, 0.50)));
+        data.put("p90", millis(percentile(sorted, 0.90)));
+        data.put("p95", millis(percentile(sorted, 0.95)));
+        data.put("p99", millis(percentile(sorted, 0.99)));
+        data.put("p999", millis(percentile(sorted, 0.999)));
+        data.put("max", millis(count == 0 ? 0 : sorted[count - 1]));
+        return data;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
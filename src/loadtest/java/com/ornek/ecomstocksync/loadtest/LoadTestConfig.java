@@ -0,0 +1,90 @@
+package com.ornek.ecomstocksync.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Harness ayarları. Komut satırında key=value, ya da -Dloadtest.key=value olarak verilir; komut satırı önceliklidir.
+ */
+final class LoadTestConfig {
+
+    final int platforms;
+    final int products;
+    final List<String> scenarios;
+    final double rate;
+    final int warmupSeconds;
+    final int durationSeconds;
+    final int maxInFlight;
+    final int drainSeconds;
+    final Map<String, String> marketplace = new LinkedHashMap<>();
+    final int marketplaceThreads;
+    final double platformRatePerSecond;
+    final int platformRateCapacity;
+    final String username;
+    final String password;
+    final String output;
+
+    private LoadTestConfig(Map<String, String> values) {
+        platforms = Integer.parseInt(get(values, "platforms", "2"));
+        products = Integer.parseInt(get(values, "products", "200"));
+        scenarios = new ArrayList<>(Arrays.asList(get(values, "scenarios", "stock,propagate,webhook,sync").split(",")));
+        rate = Double.parseDouble(get(values, "rate", "200"));
+        warmupSeconds = Integer.parseInt(get(values, "warmup", "5"));
+        durationSeconds = Integer.parseInt(get(values, "duration", "20"));
+        maxInFlight = Integer.parseInt(get(values, "max-in-flight", "256"));
+        drainSeconds = Integer.parseInt(get(values, "drain", "30"));
+        // Varsayılan: platform limitleri kapalı, yalnızca gecikme; gerçekçi limitler için marketplace.unlimited=false
+        marketplace.put("unlimited", "true");
+        marketplace.put("latency", "lognormal:20:80");
+        values.forEach((key, value) -> {
+            if (key.startsWith("marketplace.") && !key.equals("marketplace.threads")) {
+                marketplace.put(key.substring("marketplace.".length()), value.trim());
+            }
+        });
+        marketplaceThreads = Integer.parseInt(get(values, "marketplace.threads", "64"));
+        platformRatePerSecond = Double.parseDouble(get(values, "platform.rate-per-second", "1000"));
+        platformRateCapacity = Integer.parseInt(get(values, "platform.rate-capacity", "1000"));
+        username = get(values, "username", "admin");
+        password = get(values, "password", "admin");
+        output = get(values, "output", "target/loadtest-result.json");
+    }
+
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        System.getProperties().forEach((k, v) -> {
+            String key = k.toString();
+            if (key.startsWith("loadtest.")) {
+                values.put(key.substring("loadtest.".length()), v.toString());
+            }
+        });
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                values.put(arg.substring(0, eq).replaceFirst("^--", ""), arg.substring(eq + 1));
+            }
+        }
+        return new LoadTestConfig(values);
+    }
+
+    private static String get(Map<String, String> values, String key, String defaultValue) {
+        String value = values.get(key);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("platforms", platforms);
+        data.put("products", products);
+        data.put("scenarios", scenarios);
+        data.put("ratePerSecond", rate);
+        data.put("warmupSeconds", warmupSeconds);
+        data.put("durationSeconds", durationSeconds);
+        data.put("maxInFlight", maxInFlight);
+        data.put("marketplace", marketplace);
+        data.put("platformRatePerSecond", platformRatePerSecond);
+        return data;
+    }
+}
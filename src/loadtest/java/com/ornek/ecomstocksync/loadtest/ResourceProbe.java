@@ -0,0 +1,193 @@
+package com.ornek.ecomstocksync.loadtest;
+
+import com.ornek.ecomstocksync.loadtest.marketplace.MarketplaceSimulator;
+import com.ornek.ecomstocksync.metrics.IntegrationMetricsService;
+import com.ornek.ecomstocksync.sync.SyncHistoryWriter;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.ApplicationContext;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Senaryo öncesi/sonrası sayaç görüntüsü: Hibernate istatistikleri, geçmiş yazıcısı, pazaryerine giden istekler,
+ * platform istemcisinden geçen kalemler, thread bazında ayrılan bellek ve GC. Yalnızca farklar anlamlıdır.
+ * <p>
+ * JdbcTemplate ile yapılan toplu yazımlar (geçmiş, outbox) Hibernate sayılarına girmez; bunlar history batch sayısında
+ * görünür. Bellek ayırma thread bazında ölçülür; pencere içinde kapanan thread'lerin ayırdığı bellek kaybolur,
+ * değer yaklaşık alt sınırdır.
+ */
+final class ResourceProbe {
+
+    private static final long QUIET_MS = 3000;
+    private static final long POLL_MS = 250;
+
+    private final Statistics statistics;
+    private final SyncHistoryWriter historyWriter;
+    private final IntegrationMetricsService integrationMetrics;
+    private final MarketplaceSimulator marketplace;
+    private final com.sun.management.ThreadMXBean threads;
+
+    ResourceProbe(ApplicationContext context, MarketplaceSimulator marketplace) {
+        this.statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        this.historyWriter = context.getBean(SyncHistoryWriter.class);
+        this.integrationMetrics = context.getBean(IntegrationMetricsService.class);
+        this.marketplace = marketplace;
+        this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    Snapshot snapshot() {
+        Snapshot s = new Snapshot();
+        s.prepareStatements = statistics.getPrepareStatementCount();
+        s.queries = statistics.getQueryExecutionCount();
+        s.entityLoads = statistics.getEntityLoadCount();
+        s.entityInserts = statistics.getEntityInsertCount();
+        s.entityUpdates = statistics.getEntityUpdateCount();
+        s.transactions = statistics.getTransactionCount();
+        Map<String, Object> history = historyWriter.snapshot();
+        s.historyBatches = ((Number) history.get("batches")).longValue();
+        s.historyRows = ((Number) history.get("written")).longValue();
+        s.marketplaceRequests = marketplace.requestCount();
+        s.marketplaceByStore = marketplace.requestsByStore();
+        s.marketplaceThrottled = marketplace.throttledCount();
+        readPlatformCalls(s);
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            s.gcCount += Math.max(0, gc.getCollectionCount());
+            s.gcTimeMs += Math.max(0, gc.getCollectionTime());
+        }
+        long[] ids = threads.getAllThreadIds();
+        long[] allocated = threads.getThreadAllocatedBytes(ids);
+        ThreadInfo[] infos = threads.getThreadInfo(ids);
+        for (int i = 0; i < ids.length; i++) {
+            if (infos[i] != null && allocated[i] >= 0) {
+                s.allocatedByThread.put(ids[i], allocated[i]);
+                s.threadNames.put(ids[i], infos[i].getThreadName());
+            }
+        }
+        return s;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readPlatformCalls(Snapshot s) {
+        Map<String, Object> operations = (Map<String, Object>) integrationMetrics.snapshot().get("operations");
+        for (Map.Entry<String, Object> entry : operations.entrySet()) {
+            Map<String, Object> row = (Map<String, Object>) entry.getValue();
+            s.platformCalls += ((Number) row.get("count")).longValue() + ((Number) row.get("errors")).longValue();
+            if (entry.getKey().contains("/updateStock")) {
+                s.platformStockItems += ((Number) row.get("items")).longValue();
+            }
+        }
+    }
+
+    /**
+     * Platform çağrıları ve geçmiş yazımı en az QUIET_MS boyunca değişmeyene kadar bekler (outbox ve
+     * geçmiş yazıcısının kuyrukları boşalır). Süre dolarsa son görüntüyü döner.
+     */
+    Snapshot awaitQuiet(Duration max) throws InterruptedException {
+        long deadline = System.nanoTime() + max.toNanos();
+        Snapshot last = snapshot();
+        long quietSince = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(POLL_MS);
+            Snapshot current = snapshot();
+            if (current.platformCalls != last.platformCalls || current.historyRows != last.historyRows
+                    || current.marketplaceRequests != last.marketplaceRequests) {
+                quietSince = System.nanoTime();
+                last = current;
+            } else if (System.nanoTime() - quietSince >= QUIET_MS * 1_000_000L) {
+                return last;
+            }
+        }
+        return last;
+    }
+
+    static final class Snapshot {
+        final long nanos = System.nanoTime();
+        long prepareStatements;
+        long queries;
+        long entityLoads;
+        long entityInserts;
+        long entityUpdates;
+        long transactions;
+        long historyBatches;
+        long historyRows;
+        long marketplaceRequests;
+        long marketplaceThrottled;
+        Map<String, Long> marketplaceByStore = new TreeMap<>();
+        long platformCalls;
+        long platformStockItems;
+        long gcCount;
+        long gcTimeMs;
+        final Map<Long, Long> allocatedByThread = new HashMap<>();
+        final Map<Long, String> threadNames = new HashMap<>();
+
+        /**
+         * @param seconds  Oranlar için pencere uzunluğu
+         * @param requests Penceredeki başarılı istek sayısı; istek başına değerler için
+         */
+        Map<String, Object> diff(Snapshot before, double seconds, long requests) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("seconds", round(seconds));
+
+            Map<String, Object> db = new LinkedHashMap<>();
+            long statements = prepareStatements - before.prepareStatements;
+            db.put("statements", statements);
+            db.put("queries", queries - before.queries);
+            db.put("entityLoads", entityLoads - before.entityLoads);
+            db.put("entityInserts", entityInserts - before.entityInserts);
+            db.put("entityUpdates", entityUpdates - before.entityUpdates);
+            db.put("transactions", transactions - before.transactions);
+            db.put("statementsPerRequest", requests == 0 ? 0.0 : round((double) statements / requests));
+            db.put("historyBatches", historyBatches - before.historyBatches);
+            db.put("historyRows", historyRows - before.historyRows);
+            data.put("db", db);
+
+            long appBytes = 0;
+            long loadBytes = 0;
+            for (Map.Entry<Long, Long> entry : allocatedByThread.entrySet()) {
+                long delta = entry.getValue() - before.allocatedByThread.getOrDefault(entry.getKey(), 0L);
+                String name = threadNames.getOrDefault(entry.getKey(), "");
+                // Yük üreteci ve pazaryeri simülatörü uygulamanın maliyetine sayılmaz
+                if (name.startsWith("loadgen") || name.startsWith("marketplace")) {
+                    loadBytes += delta;
+                } else {
+                    appBytes += delta;
+                }
+            }
+            Map<String, Object> allocation = new LinkedHashMap<>();
+            allocation.put("appMb", round(appBytes / 1048576.0));
+            allocation.put("appMbPerSecond", round(appBytes / 1048576.0 / seconds));
+            allocation.put("appKbPerRequest", requests == 0 ? 0.0 : round(appBytes / 1024.0 / requests));
+            allocation.put("loadGeneratorMb", round(loadBytes / 1048576.0));
+            allocation.put("gcCount", gcCount - before.gcCount);
+            allocation.put("gcTimeMs", gcTimeMs - before.gcTimeMs);
+            data.put("allocation", allocation);
+
+            Map<String, Object> platform = new LinkedHashMap<>();
+            platform.put("calls", platformCalls - before.platformCalls);
+            platform.put("stockItems", platformStockItems - before.platformStockItems);
+            long marketplaceDelta = marketplaceRequests - before.marketplaceRequests;
+            platform.put("marketplaceRequests", marketplaceDelta);
+            Map<String, Long> byStore = new TreeMap<>();
+            marketplaceByStore.forEach((store, count) -> byStore.put(store, count - before.marketplaceByStore.getOrDefault(store, 0L)));
+            platform.put("marketplaceRequestsByStore", byStore);
+            platform.put("marketplaceThrottled", marketplaceThrottled - before.marketplaceThrottled);
+            data.put("platform", platform);
+            data.put("platformItemsPerSecond", round((platformStockItems - before.platformStockItems) / seconds));
+            return data;
+        }
+
+        private static double round(double value) {
+            return Double.isNaN(value) || Double.isInfinite(value) ? 0.0 : Math.round(value * 100) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,446 @@
+package com.ornek.ecomstocksync.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ornek.ecomstocksync.EcomStockSyncApplication;
+import com.ornek.ecomstocksync.entity.MaterialCard;
+import com.ornek.ecomstocksync.entity.Platform;
+import com.ornek.ecomstocksync.entity.PlatformProduct;
+import com.ornek.ecomstocksync.loadtest.marketplace.MarketplaceSimulator;
+import com.ornek.ecomstocksync.loadtest.marketplace.StoreScript;
+import com.ornek.ecomstocksync.repository.MaterialCardRepository;
+import com.ornek.ecomstocksync.repository.PlatformProductRepository;
+import com.ornek.ecomstocksync.repository.PlatformRepository;
+import com.ornek.ecomstocksync.service.PlatformService;
+import com.ornek.ecomstocksync.webhook.WebhookReceiver;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.math.BigDecimal;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Uçtan uca senkron yük testi. Uygulamayı aynı JVM'de bellek içi H2 ile başlatır, N platform × M ürün yükler,
+ * platformların baseUrl'ini pazaryeri simülatörüne yönlendirir ve her senaryoyu sabit hızda (açık döngü) sürer:
+ * <ul>
+ *   <li>stock: PUT /api/sync/stock/{ppId}</li>
+ *   <li>propagate: POST /api/sync/propagate/stock/{materialId}</li>
+ *   <li>webhook: imzalı satış webhook'u (Shopify/eBay)</li>
+ *   <li>sync: POST /api/sync/platform/{id}?incremental=true</li>
+ * </ul>
+ * Gecikme isteğin planlanan başlangıcından ölçülür; sistem yetişemezse kuyrukta geçen süre de görünür.
+ * Her senaryo için işlem hızı, gecikme yüzdelikleri, Hibernate sorgu/ifade sayıları, uygulama thread'lerinin
+ * bellek ayırma hızı, GC ve pazaryerine ulaşan kalem sayısı raporlanır; sonuç JSON olarak yazılır.
+ * <p>
+ * Çalıştırma: mvn -Ploadtest verify -Dloadtest.args="products=500 rate=400 scenarios=stock,propagate"
+ */
+public final class SyncLoadHarness {
+
+    private static final String SECRET = "loadtest-secret";
+    // eBay bildirimleri simülatörün getPublicKey ile verdiği anahtarın çiftiyle imzalanır
+    private static final String NOTIFICATION_KEY_ID = "loadtest-notification-key";
+    private static final KeyPair NOTIFICATION_KEYS = notificationKeys();
+
+    private final LoadTestConfig config;
+    private final MarketplaceSimulator marketplace;
+    private ConfigurableApplicationContext context;
+    private ResourceProbe probe;
+    private HttpClient http;
+    private ExecutorService httpExecutor;
+    private String baseUrl;
+    private final List<Platform> platforms = new ArrayList<>();
+    private final List<Long> materialIds = new ArrayList<>();
+    private final List<Long> platformProductIds = new ArrayList<>();
+
+    private SyncLoadHarness(LoadTestConfig config) throws Exception {
+        this.config = config;
+        this.marketplace = new MarketplaceSimulator(0, config.marketplaceThreads);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        SyncLoadHarness harness = new SyncLoadHarness(config);
+        int status = 0;
+        try {
+            harness.start();
+            Map<String, Object> report = harness.runAll();
+            File out = new File(config.output);
+            if (out.getParentFile() != null) {
+                out.getParentFile().mkdirs();
+            }
+            new ObjectMapper().findAndRegisterModules().writerWithDefaultPrettyPrinter().writeValue(out, report);
+            System.out.println("Load test result written to " + out.getAbsolutePath());
+        } catch (Exception e) {
+            e.printStackTrace();
+            status = 1;
+        } finally {
+            harness.stop();
+        }
+        System.exit(status);
+    }
+
+    private void start() throws Exception {
+        marketplace.start();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        properties.put("spring.jpa.properties.hibernate.generate_statistics", "true");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("reconcile.scheduled.enabled", "false");
+        context = new SpringApplicationBuilder(EcomStockSyncApplication.class).properties(properties).run();
+        baseUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        probe = new ResourceProbe(context, marketplace);
+
+        seed();
+
+        AtomicInteger seq = new AtomicInteger();
+        httpExecutor = Executors.newFixedThreadPool(4, r -> {
+            Thread t = new Thread(r, "loadgen-http-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        http = HttpClient.newBuilder()
+            .executor(httpExecutor)
+            .cookieHandler(new CookieManager())
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        login();
+    }
+
+    private void seed() {
+        PlatformRepository platformRepository = context.getBean(PlatformRepository.class);
+        MaterialCardRepository materialRepository = context.getBean(MaterialCardRepository.class);
+        PlatformProductRepository platformProductRepository = context.getBean(PlatformProductRepository.class);
+        PlatformService platformService = context.getBean(PlatformService.class);
+
+        for (int p = 1; p <= config.platforms; p++) {
+            Platform.PlatformType type = p % 2 == 1 ? Platform.PlatformType.SHOPIFY : Platform.PlatformType.EBAY;
+            String code = "LT" + p;
+            Platform platform = new Platform("Load test " + p, code, type);
+            String apiKey = "loadtest-key-" + p;
+            StoreScript script = MarketplaceSimulator.configure(StoreScript.of(
+                type == Platform.PlatformType.EBAY ? StoreScript.Dialect.EBAY : StoreScript.Dialect.SHOPIFY), config.marketplace);
+            if (type == Platform.PlatformType.EBAY) {
+                script.notificationKey(NOTIFICATION_KEY_ID, pem(NOTIFICATION_KEYS.getPublic()));
+            }
+            marketplace.addStore(code, script.accessToken(apiKey));
+            platform.setBaseUrl(marketplace.storeUrl(code));
+            platform.setRateLimitPerSecond(config.platformRatePerSecond);
+            platform.setRateLimitCapacity(config.platformRateCapacity);
+            platform = platformRepository.save(platform);
+            platformService.saveCredential(platform.getId(), "API_KEY", apiKey);
+            platformService.saveCredential(platform.getId(), WebhookReceiver.SECRET_CREDENTIAL_TYPE, SECRET);
+            if (type == Platform.PlatformType.EBAY) {
+                platformService.saveCredential(platform.getId(), "CURRENCY", "USD");
+            }
+            platforms.add(platform);
+        }
+        List<MaterialCard> materials = new ArrayList<>();
+        for (int m = 1; m <= config.products; m++) {
+            MaterialCard material = new MaterialCard("LT-M" + m, "Load test material " + m, "AD");
+            material.setCurrentStock(BigDecimal.valueOf(100_000));
+            material.setAverageCost(BigDecimal.TEN);
+            materials.add(material);
+        }
+        for (MaterialCard material : materialRepository.saveAll(materials)) {
+            materialIds.add(material.getId());
+        }
+        List<PlatformProduct> products = new ArrayList<>();
+        for (Platform platform : platforms) {
+            for (MaterialCard material : materials) {
+                PlatformProduct pp = new PlatformProduct(platform, material, platform.getCode() + "-" + material.getMaterialCode());
+                pp.setPlatformSku(material.getMaterialCode());
+                // Simülatörde InventoryItem varyantla aynı id'yi taşır; her malzeme tek varyantlı bir üründür
+                pp.setInventoryItemId(pp.getPlatformProductId());
+                pp.setPlatformParentId(material.getMaterialCode());
+                pp.setStock(100);
+                pp.setPrice(BigDecimal.valueOf(19.90));
+                products.add(pp);
+            }
+        }
+        for (PlatformProduct pp : platformProductRepository.saveAll(products)) {
+            platformProductIds.add(pp.getId());
+            // Mağaza tarafındaki başlangıç stoğu: Shopify inventory item id, eBay SKU ile tutar
+            String key = pp.getPlatform().getType() == Platform.PlatformType.EBAY ? pp.getPlatformSku() : pp.getInventoryItemId();
+            marketplace.store(pp.getPlatform().getCode()).putInventory(key, pp.getStock());
+        }
+        System.out.printf("Seeded %d platforms x %d products (%d platform products), marketplace at %s%n",
+            platforms.size(), materialIds.size(), platformProductIds.size(), marketplace.baseUrl());
+    }
+
+    private void login() throws Exception {
+        String form = "username=" + config.username + "&password=" + config.password;
+        HttpResponse<Void> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(form))
+            .build(), HttpResponse.BodyHandlers.discarding());
+        String location = response.headers().firstValue("Location").orElse("");
+        if (response.statusCode() != 302 || location.contains("error")) {
+            throw new IllegalStateException("Login failed: status=" + response.statusCode() + " location=" + location);
+        }
+    }
+
+    private Map<String, Object> runAll() throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", Instant.now().toString());
+        report.put("config", config.toMap());
+        report.put("jvm", Map.of(
+            "version", System.getProperty("java.version"),
+            "availableProcessors", Runtime.getRuntime().availableProcessors(),
+            "maxHeapMb", Runtime.getRuntime().maxMemory() / (1024 * 1024)));
+        Map<String, Object> scenarios = new LinkedHashMap<>();
+        for (String scenario : config.scenarios) {
+            String name = scenario.trim();
+            if (name.isEmpty()) continue;
+            Map<String, Object> result = runScenario(name);
+            scenarios.put(name, result);
+            printSummary(name, result);
+        }
+        report.put("scenarios", scenarios);
+        report.put("marketplace", marketplace.snapshot());
+        return report;
+    }
+
+    /**
+     * Isınma + ölçüm süresince sabit hızla istek üretir. Aynı anda açık istek max-in-flight'ı aşarsa yeni istek
+     * gönderilmez ve "dropped" sayılır: bu, hedef hızın sistemin kapasitesini aştığını gösterir.
+     */
+    private Map<String, Object> runScenario(String scenario) throws Exception {
+        System.out.printf("Running scenario %s: %.0f req/s for %ds (+%ds warmup)%n",
+            scenario, config.rate, config.durationSeconds, config.warmupSeconds);
+        Semaphore inFlight = new Semaphore(config.maxInFlight);
+        LatencyRecorder latencies = new LatencyRecorder();
+        LongAdder ok = new LongAdder();
+        LongAdder errors = new LongAdder();
+        LongAdder dropped = new LongAdder();
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        AtomicLong sequence = new AtomicLong();
+
+        long intervalNanos = (long) (1_000_000_000L / Math.max(0.001, config.rate));
+        long start = System.nanoTime();
+        long measureStart = start + TimeUnit.SECONDS.toNanos(config.warmupSeconds);
+        long end = measureStart + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+        ResourceProbe.Snapshot before = null;
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) break;
+            long now = System.nanoTime();
+            if (intended > now) {
+                LockSupport.parkNanos(intended - now);
+            }
+            boolean measured = intended >= measureStart;
+            if (measured && before == null) {
+                before = probe.snapshot();
+            }
+            if (!inFlight.tryAcquire()) {
+                if (measured) dropped.increment();
+                continue;
+            }
+            HttpRequest request = request(scenario, sequence.incrementAndGet());
+            http.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                inFlight.release();
+                if (!measured) return;
+                latencies.record(System.nanoTime() - intended);
+                if (error == null && response.statusCode() < 400) {
+                    ok.increment();
+                } else {
+                    errors.increment();
+                }
+                int status = error == null ? response.statusCode() : -1;
+                statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+            });
+        }
+        if (before == null) {
+            before = probe.snapshot();
+        }
+        // Açık isteklerin bitmesini bekle
+        if (!inFlight.tryAcquire(config.maxInFlight, 60, TimeUnit.SECONDS)) {
+            System.out.println("Warning: requests still in flight after 60s");
+        } else {
+            inFlight.release(config.maxInFlight);
+        }
+        long windowNanos = System.nanoTime() - measureStart;
+        ResourceProbe.Snapshot afterRequests = probe.snapshot();
+        // Outbox üzerinden pazaryerine gidecek kalemlerin boşalmasını bekle
+        long drainStart = System.nanoTime();
+        ResourceProbe.Snapshot drained = probe.awaitQuiet(Duration.ofSeconds(config.drainSeconds));
+        long drainNanos = System.nanoTime() - drainStart;
+
+        double windowSeconds = windowNanos / 1e9;
+        long completed = ok.sum();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requestsOk", completed);
+        result.put("requestsFailed", errors.sum());
+        result.put("requestsDropped", dropped.sum());
+        Map<String, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, count) -> statusCounts.put(String.valueOf(status), count.sum()));
+        result.put("statusCodes", statusCounts);
+        result.put("throughputPerSecond", round(completed / windowSeconds));
+        result.put("latencyMs", latencies.summary());
+        result.put("requestWindow", afterRequests.diff(before, windowSeconds, completed));
+        result.put("drainSeconds", round(drainNanos / 1e9));
+        Map<String, Object> endToEnd = drained.diff(before, (windowNanos + drainNanos) / 1e9, completed);
+        result.put("endToEnd", endToEnd);
+        return result;
+    }
+
+    private HttpRequest request(String scenario, long seq) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (scenario) {
+            case "stock": {
+                Long ppId = platformProductIds.get((int) (seq % platformProductIds.size()));
+                return json("PUT", "/api/sync/stock/" + ppId, "{\"stock\":" + random.nextInt(1, 500) + "}");
+            }
+            case "propagate": {
+                Long materialId = materialIds.get((int) (seq % materialIds.size()));
+                int change = random.nextBoolean() ? random.nextInt(1, 6) : -random.nextInt(1, 6);
+                return json("POST", "/api/sync/propagate/stock/" + materialId, "{\"stockChange\":" + change + "}");
+            }
+            case "webhook":
+                return webhook(seq);
+            case "sync": {
+                Platform platform = platforms.get((int) (seq % platforms.size()));
+                return json("POST", "/api/sync/platform/" + platform.getId() + "?incremental=true", "{}");
+            }
+            default:
+                throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        }
+    }
+
+    private HttpRequest webhook(long seq) {
+        Platform platform = platforms.get((int) (seq % platforms.size()));
+        String sku = "LT-M" + (1 + seq % materialIds.size());
+        HttpRequest.Builder builder;
+        String body;
+        if (platform.getType() == Platform.PlatformType.SHOPIFY) {
+            body = "{\"id\":" + seq + ",\"line_items\":[{\"sku\":\"" + sku + "\",\"quantity\":1}]}";
+            builder = HttpRequest.newBuilder(URI.create(baseUrl + "/webhooks/shopify/" + platform.getCode()))
+                .header("X-Shopify-Topic", "orders/create")
+                .header("X-Shopify-Webhook-Id", UUID.randomUUID().toString())
+                .header("X-Shopify-Hmac-Sha256", sign(body));
+        } else {
+            body = "{\"metadata\":{\"topic\":\"ITEM_SOLD\"},\"notification\":{\"notificationId\":\"" + seq
+                + "\",\"data\":{\"lineItems\":[{\"sku\":\""
+                + sku + "\",\"quantity\":1}]}}}";
+            builder = HttpRequest.newBuilder(URI.create(baseUrl + "/webhooks/ebay/" + platform.getCode()))
+                .header("X-EBAY-TOPIC", "ITEM_SOLD")
+                .header("X-EBAY-SIGNATURE", ebaySignature(body));
+        }
+        return builder.header("Content-Type", "application/json")
+            .timeout(Duration.ofSeconds(30))
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+
+    private HttpRequest json(String method, String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .header("Content-Type", "application/json")
+            .timeout(Duration.ofSeconds(30))
+            .method(method, HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+
+    private static String sign(String body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return Base64.getEncoder().encodeToString(mac.doFinal(body.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // X-EBAY-SIGNATURE: Base64 {"alg":"ECDSA","kid":..,"signature":..,"digest":"SHA1"}
+    private static String ebaySignature(String body) {
+        try {
+            Signature signer = Signature.getInstance("SHA1withECDSA");
+            signer.initSign(NOTIFICATION_KEYS.getPrivate());
+            signer.update(body.getBytes(StandardCharsets.UTF_8));
+            String header = "{\"alg\":\"ECDSA\",\"kid\":\"" + NOTIFICATION_KEY_ID + "\",\"signature\":\""
+                + Base64.getEncoder().encodeToString(signer.sign()) + "\",\"digest\":\"SHA1\"}";
+            return Base64.getEncoder().encodeToString(header.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static KeyPair notificationKeys() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            return generator.generateKeyPair();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String pem(PublicKey key) {
+        return "-----BEGIN PUBLIC KEY-----\n"
+            + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(key.getEncoded())
+            + "\n-----END PUBLIC KEY-----";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void printSummary(String scenario, Map<String, Object> result) {
+        Map<String, Object> latency = (Map<String, Object>) result.get("latencyMs");
+        Map<String, Object> window = (Map<String, Object>) result.get("requestWindow");
+        Map<String, Object> endToEnd = (Map<String, Object>) result.get("endToEnd");
+        System.out.printf("%-10s ok=%s failed=%s dropped=%s rps=%s p50=%sms p95=%sms p99=%sms max=%sms "
+                + "db/req=%s alloc=%sMB/s delivered/s=%s%n",
+            scenario, result.get("requestsOk"), result.get("requestsFailed"), result.get("requestsDropped"),
+            result.get("throughputPerSecond"), latency.get("p50"), latency.get("p95"), latency.get("p99"), latency.get("max"),
+            ((Map<String, Object>) window.get("db")).get("statementsPerRequest"),
+            ((Map<String, Object>) window.get("allocation")).get("appMbPerSecond"),
+            endToEnd.get("platformItemsPerSecond"));
+    }
+
+    private static double round(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? 0.0 : Math.round(value * 100) / 100.0;
+    }
+
+    private void stop() {
+        if (context != null) {
+            context.close();
+        }
+        if (httpExecutor != null) {
+            httpExecutor.shutdownNow();
+        }
+        marketplace.stop();
+    }
+}
@@ -0,0 +1,83 @@
+package com.ornek.ecomstocksync.loadtest.marketplace;
+
+import java.util.Random;
+
+/**
+ * Yanıt gecikmesi dağılımı. Örnekler mağazanın tohumlu Random'ından çekilir; aynı tohum ve aynı istek sırası
+ * aynı gecikme dizisini verir.
+ */
+public abstract class LatencyModel {
+
+    // Standart normal dağılımın %99 noktası
+    private static final double Z99 = 2.3263478740408408;
+
+    public static final LatencyModel NONE = fixed(0);
+
+    public abstract long sampleMillis(Random random);
+
+    public static LatencyModel fixed(long millis) {
+        return new LatencyModel() {
+            @Override
+            public long sampleMillis(Random random) {
+                return millis;
+            }
+
+            @Override
+            public String toString() {
+                return "fixed:" + millis;
+            }
+        };
+    }
+
+    public static LatencyModel uniform(long minMillis, long maxMillis) {
+        return new LatencyModel() {
+            @Override
+            public long sampleMillis(Random random) {
+                return maxMillis <= minMillis ? minMillis : minMillis + (long) (random.nextDouble() * (maxMillis - minMillis + 1));
+            }
+
+            @Override
+            public String toString() {
+                return "uniform:" + minMillis + ":" + maxMillis;
+            }
+        };
+    }
+
+    /**
+     * Log-normal dağılım: medyan ve p99 verilir, kuyruk bu ikisinden türetilir. Gerçek API gecikmelerine en yakın
+     * basit modeldir (çoğu istek hızlı, az sayıda istek medyanın katları kadar yavaş).
+     */
+    public static LatencyModel logNormal(long medianMillis, long p99Millis) {
+        double mu = Math.log(Math.max(1, medianMillis));
+        double sigma = Math.max(0.0, (Math.log(Math.max(medianMillis, p99Millis)) - mu) / Z99);
+        return new LatencyModel() {
+            @Override
+            public long sampleMillis(Random random) {
+                if (medianMillis <= 0) return 0;
+                return Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+            }
+
+            @Override
+            public String toString() {
+                return "lognormal:" + medianMillis + ":" + p99Millis;
+            }
+        };
+    }
+
+    /**
+     * Komut satırı biçimi: "fixed:20", "uniform:10:50", "lognormal:40:300"; yalnızca sayı verilirse sabit gecikmedir
+     */
+    public static LatencyModel parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        switch (parts[0]) {
+            case "fixed":
+                return fixed(Long.parseLong(parts[1]));
+            case "uniform":
+                return uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            case "lognormal":
+                return logNormal(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            default:
+                return fixed(Long.parseLong(parts[0]));
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.ornek.ecomstocksync.loadtest.marketplace;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gömülebilir pazaryeri simülatörü. Tek HTTP sunucusu birden fazla mağazayı yolun ilk parçasıyla ayırır:
+ * platformun baseUrl'i {@link #storeUrl(String)} olur ve istemci gerçek API yollarını bunun altına ekler.
+ * Her mağaza kendi {@link StoreScript}'i ile çalışır: gecikme dağılımı, Shopify sızdıran kova ve GraphQL maliyet
+ * limiti, eBay saniyelik limiti, hata oranı/patlaması/kesinti, toplu istek sınırı ve okumalarda son tutarlılık.
+ * <p>
+ * Testte: {@code new MarketplaceSimulator(0, 32)}, {@code addStore(...)}, {@code start()}; zaman kovaları ve kurallar
+ * için el ile ilerletilen bir saat verilebilir. Tek başına: {@code java ... MarketplaceSimulator port=8089
+ * store=SHOP1:SHOPIFY store=EBAY1:EBAY latency=lognormal:40:300 error-rate=0.01}
+ */
+public final class MarketplaceSimulator {
+
+    private static final int GZIP_MIN_BYTES = 256;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LongSupplier clock;
+    private final Map<String, SimulatedStore> stores = new ConcurrentHashMap<>();
+
+    public MarketplaceSimulator(int port, int threads) throws IOException {
+        this(port, threads, System::nanoTime);
+    }
+
+    /**
+     * @param clock Nanosaniye saati; kovalar, kesintiler ve okuma gecikmesi buna göre işler
+     */
+    public MarketplaceSimulator(int port, int threads, LongSupplier clock) throws IOException {
+        this.clock = clock;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "marketplace-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+    }
+
+    public SimulatedStore addStore(String code, StoreScript script) {
+        SimulatedStore store = new SimulatedStore(code, script, clock);
+        stores.put(code, store);
+        return store;
+    }
+
+    public SimulatedStore store(String code) {
+        return stores.get(code);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public String storeUrl(String code) {
+        return baseUrl() + "/" + code;
+    }
+
+    public long requestCount() {
+        long total = 0;
+        for (SimulatedStore store : stores.values()) {
+            total += store.requestCount();
+        }
+        return total;
+    }
+
+    public long throttledCount() {
+        long total = 0;
+        for (SimulatedStore store : stores.values()) {
+            total += store.throttledCount();
+        }
+        return total;
+    }
+
+    public Map<String, Long> requestsByStore() {
+        Map<String, Long> counts = new TreeMap<>();
+        stores.forEach((code, store) -> counts.put(code, store.requestCount()));
+        return counts;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> data = new TreeMap<>();
+        stores.forEach((code, store) -> data.put(code, store.snapshot()));
+        return data;
+    }
+
+    public void reset() {
+        stores.values().forEach(SimulatedStore::reset);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readAllBytes();
+            String path = exchange.getRequestURI().getRawPath();
+            int end = path.indexOf('/', 1);
+            String code = end > 0 ? path.substring(1, end) : path.substring(1);
+            SimulatedStore store = stores.get(code);
+            if (store == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            Map<String, String> headers = new HashMap<>();
+            exchange.getRequestHeaders().forEach((name, values) -> {
+                if (!values.isEmpty()) headers.put(name.toLowerCase(Locale.ROOT), values.get(0));
+            });
+            SimulatedStore.Reply reply = store.handle(exchange.getRequestMethod(), end > 0 ? path.substring(end) : "/",
+                exchange.getRequestURI().getRawQuery(), headers, body);
+            if (reply.delayMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(reply.delayMillis);
+            }
+            reply.headers.forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+            byte[] out = reply.body;
+            if (out == null || out.length == 0) {
+                exchange.sendResponseHeaders(reply.status, -1);
+                return;
+            }
+            String accept = headers.getOrDefault("accept-encoding", "");
+            if (out.length >= GZIP_MIN_BYTES && accept.contains("gzip")) {
+                out = gzip(out);
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(reply.status, out.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(out);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 2 + 32);
+        try (GZIPOutputStream gz = new GZIPOutputStream(buffer)) {
+            gz.write(data);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Tek başına çalıştırma; Ctrl+C ile durur. Argümanlar: port, threads, store=KOD:SHOPIFY|EBAY (tekrarlanabilir),
+     * latency, error-rate, error-status, read-delay-ms, seed, unlimited=true
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        Map<String, StoreScript.Dialect> storeCodes = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) continue;
+            String key = arg.substring(0, eq).replaceFirst("^--", "");
+            String value = arg.substring(eq + 1);
+            if (key.equals("store")) {
+                String[] parts = value.split(":");
+                storeCodes.put(parts[0], parts.length > 1 ? StoreScript.Dialect.valueOf(parts[1].toUpperCase(Locale.ROOT))
+                    : StoreScript.Dialect.SHOPIFY);
+            } else {
+                options.put(key, value);
+            }
+        }
+        if (storeCodes.isEmpty()) {
+            storeCodes.put("SHOP1", StoreScript.Dialect.SHOPIFY);
+            storeCodes.put("EBAY1", StoreScript.Dialect.EBAY);
+        }
+        MarketplaceSimulator simulator = new MarketplaceSimulator(
+            Integer.parseInt(options.getOrDefault("port", "8089")), Integer.parseInt(options.getOrDefault("threads", "64")));
+        storeCodes.forEach((code, dialect) -> simulator.addStore(code, configure(StoreScript.of(dialect), options)));
+        simulator.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(simulator::stop));
+        for (String code : storeCodes.keySet()) {
+            System.out.println(code + " (" + storeCodes.get(code) + ") -> " + simulator.storeUrl(code));
+        }
+        Thread.currentThread().join();
+    }
+
+    /**
+     * Ortak komut satırı / harness seçeneklerini betiğe uygular
+     */
+    public static StoreScript configure(StoreScript script, Map<String, String> options) {
+        if (Boolean.parseBoolean(options.getOrDefault("unlimited", "false"))) {
+            script.unlimited();
+        }
+        if (options.containsKey("latency")) {
+            script.latency(LatencyModel.parse(options.get("latency")));
+        }
+        if (options.containsKey("error-rate")) {
+            script.errorRate(Double.parseDouble(options.get("error-rate")),
+                Integer.parseInt(options.getOrDefault("error-status", "503")));
+        }
+        if (options.containsKey("read-delay-ms")) {
+            script.readDelayMs(Long.parseLong(options.get("read-delay-ms")));
+        }
+        if (options.containsKey("seed")) {
+            script.seed(Long.parseLong(options.get("seed")));
+        }
+        return script;
+    }
+}
@@ -0,0 +1,689 @@
+package com.ornek.ecomstocksync.loadtest.marketplace;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tek mağazanın durumu ve istek işleme mantığı. HTTP'den bağımsızdır: {@link #handle} bir isteği alır, yanıtı ve
+ * uygulanacak gecikmeyi döner; gecikmeyi sunucu uygular. Uç noktalar:
+ * <ul>
+ *   <li>Shopify: GET admin/api/{v}/shop.json, POST inventory_levels/set.json, GET inventory_levels.json,
+ *       PUT variants/{id}.json, POST graphql.json (inventorySetQuantities / productVariantsBulkUpdate)</li>
+ *   <li>eBay: GET sell/inventory/v1/inventory_item, PUT/GET inventory_item/{sku}, POST bulk_update_price_quantity</li>
+ * </ul>
+ * İşlem sırası gerçek platformlara benzer: kimlik, hız limiti, enjekte edilen hatalar, toplu limit, yazma.
+ */
+public final class SimulatedStore {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int JOURNAL_SIZE = 1000;
+    private static final Pattern SHOPIFY_PATH = Pattern.compile("^/admin/api/[^/]+/(.+)$");
+    private static final Pattern SHOPIFY_VARIANT = Pattern.compile("^variants/([^/]+)\\.json$");
+    private static final String EBAY_PREFIX = "/sell/inventory/v1/";
+    private static final String EBAY_PUBLIC_KEY_PREFIX = "/commerce/notification/v1/public_key/";
+
+    private final String code;
+    private final StoreScript script;
+    private final LongSupplier clock;
+    private final long createdAt;
+    private final Random random;
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Kovalar; tek kilit altında güncellenir
+    private double restLevel;
+    private long restUpdatedAt;
+    private double graphqlAvailable;
+    private long graphqlUpdatedAt;
+    private double tokens;
+    private long tokensUpdatedAt;
+
+    private final Map<String, Item> inventory = new ConcurrentHashMap<>();
+    private final Map<String, String> prices = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final LongAdder bulkRejected = new LongAdder();
+    private final LongAdder itemsWritten = new LongAdder();
+    private final Map<Integer, LongAdder> byStatus = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> byOperation = new ConcurrentHashMap<>();
+    private final ArrayDeque<JournalEntry> journal = new ArrayDeque<>();
+
+    SimulatedStore(String code, StoreScript script, LongSupplier clock) {
+        this.code = code;
+        this.script = script;
+        this.clock = clock;
+        this.createdAt = clock.getAsLong();
+        this.random = new Random(script.getSeed());
+        this.restUpdatedAt = createdAt;
+        this.graphqlUpdatedAt = createdAt;
+        this.tokensUpdatedAt = createdAt;
+        this.graphqlAvailable = script.getGraphqlMaxCost();
+        this.tokens = script.getRateBurst();
+    }
+
+    public String getCode() { return code; }
+    public StoreScript getScript() { return script; }
+
+    Reply handle(String method, String path, String query, Map<String, String> headers, byte[] body) {
+        long now = clock.getAsLong();
+        long seq = sequence.incrementAndGet();
+        long delay;
+        double errorRoll;
+        // Her istekte aynı sayıda örnek çekilir; böylece dallanma rastgele diziyi kaydırmaz
+        synchronized (random) {
+            delay = Math.max(0, script.getLatency().sampleMillis(random));
+            errorRoll = random.nextDouble();
+        }
+        Route route = route(method, path);
+        Reply reply = route == null
+            ? Reply.json(404, error("Not Found"))
+            : process(route, seq, now, errorRoll, query, headers, body);
+        reply.delayMillis = delay;
+        String operation = reply.operation != null ? reply.operation : route == null ? "unknown" : route.operation;
+        record(seq, now, method, path, operation, reply);
+        return reply;
+    }
+
+    private Reply process(Route route, long seq, long now, double errorRoll, String query,
+                          Map<String, String> headers, byte[] body) {
+        if (!authorized(headers)) {
+            return Reply.json(401, error("[API] Invalid API key or access token (unrecognized login or wrong password)"));
+        }
+        JsonNode json = null;
+        if (body != null && body.length > 0) {
+            try {
+                json = MAPPER.readTree(body);
+            } catch (Exception e) {
+                return Reply.json(400, error("Invalid JSON: " + e.getMessage()));
+            }
+        }
+        if (route.operation.equals("graphql")) {
+            Reply reply = graphql(seq, now, errorRoll, json);
+            if (reply.operation == null) reply.operation = "graphql";
+            return reply;
+        }
+        Reply limited = script.getDialect() == StoreScript.Dialect.SHOPIFY ? restCallLimit(now) : tokenLimit(now);
+        if (limited.status == 429) {
+            return limited;
+        }
+        Reply failed = injectedError(seq, now, errorRoll, route.operation);
+        if (failed != null) {
+            failed.headers.putAll(limited.headers);
+            return failed;
+        }
+        Reply reply = script.getDialect() == StoreScript.Dialect.SHOPIFY
+            ? shopify(route, now, query, json)
+            : ebay(route, now, json);
+        reply.headers.putAll(limited.headers);
+        return reply;
+    }
+
+    // --- Shopify ---
+
+    private Reply shopify(Route route, long now, String query, JsonNode json) {
+        switch (route.operation) {
+            case "ping": {
+                ObjectNode shop = MAPPER.createObjectNode();
+                shop.putObject("shop").put("name", code).put("myshopify_domain", code.toLowerCase(Locale.ROOT) + ".myshopify.com");
+                return Reply.json(200, shop);
+            }
+            case "setInventory": {
+                if (json == null || !json.hasNonNull("inventory_item_id") || !json.hasNonNull("available")) {
+                    return Reply.json(422, MAPPER.createObjectNode().set("errors",
+                        MAPPER.createObjectNode().put("available", "must be present")));
+                }
+                String id = json.get("inventory_item_id").asText();
+                int available = json.get("available").asInt();
+                write(id, available, now);
+                itemsWritten.increment();
+                ObjectNode level = MAPPER.createObjectNode();
+                level.putObject("inventory_level").put("inventory_item_id", id).put("available", available)
+                    .put("location_id", json.path("location_id").asText("1"));
+                return Reply.json(200, level);
+            }
+            case "getInventory": {
+                ObjectNode result = MAPPER.createObjectNode();
+                ArrayNode levels = result.putArray("inventory_levels");
+                for (String id : queryParam(query, "inventory_item_ids").split(",")) {
+                    Integer available = readVisible(id.trim(), now);
+                    if (!id.isBlank() && available != null) {
+                        levels.addObject().put("inventory_item_id", id.trim()).put("available", available);
+                    }
+                }
+                return Reply.json(200, result);
+            }
+            case "setPrice": {
+                JsonNode variant = json == null ? null : json.path("variant");
+                if (variant == null || !variant.hasNonNull("price")) {
+                    return Reply.json(422, MAPPER.createObjectNode().set("errors",
+                        MAPPER.createObjectNode().put("price", "must be present")));
+                }
+                prices.put(route.key, variant.get("price").asText());
+                itemsWritten.increment();
+                ObjectNode result = MAPPER.createObjectNode();
+                result.putObject("variant").put("id", route.key).put("price", variant.get("price").asText());
+                return Reply.json(200, result);
+            }
+            default:
+                return Reply.json(404, error("Not Found"));
+        }
+    }
+
+    /**
+     * GraphQL toplu mutasyonlar. Shopify gibi maliyet puanıyla sınırlanır ve sınır aşımında HTTP 200 ile
+     * THROTTLED hatası döner; tüm yanıtlar extensions.cost.throttleStatus taşır.
+     */
+    private Reply graphql(long seq, long now, double errorRoll, JsonNode json) {
+        JsonNode variables = json == null ? MAPPER.createObjectNode() : json.path("variables");
+        JsonNode quantities = variables.path("input").path("quantities");
+        JsonNode variants = variables.path("variants");
+        boolean stock = quantities.isArray();
+        JsonNode items = stock ? quantities : variants;
+        int count = items.isArray() ? items.size() : 0;
+        int cost = script.getGraphqlBaseCost() + script.getGraphqlCostPerItem() * count;
+        String operation = stock ? "bulkInventory" : variants.isArray() ? "bulkPrice" : "graphqlQuery";
+        Reply reply = graphqlReply(seq, now, errorRoll, quantities, variants, stock, count, cost, operation);
+        reply.operation = operation;
+        return reply;
+    }
+
+    private Reply graphqlReply(long seq, long now, double errorRoll, JsonNode quantities, JsonNode variants,
+                               boolean stock, int count, int cost, String operation) {
+
+        double available;
+        synchronized (this) {
+            refillGraphql(now);
+            available = graphqlAvailable;
+            if (script.getGraphqlMaxCost() > 0 && available < cost) {
+                throttled.increment();
+                ObjectNode result = MAPPER.createObjectNode();
+                result.putArray("errors").addObject().put("message", "Throttled")
+                    .putObject("extensions").put("code", "THROTTLED");
+                result.set("extensions", costExtension(cost, null, available));
+                return Reply.json(200, result);
+            }
+        }
+        Reply failed = injectedError(seq, now, errorRoll, operation);
+        if (failed != null) {
+            return failed;
+        }
+        int limit = script.getBulkLimit();
+        if (limit > 0 && count > limit) {
+            bulkRejected.increment();
+            ObjectNode result = MAPPER.createObjectNode();
+            result.putArray("errors").addObject()
+                .put("message", "The input array size of " + count + " is greater than the maximum allowed of " + limit + ".")
+                .putObject("extensions").put("code", "MAX_INPUT_SIZE_EXCEEDED");
+            return Reply.json(200, result);
+        }
+        synchronized (this) {
+            if (script.getGraphqlMaxCost() > 0) {
+                graphqlAvailable -= cost;
+            }
+            available = graphqlAvailable;
+        }
+        ObjectNode result = MAPPER.createObjectNode();
+        ObjectNode data = result.putObject("data");
+        if (stock) {
+            for (JsonNode q : quantities) {
+                write(gidTail(q.path("inventoryItemId").asText()), q.path("quantity").asInt(), now);
+            }
+            data.putObject("inventorySetQuantities").putArray("userErrors");
+        } else if (variants.isArray()) {
+            for (JsonNode v : variants) {
+                prices.put(gidTail(v.path("id").asText()), v.path("price").asText());
+            }
+            data.putObject("productVariantsBulkUpdate").putArray("userErrors");
+        }
+        itemsWritten.add(count);
+        result.set("extensions", costExtension(cost, cost, available));
+        return Reply.json(200, result);
+    }
+
+    private ObjectNode costExtension(int requested, Integer actual, double available) {
+        ObjectNode extensions = MAPPER.createObjectNode();
+        ObjectNode cost = extensions.putObject("cost");
+        cost.put("requestedQueryCost", requested);
+        if (actual == null) cost.putNull("actualQueryCost"); else cost.put("actualQueryCost", actual);
+        cost.putObject("throttleStatus")
+            .put("maximumAvailable", (double) script.getGraphqlMaxCost())
+            .put("currentlyAvailable", (int) Math.floor(available))
+            .put("restoreRate", script.getGraphqlRestorePerSecond());
+        return extensions;
+    }
+
+    /**
+     * REST sızdıran kovası: her çağrı kovaya 1 ekler, kova saniyede leak kadar boşalır. Yanıtlar
+     * X-Shopify-Shop-Api-Call-Limit: kullanılan/kapasite başlığını taşır; dolu kovada 429 ve Retry-After döner.
+     */
+    private synchronized Reply restCallLimit(long now) {
+        int bucket = script.getCallLimitBucket();
+        Reply reply = new Reply();
+        if (bucket <= 0) {
+            return reply;
+        }
+        double leak = script.getCallLimitLeakPerSecond();
+        restLevel = Math.max(0, restLevel - (now - restUpdatedAt) / 1e9 * leak);
+        restUpdatedAt = now;
+        if (restLevel + 1 > bucket) {
+            throttled.increment();
+            Reply limited = Reply.json(429, error("Exceeded " + leak + " calls per second for api client. "
+                + "Reduce request rates to resume uninterrupted service."));
+            limited.headers.put("X-Shopify-Shop-Api-Call-Limit", bucket + "/" + bucket);
+            double retryAfter = leak > 0 ? (restLevel + 1 - bucket) / leak : 1.0;
+            limited.headers.put("Retry-After", String.format(Locale.ROOT, "%.1f", Math.max(0.1, retryAfter)));
+            return limited;
+        }
+        restLevel += 1;
+        reply.headers.put("X-Shopify-Shop-Api-Call-Limit", (int) Math.ceil(restLevel) + "/" + bucket);
+        return reply;
+    }
+
+    private void refillGraphql(long now) {
+        graphqlAvailable = Math.min(script.getGraphqlMaxCost(),
+            graphqlAvailable + (now - graphqlUpdatedAt) / 1e9 * script.getGraphqlRestorePerSecond());
+        graphqlUpdatedAt = now;
+    }
+
+    // --- eBay ---
+
+    private Reply ebay(Route route, long now, JsonNode json) {
+        switch (route.operation) {
+            case "ping": {
+                ObjectNode result = MAPPER.createObjectNode().put("total", inventory.size()).put("size", 0);
+                result.putArray("inventoryItems");
+                return Reply.json(200, result);
+            }
+            case "setInventory": {
+                JsonNode quantity = json == null ? null : json.path("availability").path("shipToLocationAvailability").path("quantity");
+                if (quantity == null || !quantity.isNumber()) {
+                    return Reply.json(400, ebayError(25702, "The 'availability.shipToLocationAvailability.quantity' field is missing."));
+                }
+                write(route.key, quantity.asInt(), now);
+                itemsWritten.increment();
+                return Reply.empty(204);
+            }
+            case "getInventory": {
+                Integer available = readVisible(route.key, now);
+                if (available == null) {
+                    return Reply.json(404, ebayError(25710, "We didn't find the entity you are requesting."));
+                }
+                ObjectNode result = MAPPER.createObjectNode().put("sku", route.key);
+                result.putObject("availability").putObject("shipToLocationAvailability").put("quantity", available);
+                return Reply.json(200, result);
+            }
+            case "publicKey": {
+                String pem = script.getNotificationKey(route.key);
+                if (pem == null) {
+                    return Reply.json(404, ebayError(195000, "Resource not found."));
+                }
+                return Reply.json(200, MAPPER.createObjectNode()
+                    .put("algorithm", "ECDSA").put("digest", "SHA1").put("key", pem));
+            }
+            case "bulkPriceQuantity": {
+                JsonNode requestsNode = json == null ? null : json.path("requests");
+                if (requestsNode == null || !requestsNode.isArray() || requestsNode.isEmpty()) {
+                    return Reply.json(400, ebayError(25709, "Invalid value for requests."));
+                }
+                int limit = script.getBulkLimit();
+                if (limit > 0 && requestsNode.size() > limit) {
+                    bulkRejected.increment();
+                    return Reply.json(400, ebayError(25709,
+                        "Invalid value for requests. The maximum number of requests is " + limit + "."));
+                }
+                ObjectNode result = MAPPER.createObjectNode();
+                ArrayNode responses = result.putArray("responses");
+                for (JsonNode request : requestsNode) {
+                    String sku = request.path("sku").asText();
+                    JsonNode quantity = request.path("shipToLocationAvailability").path("quantity");
+                    if (quantity.isNumber()) {
+                        write(sku, quantity.asInt(), now);
+                    }
+                    for (JsonNode offer : request.path("offers")) {
+                        if (offer.path("price").hasNonNull("value")) {
+                            prices.put(sku, offer.path("price").path("value").asText());
+                        }
+                    }
+                    responses.addObject().put("statusCode", 200).put("sku", sku);
+                }
+                itemsWritten.add(requestsNode.size());
+                return Reply.json(200, result);
+            }
+            default:
+                return Reply.json(404, ebayError(2002, "Resource not found"));
+        }
+    }
+
+    /**
+     * eBay saniyelik token kovası; boşsa 429 döner
+     */
+    private synchronized Reply tokenLimit(long now) {
+        Reply reply = new Reply();
+        double rate = script.getRatePerSecond();
+        if (rate <= 0) {
+            return reply;
+        }
+        tokens = Math.min(script.getRateBurst(), tokens + (now - tokensUpdatedAt) / 1e9 * rate);
+        tokensUpdatedAt = now;
+        if (tokens < 1) {
+            throttled.increment();
+            Reply limited = Reply.json(429, ebayError(2001, "Too many requests. The request limit has been reached for the resource."));
+            limited.headers.put("Retry-After", String.valueOf((long) Math.ceil((1 - tokens) / rate)));
+            return limited;
+        }
+        tokens -= 1;
+        return reply;
+    }
+
+    private static ObjectNode ebayError(int errorId, String message) {
+        ObjectNode result = MAPPER.createObjectNode();
+        result.putArray("errors").addObject().put("errorId", errorId).put("domain", "API_INVENTORY")
+            .put("category", "REQUEST").put("message", message);
+        return result;
+    }
+
+    // --- ortak ---
+
+    private Route route(String method, String path) {
+        if (script.getDialect() == StoreScript.Dialect.SHOPIFY) {
+            Matcher m = SHOPIFY_PATH.matcher(path);
+            if (!m.matches()) return null;
+            String rest = m.group(1);
+            if (method.equals("GET") && rest.equals("shop.json")) return new Route("ping", null);
+            if (method.equals("POST") && rest.equals("inventory_levels/set.json")) return new Route("setInventory", null);
+            if (method.equals("GET") && rest.equals("inventory_levels.json")) return new Route("getInventory", null);
+            if (method.equals("POST") && rest.equals("graphql.json")) return new Route("graphql", null);
+            Matcher variant = SHOPIFY_VARIANT.matcher(rest);
+            if (method.equals("PUT") && variant.matches()) return new Route("setPrice", variant.group(1));
+            return null;
+        }
+        if (method.equals("GET") && path.startsWith(EBAY_PUBLIC_KEY_PREFIX)) {
+            return new Route("publicKey", URLDecoder.decode(path.substring(EBAY_PUBLIC_KEY_PREFIX.length()), StandardCharsets.UTF_8));
+        }
+        if (!path.startsWith(EBAY_PREFIX)) return null;
+        String rest = path.substring(EBAY_PREFIX.length());
+        if (method.equals("GET") && rest.equals("inventory_item")) return new Route("ping", null);
+        if (method.equals("POST") && rest.equals("bulk_update_price_quantity")) return new Route("bulkPriceQuantity", null);
+        if (rest.startsWith("inventory_item/") && rest.length() > "inventory_item/".length()) {
+            String sku = URLDecoder.decode(rest.substring("inventory_item/".length()), StandardCharsets.UTF_8);
+            if (method.equals("PUT")) return new Route("setInventory", sku);
+            if (method.equals("GET")) return new Route("getInventory", sku);
+        }
+        return null;
+    }
+
+    private boolean authorized(Map<String, String> headers) {
+        String token = script.getAccessToken();
+        if (token == null) return true;
+        if (script.getDialect() == StoreScript.Dialect.SHOPIFY) {
+            return token.equals(headers.get("x-shopify-access-token"));
+        }
+        return ("Bearer " + token).equals(headers.get("authorization"));
+    }
+
+    private Reply injectedError(long seq, long now, double errorRoll, String operation) {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(now - createdAt);
+        for (StoreScript.Rule rule : script.getRules()) {
+            Integer status = rule.statusFor(seq, elapsed, operation);
+            if (status != null) {
+                injectedErrors.increment();
+                return Reply.json(status, error("Injected failure"));
+            }
+        }
+        if (errorRoll < script.getErrorRate()) {
+            injectedErrors.increment();
+            return Reply.json(script.getErrorStatus(), error("Injected failure"));
+        }
+        return null;
+    }
+
+    private void write(String key, int quantity, long now) {
+        inventory.computeIfAbsent(key, k -> new Item()).write(quantity, now, TimeUnit.MILLISECONDS.toNanos(script.getReadDelayMs()));
+    }
+
+    private Integer readVisible(String key, long now) {
+        Item item = inventory.get(key);
+        return item == null ? null : item.read(now);
+    }
+
+    private void record(long seq, long now, String method, String path, String operation, Reply reply) {
+        requests.increment();
+        byStatus.computeIfAbsent(reply.status, s -> new LongAdder()).increment();
+        byOperation.computeIfAbsent(operation, o -> new LongAdder()).increment();
+        synchronized (journal) {
+            if (journal.size() == JOURNAL_SIZE) {
+                journal.removeFirst();
+            }
+            journal.addLast(new JournalEntry(seq, TimeUnit.NANOSECONDS.toMillis(now - createdAt), method, path,
+                operation, reply.status, reply.delayMillis));
+        }
+    }
+
+    private static ObjectNode error(String message) {
+        return MAPPER.createObjectNode().put("errors", message);
+    }
+
+    private static String gidTail(String id) {
+        int slash = id.lastIndexOf('/');
+        return slash >= 0 ? id.substring(slash + 1) : id;
+    }
+
+    private static String queryParam(String query, String name) {
+        if (query == null) return "";
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return "";
+    }
+
+    // --- test API ---
+
+    /**
+     * Mağazada başlangıç stoğu; okuma gecikmesi uygulanmaz
+     */
+    public void putInventory(String key, int quantity) {
+        inventory.computeIfAbsent(key, k -> new Item()).write(quantity, clock.getAsLong(), 0);
+    }
+
+    /**
+     * Son yazılan değer (okuma uç noktasında henüz görünmüyor olabilir)
+     */
+    public Integer inventory(String key) {
+        Item item = inventory.get(key);
+        return item == null ? null : item.latest();
+    }
+
+    /**
+     * Okuma uç noktasının şu an döneceği değer
+     */
+    public Integer visibleInventory(String key) {
+        return readVisible(key, clock.getAsLong());
+    }
+
+    public String price(String key) {
+        return prices.get(key);
+    }
+
+    public long requestCount() { return requests.sum(); }
+    public long throttledCount() { return throttled.sum(); }
+    public long injectedErrorCount() { return injectedErrors.sum(); }
+    public long itemsWritten() { return itemsWritten.sum(); }
+
+    public List<JournalEntry> recentRequests() {
+        synchronized (journal) {
+            return new ArrayList<>(journal);
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("dialect", script.getDialect().name());
+        data.put("latency", script.getLatency().toString());
+        data.put("requests", requests.sum());
+        data.put("throttled", throttled.sum());
+        data.put("injectedErrors", injectedErrors.sum());
+        data.put("bulkRejected", bulkRejected.sum());
+        data.put("itemsWritten", itemsWritten.sum());
+        Map<String, Long> statuses = new TreeMap<>();
+        byStatus.forEach((status, count) -> statuses.put(String.valueOf(status), count.sum()));
+        data.put("byStatus", statuses);
+        Map<String, Long> operations = new TreeMap<>();
+        byOperation.forEach((operation, count) -> operations.put(operation, count.sum()));
+        data.put("byOperation", operations);
+        data.put("inventoryItems", inventory.size());
+        return data;
+    }
+
+    /**
+     * Stok, fiyat, kovalar ve sayaçları sıfırlar; betik ve tohum korunur
+     */
+    public synchronized void reset() {
+        long now = clock.getAsLong();
+        inventory.clear();
+        prices.clear();
+        restLevel = 0;
+        restUpdatedAt = now;
+        graphqlAvailable = script.getGraphqlMaxCost();
+        graphqlUpdatedAt = now;
+        tokens = script.getRateBurst();
+        tokensUpdatedAt = now;
+        requests.reset();
+        throttled.reset();
+        injectedErrors.reset();
+        bulkRejected.reset();
+        itemsWritten.reset();
+        byStatus.clear();
+        byOperation.clear();
+        sequence.set(0);
+        synchronized (random) {
+            random.setSeed(script.getSeed());
+        }
+        synchronized (journal) {
+            journal.clear();
+        }
+    }
+
+    private static final class Route {
+        final String operation;
+        final String key;
+
+        Route(String operation, String key) {
+            this.operation = operation;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Son tutarlılık: yazılan değer visibleAt anına kadar beklemede kalır, okumalar önceki değeri görür
+     */
+    private static final class Item {
+        private Integer visible;
+        private Integer pending;
+        private long pendingVisibleAt;
+
+        synchronized void write(int quantity, long now, long delayNanos) {
+            promote(now);
+            if (delayNanos <= 0) {
+                visible = quantity;
+                pending = null;
+            } else {
+                pending = quantity;
+                pendingVisibleAt = now + delayNanos;
+            }
+        }
+
+        synchronized Integer read(long now) {
+            promote(now);
+            return visible;
+        }
+
+        synchronized Integer latest() {
+            return pending != null ? pending : visible;
+        }
+
+        private void promote(long now) {
+            if (pending != null && now >= pendingVisibleAt) {
+                visible = pending;
+                pending = null;
+            }
+        }
+    }
+
+    static final class Reply {
+        int status = 200;
+        byte[] body;
+        final Map<String, String> headers = new LinkedHashMap<>();
+        long delayMillis;
+        String operation;
+
+        static Reply json(int status, JsonNode node) {
+            Reply reply = new Reply();
+            reply.status = status;
+            try {
+                reply.body = MAPPER.writeValueAsBytes(node);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            reply.headers.put("Content-Type", "application/json; charset=utf-8");
+            return reply;
+        }
+
+        static Reply empty(int status) {
+            Reply reply = new Reply();
+            reply.status = status;
+            return reply;
+        }
+    }
+
+    public static final class JournalEntry {
+        private final long sequence;
+        private final long elapsedMillis;
+        private final String method;
+        private final String path;
+        private final String operation;
+        private final int status;
+        private final long delayMillis;
+
+        JournalEntry(long sequence, long elapsedMillis, String method, String path, String operation, int status, long delayMillis) {
+            this.sequence = sequence;
+            this.elapsedMillis = elapsedMillis;
+            this.method = method;
+            this.path = path;
+            this.operation = operation;
+            this.status = status;
+            this.delayMillis = delayMillis;
+        }
+
+        public long getSequence() { return sequence; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public String getMethod() { return method; }
+        public String getPath() { return path; }
+        public String getOperation() { return operation; }
+        public int getStatus() { return status; }
+        public long getDelayMillis() { return delayMillis; }
+    }
+}
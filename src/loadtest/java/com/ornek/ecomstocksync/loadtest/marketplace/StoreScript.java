@@ -0,0 +1,214 @@
+package com.ornek.ecomstocksync.loadtest.marketplace;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Bir mağazanın davranışı. Test içinde zincirleme ayarlanır ve çalışma sırasında da değiştirilebilir:
+ * <pre>
+ * simulator.addStore("SHOP1", StoreScript.shopify()
+ *     .latency(LatencyModel.logNormal(40, 400))
+ *     .errorRate(0.02, 503)
+ *     .failRequests(100, 20, 500)
+ *     .readDelayMs(2000));
+ * </pre>
+ * Sıra bağımlı kurallar (failRequests) mağazanın istek sırasına, zaman bağımlı kurallar (outage) mağazanın
+ * oluşturulduğu ana göre işler; rastgele kararlar tohumlu Random'dan çekilir.
+ */
+public final class StoreScript {
+
+    public enum Dialect { SHOPIFY, EBAY }
+
+    /**
+     * Özel senaryo kuralı: null dönerse istek normal işlenir, aksi halde dönen HTTP durumu ile reddedilir
+     */
+    @FunctionalInterface
+    public interface Rule {
+        Integer statusFor(long sequence, long elapsedMillis, String operation);
+    }
+
+    private final Dialect dialect;
+    private volatile LatencyModel latency = LatencyModel.NONE;
+    private volatile long seed = 42L;
+    private volatile String accessToken;
+
+    // Shopify REST: sızdıran kova (kapasite / saniyede boşalan çağrı); 0 kapasite limiti kapatır
+    private volatile int callLimitBucket;
+    private volatile double callLimitLeakPerSecond;
+    // Shopify GraphQL: maliyet puanı kovası
+    private volatile int graphqlMaxCost;
+    private volatile double graphqlRestorePerSecond;
+    private volatile int graphqlBaseCost = 10;
+    private volatile int graphqlCostPerItem = 1;
+    // eBay: saniyelik token kovası
+    private volatile double ratePerSecond;
+    private volatile int rateBurst;
+
+    private volatile int bulkLimit;
+    private volatile long readDelayMs;
+    private volatile double errorRate;
+    private volatile int errorStatus = 500;
+    private final List<Rule> rules = new CopyOnWriteArrayList<>();
+    // eBay Notification API: kid -> PEM açık anahtar
+    private final Map<String, String> notificationKeys = new ConcurrentHashMap<>();
+
+    private StoreScript(Dialect dialect) {
+        this.dialect = dialect;
+    }
+
+    /**
+     * Shopify varsayılanları: REST kovası 40 çağrı / saniyede 2, GraphQL 1000 puan / saniyede 50,
+     * toplu güncellemede en fazla 250 kalem
+     */
+    public static StoreScript shopify() {
+        StoreScript script = new StoreScript(Dialect.SHOPIFY);
+        script.callLimit(40, 2.0).graphqlCost(1000, 50.0).bulkLimit(250);
+        return script;
+    }
+
+    /**
+     * eBay varsayılanları: saniyede 20 çağrı (20 anlık), bulk_update_price_quantity en fazla 25 kalem
+     */
+    public static StoreScript ebay() {
+        StoreScript script = new StoreScript(Dialect.EBAY);
+        script.rateLimit(20.0, 20).bulkLimit(25);
+        return script;
+    }
+
+    public static StoreScript of(Dialect dialect) {
+        return dialect == Dialect.EBAY ? ebay() : shopify();
+    }
+
+    /**
+     * Limitsiz, gecikmesiz, hatasız mağaza; yalnızca sistemin kendi maliyeti ölçülecekse kullanılır
+     */
+    public StoreScript unlimited() {
+        callLimitBucket = 0;
+        graphqlMaxCost = 0;
+        ratePerSecond = 0;
+        bulkLimit = 0;
+        latency = LatencyModel.NONE;
+        errorRate = 0;
+        readDelayMs = 0;
+        return this;
+    }
+
+    public StoreScript latency(LatencyModel latency) {
+        this.latency = latency == null ? LatencyModel.NONE : latency;
+        return this;
+    }
+
+    public StoreScript seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * İstenirse Shopify'da X-Shopify-Access-Token, eBay'de "Authorization: Bearer" bu değerle eşleşmelidir; aksi 401
+     */
+    public StoreScript accessToken(String accessToken) {
+        this.accessToken = accessToken;
+        return this;
+    }
+
+    /**
+     * eBay getPublicKey yanıtında dönecek bildirim anahtarı; bildirimler bu anahtarın özel çiftiyle imzalanmalıdır
+     */
+    public StoreScript notificationKey(String keyId, String pem) {
+        notificationKeys.put(keyId, pem);
+        return this;
+    }
+
+    public StoreScript callLimit(int bucketSize, double leakPerSecond) {
+        this.callLimitBucket = bucketSize;
+        this.callLimitLeakPerSecond = leakPerSecond;
+        return this;
+    }
+
+    public StoreScript graphqlCost(int maxCost, double restorePerSecond) {
+        this.graphqlMaxCost = maxCost;
+        this.graphqlRestorePerSecond = restorePerSecond;
+        return this;
+    }
+
+    public StoreScript graphqlCostModel(int baseCost, int costPerItem) {
+        this.graphqlBaseCost = baseCost;
+        this.graphqlCostPerItem = costPerItem;
+        return this;
+    }
+
+    public StoreScript rateLimit(double perSecond, int burst) {
+        this.ratePerSecond = perSecond;
+        this.rateBurst = burst;
+        return this;
+    }
+
+    public StoreScript bulkLimit(int maxItems) {
+        this.bulkLimit = maxItems;
+        return this;
+    }
+
+    /**
+     * Yazılan değer okumalarda bu süre sonra görünür; o zamana kadar eski değer döner
+     */
+    public StoreScript readDelayMs(long readDelayMs) {
+        this.readDelayMs = readDelayMs;
+        return this;
+    }
+
+    /**
+     * Her isteğin bu olasılıkla verilen durumla başarısız olması
+     */
+    public StoreScript errorRate(double probability, int status) {
+        this.errorRate = probability;
+        this.errorStatus = status;
+        return this;
+    }
+
+    /**
+     * Hata patlaması: mağazanın fromRequest. isteğinden itibaren count istek verilen durumla döner (1'den sayılır)
+     */
+    public StoreScript failRequests(long fromRequest, long count, int status) {
+        return rule((sequence, elapsed, operation) ->
+            sequence >= fromRequest && sequence < fromRequest + count ? status : null);
+    }
+
+    /**
+     * Kesinti: mağaza oluşturulduktan startMs sonra durationMs boyunca tüm istekler verilen durumla döner
+     */
+    public StoreScript outage(long startMs, long durationMs, int status) {
+        return rule((sequence, elapsed, operation) ->
+            elapsed >= startMs && elapsed < startMs + durationMs ? status : null);
+    }
+
+    public StoreScript rule(Rule rule) {
+        rules.add(rule);
+        return this;
+    }
+
+    public StoreScript clearRules() {
+        rules.clear();
+        return this;
+    }
+
+    public Dialect getDialect() { return dialect; }
+    public LatencyModel getLatency() { return latency; }
+    public long getSeed() { return seed; }
+    public String getAccessToken() { return accessToken; }
+    public int getCallLimitBucket() { return callLimitBucket; }
+    public double getCallLimitLeakPerSecond() { return callLimitLeakPerSecond; }
+    public int getGraphqlMaxCost() { return graphqlMaxCost; }
+    public double getGraphqlRestorePerSecond() { return graphqlRestorePerSecond; }
+    public int getGraphqlBaseCost() { return graphqlBaseCost; }
+    public int getGraphqlCostPerItem() { return graphqlCostPerItem; }
+    public double getRatePerSecond() { return ratePerSecond; }
+    public int getRateBurst() { return rateBurst; }
+    public int getBulkLimit() { return bulkLimit; }
+    public long getReadDelayMs() { return readDelayMs; }
+    public double getErrorRate() { return errorRate; }
+    public int getErrorStatus() { return errorStatus; }
+    public List<Rule> getRules() { return rules; }
+    public String getNotificationKey(String keyId) { return notificationKeys.get(keyId); }
+}
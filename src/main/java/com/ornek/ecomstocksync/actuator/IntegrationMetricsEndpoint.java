@@ -1,10 +1,21 @@
 package com.ornek.ecomstocksync.actuator;
 
+import com.ornek.ecomstocksync.cluster.ClusterCoordinator;
+import com.ornek.ecomstocksync.integration.CircuitBreakerRegistry;
+import com.ornek.ecomstocksync.integration.PlatformHttpTransport;
 import com.ornek.ecomstocksync.metrics.IntegrationMetricsService;
+import com.ornek.ecomstocksync.security.CredentialCache;
+import com.ornek.ecomstocksync.service.OutboxService;
+import com.ornek.ecomstocksync.sync.OutboxDispatcher;
+import com.ornek.ecomstocksync.sync.StockReconciler;
+import com.ornek.ecomstocksync.sync.SyncHistoryRetention;
+import com.ornek.ecomstocksync.sync.SyncHistoryWriter;
+import com.ornek.ecomstocksync.webhook.WebhookReceiver;
 import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
 import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Component
@@ -12,14 +23,55 @@ import java.util.Map;
 public class IntegrationMetricsEndpoint {
 
     private final IntegrationMetricsService metricsService;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final OutboxService outboxService;
+    private final CredentialCache credentialCache;
+    private final WebhookReceiver webhookReceiver;
+    private final StockReconciler stockReconciler;
+    private final OutboxDispatcher outboxDispatcher;
+    private final ClusterCoordinator cluster;
+    private final SyncHistoryWriter syncHistoryWriter;
+    private final SyncHistoryRetention syncHistoryRetention;
+    private final PlatformHttpTransport platformHttpTransport;
 
-    public IntegrationMetricsEndpoint(IntegrationMetricsService metricsService) {
+    public IntegrationMetricsEndpoint(IntegrationMetricsService metricsService,
+                                      CircuitBreakerRegistry circuitBreakers,
+                                      OutboxService outboxService,
+                                      CredentialCache credentialCache,
+                                      WebhookReceiver webhookReceiver,
+                                      StockReconciler stockReconciler,
+                                      OutboxDispatcher outboxDispatcher,
+                                      ClusterCoordinator cluster,
+                                      SyncHistoryWriter syncHistoryWriter,
+                                      SyncHistoryRetention syncHistoryRetention,
+                                      PlatformHttpTransport platformHttpTransport) {
         this.metricsService = metricsService;
+        this.circuitBreakers = circuitBreakers;
+        this.outboxService = outboxService;
+        this.credentialCache = credentialCache;
+        this.webhookReceiver = webhookReceiver;
+        this.stockReconciler = stockReconciler;
+        this.outboxDispatcher = outboxDispatcher;
+        this.cluster = cluster;
+        this.syncHistoryWriter = syncHistoryWriter;
+        this.syncHistoryRetention = syncHistoryRetention;
+        this.platformHttpTransport = platformHttpTransport;
     }
 
     @ReadOperation
     public Map<String, Object> read() {
-        return metricsService.snapshot();
+        Map<String, Object> data = new HashMap<>(metricsService.snapshot());
+        data.put("circuitBreakers", circuitBreakers.snapshot());
+        data.put("outboxCoalescing", outboxService.coalescingSnapshot());
+        data.put("credentialCache", credentialCache.snapshot());
+        data.put("webhooks", webhookReceiver.snapshot());
+        data.put("reconciliation", stockReconciler.snapshot());
+        data.put("dispatchLanes", outboxDispatcher.laneSnapshot());
+        data.put("cluster", cluster.snapshot());
+        data.put("syncHistoryWriter", syncHistoryWriter.snapshot());
+        data.put("historyRetention", syncHistoryRetention.snapshot());
+        data.put("platformHttp", platformHttpTransport.snapshot());
+        return data;
     }
 }
 
@@ -0,0 +1,85 @@
+package com.ornek.ecomstocksync.actuator;
+
+import com.ornek.ecomstocksync.integration.PlatformHealthProber;
+import org.springframework.boot.actuate.health.CompositeHealthContributor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthContributor;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.NamedContributor;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/health/platforms altında platform başına bir sağlık göstergesi (ad: platform kodu).
+ * Değerler arka plan yoklamalarının önbelleğinden okunur; health isteği uzak çağrı yapmaz.
+ * Ara sıra hata veren (DEGRADED) platform UP raporlanır, ayrıntıda degraded=true olarak görünür.
+ * <p>
+ * Erişilemeyen platform DOWN değil PLATFORM_DOWN raporlanır: bir pazaryerinin kesintisi uygulamanın kendi
+ * sağlık kontrolünü (/actuator/health) 503'e çekmemeli. Kök durum sırasında PLATFORM_DOWN en sonda yer alır;
+ * platform kesintisi "marketplaces" sağlık grubunda (/actuator/health/marketplaces) 503 döner.
+ */
+@Component("platforms")
+public class PlatformHealthContributor implements CompositeHealthContributor {
+
+    public static final Status PLATFORM_DOWN = new Status("PLATFORM_DOWN");
+
+    private final PlatformHealthProber prober;
+
+    public PlatformHealthContributor(PlatformHealthProber prober) {
+        this.prober = prober;
+    }
+
+    @Override
+    public HealthContributor getContributor(String name) {
+        for (Map<String, Object> row : prober.snapshot()) {
+            if (name.equals(nameOf(row))) {
+                Long platformId = (Long) row.get("platformId");
+                return (HealthIndicator) () -> health(platformId);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Iterator<NamedContributor<HealthContributor>> iterator() {
+        List<NamedContributor<HealthContributor>> contributors = prober.snapshot().stream()
+            .map(row -> {
+                Long platformId = (Long) row.get("platformId");
+                HealthContributor indicator = (HealthIndicator) () -> health(platformId);
+                return NamedContributor.of(nameOf(row), indicator);
+            })
+            .toList();
+        return contributors.iterator();
+    }
+
+    private Health health(Long platformId) {
+        Map<String, Object> details = prober.details(platformId);
+        if (details == null) {
+            return Health.unknown().build();
+        }
+        Health.Builder builder;
+        switch (prober.statusOf(platformId)) {
+            case UP:
+                builder = Health.up();
+                break;
+            case DEGRADED:
+                builder = Health.up().withDetail("degraded", true);
+                break;
+            case DOWN:
+                builder = Health.status(PLATFORM_DOWN);
+                break;
+            default:
+                builder = Health.unknown();
+        }
+        return builder.withDetails(details).build();
+    }
+
+    private static String nameOf(Map<String, Object> row) {
+        Object code = row.get("platformCode");
+        return code != null ? code.toString() : "platform-" + row.get("platformId");
+    }
+}
@@ -0,0 +1,24 @@
+package com.ornek.ecomstocksync.actuator;
+
+import com.ornek.ecomstocksync.sync.AdaptiveSyncPlanner;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "sync-schedule")
+public class SyncScheduleEndpoint {
+
+    private final AdaptiveSyncPlanner adaptiveSyncPlanner;
+
+    public SyncScheduleEndpoint(AdaptiveSyncPlanner adaptiveSyncPlanner) {
+        this.adaptiveSyncPlanner = adaptiveSyncPlanner;
+    }
+
+    @ReadOperation
+    public Map<String, Object> read() {
+        return adaptiveSyncPlanner.snapshot();
+    }
+}
@@ -0,0 +1,249 @@
+package com.ornek.ecomstocksync.cluster;
+
+import com.ornek.ecomstocksync.entity.ClusterLease;
+import com.ornek.ecomstocksync.entity.ClusterNode;
+import com.ornek.ecomstocksync.repository.ClusterLeaseRepository;
+import com.ornek.ecomstocksync.repository.ClusterNodeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ortak veritabanı üzerinden instance koordinasyonu; harici bir koordinatör gerekmez.
+ * <ul>
+ *   <li>Her düğüm cluster_node tablosuna heartbeat yazar; süresi geçen düğüm ölü sayılıp silinir.</li>
+ *   <li>Platformlar canlı düğümlere rendezvous (HRW) hash ile paylaştırılır: bir düğüm düştüğünde
+ *       yalnızca onun platformları diğerlerine geçer, gelen düğüm yalnızca kendi payını alır.</li>
+ *   <li>Tekil işler (mutabakat, inbox boşaltma) "leader" kiralamasını tutan düğümde çalışır.</li>
+ *   <li>Kiralamalar koşullu UPDATE ile alınır ve heartbeat ile birlikte uzatılır; sahibi ölünce
+ *       node-ttl sonunda başka bir düğüm devralır.</li>
+ * </ul>
+ * Süreler uygulama saatine göre yazılır; düğümler arasında saat farkı heartbeat aralığından küçük olmalıdır.
+ */
+@Component
+public class ClusterCoordinator {
+    private static final Logger log = LoggerFactory.getLogger(ClusterCoordinator.class);
+
+    public static final String LEADER_LEASE = "leader";
+
+    private final ClusterNodeRepository nodeRepository;
+    private final ClusterLeaseRepository leaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+    private final String host;
+    private final long heartbeatMs;
+    private final long nodeTtlMs;
+
+    private volatile List<String> liveNodes = List.of();
+    // Lider olduğumuz yerel süre sınırı; yenileme başarısız olursa kiralama dolmadan liderlik bırakılır
+    private volatile long leaderUntil;
+
+    private final AtomicLong heartbeats = new AtomicLong();
+    private final AtomicLong heartbeatFailures = new AtomicLong();
+    private final AtomicLong rebalances = new AtomicLong();
+    private final AtomicLong leaseConflicts = new AtomicLong();
+
+    public ClusterCoordinator(ClusterNodeRepository nodeRepository,
+                              ClusterLeaseRepository leaseRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${cluster.node-id:}") String nodeId,
+                              @Value("${cluster.heartbeat.ms:10000}") long heartbeatMs,
+                              @Value("${cluster.node-ttl.ms:30000}") long nodeTtlMs) {
+        this.nodeRepository = nodeRepository;
+        this.leaseRepository = leaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.host = hostName();
+        this.nodeId = nodeId == null || nodeId.isBlank()
+            ? host + "-" + UUID.randomUUID().toString().substring(0, 8)
+            : nodeId.trim();
+        this.heartbeatMs = Math.max(1000, heartbeatMs);
+        this.nodeTtlMs = Math.max(this.heartbeatMs * 2, nodeTtlMs);
+    }
+
+    // İlk heartbeat açılışta: zamanlayıcı başlamadan düğüm kendi payını bilsin
+    @PostConstruct
+    public void start() {
+        heartbeat();
+    }
+
+    /**
+     * Heartbeat yazar, kiralamaları uzatır, ölü düğümleri temizler ve canlı düğüm listesini yeniler
+     */
+    @Scheduled(fixedDelayString = "${cluster.heartbeat.ms:10000}")
+    public void heartbeat() {
+        long startedAt = System.currentTimeMillis();
+        try {
+            List<String> nodes = transactionTemplate.execute(tx -> {
+                LocalDateTime now = LocalDateTime.now();
+                LocalDateTime until = now.plusNanos(nodeTtlMs * 1_000_000L);
+                if (nodeRepository.heartbeat(nodeId, now) == 0) {
+                    nodeRepository.save(new ClusterNode(nodeId, host, now));
+                }
+                leaseRepository.renewAll(nodeId, now, until);
+                LocalDateTime deadBefore = now.minusNanos(nodeTtlMs * 1_000_000L);
+                int removed = nodeRepository.deleteDead(deadBefore);
+                if (removed > 0) {
+                    log.warn("Removed {} cluster node(s) without heartbeat for {} ms", removed, nodeTtlMs);
+                }
+                return nodeRepository.findLiveNodeIds(deadBefore);
+            });
+            heartbeats.incrementAndGet();
+            if (nodes != null && !nodes.equals(liveNodes)) {
+                log.info("Cluster membership changed: {} -> {}", liveNodes, nodes);
+                rebalances.incrementAndGet();
+                liveNodes = List.copyOf(nodes);
+            }
+            if (tryAcquire(LEADER_LEASE)) {
+                if (leaderUntil == 0 || System.currentTimeMillis() > leaderUntil) {
+                    log.info("Node {} became cluster leader", nodeId);
+                }
+                leaderUntil = startedAt + nodeTtlMs - heartbeatMs;
+            }
+        } catch (Exception e) {
+            heartbeatFailures.incrementAndGet();
+            log.error("Cluster heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * İsimli kiralamayı alır veya uzatır. Kiralama heartbeat ile birlikte uzar; release edilene ya da düğüm
+     * ölene kadar başka düğüm alamaz.
+     * @return Kiralama bu düğümdeyse true
+     */
+    public boolean tryAcquire(String name) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plusNanos(nodeTtlMs * 1_000_000L);
+        Boolean taken = transactionTemplate.execute(tx -> leaseRepository.tryTake(name, nodeId, now, until) > 0);
+        if (Boolean.TRUE.equals(taken)) {
+            return true;
+        }
+        try {
+            // Satır yoksa oluştur; aynı anda ekleyen diğer düğüm tekil anahtar hatası alır
+            Boolean created = transactionTemplate.execute(tx -> {
+                if (leaseRepository.existsById(name)) {
+                    return false;
+                }
+                leaseRepository.saveAndFlush(new ClusterLease(name, nodeId, until));
+                return true;
+            });
+            if (Boolean.TRUE.equals(created)) {
+                return true;
+            }
+        } catch (Exception e) {
+            log.debug("Lease {} taken concurrently: {}", name, e.getMessage());
+        }
+        leaseConflicts.incrementAndGet();
+        return false;
+    }
+
+    public void release(String name) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> leaseRepository.release(name, nodeId));
+        } catch (Exception e) {
+            // Bırakılamayan kiralama heartbeat durunca süresi dolarak düşer
+            log.warn("Lease {} release failed: {}", name, e.getMessage());
+        }
+    }
+
+    public boolean isLeader() {
+        return System.currentTimeMillis() < leaderUntil;
+    }
+
+    /**
+     * Platform bu düğümün payında mı. Canlı düğüm listesi henüz okunamadıysa hiçbir şeye sahip çıkılmaz.
+     */
+    public boolean owns(Long platformId) {
+        return nodeId.equals(ownerOf(liveNodes, platformId));
+    }
+
+    // Rendezvous hash: her (düğüm, anahtar) çifti için skor, en yüksek skorlu düğüm sahiptir
+    static String ownerOf(List<String> nodes, long key) {
+        String best = null;
+        long bestScore = Long.MIN_VALUE;
+        for (String node : nodes) {
+            long score = mix(hash(node) ^ (key * 0x9E3779B97F4A7C15L));
+            if (best == null || score > bestScore) {
+                best = node;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001B3L;
+        }
+        return h;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static String hostName() {
+        String env = System.getenv("HOSTNAME");
+        if (env != null && !env.isBlank()) {
+            return env;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+
+    public String getNodeId() { return nodeId; }
+
+    public List<String> getLiveNodes() { return liveNodes; }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("nodeId", nodeId);
+        data.put("leader", isLeader());
+        data.put("liveNodes", liveNodes);
+        data.put("heartbeats", heartbeats.get());
+        data.put("heartbeatFailures", heartbeatFailures.get());
+        data.put("rebalances", rebalances.get());
+        data.put("leaseConflicts", leaseConflicts.get());
+        return data;
+    }
+
+    // Kapanışta kiralamalar ve düğüm kaydı silinir; diğerleri TTL beklemeden yeniden dağıtır
+    @PreDestroy
+    public void shutdown() {
+        leaderUntil = 0;
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                leaseRepository.releaseAll(nodeId);
+                nodeRepository.deleteById(nodeId);
+            });
+        } catch (Exception e) {
+            log.warn("Cluster deregistration failed: {}", e.getMessage());
+        }
+    }
+}
@@ -9,16 +9,6 @@ import java.util.Map;
 @RestController
 public class HealthController {
     
-    @GetMapping("/")
-    public Map<String, Object> home() {
-        Map<String, Object> response = new HashMap<>();
-        response.put("status", "UP");
-        response.put("message", "Ecom Stock Sync API is running");
-        response.put("timestamp", LocalDateTime.now());
-        response.put("version", "1.0.0");
-        return response;
-    }
-    
     @GetMapping("/health")
     public Map<String, Object> health() {
         Map<String, Object> response = new HashMap<>();
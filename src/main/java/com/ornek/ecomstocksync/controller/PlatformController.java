@@ -98,7 +98,8 @@ public class PlatformController {
             Long productId = req.getProductId();
             String platformProductId = req.getPlatformProductId();
             com.ornek.ecomstocksync.entity.PlatformProduct platformProduct =
-                platformService.createPlatformProduct(id, productId, platformProductId);
+                platformService.createPlatformProduct(id, productId, platformProductId,
+                    req.getInventoryItemId(), req.getPlatformParentId());
             return ResponseEntity.status(HttpStatus.CREATED).body(platformProduct);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
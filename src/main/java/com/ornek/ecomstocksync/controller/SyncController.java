@@ -20,10 +20,12 @@ public class SyncController {
     @PostMapping("/all")
     public ResponseEntity<Map<String, Object>> syncAllPlatforms() {
         try {
-            int syncedCount = stockSyncService.syncAllPlatforms();
+            List<StockSyncService.PlatformSyncResult> results = stockSyncService.syncAllPlatforms();
+            long syncedCount = results.stream().filter(StockSyncService.PlatformSyncResult::isSuccess).count();
             Map<String, Object> result = Map.of(
-                "success", true,
+                "success", syncedCount == results.size(),
                 "syncedPlatforms", syncedCount,
+                "results", results,
                 "message", "Tüm platformlar senkronize edildi"
             );
             return ResponseEntity.ok(result);
@@ -37,9 +39,10 @@ public class SyncController {
     }
     
     @PostMapping("/platform/{platformId}")
-    public ResponseEntity<Map<String, Object>> syncPlatform(@PathVariable Long platformId) {
+    public ResponseEntity<Map<String, Object>> syncPlatform(@PathVariable Long platformId,
+                                                            @RequestParam(defaultValue = "false") boolean incremental) {
         try {
-            int syncedCount = stockSyncService.syncPlatform(platformId);
+            int syncedCount = stockSyncService.syncPlatform(platformId, incremental);
             Map<String, Object> result = Map.of(
                 "success", true,
                 "syncedProducts", syncedCount,
@@ -216,6 +219,22 @@ public class SyncController {
         }
     }
     
+    @PostMapping("/reconcile")
+    public ResponseEntity<Map<String, Object>> reconcile(@RequestParam(defaultValue = "false") boolean autoCorrect,
+                                                         @RequestParam(defaultValue = "false") boolean full) {
+        try {
+            return ResponseEntity.ok(stockSyncService.reconcileStock(autoCorrect, full));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("success", false, "error", e.getMessage()));
+        } catch (Exception e) {
+            Map<String, Object> result = Map.of(
+                "success", false,
+                "error", e.getMessage()
+            );
+            return ResponseEntity.internalServerError().body(result);
+        }
+    }
+    
     @GetMapping("/consistency")
     public ResponseEntity<List<Map<String, Object>>> checkConsistency() {
         try {
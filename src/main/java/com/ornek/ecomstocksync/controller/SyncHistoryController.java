@@ -1,21 +1,47 @@
-
 package com.ornek.ecomstocksync.controller;
 
 import com.ornek.ecomstocksync.entity.SyncHistory;
-import com.ornek.ecomstocksync.repository.SyncHistoryRepository;
+import com.ornek.ecomstocksync.entity.SyncHistoryRollup;
+import com.ornek.ecomstocksync.service.SyncHistoryService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/sync-history")
 @CrossOrigin(origins = "*")
 public class SyncHistoryController {
 
-    private final SyncHistoryRepository repo;
+    private final SyncHistoryService syncHistoryService;
 
-    public SyncHistoryController(SyncHistoryRepository repo) { this.repo = repo; }
+    public SyncHistoryController(SyncHistoryService syncHistoryService) { this.syncHistoryService = syncHistoryService; }
 
+    // Filtreli, sayfalı ham geçmiş; sonraki sayfa için yanıttaki nextBeforeId beforeId olarak gönderilir
     @GetMapping
-    public List<SyncHistory> list() { return repo.findAll(); }
+    public Map<String, Object> list(@RequestParam(required = false) Long platformId,
+                                    @RequestParam(required = false) Long platformProductId,
+                                    @RequestParam(required = false) Long materialId,
+                                    @RequestParam(required = false) SyncHistory.Action action,
+                                    @RequestParam(required = false) SyncHistory.Status status,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                    @RequestParam(required = false) Long beforeId,
+                                    @RequestParam(defaultValue = "50") int size) {
+        return syncHistoryService.search(platformId, platformProductId, materialId, action, status, from, to, beforeId, size);
+    }
+
+    // Saatlik (varsayılan son 24 saat) veya günlük (varsayılan son 30 gün) özetler
+    @GetMapping("/rollups")
+    public List<? extends SyncHistoryRollup> rollups(@RequestParam(defaultValue = "HOUR") SyncHistoryService.Granularity granularity,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                     @RequestParam(required = false) Long platformId) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now().plusHours(1);
+        LocalDateTime start = from != null ? from
+            : granularity == SyncHistoryService.Granularity.DAY ? end.minusDays(30) : end.minusHours(25);
+        return syncHistoryService.rollups(granularity, start, end, platformId);
+    }
 }
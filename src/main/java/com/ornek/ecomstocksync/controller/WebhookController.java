@@ -1,10 +1,13 @@
-
 package com.ornek.ecomstocksync.controller;
 
+import com.ornek.ecomstocksync.entity.Platform;
+import com.ornek.ecomstocksync.webhook.WebhookReceiver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -16,29 +19,78 @@ public class WebhookController {
 
     private static final Logger log = LoggerFactory.getLogger(WebhookController.class);
 
-    @PostMapping("/shopify")
+    private final WebhookReceiver webhookReceiver;
+
+    public WebhookController(WebhookReceiver webhookReceiver) {
+        this.webhookReceiver = webhookReceiver;
+    }
+
+    // Birden fazla mağaza varsa platform kodu yolda verilir: /webhooks/shopify/{platformCode}
+    @PostMapping({"/shopify", "/shopify/{platformCode}"})
     public ResponseEntity<Map<String, Object>> shopifyWebhook(
+            @PathVariable(required = false) String platformCode,
             @RequestHeader(value = "X-Shopify-Topic", required = false) String topic,
             @RequestHeader(value = "X-Shopify-Hmac-Sha256", required = false) String hmac,
-            @RequestBody(required = false) String body
+            @RequestHeader(value = "X-Shopify-Webhook-Id", required = false) String webhookId,
+            @RequestBody(required = false) byte[] body
     ) {
-        log.info("[Webhook] Shopify topic={}, hmac={}, body={}", topic, hmac, body);
-        Map<String, Object> res = new HashMap<>();
-        res.put("received", true);
-        res.put("platform", "shopify");
-        res.put("topic", topic);
-        return ResponseEntity.ok(res);
+        WebhookReceiver.Outcome outcome = webhookReceiver.receive(
+            Platform.PlatformType.SHOPIFY, platformCode, topic, webhookId, hmac, body);
+        log.debug("[Webhook] Shopify topic={}, outcome={}", topic, outcome);
+        return respond(outcome, "shopify", topic);
     }
 
-    @PostMapping("/ebay")
+    @PostMapping({"/ebay", "/ebay/{platformCode}"})
     public ResponseEntity<Map<String, Object>> ebayWebhook(
+            @PathVariable(required = false) String platformCode,
             @RequestHeader(value = "X-EBAY-SIGNATURE", required = false) String signature,
-            @RequestBody(required = false) String body
+            @RequestHeader(value = "X-EBAY-TOPIC", required = false) String topic,
+            @RequestBody(required = false) byte[] body
     ) {
-        log.info("[Webhook] eBay signature={}, body={}", signature, body);
+        WebhookReceiver.Outcome outcome = webhookReceiver.receive(
+            Platform.PlatformType.EBAY, platformCode, topic, null, signature, body);
+        log.debug("[Webhook] eBay topic={}, outcome={}", topic, outcome);
+        return respond(outcome, "ebay", topic);
+    }
+
+    // eBay uç nokta kaydı: aynı adrese GET ?challenge_code=.. gelir, challengeResponse ile yanıtlanır
+    @GetMapping({"/ebay", "/ebay/{platformCode}"})
+    public ResponseEntity<Map<String, Object>> ebayChallenge(
+            @PathVariable(required = false) String platformCode,
+            @RequestParam("challenge_code") String challengeCode
+    ) {
+        String endpoint = ServletUriComponentsBuilder.fromCurrentRequestUri().build().toUriString();
+        String challengeResponse = webhookReceiver.ebayChallenge(platformCode, challengeCode, endpoint);
         Map<String, Object> res = new HashMap<>();
-        res.put("received", true);
-        res.put("platform", "ebay");
+        if (challengeResponse == null) {
+            res.put("error", "Platform veya doğrulama jetonu bulunamadı");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(res);
+        }
+        res.put("challengeResponse", challengeResponse);
+        log.debug("[Webhook] eBay challenge answered platformCode={}", platformCode);
         return ResponseEntity.ok(res);
     }
+
+    private ResponseEntity<Map<String, Object>> respond(WebhookReceiver.Outcome outcome, String platform, String topic) {
+        Map<String, Object> res = new HashMap<>();
+        res.put("platform", platform);
+        res.put("topic", topic);
+        switch (outcome) {
+            case UNAUTHORIZED:
+                res.put("received", false);
+                res.put("error", "Geçersiz imza");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(res);
+            case UNKNOWN_PLATFORM:
+                res.put("received", false);
+                res.put("error", "Platform bulunamadı");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(res);
+            case DUPLICATE:
+                res.put("received", true);
+                res.put("duplicate", true);
+                return ResponseEntity.ok(res);
+            default:
+                res.put("received", true);
+                return ResponseEntity.ok(res);
+        }
+    }
 }
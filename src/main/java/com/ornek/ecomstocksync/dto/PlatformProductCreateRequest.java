@@ -9,9 +9,20 @@ public class PlatformProductCreateRequest {
 
     private String platformProductId;
 
+    // Shopify: varyantın InventoryItem id'si ve ürün id'si; boşsa ilk çağrıda varyanttan okunur
+    private String inventoryItemId;
+
+    private String platformParentId;
+
     public Long getProductId() { return productId; }
     public void setProductId(Long productId) { this.productId = productId; }
 
     public String getPlatformProductId() { return platformProductId; }
     public void setPlatformProductId(String platformProductId) { this.platformProductId = platformProductId; }
+
+    public String getInventoryItemId() { return inventoryItemId; }
+    public void setInventoryItemId(String inventoryItemId) { this.inventoryItemId = inventoryItemId; }
+
+    public String getPlatformParentId() { return platformParentId; }
+    public void setPlatformParentId(String platformParentId) { this.platformParentId = platformParentId; }
 }
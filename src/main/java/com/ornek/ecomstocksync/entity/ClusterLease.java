@@ -0,0 +1,36 @@
+package com.ornek.ecomstocksync.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * İsimli kiralama (ör. "leader", "platform-sync:3"). Sahibi süre dolmadan yeniler; süresi geçen kiralamayı
+ * başka bir düğüm koşullu UPDATE ile devralır.
+ */
+@Entity
+@Table(name = "cluster_lease")
+public class ClusterLease {
+    @Id
+    @Column(name = "name", length = 100)
+    private String name;
+
+    @Column(name = "owner", nullable = false, length = 100)
+    private String owner;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public ClusterLease() {}
+
+    public ClusterLease(String name, String owner, LocalDateTime expiresAt) {
+        this.name = name;
+        this.owner = owner;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getName() { return name; }
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,40 @@
+package com.ornek.ecomstocksync.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Çalışan uygulama instance'ı. heartbeat_at süresi geçen düğüm ölü sayılır ve işleri diğerlerine dağıtılır.
+ */
+@Entity
+@Table(name = "cluster_node", indexes = @Index(name = "idx_cluster_node_heartbeat", columnList = "heartbeat_at"))
+public class ClusterNode {
+    @Id
+    @Column(name = "node_id", length = 100)
+    private String nodeId;
+
+    @Column(name = "host", length = 255)
+    private String host;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+
+    public ClusterNode() {}
+
+    public ClusterNode(String nodeId, String host, LocalDateTime now) {
+        this.nodeId = nodeId;
+        this.host = host;
+        this.startedAt = now;
+        this.heartbeatAt = now;
+    }
+
+    public String getNodeId() { return nodeId; }
+    public String getHost() { return host; }
+    public void setHost(String host) { this.host = host; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public LocalDateTime getHeartbeatAt() { return heartbeatAt; }
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) { this.heartbeatAt = heartbeatAt; }
+}
@@ -0,0 +1,128 @@
+package com.ornek.ecomstocksync.entity;
+
+import com.ornek.ecomstocksync.integration.DispatchLane;
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Platforma gönderilecek stok/fiyat güncellemesi. PlatformProduct değişikliği ile aynı
+ * transaction'da yazılır, arka plandaki dispatcher tarafından gönderilir.
+ */
+@Entity
+@Table(name = "platform_update_outbox", indexes = {
+    @Index(name = "idx_outbox_status_platform", columnList = "status, platform_id, id"),
+    @Index(name = "idx_outbox_status_platform_lane", columnList = "status, platform_id, lane, id"),
+    @Index(name = "idx_outbox_product_type_status", columnList = "platform_product_id, update_type, status, id")
+})
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "platform_id", nullable = false)
+    private Platform platform;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "platform_product_id", nullable = false)
+    private PlatformProduct platformProduct;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "update_type", nullable = false)
+    private UpdateType updateType;
+
+    @Column(name = "stock_value")
+    private Integer stockValue;
+
+    @Column(name = "price_value", precision = 19, scale = 4)
+    private BigDecimal priceValue;
+
+    // Öncelik hattı; eski kayıtlarda null olabilir, STOCK hattında gönderilir
+    @Enumerated(EnumType.STRING)
+    @Column(name = "lane", length = 16)
+    private DispatchLane lane;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status = Status.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    // SENDING durumundaki olayı gönderen düğüm ve sahiplenme zamanı
+    @Column(name = "claimed_by", length = 128)
+    private String claimedBy;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    public enum UpdateType { STOCK, PRICE }
+    // SENDING: bir düğüm olayı sahiplendi ve gönderiyor; sonuç yazılınca SENT veya yeniden PENDING/FAILED olur
+    // SUPERSEDED: aynı ürün ve tür için daha yeni bir olay yazıldı veya gönderildi; bu olay hiç gönderilmez
+    public enum Status { PENDING, SENDING, SENT, FAILED, SUPERSEDED }
+
+    public OutboxEvent() {}
+
+    public static OutboxEvent stock(PlatformProduct platformProduct, Integer newStock) {
+        OutboxEvent event = new OutboxEvent();
+        event.platform = platformProduct.getPlatform();
+        event.platformProduct = platformProduct;
+        event.updateType = UpdateType.STOCK;
+        event.stockValue = newStock;
+        event.lane = DispatchLane.forStock(newStock);
+        return event;
+    }
+
+    public static OutboxEvent price(PlatformProduct platformProduct, BigDecimal newPrice) {
+        OutboxEvent event = new OutboxEvent();
+        event.platform = platformProduct.getPlatform();
+        event.platformProduct = platformProduct;
+        event.updateType = UpdateType.PRICE;
+        event.priceValue = newPrice;
+        event.lane = DispatchLane.PRICE;
+        return event;
+    }
+
+    public Long getId() { return id; }
+    public Platform getPlatform() { return platform; }
+    public void setPlatform(Platform platform) { this.platform = platform; }
+    public PlatformProduct getPlatformProduct() { return platformProduct; }
+    public void setPlatformProduct(PlatformProduct platformProduct) { this.platformProduct = platformProduct; }
+    public UpdateType getUpdateType() { return updateType; }
+    public void setUpdateType(UpdateType updateType) { this.updateType = updateType; }
+    public Integer getStockValue() { return stockValue; }
+    public void setStockValue(Integer stockValue) { this.stockValue = stockValue; }
+    public BigDecimal getPriceValue() { return priceValue; }
+    public void setPriceValue(BigDecimal priceValue) { this.priceValue = priceValue; }
+    public DispatchLane getLane() { return lane; }
+    public void setLane(DispatchLane lane) { this.lane = lane; }
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getSentAt() { return sentAt; }
+    public void setSentAt(LocalDateTime sentAt) { this.sentAt = sentAt; }
+    public String getClaimedBy() { return claimedBy; }
+    public void setClaimedBy(String claimedBy) { this.claimedBy = claimedBy; }
+    public LocalDateTime getClaimedAt() { return claimedAt; }
+    public void setClaimedAt(LocalDateTime claimedAt) { this.claimedAt = claimedAt; }
+}
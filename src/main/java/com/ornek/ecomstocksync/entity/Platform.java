@@ -35,6 +35,18 @@ public class Platform {
 
     @Column(name = "distribution_ratio")
     private Integer distributionRatio; // 0-100 arası, null ise eşit dağıt
+
+    @Column(name = "rate_limit_capacity")
+    private Integer rateLimitCapacity; // API kovası kapasitesi, null ise client varsayılanı
+
+    @Column(name = "rate_limit_per_second")
+    private Double rateLimitPerSecond; // saniyede dolan istek hakkı, null ise client varsayılanı
+
+    @Column(name = "sync_min_interval_seconds")
+    private Integer syncMinIntervalSeconds; // uyarlanır senkron aralığının alt sınırı, null ise genel varsayılan
+
+    @Column(name = "sync_max_interval_seconds")
+    private Integer syncMaxIntervalSeconds; // uyarlanır senkron aralığının üst sınırı, null ise genel varsayılan
     
     @Column(name = "created_at")
     private LocalDateTime createdAt;
@@ -92,6 +104,18 @@ public class Platform {
 
     public Integer getDistributionRatio() { return distributionRatio; }
     public void setDistributionRatio(Integer distributionRatio) { this.distributionRatio = distributionRatio; }
+
+    public Integer getRateLimitCapacity() { return rateLimitCapacity; }
+    public void setRateLimitCapacity(Integer rateLimitCapacity) { this.rateLimitCapacity = rateLimitCapacity; }
+
+    public Double getRateLimitPerSecond() { return rateLimitPerSecond; }
+    public void setRateLimitPerSecond(Double rateLimitPerSecond) { this.rateLimitPerSecond = rateLimitPerSecond; }
+
+    public Integer getSyncMinIntervalSeconds() { return syncMinIntervalSeconds; }
+    public void setSyncMinIntervalSeconds(Integer syncMinIntervalSeconds) { this.syncMinIntervalSeconds = syncMinIntervalSeconds; }
+
+    public Integer getSyncMaxIntervalSeconds() { return syncMaxIntervalSeconds; }
+    public void setSyncMaxIntervalSeconds(Integer syncMaxIntervalSeconds) { this.syncMaxIntervalSeconds = syncMaxIntervalSeconds; }
     
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 @Entity
 @Table(name = "platform_products")
@@ -29,6 +30,13 @@ public class PlatformProduct {
     @Column(name = "platform_sku")
     private String platformSku;
     
+    // Shopify: platformProductId varyant id'sidir; stok kaydı (InventoryItem) ve varyantın ürünü ayrı id'lerdir
+    @Column(name = "inventory_item_id")
+    private String inventoryItemId;
+    
+    @Column(name = "platform_parent_id")
+    private String platformParentId;
+    
     private BigDecimal price;
     private Integer stock;
     
@@ -38,6 +46,13 @@ public class PlatformProduct {
     @Column(name = "last_sync_at")
     private LocalDateTime lastSyncAt;
     
+    // Değişiklik takibi: stok/fiyat her değiştiğinde artar; platforma gönderilen sürüm syncedVersion'da tutulur
+    @Column(name = "change_version")
+    private Long changeVersion = 0L;
+    
+    @Column(name = "synced_version")
+    private Long syncedVersion = 0L;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
@@ -81,11 +96,27 @@ public class PlatformProduct {
     public String getPlatformSku() { return platformSku; }
     public void setPlatformSku(String platformSku) { this.platformSku = platformSku; }
     
+    public String getInventoryItemId() { return inventoryItemId; }
+    public void setInventoryItemId(String inventoryItemId) { this.inventoryItemId = inventoryItemId; }
+    
+    public String getPlatformParentId() { return platformParentId; }
+    public void setPlatformParentId(String platformParentId) { this.platformParentId = platformParentId; }
+    
     public BigDecimal getPrice() { return price; }
-    public void setPrice(BigDecimal price) { this.price = price; }
+    public void setPrice(BigDecimal price) {
+        if (this.price == null ? price != null : price == null || this.price.compareTo(price) != 0) {
+            markChanged();
+        }
+        this.price = price;
+    }
     
     public Integer getStock() { return stock; }
-    public void setStock(Integer stock) { this.stock = stock; }
+    public void setStock(Integer stock) {
+        if (!Objects.equals(this.stock, stock)) {
+            markChanged();
+        }
+        this.stock = stock;
+    }
     
     public boolean isActive() { return isActive; }
     public void setActive(boolean active) { isActive = active; }
@@ -93,6 +124,28 @@ public class PlatformProduct {
     public LocalDateTime getLastSyncAt() { return lastSyncAt; }
     public void setLastSyncAt(LocalDateTime lastSyncAt) { this.lastSyncAt = lastSyncAt; }
     
+    public Long getChangeVersion() { return changeVersion; }
+    public void setChangeVersion(Long changeVersion) { this.changeVersion = changeVersion; }
+    
+    public Long getSyncedVersion() { return syncedVersion; }
+    public void setSyncedVersion(Long syncedVersion) { this.syncedVersion = syncedVersion; }
+    
+    /**
+     * Platforma gönderilmemiş stok/fiyat değişikliği var mı
+     */
+    public boolean isDirty() {
+        return changeVersion != null && (syncedVersion == null || changeVersion > syncedVersion);
+    }
+    
+    public void markChanged() {
+        this.changeVersion = changeVersion == null ? 1L : changeVersion + 1;
+    }
+    
+    public void markSynced(LocalDateTime syncedAt) {
+        this.lastSyncAt = syncedAt;
+        this.syncedVersion = changeVersion;
+    }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
@@ -0,0 +1,48 @@
+package com.ornek.ecomstocksync.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Uygulanmış webhook olayının idempotency anahtarı. (platform_id, event_key) tekildir;
+ * aynı olay ikinci kez yazılmaya çalışılırsa transaction geri alınır.
+ */
+@Entity
+@Table(name = "webhook_processed_event",
+    uniqueConstraints = @UniqueConstraint(name = "uk_webhook_processed_event", columnNames = {"platform_id", "event_key"}),
+    indexes = @Index(name = "idx_webhook_processed_at", columnList = "processed_at"))
+public class ProcessedWebhookEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "platform_id", nullable = false)
+    private Long platformId;
+
+    @Column(name = "event_key", nullable = false, length = 100)
+    private String eventKey;
+
+    @Column(name = "topic", length = 100)
+    private String topic;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt = LocalDateTime.now();
+
+    public ProcessedWebhookEvent() {}
+
+    public ProcessedWebhookEvent(Long platformId, String eventKey, String topic) {
+        this.platformId = platformId;
+        this.eventKey = eventKey;
+        this.topic = topic;
+    }
+
+    public Long getId() { return id; }
+    public Long getPlatformId() { return platformId; }
+    public void setPlatformId(Long platformId) { this.platformId = platformId; }
+    public String getEventKey() { return eventKey; }
+    public void setEventKey(String eventKey) { this.eventKey = eventKey; }
+    public String getTopic() { return topic; }
+    public void setTopic(String topic) { this.topic = topic; }
+    public LocalDateTime getProcessedAt() { return processedAt; }
+    public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+}
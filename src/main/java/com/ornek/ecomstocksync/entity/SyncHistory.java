@@ -4,8 +4,17 @@ package com.ornek.ecomstocksync.entity;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
+/**
+ * Platform güncelleme geçmişinin ham satırı. Satırlar SyncHistoryWriter ile toplu yazılır; saatlik ve günlük
+ * özetler aynı anda sync_history_hourly / sync_history_daily tablolarında tutulur, eski ham satırlar budanır.
+ */
 @Entity
-@Table(name = "sync_history")
+@Table(name = "sync_history", indexes = {
+    @Index(name = "idx_sync_history_created", columnList = "created_at"),
+    @Index(name = "idx_sync_history_platform_created", columnList = "platform_id, created_at"),
+    @Index(name = "idx_sync_history_pp_created", columnList = "platform_product_id, created_at"),
+    @Index(name = "idx_sync_history_status_created", columnList = "status, created_at")
+})
 public class SyncHistory {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
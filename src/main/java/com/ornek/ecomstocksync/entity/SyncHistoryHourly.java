@@ -0,0 +1,11 @@
+package com.ornek.ecomstocksync.entity;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "sync_history_hourly",
+    uniqueConstraints = @UniqueConstraint(name = "uk_sync_history_hourly",
+        columnNames = {"bucket_start", "platform_id", "action", "status"}),
+    indexes = @Index(name = "idx_sync_history_hourly_platform", columnList = "platform_id, bucket_start"))
+public class SyncHistoryHourly extends SyncHistoryRollup {
+}
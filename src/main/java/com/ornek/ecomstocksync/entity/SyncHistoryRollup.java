@@ -0,0 +1,52 @@
+package com.ornek.ecomstocksync.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Zaman dilimi, platform, işlem ve durum başına özet: olay sayısı, son olay ve son hata.
+ * Satırlar ham geçmiş yazılırken artımlı güncellenir; panolar ham tabloyu taramadan buradan okur.
+ */
+@MappedSuperclass
+public abstract class SyncHistoryRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    // Platformsuz kayıtlar 0 altında toplanır
+    @Column(name = "platform_id", nullable = false)
+    private Long platformId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "action", nullable = false, length = 32)
+    private SyncHistory.Action action;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private SyncHistory.Status status;
+
+    @Column(name = "event_count", nullable = false)
+    private long eventCount;
+
+    @Column(name = "last_event_at")
+    private LocalDateTime lastEventAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "last_error_at")
+    private LocalDateTime lastErrorAt;
+
+    public Long getId() { return id; }
+    public LocalDateTime getBucketStart() { return bucketStart; }
+    public Long getPlatformId() { return platformId; }
+    public SyncHistory.Action getAction() { return action; }
+    public SyncHistory.Status getStatus() { return status; }
+    public long getEventCount() { return eventCount; }
+    public LocalDateTime getLastEventAt() { return lastEventAt; }
+    public String getLastError() { return lastError; }
+    public LocalDateTime getLastErrorAt() { return lastErrorAt; }
+}
@@ -0,0 +1,118 @@
+package com.ornek.ecomstocksync.integration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tek bir platform için devre kesici.
+ * CLOSED: çağrılar geçer, ardışık hata eşiği aşılınca OPEN olur.
+ * OPEN: çağrılar hemen reddedilir; bekleme süresi dolunca tek bir deneme çağrısı için HALF_OPEN olur.
+ * HALF_OPEN: deneme başarılıysa CLOSED, başarısızsa tekrar OPEN.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+    private final AtomicLong openedAtNanos = new AtomicLong();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+    private final AtomicLong failedCalls = new AtomicLong();
+    private final AtomicLong openedCount = new AtomicLong();
+
+    public CircuitBreaker(String name, int failureThreshold, long openDurationMs) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+    }
+
+    /**
+     * Çağrıya izin verilip verilmediğini döner; HALF_OPEN'da yalnızca tek deneme çağrısına izin verir.
+     * true dönerse çağıran onSuccess veya onFailure çağırmalıdır.
+     */
+    public boolean tryAcquirePermission() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && System.nanoTime() - openedAtNanos.get() >= openDurationNanos
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            trialInFlight.set(false);
+        }
+        if (state.get() == State.HALF_OPEN && trialInFlight.compareAndSet(false, true)) {
+            return true;
+        }
+        rejectedCalls.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * İzin tüketmeden çağrının kabul edilip edilmeyeceğini söyler
+     */
+    public boolean isCallPermitted() {
+        State current = state.get();
+        return current == State.CLOSED
+            || (current == State.OPEN && System.nanoTime() - openedAtNanos.get() >= openDurationNanos)
+            || (current == State.HALF_OPEN && !trialInFlight.get());
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            trialInFlight.set(false);
+        }
+    }
+
+    /**
+     * İzin alınmış çağrı platforma ulaşmadan bittiyse (ör. hat kapısında zaman aşımı): sonuç sayılmaz,
+     * HALF_OPEN'daki deneme hakkı geri verilir
+     */
+    public void releasePermission() {
+        if (state.get() == State.HALF_OPEN) {
+            trialInFlight.set(false);
+        }
+    }
+
+    public void onFailure() {
+        failedCalls.incrementAndGet();
+        if (state.get() == State.HALF_OPEN) {
+            open(State.HALF_OPEN);
+            return;
+        }
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open(State.CLOSED);
+        }
+    }
+
+    private void open(State from) {
+        if (state.compareAndSet(from, State.OPEN)) {
+            openedAtNanos.set(System.nanoTime());
+            openedCount.incrementAndGet();
+            consecutiveFailures.set(0);
+            trialInFlight.set(false);
+        }
+    }
+
+    public String getName() { return name; }
+    public State getState() { return state.get(); }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("state", state.get().name());
+        data.put("consecutiveFailures", consecutiveFailures.get());
+        data.put("failedCalls", failedCalls.get());
+        data.put("rejectedCalls", rejectedCalls.get());
+        data.put("openedCount", openedCount.get());
+        return data;
+    }
+}
@@ -0,0 +1,42 @@
+package com.ornek.ecomstocksync.integration;
+
+import com.ornek.ecomstocksync.entity.Platform;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Platform başına bir devre kesici tutar
+ */
+@Component
+public class CircuitBreakerRegistry {
+
+    private final Map<Long, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final int failureThreshold;
+    private final long openDurationMs;
+
+    public CircuitBreakerRegistry(@Value("${circuit.failure-threshold:5}") int failureThreshold,
+                                  @Value("${circuit.open-duration.ms:30000}") long openDurationMs) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+    }
+
+    public CircuitBreaker forPlatform(Platform platform) {
+        return breakers.computeIfAbsent(platform.getId(),
+            id -> new CircuitBreaker(platform.getCode(), failureThreshold, openDurationMs));
+    }
+
+    public boolean isCallPermitted(Long platformId) {
+        CircuitBreaker breaker = breakers.get(platformId);
+        return breaker == null || breaker.isCallPermitted();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> data = new TreeMap<>();
+        breakers.values().forEach(b -> data.put(b.getName(), b.snapshot()));
+        return data;
+    }
+}
@@ -0,0 +1,145 @@
+package com.ornek.ecomstocksync.integration;
+
+import com.ornek.ecomstocksync.entity.Platform;
+import com.ornek.ecomstocksync.entity.PlatformProduct;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Asıl client'ı platformun devre kesicisiyle sarar. Devre açıkken çağrılar
+ * uzak API'ye gitmeden reddedilir. Başarısız güncellemeler burada bekletilmez: yazma yolları
+ * outbox'tan (tekrar deneme orada kalıcıdır) veya senkron sürümü işaretlenmemiş ürünlerden beslenir.
+ */
+public class CircuitBreakingPlatformClient implements PlatformClient {
+
+    private final PlatformClient delegate;
+    private final CircuitBreaker breaker;
+
+    public CircuitBreakingPlatformClient(PlatformClient delegate, CircuitBreaker breaker) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+    }
+
+    @Override
+    public void updateStock(Platform platform, PlatformProduct platformProduct, Integer newStock) {
+        updateStockBatch(platform, List.of(new StockUpdate(platformProduct, newStock)), false);
+    }
+
+    @Override
+    public void updatePrice(Platform platform, PlatformProduct platformProduct, BigDecimal newPrice) {
+        updatePriceBatch(platform, List.of(new PriceUpdate(platformProduct, newPrice)), false);
+    }
+
+    // Devre açıkken stok bilinmiyor sayılır
+    @Override
+    public Integer fetchStock(Platform platform, PlatformProduct platformProduct) {
+        if (!breaker.tryAcquirePermission()) {
+            return null;
+        }
+        try {
+            Integer stock = delegate.fetchStock(platform, platformProduct);
+            breaker.onSuccess();
+            return stock;
+        } catch (RuntimeException e) {
+            if (isLaneTimeout(e)) {
+                breaker.releasePermission();
+            } else if (isRequestError(e)) {
+                breaker.onSuccess();
+            } else {
+                breaker.onFailure();
+            }
+            throw e;
+        }
+    }
+
+    // Sağlık kontrolü devreden bağımsızdır: devre açıkken de platformun dönüp dönmediği görülebilsin
+    @Override
+    public void ping(Platform platform) {
+        delegate.ping(platform);
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return delegate.maxBatchSize();
+    }
+
+    @Override
+    public void updateStockBatch(Platform platform, List<StockUpdate> updates) {
+        updateStockBatch(platform, updates, true);
+    }
+
+    @Override
+    public void updatePriceBatch(Platform platform, List<PriceUpdate> updates) {
+        updatePriceBatch(platform, updates, true);
+    }
+
+    private void updateStockBatch(Platform platform, List<StockUpdate> updates, boolean batch) {
+        if (!breaker.tryAcquirePermission()) {
+            throw new CircuitOpenException(breaker.getName());
+        }
+        try {
+            if (batch) {
+                delegate.updateStockBatch(platform, updates);
+            } else {
+                StockUpdate update = updates.get(0);
+                delegate.updateStock(platform, update.getPlatformProduct(), update.getNewStock());
+            }
+        } catch (RuntimeException e) {
+            if (isLaneTimeout(e)) {
+                // İstek platforma hiç gitmedi
+                breaker.releasePermission();
+                throw e;
+            }
+            if (isRequestError(e)) {
+                // İstek hatası platformun sağlığıyla ilgili değildir
+                breaker.onSuccess();
+                throw e;
+            }
+            breaker.onFailure();
+            throw e;
+        }
+        breaker.onSuccess();
+    }
+
+    private void updatePriceBatch(Platform platform, List<PriceUpdate> updates, boolean batch) {
+        if (!breaker.tryAcquirePermission()) {
+            throw new CircuitOpenException(breaker.getName());
+        }
+        try {
+            if (batch) {
+                delegate.updatePriceBatch(platform, updates);
+            } else {
+                PriceUpdate update = updates.get(0);
+                delegate.updatePrice(platform, update.getPlatformProduct(), update.getNewPrice());
+            }
+        } catch (RuntimeException e) {
+            if (isLaneTimeout(e)) {
+                // İstek platforma hiç gitmedi
+                breaker.releasePermission();
+                throw e;
+            }
+            if (isRequestError(e)) {
+                breaker.onSuccess();
+                throw e;
+            }
+            breaker.onFailure();
+            throw e;
+        }
+        breaker.onSuccess();
+    }
+
+    private static boolean isRequestError(Throwable e) {
+        return e instanceof IllegalArgumentException || e.getCause() instanceof IllegalArgumentException;
+    }
+
+    private static boolean isLaneTimeout(Throwable e) {
+        return e instanceof DispatchLanes.LaneTimeoutException || e.getCause() instanceof DispatchLanes.LaneTimeoutException;
+    }
+
+    public static class CircuitOpenException extends RuntimeException {
+        public CircuitOpenException(String platform) {
+            super("circuit open: " + platform);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.ornek.ecomstocksync.integration;
+
+/**
+ * Platforma giden güncellemelerin öncelik hatları. Sıra önceliği gösterir; hatların payı
+ * DispatchLanes'teki ağırlıklarla belirlenir.
+ */
+public enum DispatchLane {
+    // Stoku sıfıra düşen ürün: gecikirse satılmış ürün tekrar satılır
+    CRITICAL,
+    STOCK,
+    PRICE,
+    // Zamanlanmış tam/artımlı senkronizasyon ve arka plan okumaları
+    BULK;
+
+    public static DispatchLane forStock(Integer newStock) {
+        return newStock != null && newStock <= 0 ? CRITICAL : STOCK;
+    }
+}
@@ -0,0 +1,302 @@
+package com.ornek.ecomstocksync.integration;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Platform başına öncelik hatlı kapı. Bir platforma aynı anda en fazla perPlatformConcurrency HTTP isteği gider;
+ * kapı boşaldığında bekleyen hatlardan biri yumuşak ağırlıklı round-robin ile seçilir
+ * (varsayılan ağırlıklar CRITICAL 8, STOCK 4, PRICE 2, BULK 1). Böylece binlerce fiyat veya toplu
+ * senkronizasyon çağrısı beklerken stoku sıfırlanan ürün bir sonraki boşlukta gönderilir, düşük
+ * öncelikli hatlar da tamamen aç kalmaz.
+ * <p>
+ * Kapı client çağrısının tamamı için değil, her HTTP denemesi için ayrı alınır: limiter beklemesi, tekrar deneme
+ * aralığı ve toplu güncellemenin diğer parçaları sırasında kapı boştur. Çağrının hattı {@link #onLane} ile
+ * thread'e bağlanır; client'lar isteği kurarken {@link #currentLane()} ile okuyup {@link #gateAsync} ile gönderir.
+ * Hattı olmayan çağrılar (ör. sağlık kontrolü) kapıdan geçmez.
+ */
+@Component
+public class DispatchLanes {
+
+    private static final DispatchLane[] LANES = DispatchLane.values();
+    private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+    private final Map<Long, Gate> gates = new ConcurrentHashMap<>();
+    private final EnumMap<DispatchLane, Integer> weights = new EnumMap<>(DispatchLane.class);
+    private final EnumMap<DispatchLane, LaneStats> stats = new EnumMap<>(DispatchLane.class);
+    private final ThreadLocal<DispatchLane> currentLane = new ThreadLocal<>();
+    private final int perPlatformConcurrency;
+    private final long maxWaitMs;
+    // Zaman aşımları ve sırası gelen isteğin başlatılması; istekler bloklamadığı için tek thread yeterli
+    private final ScheduledExecutorService scheduler;
+
+    public DispatchLanes(@Value("${dispatch.lanes.critical.weight:8}") int criticalWeight,
+                         @Value("${dispatch.lanes.stock.weight:4}") int stockWeight,
+                         @Value("${dispatch.lanes.price.weight:2}") int priceWeight,
+                         @Value("${dispatch.lanes.bulk.weight:1}") int bulkWeight,
+                         @Value("${dispatch.lanes.per-platform-concurrency:1}") int perPlatformConcurrency,
+                         @Value("${dispatch.lanes.max-wait.ms:120000}") long maxWaitMs) {
+        weights.put(DispatchLane.CRITICAL, Math.max(1, criticalWeight));
+        weights.put(DispatchLane.STOCK, Math.max(1, stockWeight));
+        weights.put(DispatchLane.PRICE, Math.max(1, priceWeight));
+        weights.put(DispatchLane.BULK, Math.max(1, bulkWeight));
+        for (DispatchLane lane : LANES) {
+            stats.put(lane, new LaneStats());
+        }
+        this.perPlatformConcurrency = Math.max(1, perPlatformConcurrency);
+        this.maxWaitMs = maxWaitMs;
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "dispatch-lanes");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
+    }
+
+    public int weight(DispatchLane lane) {
+        return weights.get(lane);
+    }
+
+    /**
+     * action süresince bu thread'den başlatılan platform istekleri verilen hattın sırasını bekler
+     */
+    public <T> T onLane(DispatchLane lane, Supplier<T> action) {
+        DispatchLane previous = currentLane.get();
+        currentLane.set(lane);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                currentLane.remove();
+            } else {
+                currentLane.set(previous);
+            }
+        }
+    }
+
+    public void onLane(DispatchLane lane, Runnable action) {
+        onLane(lane, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Çağıran thread'in hattı; hat dışındaysa null. Client'lar bunu isteği kuyruğa almadan önce, çağıran thread'de okur.
+     */
+    public DispatchLane currentLane() {
+        return currentLane.get();
+    }
+
+    /**
+     * Hat sırası gelince isteği başlatır, istek tamamlanınca kapıyı bırakır. lane null ise istek doğrudan gider.
+     * maxWaitMs içinde sıra gelmezse future LaneTimeoutException ile tamamlanır.
+     */
+    public <T> CompletableFuture<T> gateAsync(Long platformId, DispatchLane lane, Supplier<CompletableFuture<T>> request) {
+        if (lane == null) {
+            return request.get();
+        }
+        Gate gate = gates.computeIfAbsent(platformId, id -> new Gate(perPlatformConcurrency));
+        CompletableFuture<Void> turn = acquire(gate, lane);
+        if (turn == GRANTED) {
+            return send(gate, request);
+        }
+        // Sıra genelde başka bir isteğin yanıt thread'inde verilir; istek o thread'de zincirlenmeden başlatılır
+        return turn.thenComposeAsync(v -> send(gate, request), scheduler);
+    }
+
+    private <T> CompletableFuture<T> send(Gate gate, Supplier<CompletableFuture<T>> request) {
+        CompletableFuture<T> call;
+        try {
+            call = request.get();
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        return call.whenComplete((value, error) -> release(gate));
+    }
+
+    private CompletableFuture<Void> acquire(Gate gate, DispatchLane lane) {
+        LaneStats laneStats = stats.get(lane);
+        Waiter waiter = new Waiter();
+        gate.lock.lock();
+        try {
+            if (gate.available > 0 && gate.waiterCount == 0) {
+                gate.available--;
+                laneStats.recordWait(0);
+                return GRANTED;
+            }
+            gate.queues.get(lane).add(waiter);
+            gate.waiterCount++;
+            laneStats.waiting.incrementAndGet();
+        } finally {
+            gate.lock.unlock();
+        }
+        ScheduledFuture<?> timeout = scheduler.schedule(() -> expire(gate, lane, waiter), maxWaitMs, TimeUnit.MILLISECONDS);
+        waiter.turn.whenComplete((v, error) -> {
+            timeout.cancel(false);
+            laneStats.waiting.decrementAndGet();
+            if (error == null) {
+                laneStats.recordWait(System.nanoTime() - waiter.queuedAt);
+            }
+        });
+        return waiter.turn;
+    }
+
+    private void expire(Gate gate, DispatchLane lane, Waiter waiter) {
+        gate.lock.lock();
+        try {
+            // Kuyrukta değilse sıra zaten verilmiştir
+            if (!gate.queues.get(lane).remove(waiter)) {
+                return;
+            }
+            gate.waiterCount--;
+        } finally {
+            gate.lock.unlock();
+        }
+        stats.get(lane).timeouts.incrementAndGet();
+        waiter.turn.completeExceptionally(new LaneTimeoutException(lane));
+    }
+
+    private void release(Gate gate) {
+        Waiter next;
+        gate.lock.lock();
+        try {
+            next = pickNext(gate);
+            if (next == null) {
+                gate.available++;
+                return;
+            }
+        } finally {
+            gate.lock.unlock();
+        }
+        // Kapı doğrudan seçilen bekleyene devredilir; araya yeni gelen giremez
+        next.turn.complete(null);
+    }
+
+    // Yumuşak ağırlıklı round-robin: bekleyen her hattın sayacı ağırlığı kadar artar, en büyüğü seçilip toplam kadar düşer
+    private Waiter pickNext(Gate gate) {
+        if (gate.waiterCount == 0) {
+            return null;
+        }
+        DispatchLane best = null;
+        long total = 0;
+        for (DispatchLane lane : LANES) {
+            if (gate.queues.get(lane).isEmpty()) continue;
+            int w = weights.get(lane);
+            gate.current[lane.ordinal()] += w;
+            total += w;
+            if (best == null || gate.current[lane.ordinal()] > gate.current[best.ordinal()]) {
+                best = lane;
+            }
+        }
+        gate.current[best.ordinal()] -= total;
+        gate.waiterCount--;
+        return gate.queues.get(best).poll();
+    }
+
+    /**
+     * Kuyruktan platforma ulaşana kadar geçen süre (ör. outbox kaydından gönderime)
+     */
+    public void recordDelivered(DispatchLane lane, long latencyMs) {
+        stats.get(lane).recordDelivery(latencyMs);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (DispatchLane lane : LANES) {
+            Map<String, Object> laneData = stats.get(lane).toMap();
+            laneData.put("weight", weights.get(lane));
+            data.put(lane.name(), laneData);
+        }
+        return data;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private static final class Gate {
+        final ReentrantLock lock = new ReentrantLock();
+        final EnumMap<DispatchLane, ArrayDeque<Waiter>> queues = new EnumMap<>(DispatchLane.class);
+        final long[] current = new long[LANES.length];
+        int available;
+        int waiterCount;
+
+        Gate(int permits) {
+            this.available = permits;
+            for (DispatchLane lane : LANES) {
+                queues.put(lane, new ArrayDeque<>());
+            }
+        }
+    }
+
+    private static final class Waiter {
+        final CompletableFuture<Void> turn = new CompletableFuture<>();
+        final long queuedAt = System.nanoTime();
+    }
+
+    private static final class LaneStats {
+        final AtomicInteger waiting = new AtomicInteger();
+        final AtomicLong acquired = new AtomicLong();
+        final AtomicLong timeouts = new AtomicLong();
+        final AtomicLong totalWaitNanos = new AtomicLong();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+        final AtomicLong delivered = new AtomicLong();
+        final AtomicLong totalDeliveryMs = new AtomicLong();
+        final AtomicLong maxDeliveryMs = new AtomicLong();
+        final AtomicLong lastDeliveryMs = new AtomicLong();
+
+        void recordWait(long nanos) {
+            acquired.incrementAndGet();
+            totalWaitNanos.addAndGet(nanos);
+            maxWaitNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        void recordDelivery(long ms) {
+            delivered.incrementAndGet();
+            totalDeliveryMs.addAndGet(ms);
+            maxDeliveryMs.accumulateAndGet(ms, Math::max);
+            lastDeliveryMs.set(ms);
+        }
+
+        Map<String, Object> toMap() {
+            long calls = acquired.get();
+            long sent = delivered.get();
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("waiting", waiting.get());
+            data.put("calls", calls);
+            data.put("timeouts", timeouts.get());
+            data.put("avgWaitMs", calls == 0 ? 0.0 : totalWaitNanos.get() / 1_000_000.0 / calls);
+            data.put("maxWaitMs", maxWaitNanos.get() / 1_000_000.0);
+            data.put("delivered", sent);
+            data.put("avgDeliveryMs", sent == 0 ? 0.0 : (double) totalDeliveryMs.get() / sent);
+            data.put("maxDeliveryMs", maxDeliveryMs.get());
+            data.put("lastDeliveryMs", lastDeliveryMs.get());
+            return data;
+        }
+    }
+
+    public static class LaneTimeoutException extends RuntimeException {
+        public LaneTimeoutException(DispatchLane lane) {
+            super("dispatch lane wait timed out: " + lane);
+        }
+    }
+}
@@ -1,40 +1,237 @@
-
 package com.ornek.ecomstocksync.integration;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.ornek.ecomstocksync.entity.Platform;
 import com.ornek.ecomstocksync.entity.PlatformProduct;
+import com.ornek.ecomstocksync.integration.PlatformHttpTransport.PlatformRequestException;
+import com.ornek.ecomstocksync.integration.PlatformHttpTransport.Request;
+import com.ornek.ecomstocksync.integration.PlatformHttpTransport.Response;
+import com.ornek.ecomstocksync.service.PlatformService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import com.ornek.ecomstocksync.util.RateLimiter;
 import com.ornek.ecomstocksync.util.RetryExecutor;
+import com.ornek.ecomstocksync.util.RetryPolicy;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+/**
+ * eBay Sell Inventory API. Stok ve fiyat yazımı bulk_update_price_quantity ile yapılır (tekil güncelleme tek
+ * kalemli istektir); okuma inventory_item/{sku}. Kimlik "Authorization: Bearer" başlığında API_KEY;
+ * PlatformProduct.platformSku eBay SKU'su, platformProductId offer id'sidir. Fiyatın para birimi platformun CURRENCY
+ * kimlik bilgisinden okunur; tanımlı değilse fiyat gönderilmez.
+ */
 @Component
 public class EbayClient implements PlatformClient {
     private final RateLimiter rateLimiter;
     private final RetryExecutor retryExecutor;
+    private final PlatformHttpTransport transport;
+    private final PlatformService platformService;
+    private final DispatchLanes dispatchLanes;
 
-    public EbayClient(RateLimiter rateLimiter, RetryExecutor retryExecutor) {
+    public EbayClient(RateLimiter rateLimiter, RetryExecutor retryExecutor,
+                      PlatformHttpTransport transport, PlatformService platformService,
+                      DispatchLanes dispatchLanes) {
         this.rateLimiter = rateLimiter;
         this.retryExecutor = retryExecutor;
+        this.transport = transport;
+        this.platformService = platformService;
+        this.dispatchLanes = dispatchLanes;
     }
     private static final Logger log = LoggerFactory.getLogger(EbayClient.class);
+    // Platform ayarında rate limit tanımlı değilse kullanılan varsayılanlar
+    static final int RATE_CAPACITY = 5;
+    static final double RATE_PER_SECOND = 1.0;
+    static final Duration PERMIT_TIMEOUT = Duration.ofSeconds(5);
+    // Hat kapısında zaman aşımı zaten uzun bir beklemedir; tekrar denenmez
+    static final RetryPolicy RETRY_POLICY = RetryPolicy.of(3, 200L).abortOn(DispatchLanes.LaneTimeoutException.class);
+    // bulkUpdatePriceQuantity tek istekte en fazla 25 offer kabul eder
+    static final int MAX_BATCH_SIZE = 25;
+
+    static final String API_PATH = "/sell/inventory/v1/";
+    static final String NOTIFICATION_PATH = "/commerce/notification/v1/";
+    // Fiyatların para birimi platform ayarıdır (ör. USD, GBP, EUR); pazaryerine göre değişir
+    static final String CURRENCY_CREDENTIAL = "CURRENCY";
 
     @Override
     public void updateStock(Platform platform, PlatformProduct platformProduct, Integer newStock) {
-        retryExecutor.executeWithRetry(() -> {
-            if (!rateLimiter.tryAcquire("ebay", 5, 1.0)) throw new RuntimeException("rate-limited");
-            log.info("[eBay] Update stock sku={}, pid={}, newStock={}", platformProduct.getPlatformSku(), platformProduct.getPlatformProductId(), newStock);
-        }, 3, 200L);
+        updateStockBatch(platform, List.of(new StockUpdate(platformProduct, newStock)));
     }
 
     @Override
     public void updatePrice(Platform platform, PlatformProduct platformProduct, BigDecimal newPrice) {
-        retryExecutor.executeWithRetry(() -> {
-            if (!rateLimiter.tryAcquire("ebay", 5, 1.0)) throw new RuntimeException("rate-limited");
-            log.info("[eBay] Update price sku={}, pid={}, newPrice={}", platformProduct.getPlatformSku(), platformProduct.getPlatformProductId(), newPrice);
-        }, 3, 200L);
+        updatePriceBatch(platform, List.of(new PriceUpdate(platformProduct, newPrice)));
+    }
+
+    @Override
+    public Integer fetchStock(Platform platform, PlatformProduct platformProduct) {
+        Response response = call(platform, PERMIT_TIMEOUT, () -> Request.get(API_PATH + "inventory_item/"
+            + PlatformHttpTransport.pathSegment(platformProduct.getPlatformSku())).accept(404));
+        if (response.getStatus() == 404 || response.getBody() == null) {
+            return null;
+        }
+        JsonNode quantity = response.getBody().path("availability").path("shipToLocationAvailability").path("quantity");
+        return quantity.isNumber() ? quantity.asInt() : null;
+    }
+
+    /**
+     * Bildirim imzasını doğrulamak için Notification API'den açık anahtarı okur (getPublicKey):
+     * {"algorithm":"ECDSA","digest":"SHA1","key":"-----BEGIN PUBLIC KEY-----..."}. Anahtar yoksa null döner.
+     */
+    public JsonNode fetchPublicKey(Platform platform, String keyId) {
+        Response response = call(platform, PERMIT_TIMEOUT, () -> Request.get(NOTIFICATION_PATH + "public_key/"
+            + PlatformHttpTransport.pathSegment(keyId)).accept(404));
+        return response.getStatus() == 404 ? null : response.getBody();
+    }
+
+    @Override
+    public void ping(Platform platform) {
+        call(platform, PERMIT_TIMEOUT, () -> Request.get(API_PATH + "inventory_item?limit=1"));
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return MAX_BATCH_SIZE;
+    }
+
+    @Override
+    public void updateStockBatch(Platform platform, List<StockUpdate> updates) {
+        sendBulk(platform, updates, StockUpdate::getPlatformProduct, EbayClient::stockRequest);
+        log.debug("[eBay] Update stock items={}, firstSku={}", updates.size(), updates.get(0).getPlatformProduct().getPlatformSku());
+    }
+
+    @Override
+    public void updatePriceBatch(Platform platform, List<PriceUpdate> updates) {
+        String currency = platformService.getCredential(platform.getId(), CURRENCY_CREDENTIAL);
+        if (currency == null || currency.isBlank()) {
+            throw new PlatformRequestException(platform.getCode(), 0, CURRENCY_CREDENTIAL + " tanımlı değil, fiyat gönderilmedi");
+        }
+        sendBulk(platform, updates, PriceUpdate::getPlatformProduct, chunk -> priceRequest(chunk, currency));
+        log.debug("[eBay] Update price items={}, firstSku={}, currency={}", updates.size(), updates.get(0).getPlatformProduct().getPlatformSku(), currency);
+    }
+
+    /**
+     * Güncellemeleri MAX_BATCH_SIZE'lık parçalar halinde gönderir. Parçalar bloklamadan kuyruğa alınır: izin ve tekrar
+     * bekleme süreleri thread uyutmaz. Kalem bazında reddedilenler tüm parçalardan toplanıp tek
+     * {@link ItemsRejectedException} olarak bildirilir; parçanın geri kalanı yazılmış sayılır.
+     */
+    private <U> void sendBulk(Platform platform, List<U> updates, Function<U, PlatformProduct> product,
+                              Function<List<U>, Request> request) {
+        List<CompletableFuture<Map<Long, String>>> calls = new ArrayList<>();
+        // İzinler sırayla ayrılır; her parça için PERMIT_TIMEOUT kadar bekleme payı tanınır
+        Duration maxWait = PERMIT_TIMEOUT.multipliedBy((updates.size() + MAX_BATCH_SIZE - 1) / MAX_BATCH_SIZE);
+        for (int from = 0; from < updates.size(); from += MAX_BATCH_SIZE) {
+            List<U> chunk = updates.subList(from, Math.min(from + MAX_BATCH_SIZE, updates.size()));
+            List<PlatformProduct> products = chunk.stream().map(product).toList();
+            calls.add(callAsync(platform, maxWait, () -> request.apply(chunk))
+                .thenApply(response -> rejectedItems(response, products)));
+        }
+        RetryExecutor.await(CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])));
+        Map<Long, String> rejected = new LinkedHashMap<>();
+        for (CompletableFuture<Map<Long, String>> call : calls) {
+            rejected.putAll(call.join());
+        }
+        if (!rejected.isEmpty()) {
+            throw new ItemsRejectedException(platform.getCode(), updates.size(), rejected);
+        }
+    }
+
+    private static Request stockRequest(List<StockUpdate> updates) {
+        return Request.post(API_PATH + "bulk_update_price_quantity", g -> {
+            g.writeStartObject();
+            g.writeArrayFieldStart("requests");
+            for (StockUpdate update : updates) {
+                g.writeStartObject();
+                g.writeStringField("sku", update.getPlatformProduct().getPlatformSku());
+                g.writeObjectFieldStart("shipToLocationAvailability");
+                g.writeNumberField("quantity", update.getNewStock());
+                g.writeEndObject();
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.writeEndObject();
+        });
+    }
+
+    private static Request priceRequest(List<PriceUpdate> updates, String currency) {
+        return Request.post(API_PATH + "bulk_update_price_quantity", g -> {
+            g.writeStartObject();
+            g.writeArrayFieldStart("requests");
+            for (PriceUpdate update : updates) {
+                g.writeStartObject();
+                g.writeStringField("sku", update.getPlatformProduct().getPlatformSku());
+                g.writeArrayFieldStart("offers");
+                g.writeStartObject();
+                g.writeStringField("offerId", update.getPlatformProduct().getPlatformProductId());
+                g.writeObjectFieldStart("price");
+                g.writeStringField("value", update.getNewPrice().toPlainString());
+                g.writeStringField("currency", currency);
+                g.writeEndObject();
+                g.writeEndObject();
+                g.writeEndArray();
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.writeEndObject();
+        });
+    }
+
+    private Response call(Platform platform, Duration maxWait, Supplier<Request> request) {
+        return RetryExecutor.await(callAsync(platform, maxWait, request));
+    }
+
+    /**
+     * Her deneme limiter izni alır, hat kapısında sırasını bekler ve isteği yeniden kurar; kapı yalnızca istek
+     * sürerken tutulur. Hat, çağıran thread'den burada okunur
+     */
+    private CompletableFuture<Response> callAsync(Platform platform, Duration maxWait, Supplier<Request> request) {
+        DispatchLane lane = dispatchLanes.currentLane();
+        return retryExecutor.retryAsync(() -> rateLimiter
+            .acquireAsync(platform, RATE_CAPACITY, RATE_PER_SECOND, maxWait)
+            .thenCompose(v -> dispatchLanes.gateAsync(platform.getId(), lane, () -> transport.send(platform, request.get()
+                .header("Authorization", bearer(platformService.getCredential(platform.getId(), "API_KEY")))
+                .header("Content-Language", "en-US")))),
+            RETRY_POLICY);
+    }
+
+    private static String bearer(String token) {
+        return token == null ? null : "Bearer " + token;
+    }
+
+    /**
+     * Toplu yanıt 200 olsa da kalem bazında hata içerebilir; reddedilen kalemler SKU üzerinden PlatformProduct'a
+     * eşlenir
+     */
+    private static Map<Long, String> rejectedItems(Response response, List<PlatformProduct> products) {
+        JsonNode responses = response.getBody() == null ? null : response.getBody().path("responses");
+        if (responses == null || !responses.isArray()) {
+            return Map.of();
+        }
+        Map<Long, String> rejected = new LinkedHashMap<>();
+        for (JsonNode item : responses) {
+            int status = item.path("statusCode").asInt(200);
+            if (status >= 200 && status < 300) {
+                continue;
+            }
+            String sku = item.path("sku").asText();
+            JsonNode errors = item.path("errors");
+            String message = "sku=" + sku + " status=" + status
+                + (errors.isArray() && !errors.isEmpty() ? " " + errors.get(0).path("message").asText() : "");
+            for (PlatformProduct product : products) {
+                if (sku.equals(product.getPlatformSku())) {
+                    rejected.put(product.getId(), message);
+                }
+            }
+        }
+        return rejected;
     }
 }
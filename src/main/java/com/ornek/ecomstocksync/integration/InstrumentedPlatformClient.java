@@ -0,0 +1,87 @@
+package com.ornek.ecomstocksync.integration;
+
+import com.ornek.ecomstocksync.entity.Platform;
+import com.ornek.ecomstocksync.entity.PlatformProduct;
+import com.ornek.ecomstocksync.metrics.IntegrationMetricsService;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Asıl client'ın her çağrısının süresini ve sonucunu platform × işlem bazında ölçer. Zincirin en içindedir:
+ * devre kesicide geçen süre sayılmaz; client içindeki limiter ve hat kapısı beklemeleri sayılır
+ * (bunlar ayrıca integration.ratelimit.wait ve hat metriklerinde ölçülür).
+ */
+public class InstrumentedPlatformClient implements PlatformClient {
+
+    private final PlatformClient delegate;
+    private final IntegrationMetricsService metrics;
+
+    public InstrumentedPlatformClient(PlatformClient delegate, IntegrationMetricsService metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void updateStock(Platform platform, PlatformProduct platformProduct, Integer newStock) {
+        time(platform, "updateStock", 1, () -> {
+            delegate.updateStock(platform, platformProduct, newStock);
+            return null;
+        });
+    }
+
+    @Override
+    public void updatePrice(Platform platform, PlatformProduct platformProduct, BigDecimal newPrice) {
+        time(platform, "updatePrice", 1, () -> {
+            delegate.updatePrice(platform, platformProduct, newPrice);
+            return null;
+        });
+    }
+
+    @Override
+    public Integer fetchStock(Platform platform, PlatformProduct platformProduct) {
+        return time(platform, "fetchStock", 1, () -> delegate.fetchStock(platform, platformProduct));
+    }
+
+    @Override
+    public void ping(Platform platform) {
+        time(platform, "ping", 0, () -> {
+            delegate.ping(platform);
+            return null;
+        });
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return delegate.maxBatchSize();
+    }
+
+    @Override
+    public void updateStockBatch(Platform platform, List<StockUpdate> updates) {
+        time(platform, "updateStockBatch", updates.size(), () -> {
+            delegate.updateStockBatch(platform, updates);
+            return null;
+        });
+    }
+
+    @Override
+    public void updatePriceBatch(Platform platform, List<PriceUpdate> updates) {
+        time(platform, "updatePriceBatch", updates.size(), () -> {
+            delegate.updatePriceBatch(platform, updates);
+            return null;
+        });
+    }
+
+    private <T> T time(Platform platform, String operation, int items, Supplier<T> call) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = call.get();
+            success = true;
+            return result;
+        } finally {
+            metrics.recordCall(platform.getCode(), operation, System.nanoTime() - start, items, success);
+        }
+    }
+}
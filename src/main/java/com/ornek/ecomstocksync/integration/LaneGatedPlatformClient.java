@@ -0,0 +1,60 @@
+package com.ornek.ecomstocksync.integration;
+
+import com.ornek.ecomstocksync.entity.Platform;
+import com.ornek.ecomstocksync.entity.PlatformProduct;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Çağrıyı kendi hattına bağlar; client'ın gönderdiği her HTTP isteği platformun hat kapısından ayrı geçer.
+ * Böylece toplu senkronizasyon, fiyat güncellemeleri ve stok bitişleri aynı API kotası için ağırlıklı sırayla
+ * yarışır, ama uzun bir toplu güncelleme kapıyı parçaları arasında veya tekrar beklemesinde tutmaz.
+ */
+public class LaneGatedPlatformClient implements PlatformClient {
+
+    private final PlatformClient delegate;
+    private final DispatchLanes lanes;
+    private final DispatchLane lane;
+
+    public LaneGatedPlatformClient(PlatformClient delegate, DispatchLanes lanes, DispatchLane lane) {
+        this.delegate = delegate;
+        this.lanes = lanes;
+        this.lane = lane;
+    }
+
+    @Override
+    public void updateStock(Platform platform, PlatformProduct platformProduct, Integer newStock) {
+        lanes.onLane(lane, () -> delegate.updateStock(platform, platformProduct, newStock));
+    }
+
+    @Override
+    public void updatePrice(Platform platform, PlatformProduct platformProduct, BigDecimal newPrice) {
+        lanes.onLane(lane, () -> delegate.updatePrice(platform, platformProduct, newPrice));
+    }
+
+    @Override
+    public Integer fetchStock(Platform platform, PlatformProduct platformProduct) {
+        return lanes.onLane(lane, () -> delegate.fetchStock(platform, platformProduct));
+    }
+
+    @Override
+    public void ping(Platform platform) {
+        lanes.onLane(lane, () -> delegate.ping(platform));
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return delegate.maxBatchSize();
+    }
+
+    @Override
+    public void updateStockBatch(Platform platform, List<StockUpdate> updates) {
+        lanes.onLane(lane, () -> delegate.updateStockBatch(platform, updates));
+    }
+
+    @Override
+    public void updatePriceBatch(Platform platform, List<PriceUpdate> updates) {
+        lanes.onLane(lane, () -> delegate.updatePriceBatch(platform, updates));
+    }
+}
@@ -1,11 +1,91 @@
-
 package com.ornek.ecomstocksync.integration;
 
 import com.ornek.ecomstocksync.entity.Platform;
 import com.ornek.ecomstocksync.entity.PlatformProduct;
+import com.ornek.ecomstocksync.integration.PlatformHttpTransport.PlatformRequestException;
+
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 
 public interface PlatformClient {
     void updateStock(Platform platform, PlatformProduct platformProduct, Integer newStock);
     void updatePrice(Platform platform, PlatformProduct platformProduct, BigDecimal newPrice);
+
+    /**
+     * Platformun toplu güncelleme limiti (tek istekte gönderilebilecek kalem sayısı)
+     */
+    default int maxBatchSize() {
+        return 1;
+    }
+
+    /**
+     * Platformun bildirdiği güncel stok. Okuma uç noktası olmayan client'lar null döner.
+     */
+    default Integer fetchStock(Platform platform, PlatformProduct platformProduct) {
+        return null;
+    }
+
+    /**
+     * Bağlantı ve kimlik bilgisi kontrolü için hafif bir çağrı; başarısızsa exception fırlatır.
+     */
+    default void ping(Platform platform) {
+    }
+
+    // Varsayılan: tek tek gönder. Toplu uç noktası olan client'lar override eder.
+    // Toplu istekte yalnızca bazı kalemler reddedilirse ItemsRejectedException fırlatılır; diğer kalemler yazılmıştır.
+    default void updateStockBatch(Platform platform, List<StockUpdate> updates) {
+        for (StockUpdate update : updates) {
+            updateStock(platform, update.getPlatformProduct(), update.getNewStock());
+        }
+    }
+
+    default void updatePriceBatch(Platform platform, List<PriceUpdate> updates) {
+        for (PriceUpdate update : updates) {
+            updatePrice(platform, update.getPlatformProduct(), update.getNewPrice());
+        }
+    }
+
+    final class StockUpdate {
+        private final PlatformProduct platformProduct;
+        private final Integer newStock;
+
+        public StockUpdate(PlatformProduct platformProduct, Integer newStock) {
+            this.platformProduct = platformProduct;
+            this.newStock = newStock;
+        }
+
+        public PlatformProduct getPlatformProduct() { return platformProduct; }
+        public Integer getNewStock() { return newStock; }
+    }
+
+    final class PriceUpdate {
+        private final PlatformProduct platformProduct;
+        private final BigDecimal newPrice;
+
+        public PriceUpdate(PlatformProduct platformProduct, BigDecimal newPrice) {
+            this.platformProduct = platformProduct;
+            this.newPrice = newPrice;
+        }
+
+        public PlatformProduct getPlatformProduct() { return platformProduct; }
+        public BigDecimal getNewPrice() { return newPrice; }
+    }
+
+    /**
+     * Toplu istekte platformun kalem bazında reddettiği güncellemeler. Listede olmayan kalemler platforma yazılmıştır;
+     * reddedilenler tekrar gönderilse de yine reddedilir (istek hatası, devre kesiciye sayılmaz).
+     */
+    class ItemsRejectedException extends PlatformRequestException {
+        // PlatformProduct id -> platformun hata mesajı
+        private final Map<Long, String> rejected;
+
+        public ItemsRejectedException(String platform, int total, Map<Long, String> rejected) {
+            super(platform, 0, "rejected " + rejected.size() + " of " + total + " items, first: "
+                + rejected.values().stream().findFirst().orElse(null));
+            this.rejected = Map.copyOf(rejected);
+        }
+
+        public Map<Long, String> getRejected() { return rejected; }
+    }
 }
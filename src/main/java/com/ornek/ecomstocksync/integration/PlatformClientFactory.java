@@ -1,27 +1,54 @@
-
 package com.ornek.ecomstocksync.integration;
 
 import com.ornek.ecomstocksync.entity.Platform;
 import com.ornek.ecomstocksync.entity.Platform.PlatformType;
+import com.ornek.ecomstocksync.metrics.IntegrationMetricsService;
 import org.springframework.stereotype.Component;
-import com.ornek.ecomstocksync.util.RateLimiter;
-import com.ornek.ecomstocksync.util.RetryExecutor;
 
 @Component
 public class PlatformClientFactory {
-    private final RateLimiter rateLimiter;
-    private final RetryExecutor retryExecutor;
     private final ShopifyClient shopifyClient;
     private final EbayClient ebayClient;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final DispatchLanes dispatchLanes;
+    private final IntegrationMetricsService metricsService;
 
-    public PlatformClientFactory(ShopifyClient shopifyClient, EbayClient ebayClient, RateLimiter rateLimiter, RetryExecutor retryExecutor) {
+    public PlatformClientFactory(ShopifyClient shopifyClient, EbayClient ebayClient,
+                                 CircuitBreakerRegistry circuitBreakers, DispatchLanes dispatchLanes,
+                                 IntegrationMetricsService metricsService) {
         this.shopifyClient = shopifyClient;
-        this.rateLimiter = rateLimiter;
-        this.retryExecutor = retryExecutor;
         this.ebayClient = ebayClient;
+        this.circuitBreakers = circuitBreakers;
+        this.dispatchLanes = dispatchLanes;
+        this.metricsService = metricsService;
     }
 
     public PlatformClient getClient(Platform platform) {
+        return getClient(platform, DispatchLane.STOCK);
+    }
+
+    /**
+     * Çağrı hattına bağlanır ve devre kesiciden geçer; asıl client her HTTP isteği için hat kapısında ayrıca sırasını
+     * bekler. Kapıda zaman aşımı platform hatası sayılmaz. Süre ölçümü asıl client'ın hemen etrafındadır.
+     */
+    public PlatformClient getClient(Platform platform, DispatchLane lane) {
+        return new LaneGatedPlatformClient(guardedClient(platform), dispatchLanes, lane);
+    }
+
+    /**
+     * Sağlık yoklaması için: hat kapısından geçmez, yalnızca devre kesici ve client'ın limiter'ı uygulanır.
+     * Böylece ölçülen gecikme kuyrukta bekleme içermez ve zaman aşımına uğrayan yoklama kapıda yer tutmaz.
+     */
+    public PlatformClient getProbeClient(Platform platform) {
+        return guardedClient(platform);
+    }
+
+    private PlatformClient guardedClient(Platform platform) {
+        return new CircuitBreakingPlatformClient(
+            new InstrumentedPlatformClient(rawClient(platform), metricsService), circuitBreakers.forPlatform(platform));
+    }
+
+    private PlatformClient rawClient(Platform platform) {
         PlatformType type = platform.getType();
         if (type == PlatformType.SHOPIFY) return shopifyClient;
         if (type == PlatformType.EBAY) return ebayClient;
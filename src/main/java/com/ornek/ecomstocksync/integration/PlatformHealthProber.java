@@ -0,0 +1,263 @@
+package com.ornek.ecomstocksync.integration;
+
+import com.ornek.ecomstocksync.entity.Platform;
+import com.ornek.ecomstocksync.service.PlatformService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Aktif platformların bağlantısını arka planda, her platform kendi aralığında yoklar ve sonucu bellekte tutar:
+ * son gecikme, son N yoklamanın başarı oranı, son hata. Durum okuyan uç noktalar (getSyncStatus, health)
+ * uzak çağrı yapmaz, yalnızca bu önbelleği okur. Yoklamalar hat kapısına girmez: gecikme kuyruk beklemesini
+ * içermez ve yoklama güncellemelerin sırasını almaz; platform kotası yine client'ın limiter'ından geçer.
+ */
+@Component
+public class PlatformHealthProber {
+    private static final Logger log = LoggerFactory.getLogger(PlatformHealthProber.class);
+
+    public enum Status { UNKNOWN, UP, DEGRADED, DOWN }
+
+    private final PlatformService platformService;
+    private final PlatformClientFactory platformClientFactory;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final ExecutorService executor;
+    private final long intervalMs;
+    private final long failureIntervalMs;
+    private final long timeoutMs;
+    private final int window;
+    private final int downAfter;
+    private final Map<Long, PlatformHealth> health = new ConcurrentHashMap<>();
+
+    public PlatformHealthProber(PlatformService platformService,
+                                PlatformClientFactory platformClientFactory,
+                                CircuitBreakerRegistry circuitBreakers,
+                                @Value("${health.probe.interval.ms:60000}") long intervalMs,
+                                @Value("${health.probe.failure-interval.ms:15000}") long failureIntervalMs,
+                                @Value("${health.probe.timeout.ms:10000}") long timeoutMs,
+                                @Value("${health.probe.window:20}") int window,
+                                @Value("${health.probe.down-after:3}") int downAfter,
+                                @Value("${health.probe.threads:2}") int threads) {
+        this.platformService = platformService;
+        this.platformClientFactory = platformClientFactory;
+        this.circuitBreakers = circuitBreakers;
+        this.intervalMs = intervalMs;
+        this.failureIntervalMs = failureIntervalMs;
+        this.timeoutMs = timeoutMs;
+        this.window = Math.max(1, window);
+        this.downAfter = Math.max(1, downAfter);
+        AtomicInteger threadSeq = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "health-probe-" + threadSeq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Zamanı gelen platformları yoklamaya gönderir; yoklamaların bitmesini beklemez
+     */
+    @Scheduled(fixedDelayString = "${health.probe.tick.ms:5000}", initialDelayString = "${health.probe.initial-delay.ms:5000}")
+    public void probeDue() {
+        try {
+            long now = System.currentTimeMillis();
+            Set<Long> activeIds = new HashSet<>();
+            for (Platform platform : platformService.getActivePlatforms()) {
+                activeIds.add(platform.getId());
+                PlatformHealth entry = health.computeIfAbsent(platform.getId(), id -> new PlatformHealth(window));
+                if (entry.tryStart(platform, now)) {
+                    submit(platform, entry);
+                }
+            }
+            health.keySet().retainAll(activeIds);
+        } catch (Exception e) {
+            log.error("Platform health probe scheduling failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Platformu hemen yoklar ve sonucu bekler (ör. "bağlantıyı test et" düğmesi). Sonuç önbelleğe de yazılır.
+     */
+    public boolean probeNow(Platform platform) {
+        PlatformHealth entry = health.computeIfAbsent(platform.getId(), id -> new PlatformHealth(window));
+        entry.platformName = platform.getName();
+        entry.platformCode = platform.getCode();
+        return probe(platform, entry);
+    }
+
+    private void submit(Platform platform, PlatformHealth entry) {
+        try {
+            CompletableFuture.runAsync(() -> probe(platform, entry), executor)
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        // Zaman aşımı: yoklama arka planda sürebilir, sonucu gelirse yine kaydedilir
+                        entry.record(false, timeoutMs, "timed out after " + timeoutMs + " ms", failureIntervalMs);
+                    }
+                    entry.finish();
+                });
+        } catch (RejectedExecutionException e) {
+            entry.finish();
+        }
+    }
+
+    private boolean probe(Platform platform, PlatformHealth entry) {
+        long start = System.nanoTime();
+        try {
+            platformClientFactory.getProbeClient(platform).ping(platform);
+            long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            entry.record(true, latencyMs, null, intervalMs);
+            return true;
+        } catch (Exception e) {
+            long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            entry.record(false, latencyMs, e.getMessage(), failureIntervalMs);
+            log.warn("Platform health probe failed for {}: {}", platform.getName(), e.getMessage());
+            return false;
+        }
+    }
+
+    public Status statusOf(Long platformId) {
+        PlatformHealth entry = health.get(platformId);
+        return entry == null ? Status.UNKNOWN : entry.status(downAfter);
+    }
+
+    /**
+     * Tüm platformların önbellekteki sağlık bilgisi; uzak çağrı yapmaz
+     */
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map.Entry<Long, PlatformHealth> entry : health.entrySet()) {
+            rows.add(details(entry.getKey(), entry.getValue()));
+        }
+        rows.sort((a, b) -> Long.compare((Long) a.get("platformId"), (Long) b.get("platformId")));
+        return rows;
+    }
+
+    public Map<String, Object> details(Long platformId) {
+        PlatformHealth entry = health.get(platformId);
+        return entry == null ? null : details(platformId, entry);
+    }
+
+    public Collection<Long> platformIds() {
+        return health.keySet();
+    }
+
+    private Map<String, Object> details(Long platformId, PlatformHealth entry) {
+        Map<String, Object> data = entry.toMap(platformId, downAfter);
+        data.put("circuitCallPermitted", circuitBreakers.isCallPermitted(platformId));
+        return data;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class PlatformHealth {
+        final boolean[] results;
+        int resultCount;
+        int resultPos;
+        volatile String platformName;
+        volatile String platformCode;
+        boolean probing;
+        long nextProbeAt;
+        long lastProbeAt;
+        long lastSuccessAt;
+        long lastLatencyMs = -1;
+        double avgLatencyMs;
+        long probes;
+        int consecutiveFailures;
+        String lastError;
+
+        PlatformHealth(int window) {
+            this.results = new boolean[window];
+        }
+
+        synchronized boolean tryStart(Platform platform, long now) {
+            platformName = platform.getName();
+            platformCode = platform.getCode();
+            if (probing || now < nextProbeAt) {
+                return false;
+            }
+            probing = true;
+            return true;
+        }
+
+        synchronized void finish() {
+            probing = false;
+        }
+
+        synchronized void record(boolean success, long latencyMs, String error, long nextDelayMs) {
+            long now = System.currentTimeMillis();
+            results[resultPos] = success;
+            resultPos = (resultPos + 1) % results.length;
+            resultCount = Math.min(resultCount + 1, results.length);
+            probes++;
+            lastProbeAt = now;
+            lastLatencyMs = latencyMs;
+            avgLatencyMs = probes == 1 ? latencyMs : 0.8 * avgLatencyMs + 0.2 * latencyMs;
+            if (success) {
+                lastSuccessAt = now;
+                consecutiveFailures = 0;
+                lastError = null;
+            } else {
+                consecutiveFailures++;
+                lastError = error;
+            }
+            nextProbeAt = now + nextDelayMs;
+        }
+
+        synchronized double successRatio() {
+            if (resultCount == 0) return 0.0;
+            int ok = 0;
+            for (int i = 0; i < resultCount; i++) {
+                if (results[i]) ok++;
+            }
+            return (double) ok / resultCount;
+        }
+
+        synchronized Status status(int downAfter) {
+            if (probes == 0) return Status.UNKNOWN;
+            if (consecutiveFailures >= downAfter) return Status.DOWN;
+            if (consecutiveFailures > 0 || successRatio() < 1.0) return Status.DEGRADED;
+            return Status.UP;
+        }
+
+        synchronized Map<String, Object> toMap(Long platformId, int downAfter) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("platformId", platformId);
+            data.put("platformName", platformName);
+            data.put("platformCode", platformCode);
+            data.put("status", status(downAfter).name());
+            data.put("lastLatencyMs", lastLatencyMs);
+            data.put("avgLatencyMs", Math.round(avgLatencyMs * 10) / 10.0);
+            data.put("successRatio", successRatio());
+            data.put("probes", probes);
+            data.put("consecutiveFailures", consecutiveFailures);
+            data.put("lastError", lastError);
+            data.put("lastProbeAt", lastProbeAt == 0 ? null : Instant.ofEpochMilli(lastProbeAt).toString());
+            data.put("lastSuccessAt", lastSuccessAt == 0 ? null : Instant.ofEpochMilli(lastSuccessAt).toString());
+            data.put("nextProbeAt", nextProbeAt == 0 ? null : Instant.ofEpochMilli(nextProbeAt).toString());
+            return data;
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package com.ornek.ecomstocksync.integration;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ornek.ecomstocksync.entity.Platform;
+import com.ornek.ecomstocksync.util.RetryAfterHint;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Platform API'leri için ortak HTTP katmanı (java.net.http). Her platformun kendi HttpClient'ı, dolayısıyla kendi
+ * bağlantı havuzu vardır: bağlantılar keep-alive ile yeniden kullanılır, https hostlarda ALPN ile HTTP/2 seçilir ve
+ * eşzamanlı istekler tek bağlantıda çoğullanır. Her güncelleme havuzdan bir istektir, yeni TCP/TLS el sıkışması değil.
+ * <p>
+ * İstekler sendAsync ile gider, her isteğin kendi zaman aşımı vardır. Gövde JsonGenerator ile doğrudan byte dizisine
+ * yazılır; yanıt gerekirse gzip açılarak byte'lardan ağaç olarak okunur, arada String oluşmaz.
+ * 2xx dışı yanıtlar hata olarak döner: 429/408/5xx ve bağlantı hataları {@link PlatformHttpException} (tekrar
+ * denenir, Retry-After taşır), diğer 4xx {@link PlatformRequestException} (IllegalArgumentException; tekrar denenmez,
+ * devre kesiciye platform hatası sayılmaz).
+ * <p>
+ * baseUrl tanımlı olmayan platform yapılandırma hatasıdır: istek {@link PlatformRequestException} ile hemen başarısız
+ * olur ve olay FAILED'a düşer, sessizce "gönderildi" sayılmaz. Yalnızca platform.http.dry-run=true iken (geliştirme
+ * ortamı) bu istekler gönderilmeden loglanır ve {@link Response#isDryRun()} yanıtı döner.
+ */
+@Component
+public class PlatformHttpTransport {
+    private static final Logger log = LoggerFactory.getLogger(PlatformHttpTransport.class);
+
+    private final ObjectMapper objectMapper;
+    private final Duration connectTimeout;
+    private final Duration requestTimeout;
+    private final boolean gzip;
+    private final boolean dryRun;
+    private final ExecutorService executor;
+    private final Map<Long, PooledClient> clients = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder transportErrors = new LongAdder();
+    private final LongAdder dryRuns = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder compressedResponses = new LongAdder();
+    private final Map<Integer, LongAdder> byStatus = new ConcurrentHashMap<>();
+
+    public PlatformHttpTransport(ObjectMapper objectMapper,
+                                 @Value("${platform.http.connect-timeout.ms:5000}") long connectTimeoutMs,
+                                 @Value("${platform.http.request-timeout.ms:15000}") long requestTimeoutMs,
+                                 @Value("${platform.http.threads:4}") int threads,
+                                 @Value("${platform.http.gzip:true}") boolean gzip,
+                                 @Value("${platform.http.dry-run:false}") boolean dryRun) {
+        this.objectMapper = objectMapper;
+        this.connectTimeout = Duration.ofMillis(connectTimeoutMs);
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.gzip = gzip;
+        this.dryRun = dryRun;
+        AtomicInteger threadSeq = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "platform-http-" + threadSeq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * İsteği platformun baseUrl'ine göre gönderir. Dönen future 2xx (veya isteğin kabul ettiği durum) yanıtla,
+     * aksi halde PlatformHttpException / PlatformRequestException ile tamamlanır.
+     */
+    public CompletableFuture<Response> send(Platform platform, Request request) {
+        String baseUrl = platform.getBaseUrl();
+        if (baseUrl == null || baseUrl.isBlank()) {
+            if (!dryRun) {
+                return CompletableFuture.failedFuture(new PlatformRequestException(platform.getCode(), 0,
+                    request.method + " " + request.path + ": platform baseUrl tanımlı değil (platform.http.dry-run kapalı)"));
+            }
+            dryRuns.increment();
+            log.info("[{}] {} {} (baseUrl tanımlı değil, istek gönderilmedi)", platform.getCode(), request.method, request.path);
+            return CompletableFuture.completedFuture(Response.DRY_RUN);
+        }
+        HttpRequest httpRequest;
+        try {
+            httpRequest = build(baseUrl, request);
+        } catch (IOException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new PlatformRequestException(platform.getCode(), 0, e.getMessage()));
+        }
+        requests.increment();
+        return client(platform).sendAsync(httpRequest, this::bodySubscriber)
+            .handle((response, error) -> {
+                if (error != null) {
+                    transportErrors.increment();
+                    Throwable cause = unwrap(error);
+                    throw new PlatformHttpException(platform.getCode(), 0, 0,
+                        request.method + " " + request.path + " failed: " + describe(cause), cause);
+                }
+                return toResponse(platform, request, response);
+            });
+    }
+
+    private HttpRequest build(String baseUrl, Request request) throws IOException {
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        URI uri = URI.create(base + request.path);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+            .timeout(request.timeout != null ? request.timeout : requestTimeout)
+            .header("Accept", "application/json");
+        if (gzip) {
+            builder.header("Accept-Encoding", "gzip");
+        }
+        // Düz http'de HTTP/2 ancak h2c yükseltmesiyle olur; her isteğe Upgrade başlığı eklememek için 1.1 kullanılır
+        if ("http".equalsIgnoreCase(uri.getScheme())) {
+            builder.version(HttpClient.Version.HTTP_1_1);
+        }
+        request.headers.forEach(builder::header);
+        if (request.body != null) {
+            byte[] body = encode(request.body);
+            bytesSent.add(body.length);
+            builder.header("Content-Type", "application/json");
+            builder.method(request.method, HttpRequest.BodyPublishers.ofByteArray(body));
+        } else {
+            builder.method(request.method, HttpRequest.BodyPublishers.noBody());
+        }
+        return builder.build();
+    }
+
+    private byte[] encode(JsonBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            body.write(generator);
+        }
+        return out.toByteArray();
+    }
+
+    private HttpResponse.BodySubscriber<JsonNode> bodySubscriber(HttpResponse.ResponseInfo info) {
+        boolean gzipped = info.headers().firstValue("Content-Encoding").map("gzip"::equalsIgnoreCase).orElse(false);
+        return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), bytes -> decode(bytes, gzipped));
+    }
+
+    private JsonNode decode(byte[] bytes, boolean gzipped) {
+        bytesReceived.add(bytes.length);
+        if (bytes.length == 0) {
+            return null;
+        }
+        if (gzipped) {
+            compressedResponses.increment();
+        }
+        try (InputStream in = gzipped ? new GZIPInputStream(new ByteArrayInputStream(bytes)) : new ByteArrayInputStream(bytes)) {
+            return objectMapper.readTree(in);
+        } catch (IOException e) {
+            // JSON olmayan gövde (ör. proxy hata sayfası); durum kodu yine değerlendirilir
+            return null;
+        }
+    }
+
+    private Response toResponse(Platform platform, Request request, HttpResponse<JsonNode> response) {
+        int status = response.statusCode();
+        byStatus.computeIfAbsent(status, s -> new LongAdder()).increment();
+        if ((status >= 200 && status < 300) || request.accepted.contains(status)) {
+            return new Response(status, response.headers(), response.body());
+        }
+        String message = request.method + " " + request.path + " -> HTTP " + status + errorDetail(response.body());
+        if (status == 429 || status == 408 || status >= 500) {
+            throw new PlatformHttpException(platform.getCode(), status, retryAfterMs(response.headers()), message, null);
+        }
+        throw new PlatformRequestException(platform.getCode(), status, message);
+    }
+
+    private static String errorDetail(JsonNode body) {
+        if (body == null) return "";
+        JsonNode errors = body.has("errors") ? body.get("errors") : body;
+        String detail = errors.toString();
+        return ": " + (detail.length() > 300 ? detail.substring(0, 300) + "..." : detail);
+    }
+
+    /**
+     * Retry-After saniye olarak (Shopify ondalıklı gönderir); tarih biçimi desteklenmez
+     */
+    static long retryAfterMs(HttpHeaders headers) {
+        return headers.firstValue("Retry-After").map(value -> {
+            try {
+                return (long) (Double.parseDouble(value.trim()) * 1000);
+            } catch (NumberFormatException e) {
+                return 0L;
+            }
+        }).orElse(0L);
+    }
+
+    private HttpClient client(Platform platform) {
+        String baseUrl = platform.getBaseUrl();
+        PooledClient pooled = clients.get(platform.getId());
+        if (pooled != null && pooled.baseUrl.equals(baseUrl)) {
+            return pooled.client;
+        }
+        // baseUrl değiştiyse eski havuz bırakılır; boştaki bağlantıları keep-alive süresi dolunca kapanır
+        return clients.compute(platform.getId(), (id, existing) ->
+            existing != null && existing.baseUrl.equals(baseUrl) ? existing : new PooledClient(baseUrl, newClient())).client;
+    }
+
+    private HttpClient newClient() {
+        return HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(connectTimeout)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .executor(executor)
+            .build();
+    }
+
+    /**
+     * URL yol parçası olarak kodlar (boşluk %20)
+     */
+    public static String pathSegment(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static String describe(Throwable cause) {
+        return cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getClass().getSimpleName() + ": " + cause.getMessage();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("pooledClients", clients.size());
+        data.put("requests", requests.sum());
+        data.put("transportErrors", transportErrors.sum());
+        data.put("dryRuns", dryRuns.sum());
+        data.put("bytesSent", bytesSent.sum());
+        data.put("bytesReceived", bytesReceived.sum());
+        data.put("compressedResponses", compressedResponses.sum());
+        Map<String, Long> statuses = new TreeMap<>();
+        byStatus.forEach((status, count) -> statuses.put(String.valueOf(status), count.sum()));
+        data.put("byStatus", statuses);
+        return data;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        clients.clear();
+        executor.shutdownNow();
+    }
+
+    private static final class PooledClient {
+        final String baseUrl;
+        final HttpClient client;
+
+        PooledClient(String baseUrl, HttpClient client) {
+            this.baseUrl = baseUrl;
+            this.client = client;
+        }
+    }
+
+    /**
+     * İstek gövdesini doğrudan üreticiye yazar
+     */
+    @FunctionalInterface
+    public interface JsonBody {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    public static final class Request {
+        private final String method;
+        private final String path;
+        private final JsonBody body;
+        private final Map<String, String> headers = new LinkedHashMap<>();
+        private final Set<Integer> accepted = new HashSet<>();
+        private Duration timeout;
+
+        private Request(String method, String path, JsonBody body) {
+            this.method = method;
+            this.path = path;
+            this.body = body;
+        }
+
+        /**
+         * @param path baseUrl'e eklenen yol ve sorgu; "/" ile başlar, parçalar çağıran tarafından kodlanır
+         */
+        public static Request get(String path) {
+            return new Request("GET", path, null);
+        }
+
+        public static Request post(String path, JsonBody body) {
+            return new Request("POST", path, body);
+        }
+
+        public static Request put(String path, JsonBody body) {
+            return new Request("PUT", path, body);
+        }
+
+        public Request header(String name, String value) {
+            if (value != null) {
+                headers.put(name, value);
+            }
+            return this;
+        }
+
+        public Request timeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * 2xx dışında hata sayılmayacak durum (ör. okumada 404)
+         */
+        public Request accept(int status) {
+            accepted.add(status);
+            return this;
+        }
+
+        public String getMethod() { return method; }
+        public String getPath() { return path; }
+    }
+
+    public static final class Response {
+        static final Response DRY_RUN = new Response(204, null, null);
+
+        private final int status;
+        private final HttpHeaders headers;
+        private final JsonNode body;
+
+        Response(int status, HttpHeaders headers, JsonNode body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public int getStatus() { return status; }
+        public JsonNode getBody() { return body; }
+
+        public String header(String name) {
+            return headers == null ? null : headers.firstValue(name).orElse(null);
+        }
+
+        /**
+         * baseUrl olmadığı ve platform.http.dry-run açık olduğu için gönderilmeyen istek
+         */
+        public boolean isDryRun() {
+            return this == DRY_RUN;
+        }
+    }
+
+    /**
+     * Platform geçici olarak yanıt veremiyor (429, 408, 5xx, bağlantı/zaman aşımı); tekrar denenebilir
+     */
+    public static class PlatformHttpException extends RuntimeException implements RetryAfterHint {
+        private final int status;
+        private final long retryAfterMs;
+
+        public PlatformHttpException(String platform, int status, long retryAfterMs, String message, Throwable cause) {
+            super("[" + platform + "] " + message, cause);
+            this.status = status;
+            this.retryAfterMs = retryAfterMs;
+        }
+
+        public int getStatus() { return status; }
+
+        @Override
+        public long getRetryAfterMs() { return retryAfterMs; }
+    }
+
+    /**
+     * İstek platform tarafından reddedildi (4xx); aynı istek tekrar denenirse yine reddedilir
+     */
+    public static class PlatformRequestException extends IllegalArgumentException {
+        private final int status;
+
+        public PlatformRequestException(String platform, int status, String message) {
+            super("[" + platform + "] " + message);
+            this.status = status;
+        }
+
+        public int getStatus() { return status; }
+    }
+}
@@ -1,40 +1,336 @@
-
 package com.ornek.ecomstocksync.integration;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.ornek.ecomstocksync.entity.Platform;
 import com.ornek.ecomstocksync.entity.PlatformProduct;
+import com.ornek.ecomstocksync.integration.PlatformHttpTransport.PlatformHttpException;
+import com.ornek.ecomstocksync.integration.PlatformHttpTransport.PlatformRequestException;
+import com.ornek.ecomstocksync.integration.PlatformHttpTransport.Request;
+import com.ornek.ecomstocksync.integration.PlatformHttpTransport.Response;
+import com.ornek.ecomstocksync.repository.PlatformProductRepository;
+import com.ornek.ecomstocksync.service.PlatformService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import com.ornek.ecomstocksync.util.RateLimiter;
 import com.ornek.ecomstocksync.util.RetryExecutor;
+import com.ornek.ecomstocksync.util.RetryPolicy;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+/**
+ * Shopify Admin API: tekil güncellemeler REST, toplu güncellemeler GraphQL (inventorySetQuantities,
+ * productVariantsBulkUpdate). Kimlik X-Shopify-Access-Token başlığında API_KEY; stok yazımında lokasyon
+ * LOCATION_ID kimlik bilgisinden okunur.
+ * <p>
+ * PlatformProduct.platformProductId varyant (ProductVariant) id'sidir ve fiyat yazımında kullanılır. Stok yazımı ve
+ * okuması varyantın InventoryItem id'siyle (inventoryItemId), toplu fiyat yazımı varyantın ürün id'siyle
+ * (platformParentId) yapılır. Kayıtta bu id'ler yoksa varyanttan (variants/{id}.json) bir kez okunur ve kayda yazılır;
+ * inventory_levels webhook'ları da inventoryItemId ile eşlenir.
+ */
 @Component
 public class ShopifyClient implements PlatformClient {
     private final RateLimiter rateLimiter;
     private final RetryExecutor retryExecutor;
+    private final PlatformHttpTransport transport;
+    private final PlatformService platformService;
+    private final DispatchLanes dispatchLanes;
+    private final PlatformProductRepository platformProductRepository;
+    // "platformId:variantId" -> kayıtta olmayan, varyanttan okunan id'ler
+    private final Map<String, VariantIds> resolvedIds = new ConcurrentHashMap<>();
 
-    public ShopifyClient(RateLimiter rateLimiter, RetryExecutor retryExecutor) {
+    public ShopifyClient(RateLimiter rateLimiter, RetryExecutor retryExecutor,
+                         PlatformHttpTransport transport, PlatformService platformService,
+                         DispatchLanes dispatchLanes, PlatformProductRepository platformProductRepository) {
         this.rateLimiter = rateLimiter;
         this.retryExecutor = retryExecutor;
+        this.transport = transport;
+        this.platformService = platformService;
+        this.dispatchLanes = dispatchLanes;
+        this.platformProductRepository = platformProductRepository;
     }
     private static final Logger log = LoggerFactory.getLogger(ShopifyClient.class);
+    // Platform ayarında rate limit tanımlı değilse kullanılan varsayılanlar
+    static final int RATE_CAPACITY = 5;
+    static final double RATE_PER_SECOND = 1.0;
+    static final Duration PERMIT_TIMEOUT = Duration.ofSeconds(5);
+    // Hat kapısında zaman aşımı zaten uzun bir beklemedir; tekrar denenmez
+    static final RetryPolicy RETRY_POLICY = RetryPolicy.of(3, 200L).abortOn(DispatchLanes.LaneTimeoutException.class);
+    // inventorySetQuantities / productVariantsBulkUpdate tek istekte en fazla 250 kalem kabul eder
+    static final int MAX_BATCH_SIZE = 250;
+
+    static final String API_PATH = "/admin/api/2024-01/";
+    static final String LOCATION_CREDENTIAL = "LOCATION_ID";
+    private static final String INVENTORY_MUTATION =
+        "mutation inventorySetQuantities($input: InventorySetQuantitiesInput!) "
+            + "{ inventorySetQuantities(input: $input) { userErrors { field message } } }";
+    private static final String PRICE_MUTATION =
+        "mutation productVariantsBulkUpdate($productId: ID!, $variants: [ProductVariantsBulkInput!]!) "
+            + "{ productVariantsBulkUpdate(productId: $productId, variants: $variants) { userErrors { field message } } }";
 
     @Override
     public void updateStock(Platform platform, PlatformProduct platformProduct, Integer newStock) {
-        retryExecutor.executeWithRetry(() -> {
-            if (!rateLimiter.tryAcquire("shopify", 5, 1.0)) throw new RuntimeException("rate-limited");
-            log.info("[Shopify] Update stock sku={}, pid={}, newStock={}", platformProduct.getPlatformSku(), platformProduct.getPlatformProductId(), newStock);
-        }, 3, 200L);
+        String location = platformService.getCredential(platform.getId(), LOCATION_CREDENTIAL);
+        String inventoryItemId = variantIds(platform, platformProduct).inventoryItemId;
+        call(platform, PERMIT_TIMEOUT, () -> Request.post(API_PATH + "inventory_levels/set.json", g -> {
+            g.writeStartObject();
+            if (location != null) g.writeStringField("location_id", location);
+            g.writeStringField("inventory_item_id", inventoryItemId);
+            g.writeNumberField("available", newStock);
+            g.writeEndObject();
+        }));
+        log.debug("[Shopify] Update stock sku={}, pid={}, newStock={}", platformProduct.getPlatformSku(), platformProduct.getPlatformProductId(), newStock);
     }
 
     @Override
     public void updatePrice(Platform platform, PlatformProduct platformProduct, BigDecimal newPrice) {
-        retryExecutor.executeWithRetry(() -> {
-            if (!rateLimiter.tryAcquire("shopify", 5, 1.0)) throw new RuntimeException("rate-limited");
-            log.info("[Shopify] Update price sku={}, pid={}, newPrice={}", platformProduct.getPlatformSku(), platformProduct.getPlatformProductId(), newPrice);
-        }, 3, 200L);
+        String variantId = platformProduct.getPlatformProductId();
+        call(platform, PERMIT_TIMEOUT, () -> Request.put(API_PATH + "variants/" + PlatformHttpTransport.pathSegment(variantId) + ".json", g -> {
+            g.writeStartObject();
+            g.writeObjectFieldStart("variant");
+            g.writeStringField("id", variantId);
+            g.writeStringField("price", newPrice.toPlainString());
+            g.writeEndObject();
+            g.writeEndObject();
+        }));
+        log.debug("[Shopify] Update price sku={}, pid={}, newPrice={}", platformProduct.getPlatformSku(), platformProduct.getPlatformProductId(), newPrice);
+    }
+
+    @Override
+    public Integer fetchStock(Platform platform, PlatformProduct platformProduct) {
+        String inventoryItemId = variantIds(platform, platformProduct).inventoryItemId;
+        Response response = call(platform, PERMIT_TIMEOUT, () -> Request.get(API_PATH + "inventory_levels.json?inventory_item_ids="
+            + PlatformHttpTransport.pathSegment(inventoryItemId)));
+        JsonNode levels = response.getBody() == null ? null : response.getBody().path("inventory_levels");
+        if (levels == null || levels.isEmpty()) {
+            return null;
+        }
+        // Birden fazla lokasyon varsa toplam stok
+        int total = 0;
+        for (JsonNode level : levels) {
+            total += level.path("available").asInt();
+        }
+        return total;
+    }
+
+    @Override
+    public void ping(Platform platform) {
+        call(platform, PERMIT_TIMEOUT, () -> Request.get(API_PATH + "shop.json"));
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return MAX_BATCH_SIZE;
+    }
+
+    @Override
+    public void updateStockBatch(Platform platform, List<StockUpdate> updates) {
+        String location = platformService.getCredential(platform.getId(), LOCATION_CREDENTIAL);
+        resolveVariantIds(platform, updates.stream().map(StockUpdate::getPlatformProduct).toList());
+        // Parçalar bloklamadan kuyruğa alınır: izin ve tekrar bekleme süreleri thread uyutmaz
+        List<CompletableFuture<Response>> calls = new ArrayList<>();
+        // İzinler sırayla ayrılır; her parça için PERMIT_TIMEOUT kadar bekleme payı tanınır
+        Duration maxWait = PERMIT_TIMEOUT.multipliedBy((updates.size() + MAX_BATCH_SIZE - 1) / MAX_BATCH_SIZE);
+        for (int from = 0; from < updates.size(); from += MAX_BATCH_SIZE) {
+            List<StockUpdate> chunk = updates.subList(from, Math.min(from + MAX_BATCH_SIZE, updates.size()));
+            calls.add(callAsync(platform, maxWait, () -> graphql(INVENTORY_MUTATION, g -> {
+                g.writeObjectFieldStart("input");
+                g.writeStringField("name", "available");
+                g.writeStringField("reason", "correction");
+                g.writeBooleanField("ignoreCompareQuantity", true);
+                g.writeArrayFieldStart("quantities");
+                for (StockUpdate update : chunk) {
+                    g.writeStartObject();
+                    g.writeStringField("inventoryItemId", "gid://shopify/InventoryItem/"
+                        + variantIds(platform, update.getPlatformProduct()).inventoryItemId);
+                    if (location != null) g.writeStringField("locationId", "gid://shopify/Location/" + location);
+                    g.writeNumberField("quantity", update.getNewStock());
+                    g.writeEndObject();
+                }
+                g.writeEndArray();
+                g.writeEndObject();
+            })));
+            log.debug("[Shopify] Bulk update stock items={}, firstSku={}", chunk.size(), chunk.get(0).getPlatformProduct().getPlatformSku());
+        }
+        RetryExecutor.await(CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])));
+    }
+
+    /**
+     * productVariantsBulkUpdate tek ürünün varyantlarını alır: güncellemeler ürün bazında gruplanıp
+     * her ürün için en fazla MAX_BATCH_SIZE varyantlık parçalar halinde gönderilir
+     */
+    @Override
+    public void updatePriceBatch(Platform platform, List<PriceUpdate> updates) {
+        resolveVariantIds(platform, updates.stream().map(PriceUpdate::getPlatformProduct).toList());
+        Map<String, List<PriceUpdate>> byProduct = new LinkedHashMap<>();
+        for (PriceUpdate update : updates) {
+            byProduct.computeIfAbsent(variantIds(platform, update.getPlatformProduct()).productId, id -> new ArrayList<>()).add(update);
+        }
+        List<List<PriceUpdate>> chunks = new ArrayList<>();
+        List<String> chunkProducts = new ArrayList<>();
+        for (Map.Entry<String, List<PriceUpdate>> entry : byProduct.entrySet()) {
+            List<PriceUpdate> variants = entry.getValue();
+            for (int from = 0; from < variants.size(); from += MAX_BATCH_SIZE) {
+                chunks.add(variants.subList(from, Math.min(from + MAX_BATCH_SIZE, variants.size())));
+                chunkProducts.add(entry.getKey());
+            }
+        }
+        // Parçalar bloklamadan kuyruğa alınır: izin ve tekrar bekleme süreleri thread uyutmaz
+        List<CompletableFuture<Response>> calls = new ArrayList<>();
+        // İzinler sırayla ayrılır; her parça için PERMIT_TIMEOUT kadar bekleme payı tanınır
+        Duration maxWait = PERMIT_TIMEOUT.multipliedBy(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            List<PriceUpdate> chunk = chunks.get(i);
+            String productId = chunkProducts.get(i);
+            calls.add(callAsync(platform, maxWait, () -> graphql(PRICE_MUTATION, g -> {
+                g.writeStringField("productId", "gid://shopify/Product/" + productId);
+                g.writeArrayFieldStart("variants");
+                for (PriceUpdate update : chunk) {
+                    g.writeStartObject();
+                    g.writeStringField("id", "gid://shopify/ProductVariant/" + update.getPlatformProduct().getPlatformProductId());
+                    g.writeStringField("price", update.getNewPrice().toPlainString());
+                    g.writeEndObject();
+                }
+                g.writeEndArray();
+            })));
+            log.debug("[Shopify] Bulk update price product={}, items={}, firstSku={}", productId, chunk.size(), chunk.get(0).getPlatformProduct().getPlatformSku());
+        }
+        RetryExecutor.await(CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])));
+    }
+
+    private VariantIds variantIds(Platform platform, PlatformProduct platformProduct) {
+        if (platformProduct.getInventoryItemId() != null && platformProduct.getPlatformParentId() != null) {
+            return new VariantIds(platformProduct.getInventoryItemId(), platformProduct.getPlatformParentId());
+        }
+        VariantIds resolved = resolvedIds.get(variantKey(platform, platformProduct));
+        if (resolved == null) {
+            resolveVariantIds(platform, List.of(platformProduct));
+            resolved = resolvedIds.get(variantKey(platform, platformProduct));
+        }
+        return resolved;
+    }
+
+    // Kayıtta id'leri eksik varyantlar paralel okunur; okunamayan varyant istek hatasıdır
+    private void resolveVariantIds(Platform platform, List<PlatformProduct> platformProducts) {
+        Map<String, PlatformProduct> missing = new LinkedHashMap<>();
+        for (PlatformProduct pp : platformProducts) {
+            if (pp.getInventoryItemId() != null && pp.getPlatformParentId() != null) continue;
+            if (pp.getPlatformProductId() == null) {
+                throw new PlatformRequestException(platform.getCode(), 0, "variant id missing for sku=" + pp.getPlatformSku());
+            }
+            String key = variantKey(platform, pp);
+            if (!resolvedIds.containsKey(key)) missing.putIfAbsent(key, pp);
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        List<CompletableFuture<Void>> lookups = new ArrayList<>();
+        Duration maxWait = PERMIT_TIMEOUT.multipliedBy(missing.size());
+        for (Map.Entry<String, PlatformProduct> entry : missing.entrySet()) {
+            String variantId = entry.getValue().getPlatformProductId();
+            lookups.add(callAsync(platform, maxWait, () -> Request.get(API_PATH + "variants/"
+                    + PlatformHttpTransport.pathSegment(variantId) + ".json?fields=inventory_item_id,product_id"))
+                .thenAccept(response -> {
+                    JsonNode variant = response.getBody() == null ? null : response.getBody().path("variant");
+                    if (variant == null || !variant.hasNonNull("inventory_item_id") || !variant.hasNonNull("product_id")) {
+                        throw new PlatformRequestException(platform.getCode(), response.getStatus(),
+                            "inventory item / product id unavailable for variant " + variantId);
+                    }
+                    resolvedIds.put(entry.getKey(), new VariantIds(variant.path("inventory_item_id").asText(),
+                        variant.path("product_id").asText()));
+                }));
+        }
+        log.debug("[Shopify] Resolving ids for {} variants without stored inventoryItemId/platformParentId", missing.size());
+        RetryExecutor.await(CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0])));
+        for (Map.Entry<String, PlatformProduct> entry : missing.entrySet()) {
+            VariantIds ids = resolvedIds.get(entry.getKey());
+            platformProductRepository.storeVariantIds(entry.getValue().getId(), ids.inventoryItemId, ids.productId);
+        }
+    }
+
+    private static String variantKey(Platform platform, PlatformProduct platformProduct) {
+        return platform.getId() + ":" + platformProduct.getPlatformProductId();
+    }
+
+    private static Request graphql(String query, PlatformHttpTransport.JsonBody variables) {
+        return Request.post(API_PATH + "graphql.json", g -> {
+            g.writeStartObject();
+            g.writeStringField("query", query);
+            g.writeObjectFieldStart("variables");
+            variables.write(g);
+            g.writeEndObject();
+            g.writeEndObject();
+        });
+    }
+
+    private Response call(Platform platform, Duration maxWait, Supplier<Request> request) {
+        return RetryExecutor.await(callAsync(platform, maxWait, request));
+    }
+
+    /**
+     * Her deneme limiter izni alır, hat kapısında sırasını bekler ve isteği yeniden kurar; kapı yalnızca istek
+     * sürerken tutulur. Hat, çağıran thread'den burada okunur. GraphQL yanıtındaki hatalar da burada ayrıştırılır
+     */
+    private CompletableFuture<Response> callAsync(Platform platform, Duration maxWait, Supplier<Request> request) {
+        DispatchLane lane = dispatchLanes.currentLane();
+        return retryExecutor.retryAsync(() -> rateLimiter
+            .acquireAsync(platform, RATE_CAPACITY, RATE_PER_SECOND, maxWait)
+            .thenCompose(v -> dispatchLanes.gateAsync(platform.getId(), lane, () -> transport.send(platform, request.get()
+                .header("X-Shopify-Access-Token", platformService.getCredential(platform.getId(), "API_KEY")))))
+            .thenApply(response -> checkGraphql(platform, response)),
+            RETRY_POLICY);
+    }
+
+    /**
+     * GraphQL hataları HTTP 200 ile gelir: THROTTLED maliyet kovası boşalana kadar tekrar denenir,
+     * diğer hatalar ve userErrors istek hatasıdır
+     */
+    private static Response checkGraphql(Platform platform, Response response) {
+        JsonNode body = response.getBody();
+        if (body == null) {
+            return response;
+        }
+        JsonNode errors = body.path("errors");
+        if (errors.isArray() && !errors.isEmpty()) {
+            if ("THROTTLED".equals(errors.get(0).path("extensions").path("code").asText())) {
+                throw new PlatformHttpException(platform.getCode(), 429, throttleWaitMs(body), "GraphQL throttled", null);
+            }
+            throw new PlatformRequestException(platform.getCode(), response.getStatus(), "GraphQL error: " + errors.get(0).path("message").asText());
+        }
+        for (JsonNode result : body.path("data")) {
+            JsonNode userErrors = result.path("userErrors");
+            if (userErrors.isArray() && !userErrors.isEmpty()) {
+                throw new PlatformRequestException(platform.getCode(), response.getStatus(),
+                    "GraphQL userErrors: " + userErrors.get(0).path("message").asText());
+            }
+        }
+        return response;
+    }
+
+    private static final class VariantIds {
+        final String inventoryItemId;
+        final String productId;
+
+        VariantIds(String inventoryItemId, String productId) {
+            this.inventoryItemId = inventoryItemId;
+            this.productId = productId;
+        }
+    }
+
+    // Eksik puanın geri dolması için gereken süre
+    private static long throttleWaitMs(JsonNode body) {
+        JsonNode cost = body.path("extensions").path("cost");
+        double requested = cost.path("requestedQueryCost").asDouble();
+        double available = cost.path("throttleStatus").path("currentlyAvailable").asDouble();
+        double restoreRate = cost.path("throttleStatus").path("restoreRate").asDouble();
+        return restoreRate > 0 && requested > available ? (long) Math.ceil((requested - available) / restoreRate * 1000) : 1000L;
     }
 }
@@ -1,39 +1,201 @@
 package com.ornek.ecomstocksync.metrics;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Entegrasyon katmanının sayaçları ve süre ölçümleri. Sayaçlar LongAdder'dır; çok thread'li sıcak yolda
+ * tek bir cache satırında yarışmazlar. Platform × işlem bazında çağrı süreleri (p50/p95/p99/max),
+ * hata sayısı ve son bir dakikanın çağrı/kalem hızı tutulur; limiter bekleme süresi anahtar bazında ayrı ölçülür.
+ * Aynı ölçümler Micrometer'a da kaydedilir (integration.call, integration.ratelimit.wait,
+ * integration.retries.*, integration.ratelimit.rejected); /actuator/metrics ve bağlı bir registry üzerinden okunabilir.
+ */
 @Component
 public class IntegrationMetricsService {
 
-    private final Map<String, AtomicInteger> rateLimitedByKey = new ConcurrentHashMap<>();
-    private final AtomicInteger retriesAttempted = new AtomicInteger(0);
-    private final AtomicInteger retriesFailed = new AtomicInteger(0);
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+    // Yüzdelikler bu süreden eski ölçümleri unutur; tepe değerler dakikalar içinde söner
+    private static final Duration STATISTIC_EXPIRY = Duration.ofMinutes(1);
+
+    private final MeterRegistry registry;
+    private final Map<String, LongAdder> rateLimitedByKey = new ConcurrentHashMap<>();
+    private final LongAdder retriesAttempted = new LongAdder();
+    private final LongAdder retriesFailed = new LongAdder();
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private final Map<String, Timer> limiterWaits = new ConcurrentHashMap<>();
+
+    public IntegrationMetricsService(MeterRegistry registry) {
+        this.registry = registry;
+        FunctionCounter.builder("integration.retries.attempted", retriesAttempted, LongAdder::sum)
+            .description("Retries scheduled after a failed platform call").register(registry);
+        FunctionCounter.builder("integration.retries.failed", retriesFailed, LongAdder::sum)
+            .description("Calls that failed after exhausting retries").register(registry);
+    }
 
     public void incrementRateLimited(String key) {
-        rateLimitedByKey.computeIfAbsent(key, k -> new AtomicInteger(0)).incrementAndGet();
+        rateLimitedByKey.computeIfAbsent(key, k -> {
+            LongAdder counter = new LongAdder();
+            FunctionCounter.builder("integration.ratelimit.rejected", counter, LongAdder::sum)
+                .tag("key", k).register(registry);
+            return counter;
+        }).increment();
     }
 
     public void incrementRetriesAttempted() {
-        retriesAttempted.incrementAndGet();
+        retriesAttempted.increment();
     }
 
     public void incrementRetriesFailed() {
-        retriesFailed.incrementAndGet();
+        retriesFailed.increment();
+    }
+
+    /**
+     * Tek bir platform çağrısının süresi
+     * @param items Çağrının taşıdığı kalem sayısı (toplu güncellemede paket boyu)
+     */
+    public void recordCall(String platform, String operation, long nanos, int items, boolean success) {
+        operations.computeIfAbsent(platform + "/" + operation, k -> new OperationStats(platform, operation))
+            .record(nanos, items, success);
+    }
+
+    /**
+     * Limiter'da izin için beklenen süre; beklemeden alınan izinler 0 olarak sayılır
+     */
+    public void recordLimiterWait(String key, long nanos) {
+        limiterWaits.computeIfAbsent(key, k -> Timer.builder("integration.ratelimit.wait")
+                .tag("key", k)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .distributionStatisticExpiry(STATISTIC_EXPIRY)
+                .register(registry))
+            .record(nanos, TimeUnit.NANOSECONDS);
     }
 
     public Map<String, Object> snapshot() {
         Map<String, Object> data = new ConcurrentHashMap<>();
-        Map<String, Integer> rl = new ConcurrentHashMap<>();
-        rateLimitedByKey.forEach((k, v) -> rl.put(k, v.get()));
+        Map<String, Long> rl = new ConcurrentHashMap<>();
+        rateLimitedByKey.forEach((k, v) -> rl.put(k, v.sum()));
         data.put("rateLimitedByKey", rl);
-        data.put("retriesAttempted", retriesAttempted.get());
-        data.put("retriesFailed", retriesFailed.get());
+        data.put("retriesAttempted", retriesAttempted.sum());
+        data.put("retriesFailed", retriesFailed.sum());
+        Map<String, Object> ops = new TreeMap<>();
+        operations.forEach((k, v) -> ops.put(k, v.toMap()));
+        data.put("operations", ops);
+        Map<String, Object> waits = new TreeMap<>();
+        limiterWaits.forEach((k, v) -> waits.put(k, timerMap(v)));
+        data.put("limiterWait", waits);
         return data;
     }
-}
 
+    private static Map<String, Object> timerMap(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("count", snapshot.count());
+        row.put("meanMs", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile p : snapshot.percentileValues()) {
+            row.put("p" + Math.round(p.percentile() * 100) + "Ms", round(p.value(TimeUnit.MILLISECONDS)));
+        }
+        row.put("maxMs", round(snapshot.max(TimeUnit.MILLISECONDS)));
+        return row;
+    }
+
+    private static double round(double value) {
+        return Double.isNaN(value) ? 0.0 : Math.round(value * 100) / 100.0;
+    }
+
+    private final class OperationStats {
+        final Timer success;
+        final Timer failure;
+        final LongAdder items = new LongAdder();
+        final RateWindow callRate = new RateWindow();
+        final RateWindow itemRate = new RateWindow();
+
+        OperationStats(String platform, String operation) {
+            this.success = timer(platform, operation, "success");
+            this.failure = timer(platform, operation, "error");
+        }
+
+        private Timer timer(String platform, String operation, String outcome) {
+            return Timer.builder("integration.call")
+                .description("Outbound platform API call latency")
+                .tag("platform", platform)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .distributionStatisticExpiry(STATISTIC_EXPIRY)
+                .register(registry);
+        }
+
+        void record(long nanos, int count, boolean ok) {
+            (ok ? success : failure).record(nanos, TimeUnit.NANOSECONDS);
+            items.add(count);
+            callRate.add(1);
+            itemRate.add(count);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> row = new LinkedHashMap<>(timerMap(success));
+            row.put("errors", failure.count());
+            row.put("errorLatency", timerMap(failure));
+            row.put("items", items.sum());
+            row.put("callsPerSecond", round(callRate.perSecond()));
+            row.put("itemsPerSecond", round(itemRate.perSecond()));
+            return row;
+        }
+    }
 
+    /**
+     * Son bir dakikanın saniye dilimleri; hız tamamlanmış dilimlerin ortalamasıdır
+     */
+    private static final class RateWindow {
+        private static final int SLOTS = 60;
+        private final LongAdder[] counts = new LongAdder[SLOTS];
+        private final AtomicLongArray seconds = new AtomicLongArray(SLOTS);
+
+        RateWindow() {
+            for (int i = 0; i < SLOTS; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        void add(long n) {
+            long second = System.currentTimeMillis() / 1000;
+            int slot = (int) (second % SLOTS);
+            if (seconds.get(slot) != second) {
+                synchronized (this) {
+                    if (seconds.get(slot) != second) {
+                        counts[slot].reset();
+                        seconds.set(slot, second);
+                    }
+                }
+            }
+            counts[slot].add(n);
+        }
+
+        double perSecond() {
+            long current = System.currentTimeMillis() / 1000;
+            long total = 0;
+            for (int i = 0; i < SLOTS; i++) {
+                long second = seconds.get(i);
+                if (second < current && second >= current - SLOTS + 1) {
+                    total += counts[i].sum();
+                }
+            }
+            return total / (double) (SLOTS - 1);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.ornek.ecomstocksync.repository;
+
+import com.ornek.ecomstocksync.entity.ClusterLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ClusterLeaseRepository extends JpaRepository<ClusterLease, String> {
+
+    // Kiralama bizdeyse uzatır, süresi geçtiyse devralır; başkasında ve geçerliyse 0 döner
+    @Modifying
+    @Query("UPDATE ClusterLease l SET l.owner = :owner, l.expiresAt = :until " +
+           "WHERE l.name = :name AND (l.owner = :owner OR l.expiresAt < :now)")
+    int tryTake(String name, String owner, LocalDateTime now, LocalDateTime until);
+
+    // Düğümün tuttuğu tüm kiralamaları heartbeat ile birlikte uzatır
+    @Modifying
+    @Query("UPDATE ClusterLease l SET l.expiresAt = :until WHERE l.owner = :owner AND l.expiresAt >= :now")
+    int renewAll(String owner, LocalDateTime now, LocalDateTime until);
+
+    @Modifying
+    @Query("DELETE FROM ClusterLease l WHERE l.name = :name AND l.owner = :owner")
+    int release(String name, String owner);
+
+    @Modifying
+    @Query("DELETE FROM ClusterLease l WHERE l.owner = :owner")
+    int releaseAll(String owner);
+}
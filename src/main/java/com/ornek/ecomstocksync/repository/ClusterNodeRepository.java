@@ -0,0 +1,26 @@
+package com.ornek.ecomstocksync.repository;
+
+import com.ornek.ecomstocksync.entity.ClusterNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ClusterNodeRepository extends JpaRepository<ClusterNode, String> {
+
+    @Modifying
+    @Query("UPDATE ClusterNode n SET n.heartbeatAt = :now WHERE n.nodeId = :nodeId")
+    int heartbeat(String nodeId, LocalDateTime now);
+
+    // Canlı düğüm id'leri, sıralı
+    @Query("SELECT n.nodeId FROM ClusterNode n WHERE n.heartbeatAt >= :since ORDER BY n.nodeId")
+    List<String> findLiveNodeIds(LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM ClusterNode n WHERE n.heartbeatAt < :before")
+    int deleteDead(LocalDateTime before);
+}
@@ -23,6 +23,10 @@ public interface CredentialRepository extends JpaRepository<Credential, Long> {
            "AND c.isActive = true AND (c.expiresAt IS NULL OR c.expiresAt > :now)")
     Optional<Credential> findActiveCredential(Platform platform, String credentialType, LocalDateTime now);
     
+    @Query("SELECT c FROM Credential c WHERE c.platform.id = :platformId AND c.credentialType = :credentialType " +
+           "AND c.isActive = true AND (c.expiresAt IS NULL OR c.expiresAt > :now)")
+    Optional<Credential> findActiveCredentialByPlatformId(Long platformId, String credentialType, LocalDateTime now);
+    
     @Query("SELECT c FROM Credential c WHERE c.isActive = true AND c.expiresAt IS NOT NULL AND c.expiresAt < :now")
     List<Credential> findExpiredCredentials(LocalDateTime now);
     
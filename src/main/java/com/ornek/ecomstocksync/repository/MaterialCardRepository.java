@@ -2,12 +2,16 @@ package com.ornek.ecomstocksync.repository;
 
 import com.ornek.ecomstocksync.entity.MaterialCard;
 import com.ornek.ecomstocksync.entity.Supplier;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,8 +24,17 @@ public interface MaterialCardRepository extends JpaRepository<MaterialCard, Long
     
     List<MaterialCard> findByStatus(String status);
     
+    // Stok güncellemesi öncesi satır kilidi; kilitlenme olmaması için her zaman id sırasıyla
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM MaterialCard m WHERE m.id IN :ids ORDER BY m.id")
+    List<MaterialCard> lockAllByIdIn(Collection<Long> ids);
+    
     List<MaterialCard> findBySupplier(Supplier supplier);
     
+    // Mutabakat için id sıralı keyset sayfalama; varlık yüklenmez: [id, currentStock]
+    @Query("SELECT m.id, m.currentStock FROM MaterialCard m WHERE m.id > :afterId ORDER BY m.id")
+    List<Object[]> findStockPageAfter(Long afterId, Pageable pageable);
+    
     @Query("SELECT m FROM MaterialCard m WHERE m.currentStock <= m.minimumStock")
     List<MaterialCard> findLowStockMaterials();
     
@@ -0,0 +1,90 @@
+package com.ornek.ecomstocksync.repository;
+
+import com.ornek.ecomstocksync.entity.OutboxEvent;
+import com.ornek.ecomstocksync.integration.DispatchLane;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query("SELECT DISTINCT o.platform.id FROM OutboxEvent o WHERE o.status = :status AND o.nextAttemptAt <= :now")
+    List<Long> findPlatformIdsWithDueEvents(OutboxEvent.Status status, LocalDateTime now);
+
+    @Query("SELECT DISTINCT o.platform.id FROM OutboxEvent o WHERE o.status = :status AND o.lane = :lane AND o.nextAttemptAt <= :now")
+    List<Long> findPlatformIdsWithDueLane(OutboxEvent.Status status, DispatchLane lane, LocalDateTime now);
+
+    // Hat içinde sıra korunur; includeUnassigned ise hattı olmayan eski kayıtlar da gelir.
+    // Aynı ürün/tür için hangi hatta olursa olsun daha yeni bir olayı bekleyen veya gönderilmiş olan olay seçilmez:
+    // eski değer (ör. STOCK hattındaki 5) yenisinin (CRITICAL hattındaki 0) üzerine yazılmasın.
+    // Aynı ürün/tür için gönderimde (sending) olay varsa o bitene kadar başka olay seçilmez
+    @Query("SELECT o FROM OutboxEvent o JOIN FETCH o.platform JOIN FETCH o.platformProduct " +
+           "WHERE o.platform.id = :platformId AND o.status = :status AND o.nextAttemptAt <= :now " +
+           "AND (o.lane = :lane OR (:includeUnassigned = true AND o.lane IS NULL)) " +
+           "AND NOT EXISTS (SELECT n.id FROM OutboxEvent n WHERE n.platformProduct = o.platformProduct " +
+           "AND n.updateType = o.updateType AND n.id <> o.id " +
+           "AND (n.status = :sending OR (n.id > o.id AND n.status IN :newer))) " +
+           "ORDER BY o.id")
+    List<OutboxEvent> findDueLaneBatch(Long platformId, OutboxEvent.Status status, Collection<OutboxEvent.Status> newer,
+                                       OutboxEvent.Status sending, LocalDateTime now, DispatchLane lane,
+                                       boolean includeUnassigned, Pageable pageable);
+
+    /**
+     * Hâlâ pending olan olayları bu düğüm adına sahiplenir. Koşullu UPDATE olduğu için aynı olayı iki düğüm
+     * birden alamaz; dönen sayı alınabilen olay sayısıdır.
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.status = :sending, o.claimedBy = :owner, o.claimedAt = :now " +
+           "WHERE o.id IN :ids AND o.status = :pending")
+    int claim(Collection<Long> ids, OutboxEvent.Status pending, OutboxEvent.Status sending, String owner, LocalDateTime now);
+
+    @Query("SELECT o FROM OutboxEvent o JOIN FETCH o.platform JOIN FETCH o.platformProduct " +
+           "WHERE o.id IN :ids AND o.status = :sending AND o.claimedBy = :owner ORDER BY o.id")
+    List<OutboxEvent> findClaimed(Collection<Long> ids, OutboxEvent.Status sending, String owner);
+
+    // Gönderirken ölen düğümün sahiplendiği olaylar süre dolunca tekrar kuyruğa döner
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.status = :pending, o.claimedBy = NULL, o.claimedAt = NULL " +
+           "WHERE o.status = :sending AND o.claimedAt < :before")
+    int releaseStaleClaims(OutboxEvent.Status sending, OutboxEvent.Status pending, LocalDateTime before);
+
+    // [lane, adet]
+    @Query("SELECT o.lane, COUNT(o) FROM OutboxEvent o WHERE o.status = :status GROUP BY o.lane")
+    List<Object[]> countByStatusGroupByLane(OutboxEvent.Status status);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.status = :status, o.sentAt = :now WHERE o.id IN :ids")
+    int markSent(Collection<Long> ids, OutboxEvent.Status status, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.status = :pending, o.attempts = 0, o.nextAttemptAt = :now WHERE o.status = :failed")
+    int requeueFailed(OutboxEvent.Status failed, OutboxEvent.Status pending, LocalDateTime now);
+
+    /**
+     * Verilen ürünlerde, aynı tür için durumu newer içinde olan daha yeni bir olayı bulunan
+     * stale durumundaki olayları superseded durumuna alır
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.status = :superseded " +
+           "WHERE o.platformProduct.id IN :platformProductIds AND o.status IN :stale " +
+           "AND EXISTS (SELECT n.id FROM OutboxEvent n WHERE n.platformProduct = o.platformProduct " +
+           "AND n.updateType = o.updateType AND n.id > o.id AND n.status IN :newer)")
+    int supersedeOlder(Collection<Long> platformProductIds, Collection<OutboxEvent.Status> stale,
+                       Collection<OutboxEvent.Status> newer, OutboxEvent.Status superseded);
+
+    // Tekrar kuyruğa almadan önce: aynı ürün/tür için daha yeni olayı olan FAILED kayıtlar geri gelmez
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.status = :superseded WHERE o.status = :failed " +
+           "AND EXISTS (SELECT n.id FROM OutboxEvent n WHERE n.platformProduct = o.platformProduct " +
+           "AND n.updateType = o.updateType AND n.id > o.id AND n.status IN :newer)")
+    int supersedeFailed(OutboxEvent.Status failed, Collection<OutboxEvent.Status> newer, OutboxEvent.Status superseded);
+
+    long countByStatus(OutboxEvent.Status status);
+}
@@ -3,12 +3,19 @@ package com.ornek.ecomstocksync.repository;
 import com.ornek.ecomstocksync.entity.Platform;
 import com.ornek.ecomstocksync.entity.PlatformProduct;
 import com.ornek.ecomstocksync.entity.MaterialCard;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -16,9 +23,28 @@ public interface PlatformProductRepository extends JpaRepository<PlatformProduct
     
     List<PlatformProduct> findByPlatform(Platform platform);
     
-    List<PlatformProduct> findByProduct(MaterialCard material);
     List<PlatformProduct> findByMaterial(MaterialCard material);
     
+    // Platform/malzeme alanlarına satır başına erişen sıcak yollar için: ilişkiler tek sorguda yüklenir
+    @Query("SELECT pp FROM PlatformProduct pp JOIN FETCH pp.platform WHERE pp.material = :material ORDER BY pp.id")
+    List<PlatformProduct> findWithPlatformByMaterial(MaterialCard material);
+    
+    @Query("SELECT pp FROM PlatformProduct pp JOIN FETCH pp.platform WHERE pp.material.id IN :materialIds")
+    List<PlatformProduct> findWithPlatformByMaterialIds(Collection<Long> materialIds);
+    
+    @Query("SELECT pp FROM PlatformProduct pp JOIN FETCH pp.material WHERE pp.platform = :platform")
+    List<PlatformProduct> findWithMaterialByPlatform(Platform platform);
+    
+    // Mutabakat: malzemelerin tüm ürünlerinin stok satırları, yaymayla aynı sırada: [ppId, materialId, stock, platformId, distributionRatio, isActive]
+    @Query("SELECT pp.id, pp.material.id, pp.stock, p.id, p.distributionRatio, pp.isActive FROM PlatformProduct pp JOIN pp.platform p " +
+           "WHERE pp.material.id IN :materialIds ORDER BY pp.id")
+    List<Object[]> findStockRowsByMaterialIds(Collection<Long> materialIds);
+    
+    // Webhook'taki SKU, varyant id'si veya InventoryItem id'si ile eşleşen ürünler; alan eşlemesi çağıranda yapılır
+    @Query("SELECT pp FROM PlatformProduct pp WHERE pp.platform.id = :platformId " +
+           "AND (pp.platformSku IN :keys OR pp.platformProductId IN :keys OR pp.inventoryItemId IN :keys)")
+    List<PlatformProduct> findByPlatformIdAndKeys(Long platformId, Collection<String> keys);
+    
     Optional<PlatformProduct> findByPlatformAndMaterial(Platform platform, MaterialCard material);
     
     Optional<PlatformProduct> findByPlatformAndPlatformProductId(Platform platform, String platformProductId);
@@ -27,9 +53,56 @@ public interface PlatformProductRepository extends JpaRepository<PlatformProduct
     
     List<PlatformProduct> findByPlatformAndIsActiveTrue(Platform platform);
     
-    @Query("SELECT pp FROM PlatformProduct pp WHERE pp.platform = :platform AND pp.isActive = true " +
-           "AND (pp.lastSyncAt IS NULL OR pp.lastSyncAt < :before)")
-    List<PlatformProduct> findStaleProducts(Platform platform, LocalDateTime before);
+    // Keyset sayfalama: OFFSET yerine id > afterId, sayfa boyutu Pageable ile verilir
+    @Query("SELECT pp FROM PlatformProduct pp WHERE pp.platform.id = :platformId AND pp.isActive = true " +
+           "AND pp.id > :afterId ORDER BY pp.id")
+    List<PlatformProduct> findActivePageAfter(Long platformId, Long afterId, Pageable pageable);
+    
+    /**
+     * Artımlı senkronizasyon adayları (keyset sayfalı): gönderilmemiş değişikliği olan, malzemesi son
+     * senkronizasyondan sonra değişen, hiç senkronize edilmemiş veya before'dan eski olan aktif ürünler
+     */
+    @Query("SELECT pp FROM PlatformProduct pp JOIN pp.material m WHERE pp.platform.id = :platformId AND pp.isActive = true " +
+           "AND pp.id > :afterId " +
+           "AND (pp.lastSyncAt IS NULL OR pp.lastSyncAt < :before " +
+           "OR COALESCE(pp.changeVersion, 0) > COALESCE(pp.syncedVersion, 0) OR m.updatedAt > pp.lastSyncAt) " +
+           "ORDER BY pp.id")
+    List<PlatformProduct> findChangedOrStalePageAfter(Long platformId, LocalDateTime before, Long afterId, Pageable pageable);
+    
+    @Query("SELECT COUNT(pp) FROM PlatformProduct pp WHERE pp.isActive = true " +
+           "AND COALESCE(pp.changeVersion, 0) > COALESCE(pp.syncedVersion, 0)")
+    long countDirtyProducts();
+    
+    // Platformdan okunan id'ler kayda yazılır; elle girilmiş değerlerin üzerine yazılmaz
+    @Modifying
+    @Transactional
+    @Query("UPDATE PlatformProduct pp SET pp.inventoryItemId = COALESCE(pp.inventoryItemId, :inventoryItemId), " +
+           "pp.platformParentId = COALESCE(pp.platformParentId, :platformParentId) WHERE pp.id = :id")
+    int storeVariantIds(Long id, String inventoryItemId, String platformParentId);
+
+    // Yalnızca gönderilen sürüm senkronize sayılır: satır okunduktan sonra gelen bir değişiklik (reconciler, doğrudan
+    // setter, webhook) changeVersion'ı ilerletir ve satır kirli kalır
+    @Modifying
+    @Query("UPDATE PlatformProduct pp SET pp.lastSyncAt = :syncedAt, pp.syncedVersion = :sentVersion " +
+           "WHERE pp.id IN :ids AND COALESCE(pp.changeVersion, 0) >= :sentVersion")
+    int markSynced(Collection<Long> ids, Long sentVersion, LocalDateTime syncedAt);
+
+    /**
+     * Gönderilen ürünleri okundukları sürümle işaretler; aynı sürümdekiler tek UPDATE ile yazılır
+     * @return İşaretlenen satır sayısı
+     */
+    default int markSynced(Collection<PlatformProduct> sent, LocalDateTime syncedAt) {
+        Map<Long, List<Long>> idsByVersion = new HashMap<>();
+        for (PlatformProduct pp : sent) {
+            Long version = pp.getChangeVersion() == null ? 0L : pp.getChangeVersion();
+            idsByVersion.computeIfAbsent(version, v -> new ArrayList<>()).add(pp.getId());
+        }
+        int marked = 0;
+        for (Map.Entry<Long, List<Long>> entry : idsByVersion.entrySet()) {
+            marked += markSynced(entry.getValue(), entry.getKey(), syncedAt);
+        }
+        return marked;
+    }
     
     @Query("SELECT COUNT(pp) FROM PlatformProduct pp WHERE pp.platform = :platform AND pp.isActive = true")
     long countActiveProductsByPlatform(Platform platform);
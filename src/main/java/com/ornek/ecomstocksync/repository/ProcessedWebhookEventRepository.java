@@ -0,0 +1,28 @@
+package com.ornek.ecomstocksync.repository;
+
+import com.ornek.ecomstocksync.entity.ProcessedWebhookEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProcessedWebhookEventRepository extends JpaRepository<ProcessedWebhookEvent, Long> {
+
+    // Partideki anahtarlardan daha önce işlenmiş olanlar; tek sorgu
+    @Query("SELECT e.eventKey FROM ProcessedWebhookEvent e WHERE e.platformId = :platformId AND e.eventKey IN :keys")
+    List<String> findExistingKeys(Long platformId, Collection<String> keys);
+
+    // Bloom filtresini kurmak için id sıralı keyset sayfalama: [id, platformId, eventKey]
+    @Query("SELECT e.id, e.platformId, e.eventKey FROM ProcessedWebhookEvent e WHERE e.id > :afterId ORDER BY e.id")
+    List<Object[]> findKeysAfter(Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM ProcessedWebhookEvent e WHERE e.processedAt < :before")
+    int deleteProcessedBefore(LocalDateTime before);
+}
@@ -0,0 +1,23 @@
+package com.ornek.ecomstocksync.repository;
+
+import com.ornek.ecomstocksync.entity.SyncHistoryDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SyncHistoryDailyRepository extends JpaRepository<SyncHistoryDaily, Long> {
+
+    // platformId null ise tüm platformlar; (bucket_start) ve (platform_id, bucket_start) indeksleriyle okunur
+    @Query("SELECT r FROM SyncHistoryDaily r WHERE r.bucketStart >= :from AND r.bucketStart < :to " +
+           "AND (:platformId IS NULL OR r.platformId = :platformId) ORDER BY r.bucketStart, r.platformId")
+    List<SyncHistoryDaily> findRange(LocalDateTime from, LocalDateTime to, Long platformId);
+
+    @Modifying
+    @Query("DELETE FROM SyncHistoryDaily r WHERE r.bucketStart < :before")
+    int deleteBucketsBefore(LocalDateTime before);
+}
@@ -3,16 +3,27 @@ package com.ornek.ecomstocksync.repository;
 
 import com.ornek.ecomstocksync.entity.SyncHistory;
 import com.ornek.ecomstocksync.entity.Platform;
-import com.ornek.ecomstocksync.entity.Product;
 import com.ornek.ecomstocksync.entity.PlatformProduct;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface SyncHistoryRepository extends JpaRepository<SyncHistory, Long> {
-    List<SyncHistory> findByProduct(Product product);
+public interface SyncHistoryRepository extends JpaRepository<SyncHistory, Long>, SyncHistoryRepositoryCustom {
     List<SyncHistory> findByPlatform(Platform platform);
     List<SyncHistory> findByPlatformProduct(PlatformProduct platformProduct);
+
+    // Budama için en eski satırların id'leri; (created_at) indeksiyle parça parça okunur
+    @Query("SELECT h.id FROM SyncHistory h WHERE h.createdAt < :before ORDER BY h.createdAt")
+    List<Long> findIdsCreatedBefore(LocalDateTime before, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM SyncHistory h WHERE h.id IN :ids")
+    int deleteByIds(Collection<Long> ids);
 }
@@ -0,0 +1,19 @@
+package com.ornek.ecomstocksync.repository;
+
+import com.ornek.ecomstocksync.entity.SyncHistory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SyncHistoryRepositoryCustom {
+
+    /**
+     * Ham geçmişte filtreli, (created_at, id) çiftine göre azalan keyset sayfalama. Yalnızca verilen filtreler
+     * sorguya eklenir; böylece her kombinasyon ilgili (kolon, created_at) indeksini hem filtre hem sıra için
+     * kullanabilir. Toplam sayım yapılmaz.
+     * @param beforeId Önceki sayfanın son id'si; null ise en yeniden başlar
+     */
+    List<SyncHistory> search(Long platformId, Long platformProductId, Long materialId,
+                             SyncHistory.Action action, SyncHistory.Status status,
+                             LocalDateTime from, LocalDateTime to, Long beforeId, int limit);
+}
@@ -0,0 +1,57 @@
+package com.ornek.ecomstocksync.repository;
+
+import com.ornek.ecomstocksync.entity.SyncHistory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SyncHistoryRepositoryImpl implements SyncHistoryRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<SyncHistory> search(Long platformId, Long platformProductId, Long materialId,
+                                    SyncHistory.Action action, SyncHistory.Status status,
+                                    LocalDateTime from, LocalDateTime to, Long beforeId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<SyncHistory> query = cb.createQuery(SyncHistory.class);
+        Root<SyncHistory> h = query.from(SyncHistory.class);
+        List<Predicate> where = new ArrayList<>();
+        // İlişkiler join edilmez; yabancı anahtar kolonu doğrudan karşılaştırılır
+        if (platformId != null) where.add(cb.equal(h.get("platform").get("id"), platformId));
+        if (platformProductId != null) where.add(cb.equal(h.get("platformProduct").get("id"), platformProductId));
+        if (materialId != null) where.add(cb.equal(h.get("material").get("id"), materialId));
+        if (action != null) where.add(cb.equal(h.get("action"), action));
+        if (status != null) where.add(cb.equal(h.get("status"), status));
+        if (from != null) where.add(cb.greaterThanOrEqualTo(h.get("createdAt"), from));
+        if (to != null) where.add(cb.lessThan(h.get("createdAt"), to));
+        if (beforeId != null) where.add(before(cb, h, beforeId));
+        // (kolon, created_at) indeksleri sırayı da verir; id yalnızca aynı andaki satırları ayırır
+        query.select(h).where(where.toArray(new Predicate[0]))
+            .orderBy(cb.desc(h.get("createdAt")), cb.desc(h.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    // Sayfa imleci id olarak kalır; satırın created_at değeri PK ile okunur ve (created_at, id) çiftiyle karşılaştırılır
+    private Predicate before(CriteriaBuilder cb, Root<SyncHistory> h, Long beforeId) {
+        List<LocalDateTime> cursor = entityManager
+            .createQuery("SELECT h.createdAt FROM SyncHistory h WHERE h.id = :id", LocalDateTime.class)
+            .setParameter("id", beforeId)
+            .getResultList();
+        if (cursor.isEmpty()) {
+            // İmleç satırı saklama süresiyle silinmiş: id sırasına düşülür
+            return cb.lessThan(h.get("id"), beforeId);
+        }
+        LocalDateTime createdAt = cursor.get(0);
+        return cb.or(cb.lessThan(h.get("createdAt"), createdAt),
+            cb.and(cb.equal(h.get("createdAt"), createdAt), cb.lessThan(h.get("id"), beforeId)));
+    }
+}
@@ -0,0 +1,26 @@
+package com.ornek.ecomstocksync.repository;
+
+import com.ornek.ecomstocksync.entity.WebhookInboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WebhookInboxEventRepository extends JpaRepository<WebhookInboxEvent, Long> {
+
+    // Geliş sırası korunur
+    @Query("SELECT w FROM WebhookInboxEvent w JOIN FETCH w.platform WHERE w.status = :status ORDER BY w.id")
+    List<WebhookInboxEvent> findBatch(WebhookInboxEvent.Status status, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE WebhookInboxEvent w SET w.status = :status, w.processedAt = :now WHERE w.id IN :ids")
+    int markProcessed(Collection<Long> ids, WebhookInboxEvent.Status status, LocalDateTime now);
+
+    long countByStatus(WebhookInboxEvent.Status status);
+}
@@ -1,6 +1,10 @@
 package com.ornek.ecomstocksync.scheduler;
 
+import com.ornek.ecomstocksync.cluster.ClusterCoordinator;
 import com.ornek.ecomstocksync.service.StockSyncService;
+import com.ornek.ecomstocksync.sync.AdaptiveSyncPlanner;
+import com.ornek.ecomstocksync.sync.SyncHistoryRetention;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -8,18 +12,72 @@ import org.springframework.stereotype.Component;
 public class SyncScheduler {
 
     private final StockSyncService stockSyncService;
+    private final AdaptiveSyncPlanner adaptiveSyncPlanner;
+    private final ClusterCoordinator cluster;
+    private final SyncHistoryRetention historyRetention;
+    private final boolean adaptiveEnabled;
+    private final boolean reconcileEnabled;
+    private final boolean reconcileAutoCorrect;
 
-    public SyncScheduler(StockSyncService stockSyncService) {
+    public SyncScheduler(StockSyncService stockSyncService,
+                         AdaptiveSyncPlanner adaptiveSyncPlanner,
+                         ClusterCoordinator cluster,
+                         SyncHistoryRetention historyRetention,
+                         @Value("${sync.adaptive.enabled:true}") boolean adaptiveEnabled,
+                         @Value("${reconcile.scheduled.enabled:true}") boolean reconcileEnabled,
+                         @Value("${reconcile.auto-correct:false}") boolean reconcileAutoCorrect) {
         this.stockSyncService = stockSyncService;
+        this.adaptiveSyncPlanner = adaptiveSyncPlanner;
+        this.cluster = cluster;
+        this.historyRetention = historyRetention;
+        this.adaptiveEnabled = adaptiveEnabled;
+        this.reconcileEnabled = reconcileEnabled;
+        this.reconcileAutoCorrect = reconcileAutoCorrect;
     }
 
-    // Her 5 dakikada bir tüm platformları senkronize et
+    // Her 5 dakikada bir tüm platformlarda değişen/eskiyen ürünleri senkronize et (sync.incremental.enabled)
+    // Uyarlanır planlama açıksa bu sabit tur çalışmaz; birden fazla instance varsa yalnızca liderde çalışır
     @Scheduled(fixedDelayString = "${sync.fixedDelay.ms:300000}")
     public void syncAll() {
+        if (adaptiveEnabled || !cluster.isLeader()) return;
         try {
             stockSyncService.syncAllPlatforms();
         } catch (Exception ignored) { }
     }
-}
 
+    // Platform bazlı uyarlanır aralıklar: zamanı gelen platformlar başlatılır (sync.adaptive.*)
+    @Scheduled(fixedDelayString = "${sync.adaptive.tick.ms:5000}")
+    public void syncDue() {
+        if (!adaptiveEnabled) return;
+        try {
+            adaptiveSyncPlanner.runDue();
+        } catch (Exception ignored) { }
+    }
+
+    // Devre kesici / hata nedeniyle bekletilen güncellemeleri dakikada bir tekrar dene; tüm outbox'a dokunduğu için yalnızca liderde
+    @Scheduled(fixedDelayString = "${sync.retry.fixedDelay.ms:60000}")
+    public void retryFailed() {
+        if (!cluster.isLeader()) return;
+        try {
+            stockSyncService.retryFailedSyncs();
+        } catch (Exception ignored) { }
+    }
+
+    // Saatte bir stok mutabakatı; değişmeyen parçalar atlanır (reconcile.auto-correct ile düzeltme)
+    @Scheduled(fixedDelayString = "${reconcile.fixedDelay.ms:3600000}", initialDelayString = "${reconcile.initialDelay.ms:600000}")
+    public void reconcile() {
+        if (!reconcileEnabled || !cluster.isLeader()) return;
+        try {
+            stockSyncService.reconcileStock(reconcileAutoCorrect, false);
+        } catch (Exception ignored) { }
+    }
 
+    // Saatte bir süresi dolan geçmiş satırlarını ve özetleri parça parça sil (history.retention.*); yalnızca liderde
+    @Scheduled(fixedDelayString = "${history.retention.fixedDelay.ms:3600000}", initialDelayString = "${history.retention.initialDelay.ms:300000}")
+    public void pruneHistory() {
+        if (!cluster.isLeader()) return;
+        try {
+            historyRetention.prune();
+        } catch (Exception ignored) { }
+    }
+}
@@ -0,0 +1,150 @@
+package com.ornek.ecomstocksync.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Çözülmüş credential değerlerini (platformId, credentialType) bazında bellekte tutar.
+ * Kayıt, credential'ın expiresAt zamanında veya en geç ttl sonunda düşer; bulunamayan credential da
+ * (null) önbelleğe alınır. Kaydetme/silme işlemleri ilgili anahtarı hem hemen hem de commit sonrası geçersiz kılar.
+ */
+@Component
+public class CredentialCache {
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    // Yükleme sırasında gelen geçersiz kılmayı fark etmek için
+    private final AtomicLong generation = new AtomicLong();
+    private final long ttlMs;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CredentialCache(@Value("${credential.cache.ttl.ms:300000}") long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Önbellekteki değeri döner, yoksa loader ile yükler
+     * @param loader Çözülmüş değeri ve geçerlilik sonunu döner
+     * @return Çözülmüş credential veya null
+     */
+    public String get(Long platformId, String credentialType, Supplier<Loaded> loader) {
+        Key key = new Key(platformId, credentialType);
+        LocalDateTime now = LocalDateTime.now();
+        Entry cached = entries.get(key);
+        if (cached != null && cached.validUntil.isAfter(now)) {
+            hits.incrementAndGet();
+            return cached.value;
+        }
+        misses.incrementAndGet();
+
+        long before = generation.get();
+        Loaded loaded = loader.get();
+        LocalDateTime validUntil = now.plusNanos(ttlMs * 1_000_000L);
+        if (loaded.expiresAt != null && loaded.expiresAt.isBefore(validUntil)) {
+            validUntil = loaded.expiresAt;
+        }
+        Entry entry = new Entry(loaded.value, validUntil);
+        entries.put(key, entry);
+        if (generation.get() != before) {
+            // Yükleme eski değeri okumuş olabilir; bir sonraki çağrı yeniden yükler
+            entries.remove(key, entry);
+        }
+        return loaded.value;
+    }
+
+    public void invalidate(Long platformId, String credentialType) {
+        Key key = new Key(platformId, credentialType);
+        evict(k -> k.equals(key));
+    }
+
+    public void invalidatePlatform(Long platformId) {
+        evict(k -> k.platformId.equals(platformId));
+    }
+
+    private void evict(Predicate<Key> matcher) {
+        Runnable eviction = () -> {
+            generation.incrementAndGet();
+            invalidations.incrementAndGet();
+            entries.keySet().removeIf(matcher);
+        };
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Commit öncesi eski değeri okuyan eşzamanlı yüklemeler de temizlensin
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("size", entries.size());
+        data.put("hits", hits.get());
+        data.put("misses", misses.get());
+        data.put("invalidations", invalidations.get());
+        return data;
+    }
+
+    public static final class Loaded {
+        private final String value;
+        private final LocalDateTime expiresAt;
+
+        public Loaded(String value, LocalDateTime expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        public static Loaded missing() {
+            return new Loaded(null, null);
+        }
+    }
+
+    private static final class Entry {
+        final String value;
+        final LocalDateTime validUntil;
+
+        Entry(String value, LocalDateTime validUntil) {
+            this.value = value;
+            this.validUntil = validUntil;
+        }
+    }
+
+    private static final class Key {
+        final Long platformId;
+        final String credentialType;
+
+        Key(Long platformId, String credentialType) {
+            this.platformId = platformId;
+            this.credentialType = credentialType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return platformId.equals(other.platformId) && credentialType.equals(other.credentialType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(platformId, credentialType);
+        }
+    }
+}
@@ -22,6 +22,8 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/", "/index.html", "/login.html", "/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**", "/h2-console/**", "/h2-console", "/static/**", "/css/**", "/js/**", "/actuator/**").permitAll()
+                // Webhook'lar oturum yerine HMAC imzası ile doğrulanır
+                .requestMatchers("/webhooks/**").permitAll()
                 .requestMatchers("/admin.html", "/admin-users.html").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
@@ -0,0 +1,46 @@
+package com.ornek.ecomstocksync.service;
+
+import com.ornek.ecomstocksync.entity.PlatformProduct;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+public interface OutboxService {
+
+    /**
+     * Stok güncellemesini çağıranın transaction'ında outbox'a yazar. Ürünün henüz gönderilmemiş
+     * eski değeri varsa SUPERSEDED olur; böylece ürün başına yalnızca son değer bekler.
+     * @param platformProduct Platform ürünü
+     * @param newStock Platforma gönderilecek stok
+     */
+    void enqueueStock(PlatformProduct platformProduct, Integer newStock);
+
+    /**
+     * Birden çok ürünün stok güncellemesini çağıranın transaction'ında outbox'a yazar; eski değerler ürün başına
+     * değil tek UPDATE ile SUPERSEDED olur
+     * @param newStocks Platform ürünü -> platforma gönderilecek stok
+     */
+    void enqueueStock(Map<PlatformProduct, Integer> newStocks);
+
+    /**
+     * Fiyat güncellemesini çağıranın transaction'ında outbox'a yazar
+     * @param platformProduct Platform ürünü
+     * @param newPrice Platforma gönderilecek fiyat
+     */
+    void enqueuePrice(PlatformProduct platformProduct, BigDecimal newPrice);
+
+    /**
+     * Deneme hakkı tükenmiş olayları tekrar kuyruğa alır
+     * @return Tekrar kuyruğa alınan olay sayısı
+     */
+    int requeueFailed();
+
+    long countPending();
+
+    long countFailed();
+
+    /**
+     * Yazılan ve gönderilmeden yerini yenisine bırakan (birleştirilen) güncelleme sayıları
+     */
+    Map<String, Object> coalescingSnapshot();
+}
@@ -39,7 +39,8 @@ public interface PlatformService {
     // Platform ürün yönetimi
     List<PlatformProduct> getPlatformProducts(Long platformId);
     
-    PlatformProduct createPlatformProduct(Long platformId, Long productId, String platformProductId);
+    PlatformProduct createPlatformProduct(Long platformId, Long productId, String platformProductId,
+                                          String inventoryItemId, String platformParentId);
     
     PlatformProduct updatePlatformProduct(Long id, Map<String, Object> updates);
     
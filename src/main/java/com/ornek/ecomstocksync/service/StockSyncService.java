@@ -5,14 +5,23 @@ import com.ornek.ecomstocksync.entity.PlatformProduct;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface StockSyncService {
     
     /**
-     * Tüm platformlarda stok senkronizasyonu yapar
-     * @return Senkronize edilen platform sayısı
+     * Tüm platformlarda stok senkronizasyonu yapar.
+     * Platformlar paralel çalışır, her biri kendi transaction'ında.
+     * @return Platform bazlı senkronizasyon sonuçları
+     */
+    List<PlatformSyncResult> syncAllPlatforms();
+
+    /**
+     * Platform senkronizasyonunu senkron motorunun havuzuna gönderir, beklemeden döner.
+     * sync.incremental.enabled açıksa yalnızca değişen veya eskiyen ürünler gönderilir.
+     * @return Senkronizasyon bitince tamamlanan sonuç
      */
-    int syncAllPlatforms();
+    CompletableFuture<PlatformSyncResult> submitPlatformSync(Platform platform);
     
     /**
      * Belirli bir platformda stok senkronizasyonu yapar
@@ -21,6 +30,14 @@ public interface StockSyncService {
      */
     int syncPlatform(Long platformId);
     
+    /**
+     * Belirli bir platformda stok senkronizasyonu yapar
+     * @param platformId Platform ID
+     * @param incremental true ise yalnızca değişen veya eskiyen ürünler gönderilir
+     * @return Senkronize edilen ürün sayısı
+     */
+    int syncPlatform(Long platformId, boolean incremental);
+    
     /**
      * Belirli bir ürünün tüm platformlardaki stoklarını senkronize eder
      * @param productId Ürün ID
@@ -68,7 +85,8 @@ public interface StockSyncService {
     boolean testPlatformConnection(Long platformId);
     
     /**
-     * Senkronizasyon durumunu kontrol eder
+     * Senkronizasyon durumunu kontrol eder. Platform bağlantı durumları arka plan yoklamalarının
+     * önbelleğinden okunur; uzak çağrı yapılmaz.
      * @return Senkronizasyon durumu raporu
      */
     Map<String, Object> getSyncStatus();
@@ -80,8 +98,61 @@ public interface StockSyncService {
     int retryFailedSyncs();
     
     /**
-     * Stok tutarlılığını kontrol eder
-     * @return Tutarsızlık raporu
+     * Stok tutarlılığını kontrol eder (yalnızca rapor, düzeltme yapmaz)
+     * @return Tutarsızlık listesi
      */
     List<Map<String, Object>> checkStockConsistency();
+    
+    /**
+     * Malzeme stoku, beklenen platform dağılımı ve platform ürün stokları arasında mutabakat yapar
+     * @param autoCorrect Sapan platform ürünleri düzeltilsin mi
+     * @param fullScan Değişmemiş parçalar da yeniden kontrol edilsin mi
+     * @return Sapma raporu
+     */
+    Map<String, Object> reconcileStock(boolean autoCorrect, boolean fullScan);
+    
+    // Inner classes for complex return types
+    class PlatformSyncResult {
+        private Long platformId;
+        private String platformName;
+        private Status status;
+        private int syncedProducts;
+        private long durationMs;
+        private String error;
+        
+        public enum Status { SUCCESS, FAILED, TIMED_OUT, SKIPPED }
+        
+        public PlatformSyncResult() {}
+        
+        public PlatformSyncResult(Long platformId, String platformName, Status status,
+                                  int syncedProducts, long durationMs, String error) {
+            this.platformId = platformId;
+            this.platformName = platformName;
+            this.status = status;
+            this.syncedProducts = syncedProducts;
+            this.durationMs = durationMs;
+            this.error = error;
+        }
+        
+        public boolean isSuccess() { return status == Status.SUCCESS; }
+        
+        // Getters and Setters
+        public Long getPlatformId() { return platformId; }
+        public void setPlatformId(Long platformId) { this.platformId = platformId; }
+        
+        public String getPlatformName() { return platformName; }
+        public void setPlatformName(String platformName) { this.platformName = platformName; }
+        
+        public Status getStatus() { return status; }
+        public void setStatus(Status status) { this.status = status; }
+        
+        public int getSyncedProducts() { return syncedProducts; }
+        public void setSyncedProducts(int syncedProducts) { this.syncedProducts = syncedProducts; }
+        
+        public long getDurationMs() { return durationMs; }
+        public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+        
+        public String getError() { return error; }
+        public void setError(String error) { this.error = error; }
+    }
 }
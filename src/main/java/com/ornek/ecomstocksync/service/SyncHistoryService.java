@@ -1,9 +1,27 @@
-
 package com.ornek.ecomstocksync.service;
 
 import com.ornek.ecomstocksync.entity.PlatformProduct;
 import com.ornek.ecomstocksync.entity.SyncHistory;
+import com.ornek.ecomstocksync.entity.SyncHistoryRollup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 public interface SyncHistoryService {
     void record(PlatformProduct platformProduct, SyncHistory.Action action, SyncHistory.Status status, String detail);
+
+    /**
+     * Ham geçmişte filtreli sayfa; en yeniden eskiye. Sonraki sayfa için dönen nextBeforeId beforeId olarak verilir.
+     */
+    Map<String, Object> search(Long platformId, Long platformProductId, Long materialId,
+                               SyncHistory.Action action, SyncHistory.Status status,
+                               LocalDateTime from, LocalDateTime to, Long beforeId, int size);
+
+    enum Granularity { HOUR, DAY }
+
+    /**
+     * Saatlik veya günlük özet satırları; ham satırlar budandıktan sonra da okunabilir
+     */
+    List<? extends SyncHistoryRollup> rollups(Granularity granularity, LocalDateTime from, LocalDateTime to, Long platformId);
 }
@@ -21,6 +21,9 @@ import java.util.stream.Collectors;
 @Transactional
 public class ATPServiceImpl implements ATPService {
     
+    // Rapor sorgusunda tek IN listesine giren en fazla malzeme id'si
+    private static final int MATERIAL_ID_CHUNK = 1000;
+
     @Autowired
     private MaterialCardRepository materialRepository;
     
@@ -196,8 +199,8 @@ public class ATPServiceImpl implements ATPService {
     public Map<Platform, BigDecimal> calculatePlatformStockDistribution(MaterialCard material, BigDecimal totalQuantity) {
         Map<Platform, BigDecimal> distribution = new HashMap<>();
         
-        // Platform ürünlerini bul
-        List<PlatformProduct> platformProducts = platformProductRepository.findByMaterial(material);
+        // Platform ürünlerini platformlarıyla birlikte tek sorguda bul
+        List<PlatformProduct> platformProducts = platformProductRepository.findWithPlatformByMaterial(material);
         
         if (platformProducts.isEmpty()) {
             return distribution;
@@ -230,12 +233,13 @@ public class ATPServiceImpl implements ATPService {
     
     @Override
     public void updatePlatformStocks(MaterialCard material, Map<Platform, BigDecimal> platformQuantities) {
+        List<PlatformProduct> materialProducts = platformProductRepository.findWithPlatformByMaterial(material);
         for (Map.Entry<Platform, BigDecimal> entry : platformQuantities.entrySet()) {
             Platform platform = entry.getKey();
             BigDecimal quantity = entry.getValue();
             
             // Platform ürününü bul veya oluştur
-            Optional<PlatformProduct> platformProductOpt = platformProductRepository.findByMaterial(material).stream()
+            Optional<PlatformProduct> platformProductOpt = materialProducts.stream()
                 .filter(pp -> pp.getPlatform().getId().equals(platform.getId()))
                 .findFirst();
             
@@ -249,18 +253,12 @@ public class ATPServiceImpl implements ATPService {
     
     @Override
     public List<ATPReport> generateATPReport() {
-        List<MaterialCard> materials = materialRepository.findAll();
-        return materials.stream()
-            .map(this::createATPReport)
-            .collect(Collectors.toList());
+        return createATPReports(materialRepository.findAll());
     }
     
     @Override
     public List<ATPReport> generateATPReportByCategory(String category) {
-        List<MaterialCard> materials = materialRepository.findByCategory(category);
-        return materials.stream()
-            .map(this::createATPReport)
-            .collect(Collectors.toList());
+        return createATPReports(materialRepository.findByCategory(category));
     }
     
     @Override
@@ -270,10 +268,10 @@ public class ATPServiceImpl implements ATPService {
             return new ArrayList<>();
         }
         
-        List<PlatformProduct> platformProducts = platformProductRepository.findByPlatform(platform.get());
-        return platformProducts.stream()
-            .map(pp -> createATPReport(pp.getProduct()))
-            .collect(Collectors.toList());
+        List<PlatformProduct> platformProducts = platformProductRepository.findWithMaterialByPlatform(platform.get());
+        return createATPReports(platformProducts.stream()
+            .map(PlatformProduct::getProduct)
+            .collect(Collectors.toList()));
     }
     
     @Override
@@ -295,7 +293,29 @@ public class ATPServiceImpl implements ATPService {
     }
     
     // Private helper methods
-    private ATPReport createATPReport(MaterialCard material) {
+    
+    /**
+     * Malzemelerin platform ürünlerini MATERIAL_ID_CHUNK boyutunda IN sorgularıyla yükleyip raporları oluşturur;
+     * tek bir IN listesi malzeme sayısıyla büyür ve PostgreSQL'in 32767 bind parametresi sınırına takılır
+     */
+    private List<ATPReport> createATPReports(List<MaterialCard> materials) {
+        if (materials.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> materialIds = materials.stream().map(MaterialCard::getId).distinct().collect(Collectors.toList());
+        Map<Long, List<Platform>> platformsByMaterial = new HashMap<>();
+        for (int from = 0; from < materialIds.size(); from += MATERIAL_ID_CHUNK) {
+            List<Long> chunk = materialIds.subList(from, Math.min(from + MATERIAL_ID_CHUNK, materialIds.size()));
+            for (PlatformProduct pp : platformProductRepository.findWithPlatformByMaterialIds(chunk)) {
+                platformsByMaterial.computeIfAbsent(pp.getMaterial().getId(), id -> new ArrayList<>()).add(pp.getPlatform());
+            }
+        }
+        return materials.stream()
+            .map(material -> createATPReport(material, platformsByMaterial.getOrDefault(material.getId(), new ArrayList<>())))
+            .collect(Collectors.toList());
+    }
+    
+    private ATPReport createATPReport(MaterialCard material, List<Platform> platforms) {
         BigDecimal currentStock = material.getCurrentStock();
         BigDecimal minimumStock = material.getMinimumStock();
         BigDecimal maximumStock = material.getMaximumStock();
@@ -311,12 +331,6 @@ public class ATPServiceImpl implements ATPService {
             stockStatus = "NORMAL";
         }
         
-        // Platform bilgilerini al
-        List<PlatformProduct> platformProducts = platformProductRepository.findByMaterial(material);
-        List<Platform> platforms = platformProducts.stream()
-            .map(PlatformProduct::getPlatform)
-            .collect(Collectors.toList());
-        
         return new ATPReport(material, currentStock, minimumStock, maximumStock, 
                            atpQuantity, stockValue, stockStatus, platforms, LocalDateTime.now());
     }
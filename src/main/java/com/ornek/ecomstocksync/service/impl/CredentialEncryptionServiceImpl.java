@@ -19,7 +19,16 @@ public class CredentialEncryptionServiceImpl implements CredentialEncryptionServ
     private static final String TRANSFORMATION = "AES/ECB/PKCS5Padding";
     private static final int KEY_LENGTH = 256;
     
-    private SecretKey secretKey;
+    // Cipher thread-safe değildir; her thread kendi örneğini yeniden kullanır, anahtar her çağrıda init ile verilir
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cipher oluşturulamadı: " + e.getMessage(), e);
+        }
+    });
+    
+    private volatile SecretKey secretKey;
     
     @Value("${app.encryption.key:}")
     private String encryptionKeyFromConfig;
@@ -47,7 +56,7 @@ public class CredentialEncryptionServiceImpl implements CredentialEncryptionServ
     @Override
     public String encrypt(String plainText) {
         try {
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            Cipher cipher = CIPHER.get();
             cipher.init(Cipher.ENCRYPT_MODE, secretKey);
             byte[] encryptedBytes = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
             return Base64.getEncoder().encodeToString(encryptedBytes);
@@ -59,7 +68,7 @@ public class CredentialEncryptionServiceImpl implements CredentialEncryptionServ
     @Override
     public String decrypt(String encryptedText) {
         try {
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            Cipher cipher = CIPHER.get();
             cipher.init(Cipher.DECRYPT_MODE, secretKey);
             byte[] encryptedBytes = Base64.getDecoder().decode(encryptedText);
             byte[] decryptedBytes = cipher.doFinal(encryptedBytes);
@@ -0,0 +1,117 @@
+package com.ornek.ecomstocksync.service.impl;
+
+import com.ornek.ecomstocksync.entity.OutboxEvent;
+import com.ornek.ecomstocksync.entity.PlatformProduct;
+import com.ornek.ecomstocksync.integration.DispatchLane;
+import com.ornek.ecomstocksync.repository.OutboxEventRepository;
+import com.ornek.ecomstocksync.service.OutboxService;
+import com.ornek.ecomstocksync.sync.OutboxDispatcher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+@Transactional
+public class OutboxServiceImpl implements OutboxService {
+
+    private static final Set<OutboxEvent.Status> STALE = EnumSet.of(OutboxEvent.Status.PENDING, OutboxEvent.Status.FAILED);
+
+    private final OutboxEventRepository repo;
+    private final OutboxDispatcher dispatcher;
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder stockCollapsed = new LongAdder();
+    private final LongAdder priceCollapsed = new LongAdder();
+
+    public OutboxServiceImpl(OutboxEventRepository repo, OutboxDispatcher dispatcher) {
+        this.repo = repo;
+        this.dispatcher = dispatcher;
+    }
+
+    // Outbox satırı PlatformProduct değişikliğiyle birlikte commit edilmeli
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueStock(PlatformProduct platformProduct, Integer newStock) {
+        Map<PlatformProduct, Integer> newStocks = new LinkedHashMap<>();
+        newStocks.put(platformProduct, newStock);
+        enqueueStock(newStocks);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueStock(Map<PlatformProduct, Integer> newStocks) {
+        if (newStocks.isEmpty()) {
+            return;
+        }
+        List<OutboxEvent> events = new ArrayList<>(newStocks.size());
+        newStocks.forEach((platformProduct, newStock) -> events.add(OutboxEvent.stock(platformProduct, newStock)));
+        repo.saveAll(events);
+        supersedeOlder(newStocks.keySet().stream().map(PlatformProduct::getId).toList(), stockCollapsed);
+        if (events.stream().anyMatch(event -> event.getLane() == DispatchLane.CRITICAL)) {
+            // Stok sıfırlandı: commit sonrası dispatcher hemen uyandırılır
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.requestDispatch();
+                }
+            });
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueuePrice(PlatformProduct platformProduct, BigDecimal newPrice) {
+        repo.save(OutboxEvent.price(platformProduct, newPrice));
+        supersedeOlder(List.of(platformProduct.getId()), priceCollapsed);
+    }
+
+    // Yeni değer yazıldı: aynı ürünün henüz gönderilmemiş eski değerleri hiç gönderilmez
+    private void supersedeOlder(List<Long> platformProductIds, LongAdder collapsed) {
+        enqueued.add(platformProductIds.size());
+        int superseded = repo.supersedeOlder(platformProductIds, STALE,
+            EnumSet.of(OutboxEvent.Status.PENDING), OutboxEvent.Status.SUPERSEDED);
+        collapsed.add(superseded);
+    }
+
+    @Override
+    public int requeueFailed() {
+        // Sonrasında daha yeni değeri yazılmış veya gönderilmiş ürünlerin eski değeri geri getirilmez
+        repo.supersedeFailed(OutboxEvent.Status.FAILED,
+            EnumSet.of(OutboxEvent.Status.PENDING, OutboxEvent.Status.SENDING, OutboxEvent.Status.SENT, OutboxEvent.Status.FAILED),
+            OutboxEvent.Status.SUPERSEDED);
+        return repo.requeueFailed(OutboxEvent.Status.FAILED, OutboxEvent.Status.PENDING, LocalDateTime.now());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countPending() {
+        return repo.countByStatus(OutboxEvent.Status.PENDING);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countFailed() {
+        return repo.countByStatus(OutboxEvent.Status.FAILED);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, Object> coalescingSnapshot() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("enqueued", enqueued.sum());
+        data.put("collapsedStock", stockCollapsed.sum());
+        data.put("collapsedPrice", priceCollapsed.sum());
+        return data;
+    }
+}
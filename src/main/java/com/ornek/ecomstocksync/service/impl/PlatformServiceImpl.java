@@ -8,10 +8,12 @@ import com.ornek.ecomstocksync.repository.CredentialRepository;
 import com.ornek.ecomstocksync.repository.PlatformProductRepository;
 import com.ornek.ecomstocksync.repository.PlatformRepository;
 import com.ornek.ecomstocksync.repository.MaterialCardRepository;
+import com.ornek.ecomstocksync.security.CredentialCache;
 import com.ornek.ecomstocksync.service.CredentialEncryptionService;
 import com.ornek.ecomstocksync.service.PlatformService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -38,6 +40,9 @@ public class PlatformServiceImpl implements PlatformService {
     @Autowired
     private CredentialEncryptionService credentialEncryptionService;
     
+    @Autowired
+    private CredentialCache credentialCache;
+    
     @Override
     public List<Platform> getAllPlatforms() {
         return platformRepository.findAll();
@@ -93,6 +98,10 @@ public class PlatformServiceImpl implements PlatformService {
         existingPlatform.setBaseUrl(platform.getBaseUrl());
         existingPlatform.setWebhookUrl(platform.getWebhookUrl());
         existingPlatform.setActive(platform.isActive());
+        existingPlatform.setRateLimitCapacity(platform.getRateLimitCapacity());
+        existingPlatform.setRateLimitPerSecond(platform.getRateLimitPerSecond());
+        existingPlatform.setSyncMinIntervalSeconds(platform.getSyncMinIntervalSeconds());
+        existingPlatform.setSyncMaxIntervalSeconds(platform.getSyncMaxIntervalSeconds());
         
         return platformRepository.save(existingPlatform);
     }
@@ -103,6 +112,7 @@ public class PlatformServiceImpl implements PlatformService {
             throw new IllegalArgumentException("Platform bulunamadı: " + id);
         }
         platformRepository.deleteById(id);
+        credentialCache.invalidatePlatform(id);
     }
     
     @Override
@@ -134,21 +144,29 @@ public class PlatformServiceImpl implements PlatformService {
             Credential credential = new Credential(platform, credentialType, encryptedValue);
             credentialRepository.save(credential);
         }
+        credentialCache.invalidate(platformId, credentialType);
     }
     
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public String getCredential(Long platformId, String credentialType) {
-        Platform platform = platformRepository.findById(platformId)
-            .orElseThrow(() -> new IllegalArgumentException("Platform bulunamadı: " + platformId));
-        
+        // Senkronizasyonda her ürün için çağrılır; sorgu ve şifre çözme yalnızca önbellek boşken yapılır
+        return credentialCache.get(platformId, credentialType, () -> loadCredential(platformId, credentialType));
+    }
+    
+    private CredentialCache.Loaded loadCredential(Long platformId, String credentialType) {
         Optional<Credential> credential = credentialRepository
-            .findActiveCredential(platform, credentialType, LocalDateTime.now());
+            .findActiveCredentialByPlatformId(platformId, credentialType, LocalDateTime.now());
         
         if (credential.isPresent()) {
-            return credentialEncryptionService.decrypt(credential.get().getEncryptedValue());
+            return new CredentialCache.Loaded(
+                credentialEncryptionService.decrypt(credential.get().getEncryptedValue()),
+                credential.get().getExpiresAt());
         }
-        
-        return null;
+        if (!platformRepository.existsById(platformId)) {
+            throw new IllegalArgumentException("Platform bulunamadı: " + platformId);
+        }
+        return CredentialCache.Loaded.missing();
     }
     
     @Override
@@ -162,6 +180,7 @@ public class PlatformServiceImpl implements PlatformService {
         if (credential.isPresent()) {
             credentialRepository.delete(credential.get());
         }
+        credentialCache.invalidate(platformId, credentialType);
     }
     
     @Override
@@ -184,7 +203,8 @@ public class PlatformServiceImpl implements PlatformService {
     }
     
     @Override
-    public PlatformProduct createPlatformProduct(Long platformId, Long productId, String platformProductId) {
+    public PlatformProduct createPlatformProduct(Long platformId, Long productId, String platformProductId,
+                                                 String inventoryItemId, String platformParentId) {
         Platform platform = platformRepository.findById(platformId)
             .orElseThrow(() -> new IllegalArgumentException("Platform bulunamadı: " + platformId));
         
@@ -193,6 +213,8 @@ public class PlatformServiceImpl implements PlatformService {
         
         PlatformProduct platformProduct = new PlatformProduct(platform, material, platformProductId);
         platformProduct.setPlatformSku(material.getMaterialCode());
+        platformProduct.setInventoryItemId(inventoryItemId);
+        platformProduct.setPlatformParentId(platformParentId);
         platformProduct.setPrice(material.getAverageCost());
         platformProduct.setStock(material.getCurrentStock().intValue());
         
@@ -207,6 +229,8 @@ public class PlatformServiceImpl implements PlatformService {
         updates.forEach((key, value) -> {
             switch (key) {
                 case "platformSku" -> platformProduct.setPlatformSku((String) value);
+                case "inventoryItemId" -> platformProduct.setInventoryItemId((String) value);
+                case "platformParentId" -> platformProduct.setPlatformParentId((String) value);
                 case "price" -> platformProduct.setPrice((java.math.BigDecimal) value);
                 case "stock" -> platformProduct.setStock((Integer) value);
                 case "isActive" -> platformProduct.setActive((Boolean) value);
@@ -234,7 +258,7 @@ public class PlatformServiceImpl implements PlatformService {
         PlatformProduct platformProduct = platformProductRepository.findById(platformProductId)
             .orElseThrow(() -> new IllegalArgumentException("Platform ürün bulunamadı: " + platformProductId));
         
-        platformProduct.setLastSyncAt(LocalDateTime.now());
+        platformProduct.markSynced(LocalDateTime.now());
         platformProductRepository.save(platformProduct);
     }
     
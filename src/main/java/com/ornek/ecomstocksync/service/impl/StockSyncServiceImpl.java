@@ -6,26 +6,42 @@ import com.ornek.ecomstocksync.entity.MaterialCard;
 import com.ornek.ecomstocksync.repository.PlatformProductRepository;
 import com.ornek.ecomstocksync.repository.PlatformRepository;
 import com.ornek.ecomstocksync.repository.MaterialCardRepository;
+import com.ornek.ecomstocksync.service.OutboxService;
 import com.ornek.ecomstocksync.service.PlatformService;
 import com.ornek.ecomstocksync.service.StockSyncService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import com.ornek.ecomstocksync.integration.DispatchLane;
 import com.ornek.ecomstocksync.integration.PlatformClientFactory;
 import org.springframework.stereotype.Service;
 import com.ornek.ecomstocksync.service.SyncHistoryService;
 import com.ornek.ecomstocksync.entity.SyncHistory;
+import com.ornek.ecomstocksync.integration.PlatformHealthProber;
+import com.ornek.ecomstocksync.sync.PlatformSyncEngine;
+import com.ornek.ecomstocksync.sync.PlatformUpdateBatch;
+import com.ornek.ecomstocksync.sync.StockReconciler;
+import com.ornek.ecomstocksync.util.StockDistribution;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @Transactional
 public class StockSyncServiceImpl implements StockSyncService {
     
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
     @Autowired
     private PlatformRepository platformRepository;
     
@@ -43,42 +59,81 @@ public class StockSyncServiceImpl implements StockSyncService {
 
     @Autowired
     private PlatformClientFactory platformClientFactory;
+
+    @Autowired
+    private PlatformSyncEngine platformSyncEngine;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private StockReconciler stockReconciler;
+
+    @Autowired
+    private PlatformHealthProber platformHealthProber;
+
+    @Value("${sync.incremental.enabled:true}")
+    private boolean incrementalSyncEnabled;
+
+    // Değişmemiş ürünler de en geç bu süre sonunda yeniden gönderilir
+    @Value("${sync.incremental.max-age.minutes:60}")
+    private long incrementalMaxAgeMinutes;
+
+    // Bir platform bu boyutta sayfalar halinde okunur ve gönderilir; her sayfanın persistence context'i kendi transaction'ıyla kapanır
+    @Value("${sync.page-size:500}")
+    private int syncPageSize;
     
     @Override
-    public int syncAllPlatforms() {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<PlatformSyncResult> syncAllPlatforms() {
         List<Platform> platforms = platformService.getPlatformsNeedingSync();
-        int totalSynced = 0;
-        
-        for (Platform platform : platforms) {
-            try {
-                int synced = syncPlatform(platform.getId());
-                totalSynced += synced;
-            } catch (Exception e) {
-                // Log error but continue with other platforms
-                System.err.println("Platform sync failed for " + platform.getName() + ": " + e.getMessage());
-            }
-        }
-        
-        return totalSynced;
+        // Her platform kendi thread'inde çalışır; sayfalar kendi kısa transaction'larında okunur
+        return platformSyncEngine.syncAll(platforms, platformId -> syncPlatform(platformId, incrementalSyncEnabled));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<PlatformSyncResult> submitPlatformSync(Platform platform) {
+        return platformSyncEngine.submit(platform, platformId -> syncPlatform(platformId, incrementalSyncEnabled));
     }
     
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public int syncPlatform(Long platformId) {
-        Platform platform = platformRepository.findById(platformId)
-            .orElseThrow(() -> new IllegalArgumentException("Platform bulunamadı: " + platformId));
+        return syncPlatform(platformId, false);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int syncPlatform(Long platformId, boolean incremental) {
+        // Her sayfa kendi kısa transaction'ında okunur ve işaretlenir; uzak çağrı sırasında DB bağlantısı tutulmaz
+        TransactionTemplate readTx = new TransactionTemplate(transactionManager);
+        readTx.setReadOnly(true);
+        TransactionTemplate writeTx = new TransactionTemplate(transactionManager);
         
-        List<PlatformProduct> platformProducts = platformProductRepository
-            .findByPlatformAndIsActiveTrue(platform);
+        Platform platform = readTx.execute(tx -> platformRepository.findById(platformId)
+            .orElseThrow(() -> new IllegalArgumentException("Platform bulunamadı: " + platformId)));
         
+        if (!hasApiCredential(platform, new HashMap<>())) {
+            return 0;
+        }
+        
+        LocalDateTime staleBefore = LocalDateTime.now().minusMinutes(incrementalMaxAgeMinutes);
+        PageRequest page = PageRequest.of(0, Math.max(1, syncPageSize));
         int syncedCount = 0;
-        for (PlatformProduct platformProduct : platformProducts) {
-            try {
-                // Stub implementation - gerçek platform API çağrıları burada yapılacak
-                syncPlatformProduct(platformProduct);
-                syncedCount++;
-            } catch (Exception e) {
-                System.err.println("Product sync failed for " + platformProduct.getProduct().getMaterialName() + 
-                                 " on " + platform.getName() + ": " + e.getMessage());
+        long afterId = 0L;
+        while (true) {
+            long after = afterId;
+            List<PlatformProduct> platformProducts = readTx.execute(tx -> incremental
+                ? platformProductRepository.findChangedOrStalePageAfter(platformId, staleBefore, after, page)
+                : platformProductRepository.findActivePageAfter(platformId, after, page));
+            if (platformProducts.isEmpty()) {
+                break;
+            }
+            afterId = platformProducts.get(platformProducts.size() - 1).getId();
+            syncedCount += syncPage(platform, platformProducts, writeTx);
+            if (platformProducts.size() < page.getPageSize()) {
+                break;
             }
         }
         
@@ -91,7 +146,7 @@ public class StockSyncServiceImpl implements StockSyncService {
             .orElseThrow(() -> new IllegalArgumentException("Malzeme bulunamadı: " + productId));
         
         List<PlatformProduct> platformProducts = platformProductRepository
-            .findByMaterial(material);
+            .findWithPlatformByMaterial(material);
         
         int syncedCount = 0;
         for (PlatformProduct platformProduct : platformProducts) {
@@ -111,30 +166,21 @@ public class StockSyncServiceImpl implements StockSyncService {
     
     @Override
     public boolean updatePlatformProductStock(Long platformProductId, Integer newStock) {
-        // Credential check (API_KEY as default)
-        try {
-            PlatformProduct ppCredCheck = platformProductRepository.findById(platformProductId)
-                .orElseThrow(() -> new IllegalArgumentException("Platform ürün bulunamadı: " + platformProductId));
-            String cred = platformService.getCredential(ppCredCheck.getPlatform().getId(), "API_KEY");
-            if (cred == null || cred.isBlank()) {
-                try { syncHistoryService.record(ppCredCheck, SyncHistory.Action.STOCK_UPDATE, SyncHistory.Status.FAILURE, "Missing credential API_KEY"); } catch (Exception ignore) {}
-                return false;
-            }
-        } catch (Exception e) { /* fallthrough to original flow which will error meaningfully */ }
         PlatformProduct platformProduct = null;
         try {
             platformProduct = platformProductRepository.findById(platformProductId)
                 .orElseThrow(() -> new IllegalArgumentException("Platform ürün bulunamadı: " + platformProductId));
+            // Credential check (API_KEY as default); değer önbellekten gelir
+            if (!hasApiCredential(platformProduct.getPlatform(), new HashMap<>())) {
+                try { syncHistoryService.record(platformProduct, SyncHistory.Action.STOCK_UPDATE, SyncHistory.Status.FAILURE, "Missing credential API_KEY"); } catch (Exception ignore) {}
+                return false;
+            }
 
             platformProduct.setStock(newStock);
             platformProductRepository.save(platformProduct);
 
-            // Gerçek platform API çağrısı burada yapılacak
-            PlatformClientFactory factory = platformClientFactory;
-            factory.getClient(platformProduct.getPlatform()).updateStock(platformProduct.getPlatform(), platformProduct, newStock);
-
-            platformService.markPlatformProductSynced(platformProductId);
-            syncHistoryService.record(platformProduct, SyncHistory.Action.STOCK_UPDATE, SyncHistory.Status.SUCCESS, "Stock set to " + newStock);
+            // Platform çağrısı commit sonrası OutboxDispatcher tarafından yapılır; outbox satırı bu transaction'da yazılır
+            outboxService.enqueueStock(platformProduct, newStock);
             return true;
         } catch (Exception e) {
             System.err.println("Stock update failed: " + e.getMessage());
@@ -145,30 +191,20 @@ public class StockSyncServiceImpl implements StockSyncService {
     
     @Override
     public boolean updatePlatformProductPrice(Long platformProductId, BigDecimal newPrice) {
-        // Credential check (API_KEY as default)
-        try {
-            PlatformProduct ppCredCheck = platformProductRepository.findById(platformProductId)
-                .orElseThrow(() -> new IllegalArgumentException("Platform ürün bulunamadı: " + platformProductId));
-            String cred = platformService.getCredential(ppCredCheck.getPlatform().getId(), "API_KEY");
-            if (cred == null || cred.isBlank()) {
-                try { syncHistoryService.record(ppCredCheck, SyncHistory.Action.PRICE_UPDATE, SyncHistory.Status.FAILURE, "Missing credential API_KEY"); } catch (Exception ignore) {}
-                return false;
-            }
-        } catch (Exception e) { /* fallthrough */ }
         PlatformProduct platformProduct = null;
         try {
             platformProduct = platformProductRepository.findById(platformProductId)
                 .orElseThrow(() -> new IllegalArgumentException("Platform ürün bulunamadı: " + platformProductId));
+            // Credential check (API_KEY as default); değer önbellekten gelir
+            if (!hasApiCredential(platformProduct.getPlatform(), new HashMap<>())) {
+                try { syncHistoryService.record(platformProduct, SyncHistory.Action.PRICE_UPDATE, SyncHistory.Status.FAILURE, "Missing credential API_KEY"); } catch (Exception ignore) {}
+                return false;
+            }
 
             platformProduct.setPrice(newPrice);
             platformProductRepository.save(platformProduct);
 
-            // Gerçek platform API çağrısı burada yapılacak
-            PlatformClientFactory factory = platformClientFactory;
-            factory.getClient(platformProduct.getPlatform()).updatePrice(platformProduct.getPlatform(), platformProduct, newPrice);
-
-            platformService.markPlatformProductSynced(platformProductId);
-            syncHistoryService.record(platformProduct, SyncHistory.Action.PRICE_UPDATE, SyncHistory.Status.SUCCESS, "Price set to " + newPrice);
+            outboxService.enqueuePrice(platformProduct, newPrice);
             return true;
         } catch (Exception e) {
             System.err.println("Price update failed: " + e.getMessage());
@@ -183,44 +219,35 @@ public class StockSyncServiceImpl implements StockSyncService {
             .orElseThrow(() -> new IllegalArgumentException("Malzeme bulunamadı: " + productId));
         
         List<PlatformProduct> platformProducts = platformProductRepository
-            .findByMaterial(material);
+            .findWithPlatformByMaterial(material);
         
-        // Dağıtım: platform bazlı distributionRatio toplami
-        int totalRatio = platformProducts.stream()
-            .filter(PlatformProduct::isActive)
-            .map(pp -> pp.getPlatform().getDistributionRatio() == null ? 0 : pp.getPlatform().getDistributionRatio())
-            .reduce(0, Integer::sum);
-        boolean useEqual = totalRatio == 0;
+        // Dağıtım: platform bazlı distributionRatio toplami (yoksa eşit)
+        int[] portions = StockDistribution.portions(platformProducts, stockChange);
 
-        int remaining = stockChange;
         int updatedCount = 0;
+        Map<Long, Boolean> credentialChecks = new HashMap<>();
+        Map<PlatformProduct, Integer> newStocks = new LinkedHashMap<>();
         for (int i = 0; i < platformProducts.size(); i++) {
             PlatformProduct platformProduct = platformProducts.get(i);
             if (!platformProduct.isActive()) continue;
             try {
-                int portion;
-                if (useEqual) {
-                    long activeCount = platformProducts.stream().filter(PlatformProduct::isActive).count();
-                    portion = Math.round((float) stockChange / (float) activeCount);
-                } else {
-                    int ratio = platformProduct.getPlatform().getDistributionRatio() == null ? 0 : platformProduct.getPlatform().getDistributionRatio();
-                    portion = Math.round(stockChange * (ratio / 100f));
-                }
-                // son aktif elemana kalan farkı ver
-                if (i == platformProducts.size() - 1) {
-                    portion = remaining;
+                int portion = portions[i];
+                if (!hasApiCredential(platformProduct.getPlatform(), credentialChecks)) {
+                    syncHistoryService.record(platformProduct, SyncHistory.Action.STOCK_UPDATE, SyncHistory.Status.FAILURE, "Missing credential API_KEY");
+                    continue;
                 }
-                remaining -= portion;
                 Integer currentStock = platformProduct.getStock();
                 Integer newStock = currentStock + portion;
-                if (updatePlatformProductStock(platformProduct.getId(), newStock)) {
-                    updatedCount++;
-                }
+                platformProduct.setStock(newStock);
+                newStocks.put(platformProduct, newStock);
+                updatedCount++;
             } catch (Exception e) {
                 System.err.println("Stock propagation failed for " + material.getMaterialName() + 
                                  " on " + platformProduct.getPlatform().getName() + ": " + e.getMessage());
             }
         }
+        // Outbox satırları birlikte yazılır; sık değişen ürünlerde ürün başına yalnızca son değer bekler
+        outboxService.enqueueStock(newStocks);
         
         return updatedCount;
     }
@@ -231,7 +258,7 @@ public class StockSyncServiceImpl implements StockSyncService {
             .orElseThrow(() -> new IllegalArgumentException("Malzeme bulunamadı: " + productId));
         
         List<PlatformProduct> platformProducts = platformProductRepository
-            .findByMaterial(material);
+            .findWithPlatformByMaterial(material);
         
         int updatedCount = 0;
         for (PlatformProduct platformProduct : platformProducts) {
@@ -256,11 +283,8 @@ public class StockSyncServiceImpl implements StockSyncService {
             Platform platform = platformRepository.findById(platformId)
                 .orElseThrow(() -> new IllegalArgumentException("Platform bulunamadı: " + platformId));
             
-            // Stub implementation - gerçek platform API testi burada yapılacak
-            // return testPlatformApi(platform);
-            
-            // Şimdilik her zaman true döndür
-            return true;
+            // Açık istek: platform hemen yoklanır, sonuç sağlık önbelleğine de yazılır
+            return platformHealthProber.probeNow(platform);
         } catch (Exception e) {
             System.err.println("Platform connection test failed: " + e.getMessage());
             return false;
@@ -271,19 +295,24 @@ public class StockSyncServiceImpl implements StockSyncService {
     public Map<String, Object> getSyncStatus() {
         Map<String, Object> status = new HashMap<>();
         
-        List<Platform> platforms = platformService.getActivePlatforms();
-        int totalPlatforms = platforms.size();
+        // Platform bağlantıları arka planda yoklanır; burada yalnızca önbellek okunur, uzak çağrı yapılmaz
+        List<Map<String, Object>> platformHealth = platformHealthProber.snapshot();
+        int totalPlatforms = platformHealth.size();
         int syncedPlatforms = 0;
         
-        for (Platform platform : platforms) {
-            if (testPlatformConnection(platform.getId())) {
+        for (Map<String, Object> health : platformHealth) {
+            if (!"DOWN".equals(health.get("status"))) {
                 syncedPlatforms++;
             }
         }
         
         status.put("totalPlatforms", totalPlatforms);
         status.put("syncedPlatforms", syncedPlatforms);
+        status.put("platformHealth", platformHealth);
         status.put("lastSyncTime", LocalDateTime.now());
+        status.put("pendingOutboxEvents", outboxService.countPending());
+        status.put("failedOutboxEvents", outboxService.countFailed());
+        status.put("unsyncedPlatformProducts", platformProductRepository.countDirtyProducts());
         status.put("status", syncedPlatforms == totalPlatforms ? "HEALTHY" : "DEGRADED");
         
         return status;
@@ -291,18 +320,60 @@ public class StockSyncServiceImpl implements StockSyncService {
     
     @Override
     public int retryFailedSyncs() {
-        // Stub implementation - başarısız senkronizasyonları tekrar dene
-        return 0;
+        // Deneme hakkı tükenmiş outbox olaylarını tekrar kuyruğa al; başarısız gönderimlerin tek kalıcı kaydı outbox'tır
+        return outboxService.requeueFailed();
     }
     
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<Map<String, Object>> checkStockConsistency() {
-        List<Map<String, Object>> inconsistencies = new ArrayList<>();
-        
-        // Stub implementation - stok tutarlılığını kontrol et
-        // Gerçek implementasyonda, ana ürün stoku ile platform stoklarını karşılaştır
+        // Parçalar kendi transaction'larında paralel okunur
+        return stockReconciler.reconcile(false, false).getDrifts().stream()
+            .map(StockReconciler.Drift::toMap)
+            .toList();
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> reconcileStock(boolean autoCorrect, boolean fullScan) {
+        return stockReconciler.reconcile(autoCorrect, fullScan).toMap();
+    }
+    
+    private int syncPage(Platform platform, List<PlatformProduct> platformProducts, TransactionTemplate writeTx) {
+        // Yerel stok/fiyat değerleri platformun toplu API'si ile tek seferde gönderilir;
+        // toplu senkronizasyon en düşük öncelikli hattan gider, acil stok güncellemelerini bekletmez
+        PlatformUpdateBatch batch = new PlatformUpdateBatch(platformClientFactory, DispatchLane.BULK);
+        for (PlatformProduct platformProduct : platformProducts) {
+            if (platformProduct.getStock() != null) batch.addStock(platform, platformProduct, platformProduct.getStock());
+            if (platformProduct.getPrice() != null) batch.addPrice(platform, platformProduct, platformProduct.getPrice());
+        }
         
-        return inconsistencies;
+        int syncedCount = 0;
+        for (PlatformUpdateBatch.PlatformOutcome outcome : batch.flush()) {
+            if (!outcome.isSuccess()) {
+                // Ürünler işaretlenmez; bir sonraki artımlı senkronizasyonda tekrar gönderilir
+                System.err.println("Platform sync failed for " + platform.getName() + ": " + outcome.getError());
+                continue;
+            }
+            // Varlıklar kirletilmez; sayfa okunurkenki sürüm toplu UPDATE ile kısa bir transaction'da işaretlenir,
+            // gönderim sürerken gelen değişiklik kirli kalır.
+            // Platformun kalem bazında reddettikleri işaretlenmez, bir sonraki senkronizasyonda tekrar gönderilir
+            List<PlatformProduct> sent = platformProducts.stream().filter(pp -> !outcome.isRejected(pp)).toList();
+            Integer marked = writeTx.execute(tx -> platformProductRepository.markSynced(sent, LocalDateTime.now()));
+            syncedCount += marked == null ? 0 : marked;
+        }
+        return syncedCount;
+    }
+    
+    private boolean hasApiCredential(Platform platform, Map<Long, Boolean> checked) {
+        return checked.computeIfAbsent(platform.getId(), id -> {
+            try {
+                String cred = platformService.getCredential(id, "API_KEY");
+                return cred != null && !cred.isBlank();
+            } catch (Exception e) {
+                return false;
+            }
+        });
     }
     
     private void syncPlatformProduct(PlatformProduct platformProduct) {
@@ -311,7 +382,7 @@ public class StockSyncServiceImpl implements StockSyncService {
         // 2. Yerel veritabanını güncelle
         // 3. Senkronizasyon zamanını işaretle
         
-        platformProduct.setLastSyncAt(LocalDateTime.now());
+        platformProduct.markSynced(LocalDateTime.now());
         platformProductRepository.save(platformProduct);
     }
 }
@@ -1,30 +1,96 @@
-
 package com.ornek.ecomstocksync.service.impl;
 
 import com.ornek.ecomstocksync.entity.PlatformProduct;
 import com.ornek.ecomstocksync.entity.SyncHistory;
+import com.ornek.ecomstocksync.entity.SyncHistoryRollup;
+import com.ornek.ecomstocksync.repository.SyncHistoryDailyRepository;
+import com.ornek.ecomstocksync.repository.SyncHistoryHourlyRepository;
 import com.ornek.ecomstocksync.repository.SyncHistoryRepository;
 import com.ornek.ecomstocksync.service.SyncHistoryService;
+import com.ornek.ecomstocksync.sync.SyncHistoryWriter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 @Transactional
 public class SyncHistoryServiceImpl implements SyncHistoryService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final SyncHistoryRepository repo;
+    private final SyncHistoryHourlyRepository hourlyRepo;
+    private final SyncHistoryDailyRepository dailyRepo;
+    private final SyncHistoryWriter writer;
+    private final boolean asyncEnabled;
 
-    public SyncHistoryServiceImpl(SyncHistoryRepository repo) { this.repo = repo; }
+    public SyncHistoryServiceImpl(SyncHistoryRepository repo,
+                                  SyncHistoryHourlyRepository hourlyRepo,
+                                  SyncHistoryDailyRepository dailyRepo,
+                                  SyncHistoryWriter writer,
+                                  @Value("${history.writer.enabled:true}") boolean asyncEnabled) {
+        this.repo = repo;
+        this.hourlyRepo = hourlyRepo;
+        this.dailyRepo = dailyRepo;
+        this.writer = writer;
+        this.asyncEnabled = asyncEnabled;
+    }
 
     @Override
     public void record(PlatformProduct platformProduct, SyncHistory.Action action, SyncHistory.Status status, String detail) {
-        SyncHistory sh = new SyncHistory();
-        sh.setPlatform(platformProduct.getPlatform());
-        sh.setProduct(platformProduct.getProduct());
-        sh.setPlatformProduct(platformProduct);
-        sh.setAction(action);
-        sh.setStatus(status);
-        sh.setDetail(detail);
-        repo.save(sh);
+        Long platformId = platformProduct.getPlatform() == null ? null : platformProduct.getPlatform().getId();
+        Long materialId = platformProduct.getMaterial() == null ? null : platformProduct.getMaterial().getId();
+        if (asyncEnabled) {
+            // Kayıt tampona alınır ve toplu yazılır; çağıranın transaction'ına INSERT eklenmez
+            writer.submit(platformId, materialId, platformProduct.getId(), action, status, detail);
+        } else {
+            writer.write(platformId, materialId, platformProduct.getId(), action, status, detail);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> search(Long platformId, Long platformProductId, Long materialId,
+                                      SyncHistory.Action action, SyncHistory.Status status,
+                                      LocalDateTime from, LocalDateTime to, Long beforeId, int size) {
+        int limit = Math.max(1, Math.min(MAX_PAGE_SIZE, size));
+        // Bir fazlası okunur: sonraki sayfa var mı, sayım sorgusu olmadan anlaşılır
+        List<SyncHistory> rows = repo.search(platformId, platformProductId, materialId, action, status,
+            from, to, beforeId, limit + 1);
+        boolean hasNext = rows.size() > limit;
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (SyncHistory h : hasNext ? rows.subList(0, limit) : rows) {
+            // İlişkiler LAZY; proxy'den yalnızca id okunur, ek sorgu atılmaz
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", h.getId());
+            item.put("createdAt", h.getCreatedAt());
+            item.put("platformId", h.getPlatform() == null ? null : h.getPlatform().getId());
+            item.put("platformProductId", h.getPlatformProduct() == null ? null : h.getPlatformProduct().getId());
+            item.put("materialId", h.getMaterial() == null ? null : h.getMaterial().getId());
+            item.put("action", h.getAction());
+            item.put("status", h.getStatus());
+            item.put("detail", h.getDetail());
+            items.add(item);
+        }
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("items", items);
+        page.put("size", limit);
+        page.put("hasNext", hasNext);
+        page.put("nextBeforeId", hasNext ? items.get(items.size() - 1).get("id") : null);
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<? extends SyncHistoryRollup> rollups(Granularity granularity, LocalDateTime from, LocalDateTime to, Long platformId) {
+        return granularity == Granularity.DAY
+            ? dailyRepo.findRange(from, to, platformId)
+            : hourlyRepo.findRange(from, to, platformId);
     }
 }
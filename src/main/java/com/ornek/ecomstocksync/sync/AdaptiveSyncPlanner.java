@@ -0,0 +1,274 @@
+package com.ornek.ecomstocksync.sync;
+
+import com.ornek.ecomstocksync.cluster.ClusterCoordinator;
+import com.ornek.ecomstocksync.entity.Platform;
+import com.ornek.ecomstocksync.service.PlatformService;
+import com.ornek.ecomstocksync.service.StockSyncService;
+import com.ornek.ecomstocksync.service.StockSyncService.PlatformSyncResult;
+import com.ornek.ecomstocksync.util.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Platform başına bir sonraki senkron zamanını tutar ve aralığı gözlemlere göre uyarlar:
+ * <ul>
+ *   <li>Bir turda hedeften çok ürün değiştiyse aralık kısalır, az değiştiyse veya hiç değişmediyse uzar.</li>
+ *   <li>Hata veya zaman aşımında aralık ikiye katlanır (ardışık hatalarda üst sınıra kadar).</li>
+ *   <li>Platformun API kovasında az hak kaldıysa aralık kısalmaz, çok az kaldıysa uzar.</li>
+ *   <li>Tur süresi aralığın yarısını geçiyorsa aralık en az turun iki katı olur.</li>
+ * </ul>
+ * Aralık platformdaki alt/üst sınırlarla (yoksa genel varsayılanlarla) sınırlanır. Böylece değişikliği az
+ * olan küçük mağazalar sık, büyük ve kotası dolan kataloglar seyrek senkronize edilir; boşta kalan
+ * platformların payı aktif olanlara geçer.
+ * <p>
+ * Birden fazla instance çalışıyorsa her düğüm yalnızca kendi payındaki platformları planlar; devir sırasında
+ * aynı platformun iki düğümde birden senkronize edilmemesi için her tur "platform-sync:id" kiralamasıyla korunur.
+ */
+@Component
+public class AdaptiveSyncPlanner {
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveSyncPlanner.class);
+
+    private final PlatformService platformService;
+    private final StockSyncService stockSyncService;
+    private final RateLimiter rateLimiter;
+    private final ClusterCoordinator cluster;
+    private final long defaultMinIntervalMs;
+    private final long defaultMaxIntervalMs;
+    private final long initialIntervalMs;
+    private final int targetChangesPerRun;
+    private final double lowQuotaFraction;
+    private final Map<Long, PlatformSchedule> schedules = new ConcurrentHashMap<>();
+    private final AtomicBoolean planning = new AtomicBoolean();
+
+    public AdaptiveSyncPlanner(PlatformService platformService,
+                               StockSyncService stockSyncService,
+                               RateLimiter rateLimiter,
+                               ClusterCoordinator cluster,
+                               @Value("${sync.adaptive.min-interval.ms:30000}") long defaultMinIntervalMs,
+                               @Value("${sync.adaptive.max-interval.ms:1800000}") long defaultMaxIntervalMs,
+                               @Value("${sync.adaptive.initial-interval.ms:300000}") long initialIntervalMs,
+                               @Value("${sync.adaptive.target-changes-per-run:50}") int targetChangesPerRun,
+                               @Value("${sync.adaptive.low-quota-fraction:0.2}") double lowQuotaFraction) {
+        this.platformService = platformService;
+        this.stockSyncService = stockSyncService;
+        this.rateLimiter = rateLimiter;
+        this.cluster = cluster;
+        this.defaultMinIntervalMs = Math.max(1000, defaultMinIntervalMs);
+        this.defaultMaxIntervalMs = Math.max(this.defaultMinIntervalMs, defaultMaxIntervalMs);
+        this.initialIntervalMs = initialIntervalMs;
+        this.targetChangesPerRun = Math.max(1, targetChangesPerRun);
+        this.lowQuotaFraction = lowQuotaFraction;
+    }
+
+    /**
+     * Zamanı gelen platformların senkronunu başlatır; bitmelerini beklemez.
+     * @return Başlatılan platform sayısı
+     */
+    public int runDue() {
+        if (!planning.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            List<Platform> platforms = platformService.getPlatformsNeedingSync();
+            Set<Long> activeIds = new HashSet<>();
+            int started = 0;
+            for (Platform platform : platforms) {
+                if (!cluster.owns(platform.getId())) {
+                    continue;
+                }
+                activeIds.add(platform.getId());
+                PlatformSchedule schedule = schedules.computeIfAbsent(platform.getId(), id -> new PlatformSchedule(now));
+                if (!schedule.tryStart(platform, now)) {
+                    continue;
+                }
+                String lease = leaseName(platform.getId());
+                if (!cluster.tryAcquire(lease)) {
+                    // Önceki sahibi henüz bitirmedi; sonraki tikte tekrar denenir
+                    schedule.cancelStart("lease held by another node");
+                    continue;
+                }
+                started++;
+                stockSyncService.submitPlatformSync(platform).whenComplete((result, error) -> {
+                    cluster.release(lease);
+                    if (error != null) {
+                        result = new PlatformSyncResult(platform.getId(), platform.getName(),
+                            PlatformSyncResult.Status.FAILED, 0, 0, error.getMessage());
+                    }
+                    complete(platform, schedule, result);
+                });
+            }
+            // Pasifleşen, ürünü kalmayan veya başka düğüme geçen platformlar plandan çıkar
+            schedules.keySet().retainAll(activeIds);
+            return started;
+        } finally {
+            planning.set(false);
+        }
+    }
+
+    private static String leaseName(Long platformId) {
+        return "platform-sync:" + platformId;
+    }
+
+    private void complete(Platform platform, PlatformSchedule schedule, PlatformSyncResult result) {
+        long min = minInterval(platform);
+        long max = Math.max(min, maxInterval(platform));
+        Double quota = rateLimiter.availableFraction(platform);
+        schedule.finish(result, quota, min, max, System.currentTimeMillis());
+        if (log.isDebugEnabled()) {
+            log.debug("Adaptive sync platform={} status={} synced={} nextIntervalMs={} reason={}",
+                platform.getName(), result.getStatus(), result.getSyncedProducts(), schedule.intervalMs, schedule.reason);
+        }
+    }
+
+    private long minInterval(Platform platform) {
+        Integer seconds = platform.getSyncMinIntervalSeconds();
+        return seconds != null && seconds > 0 ? seconds * 1000L : defaultMinIntervalMs;
+    }
+
+    private long maxInterval(Platform platform) {
+        Integer seconds = platform.getSyncMaxIntervalSeconds();
+        return seconds != null && seconds > 0 ? seconds * 1000L : defaultMaxIntervalMs;
+    }
+
+    /**
+     * Platform bazında güncel plan: aralık, sınırlar, bir sonraki çalışma ve son gözlemler
+     */
+    public Map<String, Object> snapshot() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> platforms = new ArrayList<>();
+        for (Map.Entry<Long, PlatformSchedule> entry : schedules.entrySet()) {
+            platforms.add(entry.getValue().toMap(entry.getKey(), now));
+        }
+        platforms.sort((a, b) -> Long.compare((Long) a.get("dueInMs"), (Long) b.get("dueInMs")));
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("nodeId", cluster.getNodeId());
+        data.put("liveNodes", cluster.getLiveNodes());
+        data.put("defaultMinIntervalMs", defaultMinIntervalMs);
+        data.put("defaultMaxIntervalMs", defaultMaxIntervalMs);
+        data.put("targetChangesPerRun", targetChangesPerRun);
+        data.put("platforms", platforms);
+        return data;
+    }
+
+    private final class PlatformSchedule {
+        String platformName;
+        long intervalMs = initialIntervalMs;
+        long minMs = defaultMinIntervalMs;
+        long maxMs = defaultMaxIntervalMs;
+        long nextRunAt;
+        long lastRunAt;
+        boolean running;
+        PlatformSyncResult.Status lastStatus;
+        int lastSynced;
+        long lastDurationMs;
+        double changesPerMinute;
+        int consecutiveErrors;
+        Double quota;
+        String reason = "initial";
+
+        PlatformSchedule(long now) {
+            // Yeni platform ilk tikte senkronize edilir
+            this.nextRunAt = now;
+        }
+
+        synchronized boolean tryStart(Platform platform, long now) {
+            platformName = platform.getName();
+            if (running || now < nextRunAt) {
+                return false;
+            }
+            running = true;
+            return true;
+        }
+
+        synchronized void cancelStart(String reason) {
+            running = false;
+            this.reason = reason;
+        }
+
+        synchronized void finish(PlatformSyncResult result, Double quota, long min, long max, long now) {
+            this.running = false;
+            this.minMs = min;
+            this.maxMs = max;
+            this.quota = quota;
+            this.lastStatus = result.getStatus();
+            this.lastDurationMs = result.getDurationMs();
+            double factor;
+            switch (result.getStatus()) {
+                case SUCCESS: {
+                    consecutiveErrors = 0;
+                    int synced = result.getSyncedProducts();
+                    if (lastRunAt > 0) {
+                        double minutes = Math.max(1.0 / 60, (now - lastRunAt) / 60000.0);
+                        double rate = synced / minutes;
+                        changesPerMinute = changesPerMinute == 0 ? rate : 0.5 * changesPerMinute + 0.5 * rate;
+                    }
+                    lastSynced = synced;
+                    lastRunAt = now;
+                    if (synced == 0) {
+                        factor = 1.5;
+                        reason = "idle";
+                    } else {
+                        // Hedef değişiklik sayısına göre orantılı, tur başına en fazla iki kat
+                        factor = Math.max(0.5, Math.min(2.0, (double) targetChangesPerRun / synced));
+                        reason = factor < 1 ? "busy" : "quiet";
+                    }
+                    break;
+                }
+                case SKIPPED:
+                    // Kuyruk dolu veya senkron zaten sürüyor; aralık değişmeden kısa süre sonra tekrar denenir
+                    nextRunAt = now + min;
+                    reason = "skipped: " + result.getError();
+                    return;
+                default:
+                    consecutiveErrors++;
+                    factor = 2.0;
+                    reason = "error: " + result.getError();
+            }
+            if (quota != null && quota < lowQuotaFraction) {
+                factor = Math.max(factor, 2.0);
+                reason = "low quota";
+            } else if (quota != null && quota < 0.5) {
+                factor = Math.max(factor, 1.0);
+            }
+            long next = (long) (intervalMs * factor);
+            // Uzun süren tur aralığın çoğunu kaplamasın
+            next = Math.max(next, lastDurationMs * 2);
+            intervalMs = Math.max(min, Math.min(max, next));
+            nextRunAt = now + intervalMs;
+        }
+
+        synchronized Map<String, Object> toMap(Long platformId, long now) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("platformId", platformId);
+            row.put("platformName", platformName);
+            row.put("intervalMs", intervalMs);
+            row.put("minIntervalMs", minMs);
+            row.put("maxIntervalMs", maxMs);
+            row.put("nextRunAt", Instant.ofEpochMilli(nextRunAt).toString());
+            row.put("dueInMs", Math.max(0, nextRunAt - now));
+            row.put("running", running);
+            row.put("lastRunAt", lastRunAt == 0 ? null : Instant.ofEpochMilli(lastRunAt).toString());
+            row.put("lastStatus", lastStatus);
+            row.put("lastSynced", lastSynced);
+            row.put("lastDurationMs", lastDurationMs);
+            row.put("changesPerMinute", changesPerMinute);
+            row.put("consecutiveErrors", consecutiveErrors);
+            row.put("quotaAvailable", quota);
+            row.put("reason", reason);
+            return row;
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.ornek.ecomstocksync.sync;
+
+import com.ornek.ecomstocksync.cluster.ClusterCoordinator;
+import com.ornek.ecomstocksync.entity.OutboxEvent;
+import com.ornek.ecomstocksync.entity.Platform;
+import com.ornek.ecomstocksync.entity.PlatformProduct;
+import com.ornek.ecomstocksync.entity.SyncHistory;
+import com.ornek.ecomstocksync.integration.DispatchLane;
+import com.ornek.ecomstocksync.integration.DispatchLanes;
+import com.ornek.ecomstocksync.integration.PlatformClient;
+import com.ornek.ecomstocksync.integration.PlatformClientFactory;
+import com.ornek.ecomstocksync.repository.OutboxEventRepository;
+import com.ornek.ecomstocksync.repository.PlatformProductRepository;
+import com.ornek.ecomstocksync.service.SyncHistoryService;
+import com.ornek.ecomstocksync.util.RetryPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Outbox tablosunu platform bazında, partiler halinde boşaltır.
+ * Satırlar kısa bir transaction'da okunur, uzak çağrı transaction dışında yapılır,
+ * sonuç ikinci kısa bir transaction'da yazılır; böylece yavaş HTTP çağrıları DB bağlantısı tutmaz.
+ * Ürün bazında sıra korunur: bir değer gönderildiğinde aynı ürün ve türün daha eski olayları SUPERSEDED olur,
+ * daha yeni bir olayı bekleyen veya gönderilmiş olan olay ise hangi hatta olursa olsun seçilmez. Böylece aynı
+ * turda CRITICAL hattından giden sıfır, STOCK hattında kalmış eski bir değerle ezilmez.
+ * <p>
+ * Platformlar düğümlere paylaştırılsa da düğümlerin canlı düğüm listesi bir heartbeat kadar farklı olabilir.
+ * Bu yüzden olaylar gönderilmeden önce koşullu UPDATE ile SENDING durumuna alınıp sahiplenilir; sahiplenemediği
+ * olayı düğüm göndermez. Aynı ürün ve tür için gönderimde olay varsa yenisi o bitene kadar bekler. Gönderirken
+ * ölen düğümün olayları outbox.claim-timeout.ms sonunda tekrar PENDING olur.
+ * <p>
+ * Olaylar öncelik hatlarına ayrılır. Her turda önce tüm platformların CRITICAL (stok sıfır) olayları gönderilir,
+ * ardından her platformun parti kotası hat ağırlıklarına göre bölüştürülür; kullanılmayan kota öncelik sırasıyla
+ * diğer hatlara geçer. CRITICAL olay yazıldığında dispatcher zamanlayıcıyı beklemeden uyandırılır.
+ */
+@Component
+public class OutboxDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+    private static final Set<OutboxEvent.Status> STALE = EnumSet.of(OutboxEvent.Status.PENDING, OutboxEvent.Status.FAILED);
+    // Seçimi engelleyen daha yeni olay durumları; hatlar arası da geçerli
+    private static final Set<OutboxEvent.Status> NEWER = EnumSet.of(OutboxEvent.Status.PENDING, OutboxEvent.Status.SENT);
+
+    private final OutboxEventRepository outboxRepository;
+    private final PlatformProductRepository platformProductRepository;
+    private final PlatformClientFactory platformClientFactory;
+    private final SyncHistoryService syncHistoryService;
+    private final DispatchLanes dispatchLanes;
+    private final ClusterCoordinator cluster;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long claimTimeoutMs;
+    private final RetryPolicy retryPolicy;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+    private final ExecutorService waker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "outbox-wake");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public OutboxDispatcher(OutboxEventRepository outboxRepository,
+                            PlatformProductRepository platformProductRepository,
+                            PlatformClientFactory platformClientFactory,
+                            SyncHistoryService syncHistoryService,
+                            DispatchLanes dispatchLanes,
+                            ClusterCoordinator cluster,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${outbox.batch-size:500}") int batchSize,
+                            @Value("${outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${outbox.backoff.ms:1000}") long backoffMs,
+                            @Value("${outbox.claim-timeout.ms:600000}") long claimTimeoutMs) {
+        this.outboxRepository = outboxRepository;
+        this.platformProductRepository = platformProductRepository;
+        this.platformClientFactory = platformClientFactory;
+        this.syncHistoryService = syncHistoryService;
+        this.dispatchLanes = dispatchLanes;
+        this.cluster = cluster;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.claimTimeoutMs = claimTimeoutMs;
+        this.retryPolicy = RetryPolicy.of(maxAttempts, backoffMs).withMaxBackoffMs(300_000L);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.dispatch.fixedDelay.ms:1000}")
+    public void dispatchScheduled() {
+        try {
+            dispatch();
+        } catch (Exception e) {
+            log.error("Outbox dispatch failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Zamanlayıcıyı beklemeden bir gönderim turu başlatır. Tur zaten çalışıyorsa bittiğinde bir tur daha yapılır.
+     */
+    public void requestDispatch() {
+        wakeRequested.set(true);
+        waker.execute(() -> {
+            try {
+                dispatch();
+            } catch (Exception e) {
+                log.error("Outbox wake dispatch failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Vadesi gelen olayları gönderir
+     * @return Gönderilen olay sayısı
+     */
+    public int dispatch() {
+        int sent = 0;
+        while (running.compareAndSet(false, true)) {
+            try {
+                wakeRequested.set(false);
+                sent += dispatchOnce();
+            } finally {
+                running.set(false);
+            }
+            // Tur sırasında gelen uyandırma kaybolmasın
+            if (!wakeRequested.get()) {
+                break;
+            }
+        }
+        return sent;
+    }
+
+    private int dispatchOnce() {
+        int sent = 0;
+        transactionTemplate.executeWithoutResult(tx -> outboxRepository.releaseStaleClaims(OutboxEvent.Status.SENDING,
+            OutboxEvent.Status.PENDING, LocalDateTime.now().minusNanos(claimTimeoutMs * 1_000_000L)));
+        // Stoku sıfırlanan ürünler diğer platformların fiyat partilerini beklemez
+        List<Long> criticalPlatforms = transactionTemplate.execute(tx -> outboxRepository.findPlatformIdsWithDueLane(
+            OutboxEvent.Status.PENDING, DispatchLane.CRITICAL, LocalDateTime.now()));
+        for (Long platformId : criticalPlatforms) {
+            if (!cluster.owns(platformId)) continue;
+            sent += sendLane(DispatchLane.CRITICAL, fetchLane(platformId, DispatchLane.CRITICAL, batchSize));
+        }
+        List<Long> platformIds = transactionTemplate.execute(tx ->
+            outboxRepository.findPlatformIdsWithDueEvents(OutboxEvent.Status.PENDING, LocalDateTime.now()));
+        for (Long platformId : platformIds) {
+            // Her platformun olaylarını yalnızca payına düştüğü düğüm gönderir
+            if (!cluster.owns(platformId)) continue;
+            sent += dispatchPlatform(platformId);
+        }
+        return sent;
+    }
+
+    private int dispatchPlatform(Long platformId) {
+        // Parti kotası hat ağırlıklarına göre bölünür; boş kalan kota öncelik sırasıyla dağıtılır
+        DispatchLane[] lanes = DispatchLane.values();
+        int totalWeight = 0;
+        for (DispatchLane lane : lanes) totalWeight += dispatchLanes.weight(lane);
+        Map<DispatchLane, List<OutboxEvent>> picked = new EnumMap<>(DispatchLane.class);
+        int used = 0;
+        for (DispatchLane lane : lanes) {
+            int quota = Math.max(1, batchSize * dispatchLanes.weight(lane) / totalWeight);
+            List<OutboxEvent> events = fetchLane(platformId, lane, quota);
+            picked.put(lane, events);
+            used += events.size();
+        }
+        for (DispatchLane lane : lanes) {
+            int leftover = batchSize - used;
+            if (leftover <= 0) break;
+            List<OutboxEvent> events = picked.get(lane);
+            int quota = Math.max(1, batchSize * dispatchLanes.weight(lane) / totalWeight);
+            if (events.size() < quota) continue;
+            List<OutboxEvent> more = fetchLane(platformId, lane, events.size() + leftover);
+            used += more.size() - events.size();
+            picked.put(lane, more);
+        }
+
+        int sent = 0;
+        for (DispatchLane lane : lanes) {
+            sent += sendLane(lane, picked.get(lane));
+        }
+        return sent;
+    }
+
+    private List<OutboxEvent> fetchLane(Long platformId, DispatchLane lane, int limit) {
+        List<OutboxEvent> events = transactionTemplate.execute(tx -> outboxRepository.findDueLaneBatch(
+            platformId, OutboxEvent.Status.PENDING, NEWER, OutboxEvent.Status.SENDING, LocalDateTime.now(), lane, lane == DispatchLane.STOCK,
+            PageRequest.of(0, Math.max(1, limit))));
+        return events == null ? List.of() : events;
+    }
+
+    private int sendLane(DispatchLane lane, List<OutboxEvent> picked) {
+        if (picked.isEmpty()) {
+            return 0;
+        }
+        List<OutboxEvent> events = claim(picked);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        // Olaylar id sırasıyla eklenir; aynı ürün için son değer kazanır
+        Platform platform = events.get(0).getPlatform();
+        PlatformUpdateBatch batch = new PlatformUpdateBatch(platformClientFactory, lane);
+        for (OutboxEvent event : events) {
+            if (event.getUpdateType() == OutboxEvent.UpdateType.STOCK) {
+                batch.addStock(platform, event.getPlatformProduct(), event.getStockValue());
+            } else {
+                batch.addPrice(platform, event.getPlatformProduct(), event.getPriceValue());
+            }
+        }
+        PlatformUpdateBatch.PlatformOutcome outcome = batch.flush().get(0);
+
+        if (!outcome.isSuccess()) {
+            transactionTemplate.executeWithoutResult(tx -> onFailed(events, platform, event -> outcome.getError()));
+            return 0;
+        }
+        // Platformun kalem bazında reddettiği olaylar tek başına tekrar denenir; partinin geri kalanı gönderilmiştir
+        List<OutboxEvent> delivered = new ArrayList<>(events.size());
+        List<OutboxEvent> rejected = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            (rejection(outcome, event) == null ? delivered : rejected).add(event);
+        }
+        transactionTemplate.executeWithoutResult(tx -> {
+            if (!delivered.isEmpty()) onSent(delivered, outcome);
+            if (!rejected.isEmpty()) onFailed(rejected, platform, event -> rejection(outcome, event));
+        });
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboxEvent event : delivered) {
+            dispatchLanes.recordDelivered(lane, Math.max(0, Duration.between(event.getCreatedAt(), now).toMillis()));
+        }
+        return delivered.size();
+    }
+
+    private static String rejection(PlatformUpdateBatch.PlatformOutcome outcome, OutboxEvent event) {
+        Map<Long, String> rejected = event.getUpdateType() == OutboxEvent.UpdateType.STOCK
+            ? outcome.getRejectedStock() : outcome.getRejectedPrice();
+        return rejected.get(event.getPlatformProduct().getId());
+    }
+
+    // Okuma ile sahiplenme arasında başka düğümün aldığı veya SUPERSEDED olan olaylar çıkarılır
+    private List<OutboxEvent> claim(List<OutboxEvent> picked) {
+        List<Long> ids = picked.stream().map(OutboxEvent::getId).toList();
+        String owner = cluster.getNodeId();
+        List<OutboxEvent> claimed = transactionTemplate.execute(tx -> {
+            int count = outboxRepository.claim(ids, OutboxEvent.Status.PENDING, OutboxEvent.Status.SENDING, owner, LocalDateTime.now());
+            if (count == ids.size()) {
+                return picked;
+            }
+            return count == 0 ? List.<OutboxEvent>of() : outboxRepository.findClaimed(ids, OutboxEvent.Status.SENDING, owner);
+        });
+        return claimed == null ? List.of() : claimed;
+    }
+
+    /**
+     * Hat bazında kapı/teslim metrikleri ve outbox'ta bekleyen olay sayıları
+     */
+    public Map<String, Object> laneSnapshot() {
+        Map<String, Object> data = new LinkedHashMap<>(dispatchLanes.snapshot());
+        Map<DispatchLane, Long> pending = new EnumMap<>(DispatchLane.class);
+        List<Object[]> rows = transactionTemplate.execute(tx -> outboxRepository.countByStatusGroupByLane(OutboxEvent.Status.PENDING));
+        for (Object[] row : rows) {
+            DispatchLane lane = row[0] == null ? DispatchLane.STOCK : (DispatchLane) row[0];
+            pending.merge(lane, (Long) row[1], Long::sum);
+        }
+        for (DispatchLane lane : DispatchLane.values()) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> laneData = (Map<String, Object>) data.get(lane.name());
+            laneData.put("queued", pending.getOrDefault(lane, 0L) + ((Number) laneData.get("waiting")).longValue());
+        }
+        return data;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        waker.shutdownNow();
+    }
+
+    private void onSent(List<OutboxEvent> events, PlatformUpdateBatch.PlatformOutcome outcome) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> eventIds = events.stream().map(OutboxEvent::getId).collect(Collectors.toList());
+        outboxRepository.markSent(eventIds, OutboxEvent.Status.SENT, now);
+        // Gönderilen değerden eski, hâlâ bekleyen veya tükenmiş olaylar artık hiç gönderilmez
+        List<Long> sentProductIds = events.stream().map(e -> e.getPlatformProduct().getId()).distinct().toList();
+        outboxRepository.supersedeOlder(sentProductIds, STALE, EnumSet.of(OutboxEvent.Status.SENT), OutboxEvent.Status.SUPERSEDED);
+
+        // Ürünler olay okunurkenki sürümleriyle işaretlenir; sonrasında gelen değişiklik kirli kalır
+        Map<Long, PlatformProduct> sentProducts = new LinkedHashMap<>();
+        for (PlatformClient.StockUpdate update : outcome.getStockUpdates()) {
+            if (outcome.getRejectedStock().containsKey(update.getPlatformProduct().getId())) continue;
+            sentProducts.putIfAbsent(update.getPlatformProduct().getId(), update.getPlatformProduct());
+            syncHistoryService.record(update.getPlatformProduct(), SyncHistory.Action.STOCK_UPDATE, SyncHistory.Status.SUCCESS, "Stock set to " + update.getNewStock());
+        }
+        for (PlatformClient.PriceUpdate update : outcome.getPriceUpdates()) {
+            if (outcome.getRejectedPrice().containsKey(update.getPlatformProduct().getId())) continue;
+            sentProducts.putIfAbsent(update.getPlatformProduct().getId(), update.getPlatformProduct());
+            syncHistoryService.record(update.getPlatformProduct(), SyncHistory.Action.PRICE_UPDATE, SyncHistory.Status.SUCCESS, "Price set to " + update.getNewPrice());
+        }
+        platformProductRepository.markSynced(sentProducts.values(), now);
+    }
+
+    private void onFailed(List<OutboxEvent> events, Platform platform, Function<OutboxEvent, String> errorOf) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, OutboxEvent> managed = outboxRepository.findAllById(events.stream().map(OutboxEvent::getId).toList())
+            .stream().collect(Collectors.toMap(OutboxEvent::getId, Function.identity()));
+        for (OutboxEvent event : managed.values()) {
+            int attempts = event.getAttempts() + 1;
+            event.setAttempts(attempts);
+            String error = errorOf.apply(event);
+            event.setLastError(error);
+            if (attempts >= retryPolicy.getMaxAttempts()) {
+                event.setStatus(OutboxEvent.Status.FAILED);
+                PlatformProduct platformProduct = event.getPlatformProduct();
+                SyncHistory.Action action = event.getUpdateType() == OutboxEvent.UpdateType.STOCK
+                    ? SyncHistory.Action.STOCK_UPDATE : SyncHistory.Action.PRICE_UPDATE;
+                syncHistoryService.record(platformProduct, action, SyncHistory.Status.FAILURE, error);
+            } else {
+                event.setStatus(OutboxEvent.Status.PENDING);
+                event.setNextAttemptAt(now.plusNanos(retryPolicy.backoffMs(attempts) * 1_000_000L));
+            }
+            event.setClaimedBy(null);
+            event.setClaimedAt(null);
+        }
+        // Aynı ürün için daha yeni bir değer beklerken eski olay tekrar denenmez
+        outboxRepository.flush();
+        List<Long> failedProductIds = events.stream().map(e -> e.getPlatformProduct().getId()).distinct().toList();
+        outboxRepository.supersedeOlder(failedProductIds, STALE, EnumSet.of(OutboxEvent.Status.PENDING), OutboxEvent.Status.SUPERSEDED);
+        log.warn("Outbox dispatch failed for platform={}, events={}: {}",
+            platform.getCode(), events.size(), errorOf.apply(events.get(0)));
+    }
+}
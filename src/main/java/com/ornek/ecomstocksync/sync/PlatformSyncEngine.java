@@ -0,0 +1,140 @@
+package com.ornek.ecomstocksync.sync;
+
+import com.ornek.ecomstocksync.entity.Platform;
+import com.ornek.ecomstocksync.service.StockSyncService.PlatformSyncResult;
+import com.ornek.ecomstocksync.service.StockSyncService.PlatformSyncResult.Status;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * Platform senkronizasyonlarını sınırlı bir thread havuzunda paralel çalıştırır; yavaş bir pazaryeri diğerlerini bekletmez.
+ * Burada transaction açılmaz: senkronizasyon işlemi her sayfayı kendi kısa transaction'ında okur ve yazar,
+ * uzak çağrılar transaction dışında yapılır.
+ */
+@Component
+public class PlatformSyncEngine {
+    private static final Logger log = LoggerFactory.getLogger(PlatformSyncEngine.class);
+
+    private final ThreadPoolExecutor executor;
+    private final Map<Long, Semaphore> platformPermits = new ConcurrentHashMap<>();
+    private final int perPlatformConcurrency;
+    private final long platformTimeoutMs;
+
+    public PlatformSyncEngine(@Value("${sync.engine.pool-size:4}") int poolSize,
+                              @Value("${sync.engine.queue-capacity:100}") int queueCapacity,
+                              @Value("${sync.engine.per-platform-concurrency:1}") int perPlatformConcurrency,
+                              @Value("${sync.engine.platform-timeout.ms:120000}") long platformTimeoutMs) {
+        this.perPlatformConcurrency = Math.max(1, perPlatformConcurrency);
+        this.platformTimeoutMs = platformTimeoutMs;
+        AtomicInteger threadSeq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+            r -> {
+                Thread t = new Thread(r, "platform-sync-" + threadSeq.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Verilen platformları paralel senkronize eder ve tüm sonuçları (veya zaman aşımını) bekler.
+     * @param platforms Senkronize edilecek platformlar
+     * @param platformSync Platform ID alıp senkronize edilen ürün sayısını dönen işlem
+     * @return Platform bazlı sonuçlar, giriş sırasıyla
+     */
+    public List<PlatformSyncResult> syncAll(List<Platform> platforms, ToIntFunction<Long> platformSync) {
+        Map<Platform, Future<PlatformSyncResult>> futures = new LinkedHashMap<>();
+        List<PlatformSyncResult> results = new ArrayList<>(platforms.size());
+
+        for (Platform platform : platforms) {
+            try {
+                futures.put(platform, executor.submit(() -> runPlatform(platform, platformSync)));
+            } catch (RejectedExecutionException e) {
+                log.warn("Sync queue full, skipping platform={}", platform.getName());
+                futures.put(platform, null);
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(platformTimeoutMs);
+        for (Map.Entry<Platform, Future<PlatformSyncResult>> entry : futures.entrySet()) {
+            Platform platform = entry.getKey();
+            Future<PlatformSyncResult> future = entry.getValue();
+            if (future == null) {
+                results.add(new PlatformSyncResult(platform.getId(), platform.getName(), Status.SKIPPED, 0, 0, "sync queue full"));
+                continue;
+            }
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                results.add(future.get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                // İş arka planda bitmeye devam eder; çağıran daha fazla beklemez
+                log.warn("Platform sync timed out after {} ms: {}", platformTimeoutMs, platform.getName());
+                results.add(new PlatformSyncResult(platform.getId(), platform.getName(), Status.TIMED_OUT, 0, platformTimeoutMs, "timed out"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.add(new PlatformSyncResult(platform.getId(), platform.getName(), Status.FAILED, 0, 0, "interrupted"));
+            } catch (ExecutionException e) {
+                results.add(new PlatformSyncResult(platform.getId(), platform.getName(), Status.FAILED, 0, 0, e.getCause().getMessage()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Platform senkronizasyonunu kuyruğa alır ve beklemeden döner. Kuyruk doluysa future SKIPPED sonuçla tamamlanır.
+     */
+    public CompletableFuture<PlatformSyncResult> submit(Platform platform, ToIntFunction<Long> platformSync) {
+        try {
+            return CompletableFuture.supplyAsync(() -> runPlatform(platform, platformSync), executor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Sync queue full, skipping platform={}", platform.getName());
+            return CompletableFuture.completedFuture(
+                new PlatformSyncResult(platform.getId(), platform.getName(), Status.SKIPPED, 0, 0, "sync queue full"));
+        }
+    }
+
+    private PlatformSyncResult runPlatform(Platform platform, ToIntFunction<Long> platformSync) {
+        Semaphore permits = platformPermits.computeIfAbsent(platform.getId(), id -> new Semaphore(perPlatformConcurrency));
+        if (!permits.tryAcquire()) {
+            return new PlatformSyncResult(platform.getId(), platform.getName(), Status.SKIPPED, 0, 0, "sync already running");
+        }
+        long start = System.nanoTime();
+        try {
+            int synced = platformSync.applyAsInt(platform.getId());
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return new PlatformSyncResult(platform.getId(), platform.getName(), Status.SUCCESS, synced, durationMs, null);
+        } catch (Exception e) {
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.error("Platform sync failed for {}: {}", platform.getName(), e.getMessage());
+            return new PlatformSyncResult(platform.getId(), platform.getName(), Status.FAILED, 0, durationMs, e.getMessage());
+        } finally {
+            permits.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
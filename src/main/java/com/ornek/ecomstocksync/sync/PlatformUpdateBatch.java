@@ -0,0 +1,150 @@
+package com.ornek.ecomstocksync.sync;
+
+import com.ornek.ecomstocksync.entity.Platform;
+import com.ornek.ecomstocksync.entity.PlatformProduct;
+import com.ornek.ecomstocksync.integration.DispatchLane;
+import com.ornek.ecomstocksync.integration.PlatformClient;
+import com.ornek.ecomstocksync.integration.PlatformClient.ItemsRejectedException;
+import com.ornek.ecomstocksync.integration.PlatformClient.PriceUpdate;
+import com.ornek.ecomstocksync.integration.PlatformClient.StockUpdate;
+import com.ornek.ecomstocksync.integration.PlatformClientFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bir işlem boyunca biriken stok/fiyat güncellemelerini platform bazında toplar.
+ * Aynı platform ürünü için gelen güncellemelerden yalnızca sonuncusu gönderilir;
+ * flush sırasında her platform için client'ın toplu API'si çağrılır.
+ * Gönderim, batch'in hattı (DispatchLane) üzerinden platform kapısında sıra bekler.
+ * Thread-safe değildir, tek bir işlem içinde kullanılmak üzere tasarlanmıştır.
+ */
+public class PlatformUpdateBatch {
+
+    private final PlatformClientFactory clientFactory;
+    private final DispatchLane lane;
+    private final Map<Long, Platform> platforms = new LinkedHashMap<>();
+    private final Map<Long, Map<Long, StockUpdate>> stockByPlatform = new LinkedHashMap<>();
+    private final Map<Long, Map<Long, PriceUpdate>> priceByPlatform = new LinkedHashMap<>();
+    private int coalescedCount;
+
+    public PlatformUpdateBatch(PlatformClientFactory clientFactory) {
+        this(clientFactory, DispatchLane.STOCK);
+    }
+
+    public PlatformUpdateBatch(PlatformClientFactory clientFactory, DispatchLane lane) {
+        this.clientFactory = clientFactory;
+        this.lane = lane;
+    }
+
+    public void addStock(PlatformProduct platformProduct, Integer newStock) {
+        addStock(platformProduct.getPlatform(), platformProduct, newStock);
+    }
+
+    public void addStock(Platform platform, PlatformProduct platformProduct, Integer newStock) {
+        platforms.putIfAbsent(platform.getId(), platform);
+        StockUpdate previous = stockByPlatform
+            .computeIfAbsent(platform.getId(), id -> new LinkedHashMap<>())
+            .put(platformProduct.getId(), new StockUpdate(platformProduct, newStock));
+        if (previous != null) coalescedCount++;
+    }
+
+    public void addPrice(PlatformProduct platformProduct, BigDecimal newPrice) {
+        addPrice(platformProduct.getPlatform(), platformProduct, newPrice);
+    }
+
+    public void addPrice(Platform platform, PlatformProduct platformProduct, BigDecimal newPrice) {
+        platforms.putIfAbsent(platform.getId(), platform);
+        PriceUpdate previous = priceByPlatform
+            .computeIfAbsent(platform.getId(), id -> new LinkedHashMap<>())
+            .put(platformProduct.getId(), new PriceUpdate(platformProduct, newPrice));
+        if (previous != null) coalescedCount++;
+    }
+
+    public boolean isEmpty() {
+        return platforms.isEmpty();
+    }
+
+    /**
+     * Birleştirilerek gönderilmeyen (üzerine yazılan) güncelleme sayısı
+     */
+    public int getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Bekleyen güncellemeleri platform bazında toplu olarak gönderir ve batch'i temizler.
+     * Bir platformdaki hata diğer platformların gönderimini engellemez. Platformun kalem bazında reddettiği
+     * güncellemeler platform hatası sayılmaz; sonuçta ayrıca listelenir, geri kalanı gönderilmiş olur.
+     * @return Platform bazlı gönderim sonuçları
+     */
+    public List<PlatformOutcome> flush() {
+        List<PlatformOutcome> outcomes = new ArrayList<>(platforms.size());
+        for (Platform platform : platforms.values()) {
+            List<StockUpdate> stockUpdates = new ArrayList<>(stockByPlatform.getOrDefault(platform.getId(), Map.of()).values());
+            List<PriceUpdate> priceUpdates = new ArrayList<>(priceByPlatform.getOrDefault(platform.getId(), Map.of()).values());
+            String error = null;
+            Map<Long, String> rejectedStock = Map.of();
+            Map<Long, String> rejectedPrice = Map.of();
+            try {
+                PlatformClient client = clientFactory.getClient(platform, lane);
+                if (!stockUpdates.isEmpty()) {
+                    try {
+                        client.updateStockBatch(platform, stockUpdates);
+                    } catch (ItemsRejectedException e) {
+                        rejectedStock = e.getRejected();
+                    }
+                }
+                if (!priceUpdates.isEmpty()) {
+                    try {
+                        client.updatePriceBatch(platform, priceUpdates);
+                    } catch (ItemsRejectedException e) {
+                        rejectedPrice = e.getRejected();
+                    }
+                }
+            } catch (Exception e) {
+                error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            }
+            outcomes.add(new PlatformOutcome(platform, stockUpdates, priceUpdates, error, rejectedStock, rejectedPrice));
+        }
+        platforms.clear();
+        stockByPlatform.clear();
+        priceByPlatform.clear();
+        return outcomes;
+    }
+
+    public static final class PlatformOutcome {
+        private final Platform platform;
+        private final List<StockUpdate> stockUpdates;
+        private final List<PriceUpdate> priceUpdates;
+        private final String error;
+        // Kalem bazında reddedilenler: PlatformProduct id -> platformun hata mesajı
+        private final Map<Long, String> rejectedStock;
+        private final Map<Long, String> rejectedPrice;
+
+        PlatformOutcome(Platform platform, List<StockUpdate> stockUpdates, List<PriceUpdate> priceUpdates, String error,
+                        Map<Long, String> rejectedStock, Map<Long, String> rejectedPrice) {
+            this.platform = platform;
+            this.stockUpdates = stockUpdates;
+            this.priceUpdates = priceUpdates;
+            this.error = error;
+            this.rejectedStock = rejectedStock;
+            this.rejectedPrice = rejectedPrice;
+        }
+
+        public boolean isSuccess() { return error == null; }
+        public Platform getPlatform() { return platform; }
+        public List<StockUpdate> getStockUpdates() { return stockUpdates; }
+        public List<PriceUpdate> getPriceUpdates() { return priceUpdates; }
+        public String getError() { return error; }
+        public Map<Long, String> getRejectedStock() { return rejectedStock; }
+        public Map<Long, String> getRejectedPrice() { return rejectedPrice; }
+
+        public boolean isRejected(PlatformProduct platformProduct) {
+            return rejectedStock.containsKey(platformProduct.getId()) || rejectedPrice.containsKey(platformProduct.getId());
+        }
+    }
+}
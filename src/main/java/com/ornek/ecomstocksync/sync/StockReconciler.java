@@ -0,0 +1,529 @@
+package com.ornek.ecomstocksync.sync;
+
+import com.ornek.ecomstocksync.entity.PlatformProduct;
+import com.ornek.ecomstocksync.integration.DispatchLane;
+import com.ornek.ecomstocksync.integration.PlatformClientFactory;
+import com.ornek.ecomstocksync.repository.MaterialCardRepository;
+import com.ornek.ecomstocksync.repository.PlatformProductRepository;
+import com.ornek.ecomstocksync.service.OutboxService;
+import com.ornek.ecomstocksync.util.StockDistribution;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stok mutabakatı: her malzemenin currentStock değerini, aktif platformlar arasındaki beklenen dağılımı
+ * ve PlatformProduct.stock değerlerini karşılaştırır; istenirse platformun bildirdiği stoku da okur.
+ * <p>
+ * Katalog id sırasıyla parçalar halinde okunur ve parçalar paralel değerlendirilir. Her parçanın verisinden
+ * bir özet (hash) hesaplanır; önceki çalıştırmada temiz çıkmış ve özeti değişmemiş parçalar atlanır.
+ * Beklenen paylar stok yaymasıyla aynı kuraldan (StockDistribution) hesaplanır; aksi halde mutabakat yaymanın
+ * yazdığı değerleri sapma sayıp geri çekerdi. Platform okuması çalıştırma başına reconcile.remote.max-per-run
+ * ürünle sınırlıdır.
+ */
+@Component
+public class StockReconciler {
+    private static final Logger log = LoggerFactory.getLogger(StockReconciler.class);
+
+    public enum DriftType {
+        // Platform ürün stoku beklenen paydan toleranstan fazla sapıyor
+        ALLOCATION_DRIFT,
+        // Platformlara dağıtılan toplam stok eldeki stoktan fazla: satılacak ürün yok
+        OVERALLOCATED,
+        // Platformun bildirdiği stok yerel değerden farklı
+        REMOTE_DRIFT
+    }
+
+    private final MaterialCardRepository materialRepository;
+    private final PlatformProductRepository platformProductRepository;
+    private final PlatformClientFactory platformClientFactory;
+    private final OutboxService outboxService;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int tolerance;
+    private final boolean remoteEnabled;
+    private final int remoteMaxPerRun;
+    private final long chunkHashTtlMinutes;
+    private final int maxReportedDrifts;
+
+    // "ilkId-sonId" -> son değerlendirme; yalnızca son çalıştırmada görülen parçalar tutulur
+    private volatile Map<String, ChunkState> chunkStates = new ConcurrentHashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Report lastReport;
+
+    public StockReconciler(MaterialCardRepository materialRepository,
+                           PlatformProductRepository platformProductRepository,
+                           PlatformClientFactory platformClientFactory,
+                           OutboxService outboxService,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${reconcile.chunk-size:200}") int chunkSize,
+                           @Value("${reconcile.parallelism:4}") int parallelism,
+                           @Value("${reconcile.tolerance:1}") int tolerance,
+                           @Value("${reconcile.remote.enabled:false}") boolean remoteEnabled,
+                           @Value("${reconcile.remote.max-per-run:500}") int remoteMaxPerRun,
+                           @Value("${reconcile.chunk-hash.ttl.minutes:360}") long chunkHashTtlMinutes,
+                           @Value("${reconcile.max-reported-drifts:1000}") int maxReportedDrifts) {
+        this.materialRepository = materialRepository;
+        this.platformProductRepository = platformProductRepository;
+        this.platformClientFactory = platformClientFactory;
+        this.outboxService = outboxService;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.parallelism = Math.max(1, parallelism);
+        this.tolerance = Math.max(0, tolerance);
+        this.remoteEnabled = remoteEnabled;
+        this.remoteMaxPerRun = Math.max(0, remoteMaxPerRun);
+        this.chunkHashTtlMinutes = chunkHashTtlMinutes;
+        this.maxReportedDrifts = Math.max(0, maxReportedDrifts);
+        AtomicInteger threadSeq = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.parallelism, r -> {
+            Thread t = new Thread(r, "stock-reconcile-" + threadSeq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Kataloğu tarar ve sapma raporu üretir. Aynı anda tek çalıştırma yapılır.
+     * @param autoCorrect true ise sapan platform ürünleri beklenen değere çekilir (veya yerel değer yeniden
+     *                    gönderilir); düzeltmeler aynı transaction'da outbox'a yazılır
+     * @param fullScan true ise değişmemiş parçalar da yeniden değerlendirilir
+     */
+    public Report reconcile(boolean autoCorrect, boolean fullScan) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Stok mutabakatı zaten çalışıyor");
+        }
+        try {
+            Report report = new Report(autoCorrect, fullScan, remoteEnabled);
+            Map<String, ChunkState> previous = chunkStates;
+            Map<String, ChunkState> next = new ConcurrentHashMap<>();
+            // Parçalar arasında paylaşılan platform okuma kotası
+            AtomicInteger remoteBudget = new AtomicInteger(remoteMaxPerRun);
+            // Bellekte en fazla parallelism*2 parça bekler; katalog akış halinde okunur
+            Deque<Future<ChunkResult>> inFlight = new ArrayDeque<>();
+            long afterId = 0L;
+            while (true) {
+                long from = afterId;
+                List<Object[]> page = readTransaction.execute(tx ->
+                    materialRepository.findStockPageAfter(from, PageRequest.of(0, chunkSize)));
+                if (page == null || page.isEmpty()) break;
+                afterId = (Long) page.get(page.size() - 1)[0];
+                Chunk chunk = new Chunk(page);
+                inFlight.add(executor.submit(() -> evaluate(chunk, previous, next, remoteBudget, autoCorrect, fullScan)));
+                while (inFlight.size() >= parallelism * 2) {
+                    collect(inFlight.poll(), report);
+                }
+                if (page.size() < chunkSize) break;
+            }
+            while (!inFlight.isEmpty()) {
+                collect(inFlight.poll(), report);
+            }
+            chunkStates = next;
+            report.finish();
+            lastReport = report;
+            if (report.driftCount > 0) {
+                log.warn("Stock reconciliation found {} drifts ({} corrected) in {} ms",
+                    report.driftCount, report.corrected, report.durationMs);
+            }
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void collect(Future<ChunkResult> future, Report report) {
+        try {
+            report.add(future.get(), maxReportedDrifts);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Stok mutabakatı kesildi", e);
+        } catch (ExecutionException e) {
+            report.chunkErrors++;
+            log.error("Reconciliation chunk failed: {}", e.getCause() == null ? e.getMessage() : e.getCause().getMessage());
+        }
+    }
+
+    private ChunkResult evaluate(Chunk chunk, Map<String, ChunkState> previous, Map<String, ChunkState> next,
+                                 AtomicInteger remoteBudget, boolean autoCorrect, boolean fullScan) {
+        List<Object[]> rows = readTransaction.execute(tx ->
+            platformProductRepository.findStockRowsByMaterialIds(chunk.stocks.keySet()));
+        long hash = fingerprint(chunk, rows);
+        long now = System.currentTimeMillis();
+        ChunkResult result = new ChunkResult(chunk.stocks.size(), rows.size());
+
+        ChunkState state = previous.get(chunk.key);
+        if (!fullScan && state != null && state.clean && state.hash == hash
+                && now - state.checkedAt < chunkHashTtlMinutes * 60_000L) {
+            result.skipped = true;
+            next.put(chunk.key, state);
+            return result;
+        }
+
+        // materialId -> ürün satırları (pasifler dahil, id sıralı)
+        Map<Long, List<Object[]>> byMaterial = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            byMaterial.computeIfAbsent((Long) row[1], id -> new ArrayList<>()).add(row);
+        }
+        Map<Long, Integer> expectedByPp = new HashMap<>();
+        Map<Long, Integer> observedByPp = new HashMap<>();
+        for (Map.Entry<Long, List<Object[]>> entry : byMaterial.entrySet()) {
+            checkAllocation(entry.getKey(), chunk.stocks.get(entry.getKey()), entry.getValue(), result, expectedByPp);
+        }
+        for (Object[] row : rows) {
+            observedByPp.put((Long) row[0], row[2] == null ? 0 : (Integer) row[2]);
+        }
+        if (remoteEnabled && !byMaterial.isEmpty()) {
+            checkRemote(byMaterial.keySet(), remoteBudget, result);
+        }
+        if (autoCorrect && !result.drifts.isEmpty()) {
+            correct(result, expectedByPp, observedByPp);
+        }
+        // Sapma bulunan veya kota yüzünden uzak kontrolü atlanan parça temiz sayılmaz; bir sonraki çalıştırmada yeniden doğrulanır
+        next.put(chunk.key, new ChunkState(hash, result.drifts.isEmpty() && result.remoteSkipped == 0, now));
+        return result;
+    }
+
+    private void checkAllocation(Long materialId, BigDecimal currentStock, List<Object[]> rows, ChunkResult result,
+                                 Map<Long, Integer> expectedByPp) {
+        long available = currentStock == null ? 0 : Math.max(0, currentStock.setScale(0, RoundingMode.FLOOR).longValue());
+        boolean[] active = new boolean[rows.size()];
+        int[] ratios = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            active[i] = Boolean.TRUE.equals(rows.get(i)[5]);
+            ratios[i] = StockDistribution.ratio((Integer) rows.get(i)[4]);
+        }
+        int[] portions = StockDistribution.portions(active, ratios, (int) Math.min(Integer.MAX_VALUE, available));
+
+        long allocated = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            if (!active[i]) continue;
+            Object[] row = rows.get(i);
+            Long ppId = (Long) row[0];
+            int stock = row[2] == null ? 0 : (Integer) row[2];
+            int expected = portions[i];
+            expectedByPp.put(ppId, expected);
+            allocated += stock;
+            if (Math.abs(stock - expected) > tolerance) {
+                result.drifts.add(new Drift(DriftType.ALLOCATION_DRIFT, materialId, ppId, (Long) row[3], expected, stock));
+            }
+        }
+        if (allocated > available) {
+            result.drifts.add(new Drift(DriftType.OVERALLOCATED, materialId, null, null, available, allocated));
+        }
+    }
+
+    // Platform çağrıları client'ın hız sınırı ve devre kesicisinden geçer; kota bitince kalan ürünler atlanır
+    private void checkRemote(Set<Long> materialIds, AtomicInteger remoteBudget, ChunkResult result) {
+        List<PlatformProduct> products = readTransaction.execute(tx ->
+            platformProductRepository.findWithPlatformByMaterialIds(materialIds));
+        for (PlatformProduct pp : products) {
+            if (!pp.isActive() || !pp.getPlatform().isActive()) continue;
+            if (remoteBudget.getAndDecrement() <= 0) {
+                result.remoteSkipped++;
+                continue;
+            }
+            try {
+                Integer remote = platformClientFactory.getClient(pp.getPlatform(), DispatchLane.BULK).fetchStock(pp.getPlatform(), pp);
+                if (remote == null) continue;
+                result.remoteChecked++;
+                int local = pp.getStock() == null ? 0 : pp.getStock();
+                if (remote != local) {
+                    result.drifts.add(new Drift(DriftType.REMOTE_DRIFT, pp.getMaterial().getId(), pp.getId(),
+                        pp.getPlatform().getId(), local, remote));
+                }
+            } catch (Exception e) {
+                result.remoteErrors++;
+            }
+        }
+    }
+
+    /**
+     * Yerel stok doğru kaynak kabul edilir: dağılım sapmasında platform ürünü beklenen paya çekilir,
+     * uzak sapmada yerel değer yeniden gönderilir. Düzeltmeler stok güncellemesi gibi aynı transaction'da
+     * outbox'a yazılır; yalnızca işaretlenen satır gönderilmeden senkronize sayılabilirdi. Okuma ile düzeltme
+     * arasında değişmiş ürünlere dokunulmaz.
+     */
+    private void correct(ChunkResult result, Map<Long, Integer> expectedByPp, Map<Long, Integer> observedByPp) {
+        Map<Long, Drift> byPp = new LinkedHashMap<>();
+        List<Long> overallocated = new ArrayList<>();
+        for (Drift drift : result.drifts) {
+            if (drift.type == DriftType.OVERALLOCATED) {
+                overallocated.add(drift.materialId);
+            } else {
+                byPp.putIfAbsent(drift.platformProductId, drift);
+            }
+        }
+        writeTransaction.executeWithoutResult(tx -> {
+            Map<PlatformProduct, Integer> corrections = new LinkedHashMap<>();
+            Map<Long, PlatformProduct> products = new HashMap<>();
+            for (PlatformProduct pp : platformProductRepository.findAllById(byPp.keySet())) {
+                products.put(pp.getId(), pp);
+            }
+            if (!overallocated.isEmpty()) {
+                for (PlatformProduct pp : platformProductRepository.findWithPlatformByMaterialIds(overallocated)) {
+                    products.putIfAbsent(pp.getId(), pp);
+                }
+            }
+            for (Drift drift : result.drifts) {
+                if (drift.type == DriftType.OVERALLOCATED) {
+                    // Malzemenin tüm platform ürünleri beklenen paya çekilir; paylar toplamı eldeki stoku aşmaz
+                    boolean fixed = true;
+                    for (PlatformProduct pp : products.values()) {
+                        if (!drift.materialId.equals(pp.getMaterial().getId())) continue;
+                        Integer expected = expectedByPp.get(pp.getId());
+                        int current = pp.getStock() == null ? 0 : pp.getStock();
+                        if (expected != null && current == expected) continue;
+                        if (expected != null && Integer.valueOf(current).equals(observedByPp.get(pp.getId()))) {
+                            pp.setStock(expected);
+                            corrections.put(pp, expected);
+                        } else {
+                            fixed = false;
+                        }
+                    }
+                    drift.corrected = fixed;
+                    continue;
+                }
+                PlatformProduct pp = products.get(drift.platformProductId);
+                int current = pp == null || pp.getStock() == null ? 0 : pp.getStock();
+                if (drift.type == DriftType.ALLOCATION_DRIFT) {
+                    if (pp == null || current != drift.actual) continue;
+                    pp.setStock((int) drift.expected);
+                    corrections.put(pp, (int) drift.expected);
+                    drift.corrected = true;
+                } else if (pp != null && current == drift.expected) {
+                    // Platform yerel değere çekilir
+                    pp.markChanged();
+                    corrections.put(pp, current);
+                    drift.corrected = true;
+                }
+            }
+            outboxService.enqueueStock(corrections);
+        });
+        result.drifts.forEach(d -> { if (d.corrected) result.corrected++; });
+    }
+
+    // FNV-1a (64 bit) ile parçadaki tüm stok/oran değerlerinin özeti
+    private static long fingerprint(Chunk chunk, List<Object[]> rows) {
+        long h = 0xCBF29CE484222325L;
+        for (Map.Entry<Long, BigDecimal> entry : chunk.stocks.entrySet()) {
+            h = mix(h, entry.getKey());
+            h = mix(h, entry.getValue() == null ? 0 : entry.getValue().stripTrailingZeros().hashCode());
+        }
+        for (Object[] row : rows) {
+            for (Object value : row) {
+                h = mix(h, value == null ? -1 : value.hashCode());
+            }
+        }
+        return h;
+    }
+
+    private static long mix(long h, long value) {
+        for (int i = 0; i < 8; i++) {
+            h ^= (value >>> (i * 8)) & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        return h;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("running", running.get());
+        data.put("trackedChunks", chunkStates.size());
+        Report report = lastReport;
+        if (report != null) {
+            Map<String, Object> last = report.toMap();
+            last.remove("drifts");
+            data.put("lastRun", last);
+        }
+        return data;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class Chunk {
+        final String key;
+        // materialId -> currentStock, id sıralı
+        final Map<Long, BigDecimal> stocks = new LinkedHashMap<>();
+
+        Chunk(List<Object[]> page) {
+            for (Object[] row : page) {
+                stocks.put((Long) row[0], (BigDecimal) row[1]);
+            }
+            this.key = page.get(0)[0] + "-" + page.get(page.size() - 1)[0];
+        }
+    }
+
+    private static final class ChunkState {
+        final long hash;
+        final boolean clean;
+        final long checkedAt;
+
+        ChunkState(long hash, boolean clean, long checkedAt) {
+            this.hash = hash;
+            this.clean = clean;
+            this.checkedAt = checkedAt;
+        }
+    }
+
+    private static final class ChunkResult {
+        final int materials;
+        final int platformProducts;
+        final List<Drift> drifts = new ArrayList<>();
+        boolean skipped;
+        int remoteChecked;
+        int remoteErrors;
+        int remoteSkipped;
+        int corrected;
+
+        ChunkResult(int materials, int platformProducts) {
+            this.materials = materials;
+            this.platformProducts = platformProducts;
+        }
+    }
+
+    public static final class Drift {
+        private final DriftType type;
+        private final Long materialId;
+        private final Long platformProductId;
+        private final Long platformId;
+        private final long expected;
+        private final long actual;
+        private boolean corrected;
+
+        Drift(DriftType type, Long materialId, Long platformProductId, Long platformId, long expected, long actual) {
+            this.type = type;
+            this.materialId = materialId;
+            this.platformProductId = platformProductId;
+            this.platformId = platformId;
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        public DriftType getType() { return type; }
+        public Long getMaterialId() { return materialId; }
+        public Long getPlatformProductId() { return platformProductId; }
+        public Long getPlatformId() { return platformId; }
+        public long getExpected() { return expected; }
+        public long getActual() { return actual; }
+        public boolean isCorrected() { return corrected; }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("type", type.name());
+            data.put("materialId", materialId);
+            data.put("platformProductId", platformProductId);
+            data.put("platformId", platformId);
+            data.put("expected", expected);
+            data.put("actual", actual);
+            data.put("difference", actual - expected);
+            data.put("corrected", corrected);
+            return data;
+        }
+    }
+
+    public static final class Report {
+        private final boolean autoCorrect;
+        private final boolean fullScan;
+        private final boolean remoteChecks;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private long durationMs;
+        private int materialsScanned;
+        private int platformProductsScanned;
+        private int chunksChecked;
+        private int chunksSkipped;
+        private int chunkErrors;
+        private int remoteChecked;
+        private int remoteErrors;
+        private int remoteSkipped;
+        private int driftCount;
+        private int corrected;
+        private final Map<DriftType, Integer> driftsByType = new LinkedHashMap<>();
+        private final List<Drift> drifts = new ArrayList<>();
+
+        Report(boolean autoCorrect, boolean fullScan, boolean remoteChecks) {
+            this.autoCorrect = autoCorrect;
+            this.fullScan = fullScan;
+            this.remoteChecks = remoteChecks;
+        }
+
+        void add(ChunkResult chunk, int maxDrifts) {
+            materialsScanned += chunk.materials;
+            platformProductsScanned += chunk.platformProducts;
+            if (chunk.skipped) chunksSkipped++;
+            else chunksChecked++;
+            remoteChecked += chunk.remoteChecked;
+            remoteErrors += chunk.remoteErrors;
+            remoteSkipped += chunk.remoteSkipped;
+            corrected += chunk.corrected;
+            driftCount += chunk.drifts.size();
+            for (Drift drift : chunk.drifts) {
+                driftsByType.merge(drift.type, 1, Integer::sum);
+                if (drifts.size() < maxDrifts) drifts.add(drift);
+            }
+        }
+
+        void finish() {
+            durationMs = (System.nanoTime() - startNanos) / 1_000_000L;
+        }
+
+        public List<Drift> getDrifts() { return drifts; }
+        public int getDriftCount() { return driftCount; }
+        public int getCorrected() { return corrected; }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("startedAt", startedAt);
+            data.put("durationMs", durationMs);
+            data.put("autoCorrect", autoCorrect);
+            data.put("fullScan", fullScan);
+            data.put("remoteChecks", remoteChecks);
+            data.put("materialsScanned", materialsScanned);
+            data.put("platformProductsScanned", platformProductsScanned);
+            data.put("chunksChecked", chunksChecked);
+            data.put("chunksSkipped", chunksSkipped);
+            data.put("chunkErrors", chunkErrors);
+            data.put("remoteChecked", remoteChecked);
+            data.put("remoteErrors", remoteErrors);
+            data.put("remoteSkipped", remoteSkipped);
+            data.put("driftCount", driftCount);
+            data.put("driftsByType", new LinkedHashMap<>(driftsByType));
+            data.put("corrected", corrected);
+            data.put("truncated", drifts.size() < driftCount);
+            data.put("drifts", drifts.stream().map(Drift::toMap).toList());
+            return data;
+        }
+    }
+}
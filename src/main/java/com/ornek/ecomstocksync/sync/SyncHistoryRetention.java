@@ -0,0 +1,138 @@
+package com.ornek.ecomstocksync.sync;
+
+import com.ornek.ecomstocksync.repository.SyncHistoryDailyRepository;
+import com.ornek.ecomstocksync.repository.SyncHistoryHourlyRepository;
+import com.ornek.ecomstocksync.repository.SyncHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Geçmiş tablolarının saklama süresi: ham satırlar history.retention.raw.days, saatlik özetler
+ * history.retention.hourly.days, günlük özetler history.retention.daily.days sonra silinir.
+ * Ham satırlar en eskiden başlayarak parça parça ve her parça ayrı transaction'da silinir; böylece uzun kilit
+ * ve büyük undo/WAL oluşmaz, yazıcı ile çakışma kısa sürer. Özetler bu süreden önce ham veriden beslendiği için
+ * eski dönemlerin sayıları budamadan sonra da okunabilir.
+ */
+@Component
+public class SyncHistoryRetention {
+    private static final Logger log = LoggerFactory.getLogger(SyncHistoryRetention.class);
+
+    private final SyncHistoryRepository historyRepository;
+    private final SyncHistoryHourlyRepository hourlyRepository;
+    private final SyncHistoryDailyRepository dailyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int rawDays;
+    private final int hourlyDays;
+    private final int dailyDays;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong rawDeleted = new AtomicLong();
+    private final AtomicLong hourlyDeleted = new AtomicLong();
+    private final AtomicLong dailyDeleted = new AtomicLong();
+    private volatile long lastRunAt;
+    private volatile long lastRunDurationMs;
+    private volatile String lastError;
+
+    public SyncHistoryRetention(SyncHistoryRepository historyRepository,
+                                SyncHistoryHourlyRepository hourlyRepository,
+                                SyncHistoryDailyRepository dailyRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${history.retention.raw.days:30}") int rawDays,
+                                @Value("${history.retention.hourly.days:90}") int hourlyDays,
+                                @Value("${history.retention.daily.days:730}") int dailyDays,
+                                @Value("${history.retention.chunk-size:1000}") int chunkSize,
+                                @Value("${history.retention.max-chunks-per-run:1000}") int maxChunksPerRun) {
+        this.historyRepository = historyRepository;
+        this.hourlyRepository = hourlyRepository;
+        this.dailyRepository = dailyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rawDays = rawDays;
+        this.hourlyDays = hourlyDays;
+        this.dailyDays = dailyDays;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxChunksPerRun = Math.max(1, maxChunksPerRun);
+    }
+
+    /**
+     * Süresi dolan geçmişi siler. 0 veya negatif gün sayısı o katmanın budanmamasını sağlar.
+     * @return Silinen ham satır sayısı
+     */
+    public long prune() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        long deleted = 0;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (rawDays > 0) {
+                LocalDateTime before = now.minusDays(rawDays);
+                // Bir turda en fazla maxChunksPerRun parça; kalan birikme sonraki turda silinir
+                for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+                    Integer removed = transactionTemplate.execute(tx -> {
+                        List<Long> ids = historyRepository.findIdsCreatedBefore(before, PageRequest.of(0, chunkSize));
+                        return ids.isEmpty() ? 0 : historyRepository.deleteByIds(ids);
+                    });
+                    if (removed == null || removed == 0) {
+                        break;
+                    }
+                    deleted += removed;
+                    rawDeleted.addAndGet(removed);
+                }
+            }
+            if (hourlyDays > 0) {
+                Integer removed = transactionTemplate.execute(tx -> hourlyRepository.deleteBucketsBefore(now.minusDays(hourlyDays)));
+                hourlyDeleted.addAndGet(removed == null ? 0 : removed);
+            }
+            if (dailyDays > 0) {
+                Integer removed = transactionTemplate.execute(tx -> dailyRepository.deleteBucketsBefore(now.minusDays(dailyDays)));
+                dailyDeleted.addAndGet(removed == null ? 0 : removed);
+            }
+            lastError = null;
+            if (deleted > 0) {
+                log.info("Pruned {} sync history rows older than {} days", deleted, rawDays);
+            }
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            log.error("Sync history retention failed: {}", e.getMessage());
+        } finally {
+            runs.incrementAndGet();
+            lastRunAt = start;
+            lastRunDurationMs = System.currentTimeMillis() - start;
+            running.set(false);
+        }
+        return deleted;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("rawDays", rawDays);
+        data.put("hourlyDays", hourlyDays);
+        data.put("dailyDays", dailyDays);
+        data.put("chunkSize", chunkSize);
+        data.put("runs", runs.get());
+        data.put("rawDeleted", rawDeleted.get());
+        data.put("hourlyDeleted", hourlyDeleted.get());
+        data.put("dailyDeleted", dailyDeleted.get());
+        data.put("lastRunAt", lastRunAt == 0 ? null : Instant.ofEpochMilli(lastRunAt).toString());
+        data.put("lastRunDurationMs", lastRunDurationMs);
+        data.put("lastError", lastError);
+        return data;
+    }
+}
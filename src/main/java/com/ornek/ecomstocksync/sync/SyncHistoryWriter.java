@@ -0,0 +1,379 @@
+package com.ornek.ecomstocksync.sync;
+
+import com.ornek.ecomstocksync.entity.SyncHistory;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SyncHistory kayıtlarını çağıranın transaction'ından ayırıp sınırlı bir halka tamponda toplar ve tek bir
+ * yazıcı thread'iyle JDBC batch INSERT olarak yazar (batch-size dolunca veya flush-interval geçince).
+ * IDENTITY anahtarlı entity'ler Hibernate ile batch'lenemediği için doğrudan JDBC kullanılır; üretilen id'ye
+ * ihtiyaç yoktur. Aynı transaction'da saatlik ve günlük özet satırları (sync_history_hourly/daily) parti içinde
+ * toplanıp artımlı güncellenir: anahtar başına tek UPDATE, satır yoksa INSERT.
+ * <p>
+ * Tampon dolduğunda davranış history.writer.overflow ile seçilir:
+ * <ul>
+ *   <li>BLOCK: çağıran block-timeout kadar yer açılmasını bekler, açılmazsa kayıt düşer ve sayılır.</li>
+ *   <li>DROP: kayıt hemen düşer ve sayılır; sıcak yol hiç beklemez.</li>
+ *   <li>SPILL: kayıt çağıranın thread'inde tek satır olarak doğrudan yazılır; kayıp olmaz, yük veritabanına geçer.</li>
+ * </ul>
+ * Kapanışta tampon boşaltılır. Ani çökmede tampondaki (en fazla bir aralıklık) kayıtlar kaybolur; geçmiş
+ * denetim amaçlıdır, stok durumunu etkilemez.
+ */
+@Component
+public class SyncHistoryWriter {
+    private static final Logger log = LoggerFactory.getLogger(SyncHistoryWriter.class);
+
+    public enum OverflowPolicy { BLOCK, DROP, SPILL }
+
+    private static final int MAX_DETAIL_LENGTH = 1000;
+    private static final String INSERT_SQL = "INSERT INTO sync_history "
+        + "(platform_id, material_id, platform_product_id, action, status, detail, created_at) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String[] ROLLUP_TABLES = {"sync_history_hourly", "sync_history_daily"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final BlockingQueue<Entry> buffer;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMs;
+    private final Thread writer;
+    private final AtomicBoolean running = new AtomicBoolean(true);
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong failedRows = new AtomicLong();
+    private final AtomicLong lastFlushMs = new AtomicLong();
+
+    public SyncHistoryWriter(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${history.writer.capacity:10000}") int capacity,
+                             @Value("${history.writer.batch-size:500}") int batchSize,
+                             @Value("${history.writer.flush-interval.ms:1000}") long flushIntervalMs,
+                             @Value("${history.writer.overflow:BLOCK}") String overflowPolicy,
+                             @Value("${history.writer.block-timeout.ms:1000}") long blockTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        // Doğrudan yazma (SPILL, kapanış) çağıranın transaction'ına katılmaz: sıcak özet satırının kilidi çağıranın
+        // commit'ine kadar tutulmaz ve çakışma sonrası yeniden deneme rollback-only bir transaction'da kalmaz
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = Math.max(10, flushIntervalMs);
+        this.overflowPolicy = OverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase(Locale.ROOT));
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.writer = new Thread(this::runWriter, "sync-history-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Kaydı tampona ekler. Çağıranın transaction'ına bağlı değildir; çağıran geri alınsa da kayıt yazılır.
+     */
+    public void submit(Long platformId, Long materialId, Long platformProductId,
+                       SyncHistory.Action action, SyncHistory.Status status, String detail) {
+        if (detail != null && detail.length() > MAX_DETAIL_LENGTH) {
+            detail = detail.substring(0, MAX_DETAIL_LENGTH);
+        }
+        Entry entry = new Entry(platformId, materialId, platformProductId, action, status, detail, LocalDateTime.now());
+        if (!running.get()) {
+            // Kapanış sürüyor: yazıcı durduysa kayıt doğrudan yazılır
+            writeDirect(entry);
+            return;
+        }
+        if (buffer.offer(entry)) {
+            enqueued.incrementAndGet();
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK:
+                blocked.incrementAndGet();
+                try {
+                    if (buffer.offer(entry, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        enqueued.incrementAndGet();
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                dropped.incrementAndGet();
+                break;
+            case SPILL:
+                writeDirect(entry);
+                break;
+            default:
+                dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Kaydı beklemeden, çağıranın transaction'ı içinde yazar (history.writer.enabled=false)
+     */
+    public void write(Long platformId, Long materialId, Long platformProductId,
+                      SyncHistory.Action action, SyncHistory.Status status, String detail) {
+        if (detail != null && detail.length() > MAX_DETAIL_LENGTH) {
+            detail = detail.substring(0, MAX_DETAIL_LENGTH);
+        }
+        persist(List.of(new Entry(platformId, materialId, platformProductId, action, status, detail, LocalDateTime.now())));
+        written.incrementAndGet();
+    }
+
+    private void runWriter() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running.get() || !buffer.isEmpty()) {
+            try {
+                Entry first = buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Parti dolana veya aralık bitene kadar biriktir
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    if (buffer.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || !running.get()) {
+                        break;
+                    }
+                    Entry next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                // Kapanış: döngü kalan kayıtları boşaltıp çıkar
+                Thread.interrupted();
+            } catch (Exception e) {
+                log.error("Sync history writer failed: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<Entry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            persist(batch);
+            written.addAndGet(batch.size());
+            batches.incrementAndGet();
+        } catch (Exception e) {
+            failedRows.addAndGet(batch.size());
+            log.error("Sync history batch of {} rows could not be written: {}", batch.size(), e.getMessage());
+        }
+        lastFlushMs.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void writeDirect(Entry entry) {
+        try {
+            persist(List.of(entry));
+            spilled.incrementAndGet();
+            written.incrementAndGet();
+        } catch (Exception e) {
+            failedRows.incrementAndGet();
+            log.error("Sync history row could not be written: {}", e.getMessage());
+        }
+    }
+
+    // Ham satırlar ve özetler tek transaction'da: ya ikisi de yazılır ya hiçbiri
+    private void persist(List<Entry> entries) {
+        try {
+            persistOnce(entries);
+        } catch (DataIntegrityViolationException e) {
+            // Aynı özet satırını başka bir düğüm az önce ekledi; tekrar denemede UPDATE bulur
+            persistOnce(entries);
+        }
+    }
+
+    private void persistOnce(List<Entry> entries) {
+        writeTransaction.executeWithoutResult(tx -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+                setLong(ps, 1, entry.platformId);
+                setLong(ps, 2, entry.materialId);
+                setLong(ps, 3, entry.platformProductId);
+                ps.setString(4, entry.action.name());
+                ps.setString(5, entry.status.name());
+                ps.setString(6, entry.detail);
+                ps.setTimestamp(7, Timestamp.valueOf(entry.createdAt));
+            });
+            for (String table : ROLLUP_TABLES) {
+                boolean daily = table.endsWith("daily");
+                Map<List<Object>, Rollup> rollups = new LinkedHashMap<>();
+                for (Entry entry : entries) {
+                    LocalDateTime bucket = daily
+                        ? entry.createdAt.truncatedTo(ChronoUnit.DAYS)
+                        : entry.createdAt.truncatedTo(ChronoUnit.HOURS);
+                    Long platformId = entry.platformId == null ? 0L : entry.platformId;
+                    rollups.computeIfAbsent(List.of(bucket, platformId, entry.action, entry.status),
+                        k -> new Rollup(bucket, platformId, entry.action, entry.status)).add(entry);
+                }
+                for (Rollup rollup : rollups.values()) {
+                    upsertRollup(table, rollup);
+                }
+            }
+        });
+    }
+
+    private void upsertRollup(String table, Rollup r) {
+        if (updateRollup(table, r) > 0) {
+            return;
+        }
+        jdbcTemplate.update(
+            "INSERT INTO " + table + " (bucket_start, platform_id, action, status, event_count, last_event_at, last_error, last_error_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+            Timestamp.valueOf(r.bucket), r.platformId, r.action.name(), r.status.name(), r.count,
+            Timestamp.valueOf(r.lastEventAt), r.lastError, r.lastErrorAt == null ? null : Timestamp.valueOf(r.lastErrorAt));
+    }
+
+    private int updateRollup(String table, Rollup r) {
+        Timestamp lastEventAt = Timestamp.valueOf(r.lastEventAt);
+        String where = " WHERE bucket_start = ? AND platform_id = ? AND action = ? AND status = ?";
+        if (r.lastErrorAt == null) {
+            return jdbcTemplate.update("UPDATE " + table + " SET event_count = event_count + ?, "
+                    + "last_event_at = CASE WHEN last_event_at IS NULL OR last_event_at < ? THEN ? ELSE last_event_at END" + where,
+                r.count, lastEventAt, lastEventAt,
+                Timestamp.valueOf(r.bucket), r.platformId, r.action.name(), r.status.name());
+        }
+        Timestamp lastErrorAt = Timestamp.valueOf(r.lastErrorAt);
+        return jdbcTemplate.update("UPDATE " + table + " SET event_count = event_count + ?, "
+                + "last_event_at = CASE WHEN last_event_at IS NULL OR last_event_at < ? THEN ? ELSE last_event_at END, "
+                + "last_error = CASE WHEN last_error_at IS NULL OR last_error_at <= ? THEN ? ELSE last_error END, "
+                + "last_error_at = CASE WHEN last_error_at IS NULL OR last_error_at <= ? THEN ? ELSE last_error_at END" + where,
+            r.count, lastEventAt, lastEventAt, lastErrorAt, r.lastError, lastErrorAt, lastErrorAt,
+            Timestamp.valueOf(r.bucket), r.platformId, r.action.name(), r.status.name());
+    }
+
+    private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, value);
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("overflowPolicy", overflowPolicy.name());
+        data.put("bufferDepth", buffer.size());
+        data.put("bufferCapacity", buffer.size() + buffer.remainingCapacity());
+        data.put("enqueued", enqueued.get());
+        data.put("written", written.get());
+        data.put("batches", batches.get());
+        data.put("avgBatchSize", batches.get() == 0 ? 0.0 : (double) (written.get() - spilled.get()) / batches.get());
+        data.put("dropped", dropped.get());
+        data.put("spilled", spilled.get());
+        data.put("blocked", blocked.get());
+        data.put("failedRows", failedRows.get());
+        data.put("lastFlushMs", lastFlushMs.get());
+        return data;
+    }
+
+    /**
+     * Yeni kayıtları doğrudan yazmaya geçer, tampondakileri boşaltır ve yazıcıyı bekler
+     */
+    @PreDestroy
+    public void shutdown() {
+        // Yazıcı kesilmez (JDBC çağrısı yarıda kalmasın); en geç bir aralık içinde tamponu boşaltıp çıkar
+        running.set(false);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Entry> rest = new ArrayList<>();
+        buffer.drainTo(rest);
+        if (!rest.isEmpty()) {
+            writeBatch(rest);
+        }
+        log.info("Sync history writer stopped: written={}, dropped={}", written.get(), dropped.get());
+    }
+
+    private static final class Rollup {
+        final LocalDateTime bucket;
+        final Long platformId;
+        final SyncHistory.Action action;
+        final SyncHistory.Status status;
+        long count;
+        LocalDateTime lastEventAt;
+        String lastError;
+        LocalDateTime lastErrorAt;
+
+        Rollup(LocalDateTime bucket, Long platformId, SyncHistory.Action action, SyncHistory.Status status) {
+            this.bucket = bucket;
+            this.platformId = platformId;
+            this.action = action;
+            this.status = status;
+        }
+
+        void add(Entry entry) {
+            count++;
+            if (lastEventAt == null || entry.createdAt.isAfter(lastEventAt)) {
+                lastEventAt = entry.createdAt;
+            }
+            if (status == SyncHistory.Status.FAILURE && (lastErrorAt == null || !entry.createdAt.isBefore(lastErrorAt))) {
+                lastErrorAt = entry.createdAt;
+                lastError = entry.detail;
+            }
+        }
+    }
+
+    private static final class Entry {
+        final Long platformId;
+        final Long materialId;
+        final Long platformProductId;
+        final SyncHistory.Action action;
+        final SyncHistory.Status status;
+        final String detail;
+        final LocalDateTime createdAt;
+
+        Entry(Long platformId, Long materialId, Long platformProductId,
+              SyncHistory.Action action, SyncHistory.Status status, String detail, LocalDateTime createdAt) {
+            this.platformId = platformId;
+            this.materialId = materialId;
+            this.platformProductId = platformProductId;
+            this.action = action;
+            this.status = status;
+            this.detail = detail;
+            this.createdAt = createdAt;
+        }
+    }
+}
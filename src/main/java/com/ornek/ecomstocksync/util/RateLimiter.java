@@ -1,59 +1,194 @@
-
 package com.ornek.ecomstocksync.util;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.ornek.ecomstocksync.entity.Platform;
 import com.ornek.ecomstocksync.metrics.IntegrationMetricsService;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 @Component
 public class RateLimiter {
     private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
 
-    private static class Bucket {
-        int capacity;
-        double refillPerSecond;
-        double tokens;
-        long lastRefillEpochSec;
+    /**
+     * Kilitsiz token bucket. Durum tek bir long'dur: kovanın "boş" sayıldığı an (nanoTime).
+     * Mevcut token = min(capacity, (now - emptyAt) / nanosPerToken); bir izin almak emptyAt'i
+     * nanosPerToken kadar ileri kaydırmaktır. Güncelleme CAS ile yapılır, dolum nanosaniye hassasiyetindedir.
+     */
+    static final class Bucket {
+        final int capacity;
+        final double refillPerSecond;
+        final long nanosPerToken;
+        final AtomicLong emptyAt;
+
         Bucket(int capacity, double refillPerSecond) {
             this.capacity = capacity;
             this.refillPerSecond = refillPerSecond;
-            this.tokens = capacity;
-            this.lastRefillEpochSec = Instant.now().getEpochSecond();
-        }
-        synchronized boolean tryAcquire() {
-            long now = Instant.now().getEpochSecond();
-            long delta = Math.max(0, now - lastRefillEpochSec);
-            if (delta > 0) {
-                tokens = Math.min(capacity, tokens + delta * refillPerSecond);
-                lastRefillEpochSec = now;
-            }
-            if (tokens >= 1.0) {
-                tokens -= 1.0;
-                return true;
+            this.nanosPerToken = (long) Math.max(1, 1_000_000_000L / refillPerSecond);
+            // Başlangıçta kova dolu
+            this.emptyAt = new AtomicLong(System.nanoTime() - capacity * nanosPerToken);
+        }
+
+        boolean sameConfig(int capacity, double refillPerSecond) {
+            return this.capacity == capacity && this.refillPerSecond == refillPerSecond;
+        }
+
+        // Kovada kalan token oranı (0-1)
+        double availableFraction() {
+            long tokens = (System.nanoTime() - emptyAt.get()) / nanosPerToken;
+            return Math.max(0, Math.min(capacity, tokens)) / (double) capacity;
+        }
+
+        boolean tryAcquire() {
+            return reserve(0) == 0;
+        }
+
+        /**
+         * Bir izin ayırır ve iznin kullanılabilir olacağı ana kadar beklenmesi gereken süreyi döner.
+         * Bekleme maxWaitNanos'u aşacaksa hiçbir şey ayırmaz ve -1 döner.
+         */
+        long reserve(long maxWaitNanos) {
+            while (true) {
+                long now = System.nanoTime();
+                long current = emptyAt.get();
+                long floor = now - capacity * nanosPerToken;
+                long next = Math.max(current, floor) + nanosPerToken;
+                long wait = next - now;
+                if (wait > maxWaitNanos) {
+                    return -1;
+                }
+                if (emptyAt.compareAndSet(current, next)) {
+                    return Math.max(0, wait);
+                }
             }
-            return false;
         }
     }
 
     private final Map<String, Bucket> keyToBucket = new ConcurrentHashMap<>();
     private final IntegrationMetricsService metricsService;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "rate-limiter");
+        t.setDaemon(true);
+        return t;
+    });
 
     public RateLimiter(IntegrationMetricsService metricsService) {
         this.metricsService = metricsService;
     }
 
     public boolean tryAcquire(String key, int capacity, double refillPerSecond) {
-        Bucket b = keyToBucket.computeIfAbsent(key, k -> new Bucket(capacity, refillPerSecond));
-        boolean ok = b.tryAcquire();
+        boolean ok = bucket(key, capacity, refillPerSecond).tryAcquire();
         if (!ok) {
-            log.warn("Rate limit exceeded for key={}", key);
-            metricsService.incrementRateLimited(key);
+            rejected(key);
         }
         return ok;
     }
+
+    /**
+     * İzin alınana kadar en fazla timeout kadar bekler
+     * @return İzin alındı mı
+     */
+    public boolean acquire(String key, int capacity, double refillPerSecond, Duration timeout) {
+        long wait = bucket(key, capacity, refillPerSecond).reserve(timeout.toNanos());
+        if (wait < 0) {
+            rejected(key);
+            return false;
+        }
+        metricsService.recordLimiterWait(key, wait);
+        long deadline = System.nanoTime() + wait;
+        while (wait > 0) {
+            LockSupport.parkNanos(this, wait);
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            wait = deadline - System.nanoTime();
+        }
+        return true;
+    }
+
+    /**
+     * İzin kullanılabilir olduğunda tamamlanan bir future döner; çağıran thread bloklanmaz.
+     * Bekleme maxWait'i aşacaksa future RateLimitExceededException ile tamamlanır.
+     */
+    public CompletableFuture<Void> acquireAsync(String key, int capacity, double refillPerSecond, Duration maxWait) {
+        long wait = bucket(key, capacity, refillPerSecond).reserve(maxWait.toNanos());
+        if (wait < 0) {
+            rejected(key);
+            return CompletableFuture.failedFuture(new RateLimitExceededException(key));
+        }
+        metricsService.recordLimiterWait(key, wait);
+        if (wait == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        scheduler.schedule(() -> future.complete(null), wait, TimeUnit.NANOSECONDS);
+        return future;
+    }
+
+    // Platform bazlı: kapasite ve dolum hızı platform ayarından, yoksa client varsayılanından okunur
+    public boolean acquire(Platform platform, int defaultCapacity, double defaultRefillPerSecond, Duration timeout) {
+        return acquire(platformKey(platform), capacity(platform, defaultCapacity), refill(platform, defaultRefillPerSecond), timeout);
+    }
+
+    public CompletableFuture<Void> acquireAsync(Platform platform, int defaultCapacity, double defaultRefillPerSecond, Duration maxWait) {
+        return acquireAsync(platformKey(platform), capacity(platform, defaultCapacity), refill(platform, defaultRefillPerSecond), maxWait);
+    }
+
+    /**
+     * Platform kovasında kalan API hakkı oranı; platforma henüz istek gitmediyse null
+     */
+    public Double availableFraction(Platform platform) {
+        Bucket bucket = keyToBucket.get(platformKey(platform));
+        return bucket == null ? null : bucket.availableFraction();
+    }
+
+    public static String platformKey(Platform platform) {
+        return platform.getType().name().toLowerCase() + ":" + platform.getId();
+    }
+
+    private static int capacity(Platform platform, int defaultCapacity) {
+        Integer configured = platform.getRateLimitCapacity();
+        return configured != null && configured > 0 ? configured : defaultCapacity;
+    }
+
+    private static double refill(Platform platform, double defaultRefillPerSecond) {
+        Double configured = platform.getRateLimitPerSecond();
+        return configured != null && configured > 0 ? configured : defaultRefillPerSecond;
+    }
+
+    private Bucket bucket(String key, int capacity, double refillPerSecond) {
+        Bucket existing = keyToBucket.get(key);
+        if (existing != null && existing.sameConfig(capacity, refillPerSecond)) {
+            return existing;
+        }
+        // Platform ayarı değiştiyse kova yeni değerlerle yeniden oluşturulur
+        return keyToBucket.compute(key, (k, b) -> b != null && b.sameConfig(capacity, refillPerSecond) ? b : new Bucket(capacity, refillPerSecond));
+    }
+
+    private void rejected(String key) {
+        log.warn("Rate limit exceeded for key={}", key);
+        metricsService.incrementRateLimited(key);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public static class RateLimitExceededException extends RuntimeException {
+        public RateLimitExceededException(String key) {
+            super("rate-limited: " + key);
+        }
+    }
 }
@@ -0,0 +1,13 @@
+package com.ornek.ecomstocksync.util;
+
+/**
+ * Karşı tarafın ne zaman tekrar denenebileceğini bildirdiği hatalar (ör. HTTP 429 + Retry-After).
+ * RetryExecutor bekleme süresini bu değerden kısa tutmaz.
+ */
+public interface RetryAfterHint {
+
+    /**
+     * @return Tekrar denemeden önce beklenecek en kısa süre; bilinmiyorsa 0
+     */
+    long getRetryAfterMs();
+}
@@ -1,41 +1,150 @@
-
 package com.ornek.ecomstocksync.util;
 
 import com.ornek.ecomstocksync.metrics.IntegrationMetricsService;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
 @Component
 public class RetryExecutor {
     private static final Logger log = LoggerFactory.getLogger(RetryExecutor.class);
 
     private final IntegrationMetricsService metricsService;
+    private final ScheduledExecutorService scheduler;
 
-    public RetryExecutor(IntegrationMetricsService metricsService) {
+    public RetryExecutor(IntegrationMetricsService metricsService,
+                         @Value("${retry.scheduler.threads:4}") int schedulerThreads) {
         this.metricsService = metricsService;
+        AtomicInteger threadSeq = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(Math.max(1, schedulerThreads), r -> {
+            Thread t = new Thread(r, "retry-" + threadSeq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
     }
 
+    /**
+     * Senkron çağıranlar için: deneme tükendiğinde son hatayı RetryExhaustedException ile fırlatır.
+     */
     public void executeWithRetry(Runnable task, int maxAttempts, long backoffMs) {
-        int attempt = 1;
-        while (true) {
+        await(executeAsync(() -> {
+            task.run();
+            return null;
+        }, RetryPolicy.of(maxAttempts, backoffMs)));
+    }
+
+    /**
+     * İlk deneme çağıran thread'de çalışır; tekrar denemeler bekleme süresi dolunca
+     * zamanlayıcı havuzunda çalışır. Hiçbir thread bekleme için uyutulmaz.
+     */
+    public <T> CompletableFuture<T> executeAsync(Callable<T> task, RetryPolicy policy) {
+        return retryAsync(() -> {
             try {
-                task.run();
-                if (attempt > 1) {
-                    metricsService.incrementRetriesAttempted();
-                }
+                return CompletableFuture.completedFuture(task.call());
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }, policy);
+    }
+
+    /**
+     * Asenkron işlemi politika doğrultusunda tekrar dener. Dönen future, denemeler tükendiğinde
+     * veya hata tekrar denenemez olduğunda RetryExhaustedException ile tamamlanır.
+     * Ayrı isimdedir: executeAsync(Callable) ile aynı adı taşısaydı "return null" dönen bir lambda
+     * bu aşırı yüklemeye bağlanır ve görev çalıştıktan sonra NullPointerException fırlatırdı.
+     */
+    public <T> CompletableFuture<T> retryAsync(Supplier<CompletableFuture<T>> attempt, RetryPolicy policy) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        runAttempt(attempt, policy, 1, result);
+        return result;
+    }
+
+    private <T> void runAttempt(Supplier<CompletableFuture<T>> attempt, RetryPolicy policy, int attemptNo,
+                                CompletableFuture<T> result) {
+        CompletableFuture<T> call;
+        try {
+            call = attempt.get();
+        } catch (Exception e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        call.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
                 return;
-            } catch (Exception ex) {
-                if (attempt >= maxAttempts) {
-                    log.error("Retry failed after {} attempts: {}", attempt, ex.getMessage());
-                    metricsService.incrementRetriesFailed();
-                    return;
-                }
-                try {
-                    Thread.sleep(backoffMs);
-                } catch (InterruptedException ignored) {}
-                attempt++;
             }
+            Throwable cause = unwrap(error);
+            if (attemptNo >= policy.getMaxAttempts() || !policy.isRetryable(cause)) {
+                log.error("Retry failed after {} attempts: {}", attemptNo, cause.getMessage());
+                metricsService.incrementRetriesFailed();
+                result.completeExceptionally(new RetryExhaustedException(attemptNo, cause));
+                return;
+            }
+            long delayMs = policy.backoffMs(attemptNo);
+            if (cause instanceof RetryAfterHint hint) {
+                // Platformun bildirdiği süreden önce denemek yine reddedilir; politika tavanını aşmaz
+                delayMs = Math.max(delayMs, Math.min(hint.getRetryAfterMs(), policy.getMaxBackoffMs()));
+            }
+            metricsService.incrementRetriesAttempted();
+            try {
+                scheduler.schedule(() -> runAttempt(attempt, policy, attemptNo + 1, result), delayMs, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                // Uygulama kapanırken zamanlayıcı iş kabul etmez
+                result.completeExceptionally(new RetryExhaustedException(attemptNo, cause));
+            }
+        });
+    }
+
+    /**
+     * Future'ı bekler ve CompletionException/ExecutionException sarmalını açarak asıl hatayı fırlatır.
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException re) throw re;
+            throw new RetryExhaustedException(1, cause);
         }
     }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public static class RetryExhaustedException extends RuntimeException {
+        private final int attempts;
+
+        public RetryExhaustedException(int attempts, Throwable cause) {
+            super(cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage(), cause);
+            this.attempts = attempts;
+        }
+
+        public int getAttempts() { return attempts; }
+    }
 }
@@ -0,0 +1,67 @@
+package com.ornek.ecomstocksync.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Tekrar deneme politikası: deneme sayısı, üstel bekleme (full jitter) ve hangi hataların
+ * tekrar denenebileceği. Değiştirilemez; with* metotları yeni bir kopya döner.
+ */
+public final class RetryPolicy {
+
+    // Geçersiz girdi gibi hatalar tekrar denemekle düzelmez
+    private static final Predicate<Throwable> DEFAULT_RETRYABLE =
+        ex -> !(ex instanceof IllegalArgumentException) && !(ex instanceof UnsupportedOperationException);
+
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final Predicate<Throwable> retryable;
+
+    private RetryPolicy(int maxAttempts, long baseBackoffMs, long maxBackoffMs, Predicate<Throwable> retryable) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMs = Math.max(0, baseBackoffMs);
+        this.maxBackoffMs = Math.max(this.baseBackoffMs, maxBackoffMs);
+        this.retryable = retryable;
+    }
+
+    public static RetryPolicy of(int maxAttempts, long baseBackoffMs) {
+        return new RetryPolicy(maxAttempts, baseBackoffMs, baseBackoffMs * 32, DEFAULT_RETRYABLE);
+    }
+
+    public RetryPolicy withMaxBackoffMs(long maxBackoffMs) {
+        return new RetryPolicy(maxAttempts, baseBackoffMs, maxBackoffMs, retryable);
+    }
+
+    /**
+     * Sadece verilen koşulu sağlayan hatalar tekrar denenir
+     */
+    public RetryPolicy retryOn(Predicate<Throwable> retryable) {
+        return new RetryPolicy(maxAttempts, baseBackoffMs, maxBackoffMs, retryable);
+    }
+
+    /**
+     * Verilen hata tipi tekrar denenmez
+     */
+    public RetryPolicy abortOn(Class<? extends Throwable> type) {
+        return new RetryPolicy(maxAttempts, baseBackoffMs, maxBackoffMs, retryable.and(ex -> !type.isInstance(ex)));
+    }
+
+    public int getMaxAttempts() { return maxAttempts; }
+    public long getBaseBackoffMs() { return baseBackoffMs; }
+    public long getMaxBackoffMs() { return maxBackoffMs; }
+
+    public boolean isRetryable(Throwable ex) {
+        return retryable.test(ex);
+    }
+
+    /**
+     * attempt numaralı denemeden sonra beklenecek süre: [0, min(max, base * 2^(attempt-1))]
+     */
+    public long backoffMs(int attempt) {
+        if (baseBackoffMs == 0) return 0;
+        int shift = Math.min(attempt - 1, 30);
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << shift);
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
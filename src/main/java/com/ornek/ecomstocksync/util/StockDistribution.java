@@ -0,0 +1,67 @@
+package com.ornek.ecomstocksync.util;
+
+import com.ornek.ecomstocksync.entity.PlatformProduct;
+
+import java.util.List;
+
+/**
+ * Malzeme stok değişiminin platform ürünlerine paylaştırılması. Platformların distributionRatio toplamı
+ * sıfırsa aktif ürünlere eşit, değilse oranlarına göre (yüzde) bölünür; listenin son elemanı aktifse
+ * yuvarlama farkı dahil kalanı alır. Sıra platform ürün id'sidir; yayma ve mutabakat aynı sırayla çağırır.
+ */
+public final class StockDistribution {
+
+    private StockDistribution() {
+    }
+
+    /**
+     * @return platformProducts ile aynı sırada paylar; pasif ürünlerin payı 0
+     */
+    public static int[] portions(List<PlatformProduct> platformProducts, int stockChange) {
+        int size = platformProducts.size();
+        boolean[] active = new boolean[size];
+        int[] ratios = new int[size];
+        for (int i = 0; i < size; i++) {
+            PlatformProduct pp = platformProducts.get(i);
+            active[i] = pp.isActive();
+            ratios[i] = ratio(pp.getPlatform().getDistributionRatio());
+        }
+        return portions(active, ratios, stockChange);
+    }
+
+    /**
+     * Entity yüklemeden çalışan çağıranlar (mutabakat) için aynı kural; diziler ürün sırasındadır.
+     * @param ratios platform distributionRatio değerleri, tanımsızlar 0
+     */
+    public static int[] portions(boolean[] active, int[] ratios, int stockChange) {
+        int size = active.length;
+        int totalRatio = 0;
+        int activeCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (active[i]) {
+                activeCount++;
+                totalRatio += ratios[i];
+            }
+        }
+        boolean useEqual = totalRatio == 0;
+        int[] portions = new int[size];
+        int remaining = stockChange;
+        for (int i = 0; i < size; i++) {
+            if (!active[i]) continue;
+            int portion = useEqual
+                ? Math.round((float) stockChange / (float) activeCount)
+                : Math.round(stockChange * (ratios[i] / 100f));
+            // son aktif elemana kalan farkı ver
+            if (i == size - 1) {
+                portion = remaining;
+            }
+            remaining -= portion;
+            portions[i] = portion;
+        }
+        return portions;
+    }
+
+    public static int ratio(Integer distributionRatio) {
+        return distributionRatio == null ? 0 : distributionRatio;
+    }
+}
@@ -0,0 +1,155 @@
+package com.ornek.ecomstocksync.webhook;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ornek.ecomstocksync.entity.Platform;
+import com.ornek.ecomstocksync.integration.EbayClient;
+import com.ornek.ecomstocksync.repository.PlatformRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * eBay bildirim imzası doğrulama. X-EBAY-SIGNATURE Base64 kodlu bir JSON'dur: {"alg":"ECDSA","kid":..,
+ * "signature":..,"digest":"SHA1"}. İmza eBay'in özel anahtarıyla atılır; kid ile adlandırılan açık anahtar
+ * Notification API'den (getPublicKey) okunur ve önbellekte tutulur, gövde bu anahtarla doğrulanır.
+ * <p>
+ * Uç nokta kaydında eBay'in gönderdiği challenge_code da burada yanıtlanır:
+ * SHA-256(challengeCode + verificationToken + endpoint), hex.
+ */
+@Component
+public class EbayNotificationVerifier {
+    private static final Logger log = LoggerFactory.getLogger(EbayNotificationVerifier.class);
+
+    // Anahtar rotasyonlarında eski anahtarlar birikmesin
+    private static final int MAX_KEYS = 64;
+
+    private final ObjectMapper objectMapper;
+    private final PlatformRepository platformRepository;
+    private final EbayClient ebayClient;
+    // kid -> açık anahtar; anahtarlar eBay genelidir, platforma göre değişmez
+    private final Map<String, NotificationKey> keys = new ConcurrentHashMap<>();
+
+    public EbayNotificationVerifier(ObjectMapper objectMapper, PlatformRepository platformRepository, EbayClient ebayClient) {
+        this.objectMapper = objectMapper;
+        this.platformRepository = platformRepository;
+        this.ebayClient = ebayClient;
+    }
+
+    /**
+     * @param platformId Anahtar önbellekte yoksa Notification API'yi çağırmak için kullanılan platform
+     * @param signatureHeader X-EBAY-SIGNATURE başlığı
+     * @return İmza gövde ile eşleşiyor mu; anahtar okunamazsa false
+     */
+    public boolean verify(Long platformId, byte[] body, String signatureHeader) {
+        if (signatureHeader == null || signatureHeader.isBlank()) {
+            return false;
+        }
+        JsonNode header;
+        byte[] signature;
+        try {
+            header = objectMapper.readTree(Base64.getDecoder().decode(signatureHeader.trim()));
+            signature = Base64.getDecoder().decode(header.path("signature").asText(""));
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+        String keyId = header.path("kid").asText("");
+        if (keyId.isEmpty() || signature.length == 0) {
+            return false;
+        }
+        NotificationKey key = key(platformId, keyId);
+        if (key == null) {
+            return false;
+        }
+        try {
+            Signature verifier = Signature.getInstance(key.algorithm);
+            verifier.initVerify(key.publicKey);
+            verifier.update(body == null ? new byte[0] : body);
+            return verifier.verify(signature);
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * eBay'in uç nokta doğrulama isteğine dönülecek challengeResponse değeri
+     * @param endpoint eBay'e kaydedilen uç nokta adresi (sorgu parametresi olmadan)
+     */
+    public String challengeResponse(String challengeCode, String verificationToken, String endpoint) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(challengeCode.getBytes(StandardCharsets.UTF_8));
+            digest.update(verificationToken.getBytes(StandardCharsets.UTF_8));
+            digest.update(endpoint.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 kullanılamıyor: " + e.getMessage(), e);
+        }
+    }
+
+    private NotificationKey key(Long platformId, String keyId) {
+        NotificationKey cached = keys.get(keyId);
+        if (cached != null) {
+            return cached;
+        }
+        // Okuma HTTP thread'inde yapılır; aynı kid için yalnızca ilk bildirimler bekler
+        Platform platform = platformRepository.findById(platformId).orElse(null);
+        if (platform == null) {
+            return null;
+        }
+        NotificationKey key;
+        try {
+            key = parse(ebayClient.fetchPublicKey(platform, keyId));
+        } catch (RuntimeException | GeneralSecurityException e) {
+            log.warn("[eBay] Public key {} could not be loaded: {}", keyId, e.getMessage());
+            return null;
+        }
+        if (key == null) {
+            log.warn("[eBay] Public key {} not found", keyId);
+            return null;
+        }
+        if (keys.size() >= MAX_KEYS) {
+            keys.clear();
+        }
+        keys.put(keyId, key);
+        return key;
+    }
+
+    private static NotificationKey parse(JsonNode body) throws GeneralSecurityException {
+        if (body == null || !"ECDSA".equalsIgnoreCase(body.path("algorithm").asText()) || !body.hasNonNull("key")) {
+            return null;
+        }
+        String pem = body.path("key").asText()
+            .replace("-----BEGIN PUBLIC KEY-----", "")
+            .replace("-----END PUBLIC KEY-----", "")
+            .replaceAll("\\s", "");
+        PublicKey publicKey = KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(pem)));
+        // "SHA1" -> SHA1withECDSA, "SHA256" / "SHA-256" -> SHA256withECDSA
+        String digest = body.path("digest").asText("SHA1").replace("-", "").toUpperCase(Locale.ROOT);
+        return new NotificationKey(publicKey, digest + "withECDSA");
+    }
+
+    private static final class NotificationKey {
+        final PublicKey publicKey;
+        final String algorithm;
+
+        NotificationKey(PublicKey publicKey, String algorithm) {
+            this.publicKey = publicKey;
+            this.algorithm = algorithm;
+        }
+    }
+}
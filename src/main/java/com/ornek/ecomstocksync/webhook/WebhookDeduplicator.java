@@ -0,0 +1,276 @@
+package com.ornek.ecomstocksync.webhook;
+
+import com.ornek.ecomstocksync.entity.ProcessedWebhookEvent;
+import com.ornek.ecomstocksync.repository.ProcessedWebhookEventRepository;
+import com.ornek.ecomstocksync.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tekrar gönderilen webhook olaylarını ayıklar. Üç katman:
+ * <ul>
+ *   <li>HTTP thread'inde zaman pencereli bellek kümesi: son pencere içinde görülen anahtar kuyruğa hiç alınmaz.</li>
+ *   <li>İşçide Bloom filtresi: webhook_processed_event tablosundaki anahtarları özetler; "kesin yok" diyorsa
+ *       veritabanına sorulmaz. Filtre kapalıysa veya "olabilir" diyorsa parti başına tek sorgu atılır.</li>
+ *   <li>Tekil indeksli tablo: anahtar, olayın uygulandığı transaction'da yazılır; yeniden başlatmada ve
+ *       birden fazla instance'ta son söz veritabanındadır.</li>
+ * </ul>
+ */
+@Component
+public class WebhookDeduplicator {
+    private static final Logger log = LoggerFactory.getLogger(WebhookDeduplicator.class);
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final int REBUILD_PAGE_SIZE = 5000;
+
+    private final ProcessedWebhookEventRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final long windowMs;
+    private final int maxEntries;
+    private final boolean bloomEnabled;
+    private final long bloomExpectedInsertions;
+    private final double bloomFpp;
+    private final int retentionHours;
+
+    // İki nesilli pencere: anahtarlar en az windowMs/2, en çok windowMs boyunca tutulur
+    private volatile Set<String> current = ConcurrentHashMap.newKeySet();
+    private volatile Set<String> previous = ConcurrentHashMap.newKeySet();
+    private volatile long generationStartedAt = System.currentTimeMillis();
+
+    // Henüz kurulmadıysa null; bu sürede tüm anahtarlar veritabanında kontrol edilir
+    private volatile BloomFilter bloom;
+    // Yeniden kurulum sırasında yazılan anahtarlar yeni filtreye de eklenir
+    private volatile BloomFilter rebuilding;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong batchHits = new AtomicLong();
+    private final AtomicLong bloomNegatives = new AtomicLong();
+    private final AtomicLong dbChecks = new AtomicLong();
+    private final AtomicLong dbHits = new AtomicLong();
+    private final AtomicLong recorded = new AtomicLong();
+
+    public WebhookDeduplicator(ProcessedWebhookEventRepository repository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${webhook.dedup.window.ms:3600000}") long windowMs,
+                               @Value("${webhook.dedup.max-entries:200000}") int maxEntries,
+                               @Value("${webhook.dedup.bloom.enabled:true}") boolean bloomEnabled,
+                               @Value("${webhook.dedup.bloom.expected-insertions:1000000}") long bloomExpectedInsertions,
+                               @Value("${webhook.dedup.bloom.fpp:0.01}") double bloomFpp,
+                               @Value("${webhook.dedup.retention.hours:72}") int retentionHours) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.windowMs = Math.max(1000, windowMs);
+        this.maxEntries = Math.max(2, maxEntries);
+        this.bloomEnabled = bloomEnabled;
+        this.bloomExpectedInsertions = bloomExpectedInsertions;
+        this.bloomFpp = bloomFpp;
+        this.retentionHours = retentionHours;
+    }
+
+    /**
+     * Olayın idempotency anahtarı: platformun verdiği olay id'si, yoksa konu ve gövdenin SHA-256 özeti
+     */
+    public String keyOf(String eventId, String topic, byte[] body) {
+        if (eventId != null && !eventId.isBlank() && eventId.length() <= MAX_KEY_LENGTH) {
+            return eventId.trim();
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (eventId != null) digest.update(eventId.getBytes(StandardCharsets.UTF_8));
+            if (topic != null) digest.update(topic.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            if (body != null) digest.update(body);
+            return "sha256:" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * HTTP thread'inde çağrılır; O(1), veritabanına gitmez.
+     * @return Anahtar pencere içinde ilk kez görülüyorsa true
+     */
+    public boolean firstSeen(Long platformId, String key) {
+        checks.incrementAndGet();
+        rotateIfNeeded();
+        String memoryKey = platformId + ":" + key;
+        if (previous.contains(memoryKey) || !current.add(memoryKey)) {
+            memoryHits.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private void rotateIfNeeded() {
+        long now = System.currentTimeMillis();
+        if (now - generationStartedAt < windowMs / 2 && current.size() < maxEntries / 2) {
+            return;
+        }
+        synchronized (this) {
+            if (now - generationStartedAt < windowMs / 2 && current.size() < maxEntries / 2) {
+                return;
+            }
+            previous = current;
+            current = ConcurrentHashMap.newKeySet();
+            generationStartedAt = now;
+        }
+    }
+
+    /**
+     * Daha önce uygulanmış olayları ayıklar ve kalanların anahtarlarını yazar. Olayları uygulayan
+     * transaction içinde çağrılmalıdır; uygulama geri alınırsa anahtarlar da geri alınır.
+     * Diskten tekrar işlenen olaylar Bloom filtresine bakılmadan her zaman veritabanında kontrol edilir.
+     */
+    public List<WebhookEventProcessor.ParsedEvent> filterAndRecord(List<WebhookEventProcessor.ParsedEvent> events) {
+        BloomFilter filter = bloom;
+        Map<Long, Set<String>> toCheck = new LinkedHashMap<>();
+        Set<String> batchKeys = new HashSet<>();
+        List<WebhookEventProcessor.ParsedEvent> candidates = new ArrayList<>(events.size());
+        for (WebhookEventProcessor.ParsedEvent event : events) {
+            WebhookEvent source = event.getSource();
+            if (source.getEventId() == null || event.getKind() == WebhookEventProcessor.Kind.IGNORED) {
+                candidates.add(event);
+                continue;
+            }
+            String globalKey = source.getPlatformId() + ":" + source.getEventId();
+            if (!batchKeys.add(globalKey)) {
+                batchHits.incrementAndGet();
+                continue;
+            }
+            candidates.add(event);
+            if (filter == null || source.getInboxId() != null || filter.mightContain(globalKey)) {
+                toCheck.computeIfAbsent(source.getPlatformId(), id -> new HashSet<>()).add(source.getEventId());
+            } else {
+                bloomNegatives.incrementAndGet();
+            }
+        }
+
+        Set<String> existing = new HashSet<>();
+        for (Map.Entry<Long, Set<String>> entry : toCheck.entrySet()) {
+            dbChecks.addAndGet(entry.getValue().size());
+            for (String key : repository.findExistingKeys(entry.getKey(), entry.getValue())) {
+                existing.add(entry.getKey() + ":" + key);
+            }
+        }
+        dbHits.addAndGet(existing.size());
+
+        List<WebhookEventProcessor.ParsedEvent> fresh = new ArrayList<>(candidates.size());
+        List<ProcessedWebhookEvent> rows = new ArrayList<>();
+        for (WebhookEventProcessor.ParsedEvent event : candidates) {
+            WebhookEvent source = event.getSource();
+            if (source.getEventId() != null && event.getKind() != WebhookEventProcessor.Kind.IGNORED) {
+                String globalKey = source.getPlatformId() + ":" + source.getEventId();
+                if (existing.contains(globalKey)) {
+                    continue;
+                }
+                rows.add(new ProcessedWebhookEvent(source.getPlatformId(), source.getEventId(), source.getTopic()));
+                remember(globalKey);
+            }
+            fresh.add(event);
+        }
+        if (!rows.isEmpty()) {
+            repository.saveAll(rows);
+            recorded.addAndGet(rows.size());
+        }
+        return fresh;
+    }
+
+    // Geri alınan transaction'ın anahtarı filtrede kalabilir; bu yalnızca fazladan bir veritabanı kontrolüdür
+    private void remember(String globalKey) {
+        BloomFilter filter = bloom;
+        if (filter != null) filter.put(globalKey);
+        BloomFilter next = rebuilding;
+        if (next != null) next.put(globalKey);
+    }
+
+    /**
+     * Saklama süresini aşan anahtarları siler ve Bloom filtresini tablodan yeniden kurar.
+     * İlk çalıştırma açılışta filtreyi doldurur.
+     */
+    @Scheduled(fixedDelayString = "${webhook.dedup.maintenance.fixedDelay.ms:3600000}")
+    public void maintain() {
+        try {
+            Integer deleted = transactionTemplate.execute(tx ->
+                repository.deleteProcessedBefore(LocalDateTime.now().minusHours(retentionHours)));
+            if (deleted != null && deleted > 0) {
+                log.info("Removed {} expired webhook dedup keys", deleted);
+            }
+            if (bloomEnabled) {
+                rebuildBloom();
+            }
+        } catch (Exception e) {
+            log.error("Webhook dedup maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    private void rebuildBloom() {
+        BloomFilter next = new BloomFilter(bloomExpectedInsertions, bloomFpp);
+        rebuilding = next;
+        try {
+            long afterId = 0;
+            long loaded = 0;
+            while (true) {
+                long from = afterId;
+                List<Object[]> page = transactionTemplate.execute(tx ->
+                    repository.findKeysAfter(from, PageRequest.of(0, REBUILD_PAGE_SIZE)));
+                if (page == null || page.isEmpty()) break;
+                for (Object[] row : page) {
+                    next.put(row[1] + ":" + row[2]);
+                    afterId = (Long) row[0];
+                }
+                loaded += page.size();
+                if (page.size() < REBUILD_PAGE_SIZE) break;
+            }
+            bloom = next;
+            if (loaded > bloomExpectedInsertions) {
+                log.warn("Webhook dedup bloom holds {} keys, above expected {}; false positive rate will rise",
+                    loaded, bloomExpectedInsertions);
+            }
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        long total = checks.get();
+        long memory = memoryHits.get();
+        long bloomSkips = bloomNegatives.get();
+        long lookups = dbChecks.get();
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("checks", total);
+        data.put("memoryHits", memory);
+        data.put("memoryHitRate", total == 0 ? 0.0 : (double) memory / total);
+        data.put("memoryKeys", current.size() + previous.size());
+        data.put("batchHits", batchHits.get());
+        data.put("bloomEnabled", bloomEnabled);
+        data.put("bloomReady", bloom != null);
+        data.put("bloomNegatives", bloomSkips);
+        data.put("dbChecks", lookups);
+        data.put("dbHits", dbHits.get());
+        // Veritabanına gitmeden karara bağlanan işçi kontrollerinin oranı
+        data.put("bloomSkipRate", bloomSkips + lookups == 0 ? 0.0 : (double) bloomSkips / (bloomSkips + lookups));
+        data.put("recordedKeys", recorded.get());
+        return data;
+    }
+}
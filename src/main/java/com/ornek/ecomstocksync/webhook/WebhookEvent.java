@@ -0,0 +1,51 @@
+package com.ornek.ecomstocksync.webhook;
+
+import com.ornek.ecomstocksync.entity.Platform;
+import com.ornek.ecomstocksync.entity.WebhookInboxEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * İmzası doğrulanmış, işlenmeyi bekleyen webhook olayı
+ */
+public final class WebhookEvent {
+    private final Long platformId;
+    private final Platform.PlatformType platformType;
+    private final String topic;
+    private final String eventId;
+    private final String payload;
+    private final LocalDateTime receivedAt;
+    // Diskten okunduysa inbox kaydının id'si
+    private final Long inboxId;
+    private final int attempts;
+
+    public WebhookEvent(Long platformId, Platform.PlatformType platformType, String topic, String eventId, String payload) {
+        this(platformId, platformType, topic, eventId, payload, LocalDateTime.now(), null, 0);
+    }
+
+    private WebhookEvent(Long platformId, Platform.PlatformType platformType, String topic, String eventId,
+                         String payload, LocalDateTime receivedAt, Long inboxId, int attempts) {
+        this.platformId = platformId;
+        this.platformType = platformType;
+        this.topic = topic;
+        this.eventId = eventId;
+        this.payload = payload;
+        this.receivedAt = receivedAt;
+        this.inboxId = inboxId;
+        this.attempts = attempts;
+    }
+
+    public static WebhookEvent fromInbox(WebhookInboxEvent inbox) {
+        return new WebhookEvent(inbox.getPlatform().getId(), inbox.getPlatform().getType(), inbox.getTopic(),
+            inbox.getEventId(), inbox.getPayload(), inbox.getReceivedAt(), inbox.getId(), inbox.getAttempts());
+    }
+
+    public Long getPlatformId() { return platformId; }
+    public Platform.PlatformType getPlatformType() { return platformType; }
+    public String getTopic() { return topic; }
+    public String getEventId() { return eventId; }
+    public String getPayload() { return payload; }
+    public LocalDateTime getReceivedAt() { return receivedAt; }
+    public Long getInboxId() { return inboxId; }
+    public int getAttempts() { return attempts; }
+}
@@ -0,0 +1,273 @@
+package com.ornek.ecomstocksync.webhook;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ornek.ecomstocksync.entity.MaterialCard;
+import com.ornek.ecomstocksync.entity.Platform;
+import com.ornek.ecomstocksync.entity.PlatformProduct;
+import com.ornek.ecomstocksync.entity.StockMovement;
+import com.ornek.ecomstocksync.repository.MaterialCardRepository;
+import com.ornek.ecomstocksync.repository.PlatformProductRepository;
+import com.ornek.ecomstocksync.service.StockMovementService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Webhook gövdelerini ayrıştırır ve bir parti olayı stok hareketlerine dönüştürür.
+ * Aynı partideki satışlar platform ve malzeme bazında toplanır; her biri için tek bir çıkış/giriş hareketi yazılır.
+ * apply çağıranın transaction'ı içinde çalışır.
+ * <p>
+ * Satırlar client'larla aynı id modeliyle eşlenir: Shopify sipariş satırları SKU veya variant_id ile
+ * (platformProductId varyant id'sidir), inventory_levels bildirimleri inventory_item_id ile (inventoryItemId);
+ * eBay satırları SKU ile (platformProductId offer id'sidir, bildirimlerde gelmez).
+ */
+@Component
+public class WebhookEventProcessor {
+    private static final Logger log = LoggerFactory.getLogger(WebhookEventProcessor.class);
+
+    public enum Kind { SALE, RESTOCK, INVENTORY_LEVEL, IGNORED }
+
+    private final ObjectMapper objectMapper;
+    private final PlatformProductRepository platformProductRepository;
+    private final MaterialCardRepository materialRepository;
+    private final StockMovementService stockMovementService;
+
+    public WebhookEventProcessor(ObjectMapper objectMapper,
+                                 PlatformProductRepository platformProductRepository,
+                                 MaterialCardRepository materialRepository,
+                                 StockMovementService stockMovementService) {
+        this.objectMapper = objectMapper;
+        this.platformProductRepository = platformProductRepository;
+        this.materialRepository = materialRepository;
+        this.stockMovementService = stockMovementService;
+    }
+
+    /**
+     * Olayı ayrıştırır. Bozuk gövde IllegalArgumentException fırlatır; tekrar denemek düzeltmez.
+     */
+    public ParsedEvent parse(WebhookEvent event) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(event.getPayload() == null ? "" : event.getPayload());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Geçersiz webhook gövdesi: " + e.getMessage(), e);
+        }
+        if (root == null || root.isMissingNode() || !root.isObject()) {
+            throw new IllegalArgumentException("Geçersiz webhook gövdesi");
+        }
+        return event.getPlatformType() == Platform.PlatformType.EBAY ? parseEbay(event, root) : parseShopify(event, root);
+    }
+
+    // Shopify: orders/create, orders/cancelled (line_items) ve inventory_levels/update
+    private ParsedEvent parseShopify(WebhookEvent event, JsonNode root) {
+        String topic = event.getTopic() == null ? "" : event.getTopic().toLowerCase(Locale.ROOT);
+        ParsedEvent parsed = new ParsedEvent(event, kindOf(topic));
+        if (parsed.kind == Kind.INVENTORY_LEVEL) {
+            parsed.lines.add(new Line(null, null, text(root, "inventory_item_id"), root.path("available").asInt()));
+        } else if (parsed.kind != Kind.IGNORED) {
+            for (JsonNode item : root.path("line_items")) {
+                parsed.lines.add(new Line(text(item, "sku"), text(item, "variant_id"), null, item.path("quantity").asInt()));
+            }
+        }
+        return parsed;
+    }
+
+    // eBay: {"metadata":{"topic":..},"notification":{"data":{"lineItems":[..]}}} veya envanter için sku/availableQuantity
+    private ParsedEvent parseEbay(WebhookEvent event, JsonNode root) {
+        String topic = event.getTopic() != null ? event.getTopic() : root.path("metadata").path("topic").asText("");
+        ParsedEvent parsed = new ParsedEvent(event, kindOf(topic.toLowerCase(Locale.ROOT)));
+        JsonNode data = root.path("notification").path("data");
+        if (parsed.kind == Kind.INVENTORY_LEVEL) {
+            parsed.lines.add(new Line(text(data, "sku"), null, null, data.path("availableQuantity").asInt()));
+        } else if (parsed.kind != Kind.IGNORED) {
+            for (JsonNode item : data.path("lineItems")) {
+                parsed.lines.add(new Line(text(item, "sku"), null, null, item.path("quantity").asInt()));
+            }
+        }
+        return parsed;
+    }
+
+    private static Kind kindOf(String topic) {
+        switch (topic) {
+            case "orders/create":
+            case "order_created":
+            case "item_sold":
+                return Kind.SALE;
+            case "orders/cancelled":
+            case "order_cancelled":
+                return Kind.RESTOCK;
+            case "inventory_levels/update":
+            case "inventory_updated":
+                return Kind.INVENTORY_LEVEL;
+            default:
+                return Kind.IGNORED;
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() || value.asText().isEmpty() ? null : value.asText();
+    }
+
+    /**
+     * Ayrıştırılmış olayları uygular: satış/iptal satırları platform ve malzeme bazında toplanıp stok hareketi
+     * olarak yazılır, envanter bildirimleri platform ürününün stokunu günceller.
+     * Etkilenen malzemeler id sırasıyla kilitlenir; paralel işçiler aynı malzemenin stokunu ezemez.
+     */
+    public ApplyResult apply(List<ParsedEvent> events) {
+        ApplyResult result = new ApplyResult();
+        Map<Long, List<ParsedEvent>> byPlatform = new LinkedHashMap<>();
+        for (ParsedEvent event : events) {
+            if (event.kind == Kind.IGNORED) {
+                result.ignored++;
+                continue;
+            }
+            byPlatform.computeIfAbsent(event.source.getPlatformId(), id -> new ArrayList<>()).add(event);
+        }
+
+        // platformId -> materialId -> adet
+        Map<Long, Map<Long, Integer>> sold = new LinkedHashMap<>();
+        Map<Long, Map<Long, Integer>> restocked = new LinkedHashMap<>();
+        Set<Long> materialIds = new TreeSet<>();
+        for (Map.Entry<Long, List<ParsedEvent>> entry : byPlatform.entrySet()) {
+            Long platformId = entry.getKey();
+            Map<String, PlatformProduct> bySku = new HashMap<>();
+            Map<String, PlatformProduct> byProductId = new HashMap<>();
+            Map<String, PlatformProduct> byInventoryItemId = new HashMap<>();
+            Set<String> keys = new HashSet<>();
+            entry.getValue().forEach(e -> e.lines.forEach(l -> l.addKeys(keys)));
+            if (!keys.isEmpty()) {
+                for (PlatformProduct pp : platformProductRepository.findByPlatformIdAndKeys(platformId, keys)) {
+                    if (pp.getPlatformSku() != null) bySku.put(pp.getPlatformSku(), pp);
+                    if (pp.getPlatformProductId() != null) byProductId.put(pp.getPlatformProductId(), pp);
+                    if (pp.getInventoryItemId() != null) byInventoryItemId.put(pp.getInventoryItemId(), pp);
+                }
+            }
+            for (ParsedEvent event : entry.getValue()) {
+                for (Line line : event.lines) {
+                    PlatformProduct pp = match(line, bySku, byProductId, byInventoryItemId);
+                    if (pp == null) {
+                        result.unmatched++;
+                        log.debug("Webhook line not matched platformId={}, sku={}, variantId={}, inventoryItemId={}",
+                            platformId, line.sku, line.platformProductId, line.inventoryItemId);
+                        continue;
+                    }
+                    if (event.kind == Kind.INVENTORY_LEVEL) {
+                        // Değer platformdan geldi; geri gönderilmesin diye senkron işaretlenir
+                        pp.setStock(line.quantity);
+                        pp.markSynced(LocalDateTime.now());
+                        continue;
+                    }
+                    if (line.quantity <= 0) continue;
+                    // Malzeme henüz yüklenmedi (proxy); id'si kilitlemek için yeterli
+                    Long materialId = pp.getMaterial().getId();
+                    materialIds.add(materialId);
+                    (event.kind == Kind.SALE ? sold : restocked)
+                        .computeIfAbsent(platformId, id -> new LinkedHashMap<>())
+                        .merge(materialId, line.quantity, Integer::sum);
+                }
+                result.applied++;
+            }
+        }
+        if (materialIds.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, MaterialCard> materials = new HashMap<>();
+        for (MaterialCard material : materialRepository.lockAllByIdIn(materialIds)) {
+            materials.put(material.getId(), material);
+        }
+        for (Map.Entry<Long, List<ParsedEvent>> entry : byPlatform.entrySet()) {
+            Long platformId = entry.getKey();
+            String reference = "webhook:" + entry.getValue().get(0).source.getPlatformType().name().toLowerCase(Locale.ROOT) + ":" + platformId;
+            sold.getOrDefault(platformId, Map.of()).forEach((materialId, quantity) -> {
+                result.movements++;
+                record(materials.get(materialId), StockMovement.MovementType.OUTBOUND, quantity, reference, "Platform satışı");
+            });
+            restocked.getOrDefault(platformId, Map.of()).forEach((materialId, quantity) -> {
+                result.movements++;
+                record(materials.get(materialId), StockMovement.MovementType.INBOUND, quantity, reference, "Platform sipariş iptali");
+            });
+        }
+        return result;
+    }
+
+    // Her anahtar yalnızca kendi alanıyla karşılaştırılır; SKU ile id'lerin çakışması yanlış ürüne düşmez
+    private static PlatformProduct match(Line line, Map<String, PlatformProduct> bySku, Map<String, PlatformProduct> byProductId,
+                                         Map<String, PlatformProduct> byInventoryItemId) {
+        if (line.inventoryItemId != null) {
+            return byInventoryItemId.get(line.inventoryItemId);
+        }
+        PlatformProduct pp = line.sku == null ? null : bySku.get(line.sku);
+        if (pp == null && line.platformProductId != null) pp = byProductId.get(line.platformProductId);
+        return pp;
+    }
+
+    private void record(MaterialCard material, StockMovement.MovementType type, int quantity, String reference, String description) {
+        StockMovement movement = new StockMovement(material, type, BigDecimal.valueOf(quantity));
+        movement.setReference(reference);
+        movement.setDescription(description);
+        movement.setOperator("webhook");
+        movement.setMovementDate(LocalDateTime.now());
+        stockMovementService.save(movement);
+    }
+
+    public static final class ParsedEvent {
+        private final WebhookEvent source;
+        private final Kind kind;
+        private final List<Line> lines = new ArrayList<>();
+
+        ParsedEvent(WebhookEvent source, Kind kind) {
+            this.source = source;
+            this.kind = kind;
+        }
+
+        public WebhookEvent getSource() { return source; }
+        public Kind getKind() { return kind; }
+    }
+
+    private static final class Line {
+        final String sku;
+        final String platformProductId;
+        final String inventoryItemId;
+        final int quantity;
+
+        Line(String sku, String platformProductId, String inventoryItemId, int quantity) {
+            this.sku = sku;
+            this.platformProductId = platformProductId;
+            this.inventoryItemId = inventoryItemId;
+            this.quantity = quantity;
+        }
+
+        void addKeys(Set<String> keys) {
+            if (sku != null) keys.add(sku);
+            if (platformProductId != null) keys.add(platformProductId);
+            if (inventoryItemId != null) keys.add(inventoryItemId);
+        }
+    }
+
+    public static final class ApplyResult {
+        private int applied;
+        private int ignored;
+        private int unmatched;
+        private int movements;
+
+        public int getApplied() { return applied; }
+        public int getIgnored() { return ignored; }
+        public int getUnmatched() { return unmatched; }
+        public int getMovements() { return movements; }
+    }
+}
@@ -0,0 +1,312 @@
+package com.ornek.ecomstocksync.webhook;
+
+import com.ornek.ecomstocksync.cluster.ClusterCoordinator;
+import com.ornek.ecomstocksync.entity.WebhookInboxEvent;
+import com.ornek.ecomstocksync.repository.PlatformRepository;
+import com.ornek.ecomstocksync.repository.WebhookInboxEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Webhook olaylarını HTTP thread'inden ayırır. Olaylar sınırlı bir bellek kuyruğuna alınır,
+ * işçi thread'ler partiler halinde çekip tek transaction'da uygular. Kuyruk doluysa, parti uygulanamazsa
+ * veya uygulama kapanırken kuyrukta olay kalmışsa olaylar webhook_inbox tablosuna yazılır
+ * ve zamanlanmış boşaltma işi tarafından tekrar işlenir.
+ */
+@Component
+public class WebhookIngestionQueue {
+    private static final Logger log = LoggerFactory.getLogger(WebhookIngestionQueue.class);
+
+    private final BlockingQueue<WebhookEvent> queue;
+    private final WebhookEventProcessor processor;
+    private final WebhookDeduplicator deduplicator;
+    private final WebhookInboxEventRepository inboxRepository;
+    private final PlatformRepository platformRepository;
+    private final ClusterCoordinator cluster;
+    private final TransactionTemplate transactionTemplate;
+    private final int workerCount;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final ExecutorService workers;
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong ignored = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong unmatched = new AtomicLong();
+    private final AtomicLong movements = new AtomicLong();
+
+    public WebhookIngestionQueue(WebhookEventProcessor processor,
+                                 WebhookDeduplicator deduplicator,
+                                 WebhookInboxEventRepository inboxRepository,
+                                 PlatformRepository platformRepository,
+                                 ClusterCoordinator cluster,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${webhook.queue.capacity:10000}") int capacity,
+                                 @Value("${webhook.workers:2}") int workerCount,
+                                 @Value("${webhook.batch-size:200}") int batchSize,
+                                 @Value("${webhook.max-attempts:5}") int maxAttempts) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.processor = processor;
+        this.deduplicator = deduplicator;
+        this.inboxRepository = inboxRepository;
+        this.platformRepository = platformRepository;
+        this.cluster = cluster;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workerCount = Math.max(1, workerCount);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = maxAttempts;
+        AtomicInteger threadSeq = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(this.workerCount, r -> {
+            Thread t = new Thread(r, "webhook-worker-" + threadSeq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::workLoop);
+        }
+    }
+
+    /**
+     * Olayı kuyruğa alır; kuyruk doluysa diske yazar. HTTP thread'inde çağrılır.
+     * @return Olay bellek kuyruğuna alındıysa true, diske taştıysa false
+     */
+    public boolean submit(WebhookEvent event) {
+        if (running.get() && queue.offer(event)) {
+            enqueued.incrementAndGet();
+            return true;
+        }
+        spill(List.of(event), null);
+        return false;
+    }
+
+    private void workLoop() {
+        List<WebhookEvent> batch = new ArrayList<>(batchSize);
+        while (running.get()) {
+            try {
+                WebhookEvent first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Webhook worker error: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<WebhookEvent> batch) {
+        List<WebhookEventProcessor.ParsedEvent> parsed = parseAll(batch);
+        if (parsed.isEmpty()) {
+            return;
+        }
+        try {
+            record(transactionTemplate.execute(tx -> apply(parsed)));
+        } catch (Exception e) {
+            // Uygulanamayan parti diske alınır, boşaltma işi tekrar dener
+            log.error("Webhook batch of {} failed, spilling to inbox: {}", parsed.size(), e.getMessage());
+            spill(parsed.stream().map(WebhookEventProcessor.ParsedEvent::getSource).toList(), e.getMessage());
+        }
+    }
+
+    // Bozuk gövdeler tekrar denenmeden FAILED olarak saklanır
+    private List<WebhookEventProcessor.ParsedEvent> parseAll(List<WebhookEvent> batch) {
+        List<WebhookEventProcessor.ParsedEvent> parsed = new ArrayList<>(batch.size());
+        List<WebhookEvent> malformed = new ArrayList<>();
+        for (WebhookEvent event : batch) {
+            try {
+                parsed.add(processor.parse(event));
+            } catch (IllegalArgumentException e) {
+                malformed.add(event);
+            }
+        }
+        if (!malformed.isEmpty()) {
+            failed.addAndGet(malformed.size());
+            persistFailed(malformed, "Geçersiz webhook gövdesi");
+        }
+        return parsed;
+    }
+
+    // Daha önce uygulanmış olaylar ayıklanır; anahtarlar uygulama ile aynı transaction'da yazılır
+    private WebhookEventProcessor.ApplyResult apply(List<WebhookEventProcessor.ParsedEvent> parsed) {
+        List<WebhookEventProcessor.ParsedEvent> fresh = deduplicator.filterAndRecord(parsed);
+        duplicates.addAndGet(parsed.size() - fresh.size());
+        return processor.apply(fresh);
+    }
+
+    private void record(WebhookEventProcessor.ApplyResult result) {
+        processed.addAndGet(result.getApplied());
+        ignored.addAndGet(result.getIgnored());
+        unmatched.addAndGet(result.getUnmatched());
+        movements.addAndGet(result.getMovements());
+    }
+
+    private void spill(List<WebhookEvent> events, String error) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                for (WebhookEvent event : events) {
+                    WebhookInboxEvent inbox = toInbox(event);
+                    inbox.setLastError(error);
+                    inbox.setAttempts(error == null ? 0 : 1);
+                    inboxRepository.save(inbox);
+                }
+            });
+            spilled.addAndGet(events.size());
+        } catch (Exception e) {
+            log.error("Webhook spill failed, {} events lost: {}", events.size(), e.getMessage());
+        }
+    }
+
+    private void persistFailed(List<WebhookEvent> events, String error) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                for (WebhookEvent event : events) {
+                    WebhookInboxEvent inbox = event.getInboxId() != null
+                        ? inboxRepository.findById(event.getInboxId()).orElseGet(() -> toInbox(event))
+                        : toInbox(event);
+                    inbox.setStatus(WebhookInboxEvent.Status.FAILED);
+                    inbox.setLastError(error);
+                    inboxRepository.save(inbox);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Could not record {} failed webhook events: {}", events.size(), e.getMessage());
+        }
+    }
+
+    private WebhookInboxEvent toInbox(WebhookEvent event) {
+        WebhookInboxEvent inbox = new WebhookInboxEvent();
+        inbox.setPlatform(platformRepository.getReferenceById(event.getPlatformId()));
+        inbox.setTopic(event.getTopic());
+        inbox.setEventId(event.getEventId());
+        inbox.setPayload(event.getPayload());
+        inbox.setReceivedAt(event.getReceivedAt());
+        return inbox;
+    }
+
+    /**
+     * Diske taşmış olayları bellek kuyruğu boşken sırayla işler
+     */
+    @Scheduled(fixedDelayString = "${webhook.inbox.drain.fixedDelay.ms:5000}")
+    public void drainInbox() {
+        // Inbox ortak tablo; iki düğüm aynı satırları işlemesin diye yalnızca lider boşaltır
+        if (queue.size() > batchSize || !cluster.isLeader() || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (running.get()) {
+                List<WebhookEvent> batch = transactionTemplate.execute(tx ->
+                    inboxRepository.findBatch(WebhookInboxEvent.Status.PENDING, PageRequest.of(0, batchSize))
+                        .stream().map(WebhookEvent::fromInbox).toList());
+                if (batch == null || batch.isEmpty()) {
+                    return;
+                }
+                drainBatch(batch);
+                if (batch.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Webhook inbox drain failed: {}", e.getMessage());
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    private void drainBatch(List<WebhookEvent> batch) {
+        List<WebhookEventProcessor.ParsedEvent> parsed = parseAll(batch);
+        if (parsed.isEmpty()) {
+            return;
+        }
+        List<Long> ids = parsed.stream().map(p -> p.getSource().getInboxId()).toList();
+        try {
+            // Uygulama ve işaretleme aynı transaction'da: yarıda kalırsa olay tekrar işlenir, iki kez işlenmez
+            WebhookEventProcessor.ApplyResult result = transactionTemplate.execute(tx -> {
+                WebhookEventProcessor.ApplyResult r = apply(parsed);
+                inboxRepository.markProcessed(ids, WebhookInboxEvent.Status.PROCESSED, LocalDateTime.now());
+                return r;
+            });
+            record(result);
+        } catch (Exception e) {
+            log.warn("Webhook inbox batch of {} failed: {}", ids.size(), e.getMessage());
+            transactionTemplate.executeWithoutResult(tx -> {
+                for (WebhookInboxEvent inbox : inboxRepository.findAllById(ids)) {
+                    inbox.setAttempts(inbox.getAttempts() + 1);
+                    inbox.setLastError(e.getMessage());
+                    if (inbox.getAttempts() >= maxAttempts) {
+                        inbox.setStatus(WebhookInboxEvent.Status.FAILED);
+                        failed.incrementAndGet();
+                    }
+                }
+            });
+            throw e;
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("queueDepth", queue.size());
+        data.put("queueCapacity", queue.size() + queue.remainingCapacity());
+        data.put("enqueued", enqueued.get());
+        data.put("spilled", spilled.get());
+        data.put("processed", processed.get());
+        data.put("failed", failed.get());
+        data.put("ignored", ignored.get());
+        data.put("duplicatesDropped", duplicates.get());
+        data.put("unmatchedLines", unmatched.get());
+        data.put("stockMovements", movements.get());
+        return data;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running.set(false);
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Kuyrukta kalanlar bir sonraki açılışta işlenmek üzere diske yazılır
+        List<WebhookEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            spill(remaining, null);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.ornek.ecomstocksync.webhook;
+
+import com.ornek.ecomstocksync.entity.Platform;
+import com.ornek.ecomstocksync.repository.PlatformRepository;
+import com.ornek.ecomstocksync.service.PlatformService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Webhook isteğinin HTTP thread'inde yapılan kısmı: platformu bulur, imzayı doğrular ve olayı kuyruğa bırakır.
+ * Platform çözümlemesi ve secret önbellekten gelir; normal yolda veritabanına gidilmez.
+ * Shopify imzası WEBHOOK_SECRET ile HMAC-SHA256, eBay imzası eBay'in açık anahtarıyla ECDSA'dır
+ * ({@link EbayNotificationVerifier}); eBay uç nokta doğrulaması VERIFICATION_TOKEN kimlik bilgisini kullanır.
+ */
+@Component
+public class WebhookReceiver {
+
+    public static final String SECRET_CREDENTIAL_TYPE = "WEBHOOK_SECRET";
+    public static final String VERIFICATION_TOKEN_CREDENTIAL_TYPE = "VERIFICATION_TOKEN";
+    // eBay'e kaydedilen uç nokta adresi; tanımlı değilse isteğin adresi kullanılır
+    public static final String ENDPOINT_CREDENTIAL_TYPE = "WEBHOOK_ENDPOINT";
+
+    private static final int MAX_CACHED_PLATFORMS = 1000;
+
+    public enum Outcome { QUEUED, SPILLED, DUPLICATE, UNAUTHORIZED, UNKNOWN_PLATFORM }
+
+    private final PlatformRepository platformRepository;
+    private final PlatformService platformService;
+    private final WebhookSignatureVerifier signatureVerifier;
+    private final EbayNotificationVerifier ebayVerifier;
+    private final WebhookIngestionQueue ingestionQueue;
+    private final WebhookDeduplicator deduplicator;
+    private final long platformCacheMs;
+    private final Map<String, PlatformRef> platforms = new ConcurrentHashMap<>();
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+
+    public WebhookReceiver(PlatformRepository platformRepository,
+                           PlatformService platformService,
+                           WebhookSignatureVerifier signatureVerifier,
+                           EbayNotificationVerifier ebayVerifier,
+                           WebhookIngestionQueue ingestionQueue,
+                           WebhookDeduplicator deduplicator,
+                           @Value("${webhook.platform-cache.ms:60000}") long platformCacheMs) {
+        this.platformRepository = platformRepository;
+        this.platformService = platformService;
+        this.signatureVerifier = signatureVerifier;
+        this.ebayVerifier = ebayVerifier;
+        this.ingestionQueue = ingestionQueue;
+        this.deduplicator = deduplicator;
+        this.platformCacheMs = platformCacheMs;
+    }
+
+    /**
+     * @param platformCode Platform kodu; verilmezse bu tipteki tek aktif platform kullanılır
+     */
+    public Outcome receive(Platform.PlatformType type, String platformCode, String topic, String eventId,
+                           String signature, byte[] body) {
+        received.incrementAndGet();
+        PlatformRef platform = resolve(type, platformCode);
+        if (platform == null) {
+            rejected.incrementAndGet();
+            return Outcome.UNKNOWN_PLATFORM;
+        }
+        if (!verify(type, platform.id, body, signature)) {
+            rejected.incrementAndGet();
+            return Outcome.UNAUTHORIZED;
+        }
+        // Tekrar gönderim pencere içindeyse kuyruğa alınmaz; platform yine 200 alır ve göndermeyi bırakır
+        String key = deduplicator.keyOf(eventId, topic, body);
+        if (!deduplicator.firstSeen(platform.id, key)) {
+            duplicates.incrementAndGet();
+            return Outcome.DUPLICATE;
+        }
+        String payload = body == null ? null : new String(body, StandardCharsets.UTF_8);
+        WebhookEvent event = new WebhookEvent(platform.id, type, topic, key, payload);
+        return ingestionQueue.submit(event) ? Outcome.QUEUED : Outcome.SPILLED;
+    }
+
+    /**
+     * eBay uç nokta doğrulaması (GET ?challenge_code=..)
+     * @param requestUrl İsteğin sorgu parametresi olmadan adresi
+     * @return challengeResponse; platform veya doğrulama jetonu yoksa null
+     */
+    public String ebayChallenge(String platformCode, String challengeCode, String requestUrl) {
+        PlatformRef platform = resolve(Platform.PlatformType.EBAY, platformCode);
+        if (platform == null || challengeCode == null || challengeCode.isEmpty()) {
+            return null;
+        }
+        String token = platformService.getCredential(platform.id, VERIFICATION_TOKEN_CREDENTIAL_TYPE);
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String endpoint = platformService.getCredential(platform.id, ENDPOINT_CREDENTIAL_TYPE);
+        return ebayVerifier.challengeResponse(challengeCode, token,
+            endpoint == null || endpoint.isBlank() ? requestUrl : endpoint);
+    }
+
+    private boolean verify(Platform.PlatformType type, Long platformId, byte[] body, String signature) {
+        if (type == Platform.PlatformType.EBAY) {
+            return ebayVerifier.verify(platformId, body, signature);
+        }
+        String secret = platformService.getCredential(platformId, SECRET_CREDENTIAL_TYPE);
+        return signatureVerifier.verify(secret, body, signature);
+    }
+
+    private PlatformRef resolve(Platform.PlatformType type, String platformCode) {
+        String key = type.name() + ":" + (platformCode == null ? "" : platformCode);
+        long now = System.currentTimeMillis();
+        PlatformRef cached = platforms.get(key);
+        if (cached != null && now - cached.resolvedAt < platformCacheMs) {
+            return cached.id == null ? null : cached;
+        }
+        Platform platform;
+        if (platformCode != null) {
+            platform = platformRepository.findByCode(platformCode)
+                .filter(p -> p.getType() == type && p.isActive())
+                .orElse(null);
+        } else {
+            List<Platform> candidates = platformRepository.findByType(type).stream().filter(Platform::isActive).toList();
+            platform = candidates.size() == 1 ? candidates.get(0) : null;
+        }
+        PlatformRef ref = new PlatformRef(platform == null ? null : platform.getId(), now);
+        // Kod istekten geldiği için bilinmeyen kodlarla harita şişirilemesin
+        if (platforms.size() >= MAX_CACHED_PLATFORMS) {
+            platforms.clear();
+        }
+        platforms.put(key, ref);
+        return ref.id == null ? null : ref;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> data = new LinkedHashMap<>(ingestionQueue.snapshot());
+        data.put("received", received.get());
+        data.put("rejected", rejected.get());
+        data.put("duplicates", duplicates.get());
+        data.put("dedup", deduplicator.snapshot());
+        return data;
+    }
+
+    private static final class PlatformRef {
+        final Long id;
+        final long resolvedAt;
+
+        PlatformRef(Long id, long resolvedAt) {
+            this.id = id;
+            this.resolvedAt = resolvedAt;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.ornek.ecomstocksync.webhook;
+
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * HMAC-SHA256 webhook imzası doğrulama. Mac.getInstance + init pahalıdır; her secret için
+ * hazır Mac örnekleri bir havuzda tutulur (Mac thread-safe değildir, örnek ödünç alınıp geri verilir).
+ */
+@Component
+public class WebhookSignatureVerifier {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    // Secret rotasyonlarında eski havuzlar birikmesin
+    private static final int MAX_SECRETS = 64;
+
+    private final Map<String, Queue<Mac>> macPools = new ConcurrentHashMap<>();
+
+    /**
+     * @param signature Base64 kodlu HMAC-SHA256 değeri
+     * @return İmza gövde ile eşleşiyor mu
+     */
+    public boolean verify(String secret, byte[] body, String signature) {
+        if (secret == null || secret.isEmpty() || signature == null || signature.isEmpty()) {
+            return false;
+        }
+        byte[] expected;
+        try {
+            expected = Base64.getDecoder().decode(signature.trim());
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // Karşılaştırma sabit sürelidir
+        return MessageDigest.isEqual(expected, sign(secret, body == null ? new byte[0] : body));
+    }
+
+    public byte[] sign(String secret, byte[] body) {
+        Queue<Mac> pool = macPools.get(secret);
+        if (pool == null) {
+            if (macPools.size() >= MAX_SECRETS) {
+                macPools.clear();
+            }
+            pool = macPools.computeIfAbsent(secret, s -> new ConcurrentLinkedQueue<>());
+        }
+        Mac mac = pool.poll();
+        if (mac == null) {
+            mac = newMac(secret);
+        }
+        try {
+            return mac.doFinal(body);
+        } finally {
+            // doFinal Mac'i sıfırlar, tekrar kullanılabilir
+            pool.offer(mac);
+        }
+    }
+
+    private static Mac newMac(String secret) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            return mac;
+        } catch (Exception e) {
+            throw new IllegalStateException("HMAC oluşturulamadı: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.ornek.ecomstocksync.repository;
+
+import com.ornek.ecomstocksync.entity.MaterialCard;
+import com.ornek.ecomstocksync.entity.Platform;
+import com.ornek.ecomstocksync.entity.PlatformProduct;
+import com.ornek.ecomstocksync.integration.PlatformClientFactory;
+import com.ornek.ecomstocksync.integration.PlatformHealthProber;
+import com.ornek.ecomstocksync.service.ATPService;
+import com.ornek.ecomstocksync.service.BillOfMaterialService;
+import com.ornek.ecomstocksync.service.PlatformService;
+import com.ornek.ecomstocksync.service.StockSyncService;
+import com.ornek.ecomstocksync.service.SyncHistoryService;
+import com.ornek.ecomstocksync.service.impl.ATPServiceImpl;
+import com.ornek.ecomstocksync.service.impl.OutboxServiceImpl;
+import com.ornek.ecomstocksync.service.impl.StockSyncServiceImpl;
+import com.ornek.ecomstocksync.sync.OutboxDispatcher;
+import com.ornek.ecomstocksync.sync.PlatformSyncEngine;
+import com.ornek.ecomstocksync.sync.StockReconciler;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Senkronizasyon ve ATP sıcak yollarının satır sayısından bağımsız sabit sayıda SQL çalıştırdığını
+ * Hibernate istatistikleriyle doğrular. Her ürün ayrı bir platformdadır; lazy ilişki satır başına
+ * yüklenseydi sayım ürün sayısıyla birlikte büyürdü.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ATPServiceImpl.class, StockSyncServiceImpl.class, OutboxServiceImpl.class})
+class PlatformProductQueryCountTest {
+
+    private static final int PLATFORMS = 25;
+    private static final int EXTRA_MATERIALS = 20;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformProductRepository platformProductRepository;
+
+    @Autowired
+    private ATPService atpService;
+
+    @Autowired
+    private StockSyncService stockSyncService;
+
+    @MockBean
+    private BillOfMaterialService bomService;
+
+    @MockBean
+    private PlatformService platformService;
+
+    @MockBean
+    private SyncHistoryService syncHistoryService;
+
+    @MockBean
+    private PlatformClientFactory platformClientFactory;
+
+    @MockBean
+    private PlatformSyncEngine platformSyncEngine;
+
+    @MockBean
+    private StockReconciler stockReconciler;
+
+    @MockBean
+    private PlatformHealthProber platformHealthProber;
+
+    @MockBean
+    private OutboxDispatcher outboxDispatcher;
+
+    private Statistics statistics;
+    private MaterialCard material;
+    private Platform firstPlatform;
+
+    @BeforeEach
+    void setUp() {
+        material = new MaterialCard("MAT-1", "Material 1", "pcs");
+        material.setCurrentStock(BigDecimal.valueOf(100));
+        entityManager.persist(material);
+        for (int i = 0; i < PLATFORMS; i++) {
+            Platform platform = new Platform("Platform " + i, "P" + i, Platform.PlatformType.SHOPIFY);
+            platform.setDistributionRatio(100 / PLATFORMS);
+            entityManager.persist(platform);
+            if (firstPlatform == null) firstPlatform = platform;
+            PlatformProduct platformProduct = new PlatformProduct(platform, material, "gid-" + i);
+            platformProduct.setStock(4);
+            platformProduct.setPrice(BigDecimal.TEN);
+            entityManager.persist(platformProduct);
+        }
+        // İlk platformda farklı malzemelere bağlı ek ürünler: sayfa sorgusu malzeme tablosuyla birleşir
+        for (int i = 0; i < EXTRA_MATERIALS; i++) {
+            MaterialCard extra = new MaterialCard("EXT-" + i, "Extra " + i, "pcs");
+            entityManager.persist(extra);
+            PlatformProduct platformProduct = new PlatformProduct(firstPlatform, extra, "ext-" + i);
+            platformProduct.setStock(i);
+            entityManager.persist(platformProduct);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void propagationRunsConstantStatementsPlusOneOutboxInsertPerProduct() {
+        when(platformService.getCredential(anyLong(), eq("API_KEY"))).thenReturn("key");
+
+        int updated = stockSyncService.propagateStockChange(material.getId(), 100);
+        entityManager.flush();
+
+        assertThat(updated).isEqualTo(PLATFORMS);
+        // Malzeme + platformlarıyla ürünler, ürün başına outbox INSERT'i (IDENTITY id toplu yazılamaz),
+        // tek supersede UPDATE'i ve toplu yazılan stok UPDATE'leri
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(PLATFORMS + 4);
+        assertThat(entityManager.createQuery("SELECT COUNT(o) FROM OutboxEvent o", Long.class).getSingleResult())
+            .isEqualTo(PLATFORMS);
+    }
+
+    @Test
+    void syncPageLoadIsOneStatementPerPage() {
+        Long platformId = firstPlatform.getId();
+
+        List<PlatformProduct> fullPage = platformProductRepository.findActivePageAfter(platformId, 0L, PageRequest.of(0, 500));
+        List<PlatformProduct> incrementalPage = platformProductRepository.findChangedOrStalePageAfter(
+            platformId, LocalDateTime.now(), 0L, PageRequest.of(0, 500));
+        // syncPage'in okuduğu alanlar
+        for (PlatformProduct pp : incrementalPage) {
+            assertThat(pp.getPlatformProductId()).isNotNull();
+            pp.getStock();
+            pp.getPrice();
+        }
+
+        assertThat(fullPage).hasSize(1 + EXTRA_MATERIALS);
+        assertThat(incrementalPage).hasSize(1 + EXTRA_MATERIALS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void atpDistributionAndReportDoNotLoadPlatformsPerRow() {
+        MaterialCard managed = entityManager.find(MaterialCard.class, material.getId());
+        statistics.clear();
+
+        Map<Platform, BigDecimal> distribution = atpService.calculatePlatformStockDistribution(managed, BigDecimal.valueOf(100));
+        assertThat(distribution).hasSize(PLATFORMS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        entityManager.clear();
+        statistics.clear();
+        List<ATPService.ATPReport> reports = atpService.generateATPReport();
+        assertThat(reports).hasSize(1 + EXTRA_MATERIALS);
+        // Malzemeler ve platform ürünleri (platformlarıyla, MATERIAL_ID_CHUNK altında tek parça) birer sorgu
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}